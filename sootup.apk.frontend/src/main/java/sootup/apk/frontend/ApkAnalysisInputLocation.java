@@ -38,6 +38,7 @@ import sootup.core.inputlocation.AnalysisInputLocation;
 import sootup.core.model.ClassModifier;
 import sootup.core.model.SourceType;
 import sootup.core.transform.BodyInterceptor;
+import sootup.core.transform.StmtGraphValidation;
 import sootup.core.types.ClassType;
 import sootup.core.util.Modifiers;
 import sootup.core.util.StreamUtils;
@@ -53,6 +54,8 @@ public class ApkAnalysisInputLocation implements AnalysisInputLocation {
 
   private final List<BodyInterceptor> bodyInterceptors;
 
+  @Nonnull private StmtGraphValidation stmtGraphValidation = StmtGraphValidation.FINAL;
+
   final Map<String, EnumSet<ClassModifier>> classNamesList;
 
   public ApkAnalysisInputLocation(
@@ -125,4 +128,17 @@ public class ApkAnalysisInputLocation implements AnalysisInputLocation {
   public List<BodyInterceptor> getBodyInterceptors() {
     return bodyInterceptors;
   }
+
+  /**
+   * Sets how the StmtGraphs of the bodies are validated while the body interceptors are applied.
+   */
+  public void setStmtGraphValidation(@Nonnull StmtGraphValidation stmtGraphValidation) {
+    this.stmtGraphValidation = stmtGraphValidation;
+  }
+
+  @Nonnull
+  @Override
+  public StmtGraphValidation getStmtGraphValidation() {
+    return stmtGraphValidation;
+  }
 }
@@ -155,7 +155,8 @@ public class DexClassSource extends JavaSootClassSource {
   }
 
   private JavaSootMethod loadMethod(Method method, DexMethod dexMethod) {
-    return dexMethod.makeSootMethod(method, bodyInterceptors, view);
+    return dexMethod.makeSootMethod(
+        method, bodyInterceptors, getAnalysisInputLocation().getStmtGraphValidation(), view);
   }
 
   protected static List<AnnotationUsage> convertAnnotation(Set<? extends Annotation> annotations) {
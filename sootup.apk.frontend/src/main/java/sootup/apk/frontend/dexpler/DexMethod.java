@@ -34,6 +34,7 @@ import sootup.apk.frontend.main.DexBody;
 import sootup.core.graph.MutableBlockStmtGraph;
 import sootup.core.signatures.MethodSignature;
 import sootup.core.transform.BodyInterceptor;
+import sootup.core.transform.StmtGraphValidation;
 import sootup.core.types.ClassType;
 import sootup.core.views.View;
 import sootup.java.core.JavaSootMethod;
@@ -51,6 +52,14 @@ public class DexMethod {
 
   public JavaSootMethod makeSootMethod(
       final Method method, List<BodyInterceptor> bodyInterceptors, @Nonnull View view) {
+    return makeSootMethod(method, bodyInterceptors, StmtGraphValidation.FINAL, view);
+  }
+
+  public JavaSootMethod makeSootMethod(
+      final Method method,
+      List<BodyInterceptor> bodyInterceptors,
+      @Nonnull StmtGraphValidation stmtGraphValidation,
+      @Nonnull View view) {
     int modifierFlags = method.getAccessFlags();
     if (Modifier.isAbstract(modifierFlags) || Modifier.isNative(modifierFlags)) {
       MethodSignature methodSignature =
@@ -66,11 +75,13 @@ public class DexMethod {
               new MutableBlockStmtGraph(),
               method,
               bodyInterceptors,
+              stmtGraphValidation,
               view);
       return dexMethodSource.makeSootMethod();
     } else {
       DexBody dexBody = new DexBody(method, dexEntry, declaringclassType);
-      return dexBody.makeSootMethod(method, declaringclassType, bodyInterceptors, view);
+      return dexBody.makeSootMethod(
+          method, declaringclassType, bodyInterceptors, stmtGraphValidation, view);
     }
   }
 }
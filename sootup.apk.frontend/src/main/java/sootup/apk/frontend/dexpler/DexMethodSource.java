@@ -41,6 +41,7 @@ import sootup.core.model.Body;
 import sootup.core.model.MethodModifier;
 import sootup.core.signatures.MethodSignature;
 import sootup.core.transform.BodyInterceptor;
+import sootup.core.transform.StmtGraphValidation;
 import sootup.core.util.Modifiers;
 import sootup.core.views.View;
 import sootup.java.core.JavaSootMethod;
@@ -52,6 +53,7 @@ public class DexMethodSource implements BodySource {
   private final Method method;
 
   private final List<BodyInterceptor> bodyInterceptors;
+  @Nonnull private final StmtGraphValidation stmtGraphValidation;
 
   @Nonnull private final View view;
   private final MethodSignature methodSignature;
@@ -63,10 +65,29 @@ public class DexMethodSource implements BodySource {
       Method method,
       List<BodyInterceptor> bodyInterceptors,
       @Nonnull View view) {
+    this(
+        locals,
+        methodSignature,
+        mutableStmtGraph,
+        method,
+        bodyInterceptors,
+        StmtGraphValidation.FINAL,
+        view);
+  }
+
+  public DexMethodSource(
+      Set<Local> locals,
+      MethodSignature methodSignature,
+      MutableStmtGraph mutableStmtGraph,
+      Method method,
+      List<BodyInterceptor> bodyInterceptors,
+      @Nonnull StmtGraphValidation stmtGraphValidation,
+      @Nonnull View view) {
     this.methodSignature = methodSignature;
     this.view = view;
     this.locals = locals;
     this.bodyInterceptors = bodyInterceptors;
+    this.stmtGraphValidation = stmtGraphValidation;
     this.mutableStmtGraph = mutableStmtGraph;
     this.method = method;
   }
@@ -83,10 +104,7 @@ public class DexMethodSource implements BodySource {
             .setMethodSignature(getSignature())
             .setPosition(NoPositionInformation.getInstance())
             .setLocals(locals);
-    for (BodyInterceptor bodyInterceptor : bodyInterceptors) {
-      bodyInterceptor.interceptBody(bodyBuilder, view);
-    }
-    return bodyBuilder.build();
+    return stmtGraphValidation.interceptAndBuild(bodyBuilder, bodyInterceptors, view);
   }
 
   public JavaSootMethod makeSootMethod() {
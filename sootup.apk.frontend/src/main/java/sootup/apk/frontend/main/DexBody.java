@@ -49,6 +49,7 @@ import sootup.core.jimple.common.constant.NullConstant;
 import sootup.core.jimple.common.stmt.*;
 import sootup.core.signatures.MethodSignature;
 import sootup.core.transform.BodyInterceptor;
+import sootup.core.transform.StmtGraphValidation;
 import sootup.core.types.ClassType;
 import sootup.core.types.PrimitiveType;
 import sootup.core.types.Type;
@@ -324,6 +325,15 @@ public class DexBody {
 
   public JavaSootMethod makeSootMethod(
       Method method, ClassType classType, List<BodyInterceptor> bodyInterceptors, View view) {
+    return makeSootMethod(method, classType, bodyInterceptors, StmtGraphValidation.FINAL, view);
+  }
+
+  public JavaSootMethod makeSootMethod(
+      Method method,
+      ClassType classType,
+      List<BodyInterceptor> bodyInterceptors,
+      StmtGraphValidation stmtGraphValidation,
+      View view) {
     jimplify();
     // All the statements are converted, it is time to create a mutable statement graph
     MutableBlockStmtGraph graph = new MutableBlockStmtGraph();
@@ -377,7 +387,8 @@ public class DexBody {
     }
     graph.initializeWith(listList, branchingStmtListMap, traps);
     DexMethodSource dexMethodSource =
-        new DexMethodSource(locals, methodSignature, graph, method, bodyInterceptors, view);
+        new DexMethodSource(
+            locals, methodSignature, graph, method, bodyInterceptors, stmtGraphValidation, view);
     return dexMethodSource.makeSootMethod();
   }
 
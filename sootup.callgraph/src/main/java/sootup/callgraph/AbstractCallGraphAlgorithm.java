@@ -22,28 +22,26 @@ package sootup.callgraph;
  * #L%
  */
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import javax.annotation.Nonnull;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import javax.annotation.Nullable;
 import sootup.callgraph.CallGraph.Call;
-import sootup.core.IdentifierFactory;
-import sootup.core.jimple.basic.Value;
 import sootup.core.jimple.common.expr.AbstractInvokeExpr;
-import sootup.core.jimple.common.expr.JStaticInvokeExpr;
-import sootup.core.jimple.common.ref.JStaticFieldRef;
 import sootup.core.jimple.common.stmt.InvokableStmt;
-import sootup.core.jimple.common.stmt.JAssignStmt;
-import sootup.core.jimple.common.stmt.Stmt;
 import sootup.core.model.Method;
 import sootup.core.model.SootClass;
 import sootup.core.model.SootClassMember;
 import sootup.core.model.SootMethod;
 import sootup.core.signatures.MethodSignature;
 import sootup.core.signatures.MethodSubSignature;
-import sootup.core.typehierarchy.HierarchyComparator;
 import sootup.core.typehierarchy.TypeHierarchy;
 import sootup.core.types.ClassType;
 import sootup.core.views.View;
@@ -55,12 +53,33 @@ import sootup.core.views.View;
  */
 public abstract class AbstractCallGraphAlgorithm implements CallGraphAlgorithm {
 
-  private static final Logger logger = LoggerFactory.getLogger(AbstractCallGraphAlgorithm.class);
-
   @Nonnull protected final View view;
 
+  /** the pool that processes the work list in parallel, null if it is processed sequentially */
+  @Nullable protected final ForkJoinPool pool;
+
+  /**
+   * The direct supertypes of the classes that the dispatch of the calls of a call graph depends on,
+   * recorded when the call graph is built. They are released together with their call graph.
+   */
+  private static final Cache<CallGraph, Map<ClassType, Set<ClassType>>> recordedDirectSuperTypes =
+      CacheBuilder.newBuilder().weakKeys().build();
+
+  /** @see #setCompactCallGraph(boolean) */
+  private boolean compactCallGraph = false;
+
   protected AbstractCallGraphAlgorithm(@Nonnull View view) {
+    this(view, null);
+  }
+
+  /**
+   * @param view it contains the data of the classes and methods
+   * @param pool if present, the work list is processed in parallel on this pool (see {@link
+   *     #processWorkList(View, Deque, Set, MutableCallGraph)})
+   */
+  protected AbstractCallGraphAlgorithm(@Nonnull View view, @Nullable ForkJoinPool pool) {
     this.view = view;
+    this.pool = pool;
   }
 
   /**
@@ -84,19 +103,75 @@ public abstract class AbstractCallGraphAlgorithm implements CallGraphAlgorithm {
     MutableCallGraph cg = initializeCallGraph(entryPoints, clinits);
 
     processWorkList(view, workList, processed, cg);
+    recordDirectSuperTypes(cg);
     return cg;
   }
 
+  /**
+   * Records the direct supertypes of the classes that the dispatch of the calls of the call graph
+   * depends on: the declaring classes of its methods, the invoked classes, their subtypes and all
+   * supertypes of these classes. An update of the call graph compares them with the classes in the
+   * view.
+   */
+  private void recordDirectSuperTypes(@Nonnull CallGraph callGraph) {
+    TypeHierarchy typeHierarchy = view.getTypeHierarchy();
+    Set<ClassType> invokedTypes = new HashSet<>();
+    Deque<ClassType> workList = new ArrayDeque<>();
+    for (MethodSignature method : callGraph.getMethodSignatures()) {
+      workList.add(method.getDeclClassType());
+      for (Call call : callGraph.callsFrom(method)) {
+        call.getInvokableStmt()
+            .getInvokeExpr()
+            .map(invokeExpr -> invokeExpr.getMethodSignature().getDeclClassType())
+            .ifPresent(invokedTypes::add);
+      }
+    }
+    for (ClassType invokedType : invokedTypes) {
+      workList.add(invokedType);
+      if (typeHierarchy.contains(invokedType)) {
+        typeHierarchy.subtypesOf(invokedType).forEach(workList::add);
+      }
+    }
+
+    Map<ClassType, Set<ClassType>> directSuperTypes = new HashMap<>();
+    while (!workList.isEmpty()) {
+      ClassType type = workList.pop();
+      if (!directSuperTypes.containsKey(type)) {
+        Set<ClassType> superTypes = directSuperTypesInView(type);
+        directSuperTypes.put(type, superTypes);
+        workList.addAll(superTypes);
+      }
+    }
+    recordedDirectSuperTypes.put(callGraph, directSuperTypes);
+  }
+
+  /**
+   * If set, the algorithm builds a {@link CompactCallGraph} instead of a {@link
+   * GraphBasedCallGraph}. It stores the calls in primitive arrays, which needs less memory for large
+   * call graphs.
+   *
+   * @return this algorithm
+   */
+  @Nonnull
+  public AbstractCallGraphAlgorithm setCompactCallGraph(boolean compactCallGraph) {
+    this.compactCallGraph = compactCallGraph;
+    return this;
+  }
+
   /**
    * This method creates the mutable call graph which is used in the call graph algorithm. Overwrite
    * it to change the used mutable call graph
    *
-   * @return the initialized call graph used in the call graph algorithm
+   * @return the initialized call graph used in the call graph algorithm, a {@link CompactCallGraph}
+   *     if {@link #setCompactCallGraph(boolean)} is set
    */
   protected MutableCallGraph initializeCallGraph(
       List<MethodSignature> entryPoints, List<MethodSignature> clinits) {
     ArrayList<MethodSignature> rootSignatures = new ArrayList<>(entryPoints);
     rootSignatures.addAll(clinits);
+    if (compactCallGraph) {
+      return new CompactCallGraph(rootSignatures);
+    }
     return new GraphBasedCallGraph(rootSignatures);
   }
 
@@ -128,6 +203,19 @@ public abstract class AbstractCallGraphAlgorithm implements CallGraphAlgorithm {
    *  workList</code> and processed as well. <code>cg</code> is updated accordingly. The method
    * postProcessingMethod is called after a method is processed in the <code>workList</code>.
    *
+   * <p>If the algorithm has a pool, the work list is processed in rounds: all methods of the
+   * current work list are fetched and their bodies are resolved in parallel. After the sequential
+   * pre-processing of each method, the calls of all methods are resolved in parallel, each into a
+   * call graph of its own. Finally, these calls are added to <code>cg</code> in work list order and
+   * the methods are post-processed, which fills the work list of the next round. Hence the
+   * resulting call graph is the same as the one of the sequential processing.
+   *
+   * <p>The bodies are only resolved in parallel if the view allows it. A <code>JavaView</code> with
+   * the default {@link sootup.core.cache.FullCache} resolves classes while holding the lock of the
+   * view, so the workers wait for each other and only the call resolution runs in parallel. Create
+   * the view with a {@link sootup.core.cache.provider.ConcurrentCacheProvider} to resolve the
+   * classes in parallel as well.
+   *
    * @param view it contains the classes.
    * @param workList it contains all method that have to be processed in the call graph generation.
    *     This list is filled in the execution with found call targets in the call graph algorithm.
@@ -139,6 +227,10 @@ public abstract class AbstractCallGraphAlgorithm implements CallGraphAlgorithm {
       Deque<MethodSignature> workList,
       Set<MethodSignature> processed,
       MutableCallGraph cg) {
+    if (pool != null) {
+      processWorkListInParallel(view, workList, processed, cg, pool);
+      return;
+    }
     while (!workList.isEmpty()) {
       MethodSignature currentMethodSignature = workList.pop();
       // skip if already processed
@@ -179,6 +271,111 @@ public abstract class AbstractCallGraphAlgorithm implements CallGraphAlgorithm {
     }
   }
 
+  private void processWorkListInParallel(
+      View view,
+      Deque<MethodSignature> workList,
+      Set<MethodSignature> processed,
+      MutableCallGraph cg,
+      ForkJoinPool pool) {
+    while (!workList.isEmpty()) {
+      // collect the methods of this round, skipping processed methods and library classes
+      Map<MethodSignature, SootClass> round = new LinkedHashMap<>();
+      while (!workList.isEmpty()) {
+        MethodSignature methodSignature = workList.pop();
+        if (processed.contains(methodSignature) || round.containsKey(methodSignature)) {
+          continue;
+        }
+        SootClass currentClass = view.getClass(methodSignature.getDeclClassType()).orElse(null);
+        if (currentClass != null && !currentClass.isLibraryClass()) {
+          round.put(methodSignature, currentClass);
+        }
+      }
+
+      List<SootMethod> methods =
+          runOn(
+              pool,
+              () ->
+                  round
+                      .entrySet()
+                      .parallelStream()
+                      .map(
+                          entry -> {
+                            SootMethod method =
+                                entry
+                                    .getValue()
+                                    .getMethod(entry.getKey().getSubSignature())
+                                    .orElse(null);
+                            if (method != null && method.hasBody()) {
+                              method.getBody();
+                            }
+                            return method;
+                          })
+                      .collect(Collectors.toList()));
+
+      for (MethodSignature methodSignature : round.keySet()) {
+        preProcessingMethod(view, methodSignature, workList, cg);
+        if (!cg.containsMethod(methodSignature)) {
+          cg.addMethod(methodSignature);
+        }
+      }
+
+      List<MutableCallGraph> callsOfMethods =
+          runOn(
+              pool,
+              () ->
+                  methods
+                      .parallelStream()
+                      .map(this::resolveCallsOfMethod)
+                      .collect(Collectors.toList()));
+
+      Iterator<MutableCallGraph> callsIterator = callsOfMethods.iterator();
+      for (MethodSignature methodSignature : round.keySet()) {
+        MutableCallGraph calls = callsIterator.next();
+        if (calls.containsMethod(methodSignature)) {
+          for (Call call : calls.callsFrom(methodSignature)) {
+            addCallToCG(
+                call.getSourceMethodSignature(),
+                call.getTargetMethodSignature(),
+                call.getInvokableStmt(),
+                cg,
+                workList);
+          }
+        }
+        processed.add(methodSignature);
+        postProcessingMethod(view, methodSignature, workList, cg);
+      }
+    }
+  }
+
+  /** Resolves the explicit and implicit calls of the given method into a call graph of its own. */
+  @Nonnull
+  private MutableCallGraph resolveCallsOfMethod(@Nullable SootMethod method) {
+    MutableCallGraph calls = new GraphBasedCallGraph(Collections.emptyList());
+    // the targets are added to the work list of the round when the calls are merged
+    Deque<MethodSignature> unusedWorkList = new ArrayDeque<>();
+    resolveAllCallsFromSourceMethod(method, calls, unusedWorkList);
+    resolveAllImplicitCallsFromSourceMethod(method, calls, unusedWorkList);
+    return calls;
+  }
+
+  private static <T> T runOn(@Nonnull ForkJoinPool pool, @Nonnull Callable<T> task) {
+    try {
+      return pool.submit(task).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while constructing the call graph.", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException(cause);
+    }
+  }
+
   /**
    * Adds the defined call to the given call graph. If the source or target method was added as
    * vertex to the call graph, they will be added to the worklist
@@ -210,10 +407,10 @@ public abstract class AbstractCallGraphAlgorithm implements CallGraphAlgorithm {
   }
 
   /**
-   * This method resolves all calls from a given source method. resolveCall is called for each
-   * invokable statements in the body of the source method that is implemented in the corresponding
-   * call graph algorithm. If new methods will be added as vertexes in the call graph, the work list
-   * will be updated
+   * This method resolves all calls from a given source method. resolveCall is called for each call
+   * site of the {@link CallSiteSummary} of the source method body, which is implemented in the
+   * corresponding call graph algorithm. If new methods will be added as vertexes in the call graph,
+   * the work list will be updated
    *
    * @param sourceMethod this signature is used to access the statements contained method body of
    *     the specified method
@@ -226,16 +423,13 @@ public abstract class AbstractCallGraphAlgorithm implements CallGraphAlgorithm {
       return;
     }
 
-    sourceMethod.getBody().getStmts().stream()
-        .filter(Stmt::isInvokableStmt)
-        .map(Stmt::asInvokableStmt)
-        .forEach(
-            stmt ->
-                resolveCall(sourceMethod, stmt)
-                    .forEach(
-                        targetMethod ->
-                            addCallToCG(
-                                sourceMethod.getSignature(), targetMethod, stmt, cg, workList)));
+    MethodSignature sourceSignature = sourceMethod.getSignature();
+    CallSiteSummary summary = CallSiteSummary.of(sourceMethod.getBody());
+    for (int i = 0; i < summary.callSiteCount(); i++) {
+      InvokableStmt stmt = summary.getCallSite(i);
+      resolveCall(sourceMethod, stmt)
+          .forEach(targetMethod -> addCallToCG(sourceSignature, targetMethod, stmt, cg, workList));
+    }
   }
 
   /**
@@ -267,49 +461,15 @@ public abstract class AbstractCallGraphAlgorithm implements CallGraphAlgorithm {
     if (sourceMethod == null || !sourceMethod.hasBody()) {
       return;
     }
-    InstantiateClassValueVisitor instantiateVisitor = new InstantiateClassValueVisitor();
-    sourceMethod.getBody().getStmts().stream()
-        .filter(Stmt::isInvokableStmt)
-        .map(Stmt::asInvokableStmt)
-        .forEach(
-            invokableStmt -> {
-              // static field usage
-              ClassType targetClass = null;
-              if (invokableStmt.containsFieldRef()
-                  && invokableStmt.getFieldRef() instanceof JStaticFieldRef) {
-                targetClass = invokableStmt.getFieldRef().getFieldSignature().getDeclClassType();
-                addStaticInitializerCalls(
-                    sourceMethod.getSignature(), targetClass, invokableStmt, cg, workList);
-              }
-              // static method
-              if (invokableStmt.containsInvokeExpr()) {
-                // static method call
-                Optional<AbstractInvokeExpr> exprOptional = invokableStmt.getInvokeExpr();
-                if (!exprOptional.isPresent()) return;
-                AbstractInvokeExpr expr = exprOptional.get();
-                if (expr instanceof JStaticInvokeExpr) {
-                  ClassType newTargetClass = expr.getMethodSignature().getDeclClassType();
-                  // checks if the field points to the same clinit
-                  if (!newTargetClass.equals(targetClass)) {
-                    addStaticInitializerCalls(
-                        sourceMethod.getSignature(), newTargetClass, invokableStmt, cg, workList);
-                  }
-                }
-              } else {
-                if (invokableStmt instanceof JAssignStmt) {
-                  Value rightOp = ((JAssignStmt) invokableStmt).getRightOp();
-                  // extract class type out of new, new array and new multi array
-                  instantiateVisitor.init();
-                  rightOp.accept(instantiateVisitor);
-                  ClassType newTargetClass = instantiateVisitor.getResult();
-                  // check if class type is the same as in the field which could be on the left op
-                  if (newTargetClass != null && !newTargetClass.equals(targetClass)) {
-                    addStaticInitializerCalls(
-                        sourceMethod.getSignature(), newTargetClass, invokableStmt, cg, workList);
-                  }
-                }
-              }
-            });
+    CallSiteSummary summary = CallSiteSummary.of(sourceMethod.getBody());
+    for (int i = 0; i < summary.staticInitializerTriggerCount(); i++) {
+      addStaticInitializerCalls(
+          sourceMethod.getSignature(),
+          summary.getStaticInitializerClass(i),
+          summary.getStaticInitializerStmt(i),
+          cg,
+          workList);
+    }
   }
 
   /**
@@ -437,6 +597,298 @@ public abstract class AbstractCallGraphAlgorithm implements CallGraphAlgorithm {
     return updated;
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   * <p>The calls of a method are resolved again if the method is declared in a changed or removed
+   * class, if one of its calls targets a method of such a class or if one of its calls invokes a
+   * method signature whose dispatch can reach a changed class, i.e. the invoked class is a
+   * supertype or subtype of the changed class and the changed class declares the invoked
+   * subsignature. The calls of all other methods and their unchanged statements are taken over, so
+   * the view has to keep the classes that did not change, like a {@link
+   * sootup.core.views.MutableView}.
+   *
+   * <p>If the direct supertypes of a changed class differ from the ones it had when the old call
+   * graph was built, all calls whose dispatch can reach the class through its old or its new
+   * supertypes are resolved again. The old supertypes are recorded when an algorithm builds the
+   * call graph, so it does not matter whether the type hierarchy of the view already contains the
+   * changes. For a call graph that was not built by an algorithm, e.g. one read by the {@link
+   * CallGraphSerializer}, the type hierarchy of the view has to still contain the old supertypes.
+   */
+  @Nonnull
+  @Override
+  public CallGraph updateClasses(
+      @Nonnull CallGraph oldCallGraph,
+      @Nonnull Collection<ClassType> changedClasses,
+      @Nonnull Collection<ClassType> removedClasses) {
+    Set<ClassType> affectedClasses = new HashSet<>(changedClasses);
+    affectedClasses.addAll(removedClasses);
+    Map<ClassType, Set<MethodSubSignature>> redispatchedCalls =
+        collectRedispatchedCalls(oldCallGraph, changedClasses);
+
+    Set<MethodSignature> retainedMethods = new HashSet<>();
+    List<MethodSignature> invalidatedMethods = new ArrayList<>();
+    for (MethodSignature method : oldCallGraph.getMethodSignatures()) {
+      if (isInvalidated(oldCallGraph, method, affectedClasses, redispatchedCalls)) {
+        invalidatedMethods.add(method);
+      } else {
+        retainedMethods.add(method);
+      }
+    }
+
+    List<MethodSignature> entryPoints =
+        oldCallGraph.getEntryMethods().stream()
+            .filter(method -> view.getMethod(method).isPresent())
+            .collect(Collectors.toList());
+    Set<MethodSignature> entryPointSet = new HashSet<>(entryPoints);
+    List<MethodSignature> clinits =
+        getClinitFromEntryPoints(entryPoints).stream()
+            .filter(clinit -> !entryPointSet.contains(clinit))
+            .collect(Collectors.toList());
+    MutableCallGraph cg = initializeCallGraph(entryPoints, clinits);
+    for (MethodSignature method : retainedMethods) {
+      cg.addMethod(method);
+    }
+    for (MethodSignature method : retainedMethods) {
+      oldCallGraph.callsFrom(method).forEach(cg::addCall);
+    }
+    processRetainedMethods(retainedMethods);
+
+    Deque<MethodSignature> workList = new ArrayDeque<>(entryPoints);
+    workList.addAll(clinits);
+    invalidatedMethods.stream()
+        .filter(method -> view.getMethod(method).isPresent())
+        .forEach(workList::add);
+    Set<MethodSignature> processed = new HashSet<>(retainedMethods);
+    processWorkList(view, workList, processed, cg);
+
+    // the algorithm can require retained methods to be resolved again, e.g. to reach new targets
+    Collection<MethodSignature> reprocessedMethods = methodsToReprocessAfterUpdate(retainedMethods);
+    while (!reprocessedMethods.isEmpty()) {
+      processed.removeAll(reprocessedMethods);
+      workList.addAll(reprocessedMethods);
+      processWorkList(view, workList, processed, cg);
+      reprocessedMethods = methodsToReprocessAfterUpdate(retainedMethods);
+    }
+
+    CallGraph updated = removeUnreachableMethods(cg, entryPoints, clinits);
+    recordDirectSuperTypes(updated);
+    return updated;
+  }
+
+  /**
+   * Collects the subsignatures whose dispatch can reach a method of the changed classes, per class
+   * that can be the declaring class of an invoked method signature.
+   *
+   * <p>The subsignatures declared by a changed class are collected for the class, its subtypes and
+   * its old and new supertypes. If the direct supertypes of the class changed, the class and its
+   * subtypes inherit other methods. So the subsignatures declared by the old and new supertypes are
+   * collected for the class and its subtypes, and the subsignatures declared by the class and its
+   * subtypes are collected for these supertypes.
+   */
+  @Nonnull
+  private Map<ClassType, Set<MethodSubSignature>> collectRedispatchedCalls(
+      @Nonnull CallGraph oldCallGraph, @Nonnull Collection<ClassType> changedClasses) {
+    TypeHierarchy typeHierarchy = view.getTypeHierarchy();
+    Map<ClassType, Set<ClassType>> recordedSuperTypes =
+        recordedDirectSuperTypes.getIfPresent(oldCallGraph);
+    // a class that is not recorded was not involved in the dispatch of the old call graph
+    Function<ClassType, Set<ClassType>> oldDirectSuperTypesOf =
+        recordedSuperTypes == null
+            ? type -> directSuperTypesInHierarchy(type, typeHierarchy)
+            : type -> recordedSuperTypes.getOrDefault(type, Collections.emptySet());
+
+    Map<ClassType, Set<MethodSubSignature>> redispatchedCalls = new HashMap<>();
+    for (ClassType changedClass : changedClasses) {
+      SootClass sootClass = view.getClass(changedClass).orElse(null);
+      if (sootClass == null) {
+        continue;
+      }
+      Set<ClassType> oldSuperTypes = oldDirectSuperTypesOf.apply(changedClass);
+      Set<ClassType> newSuperTypes = directSuperTypesOf(sootClass);
+      Set<ClassType> superTypes = superTypesOf(oldSuperTypes, oldDirectSuperTypesOf);
+      superTypes.addAll(superTypesOf(newSuperTypes, this::directSuperTypesInView));
+      Set<ClassType> inheritingTypes = new HashSet<>();
+      inheritingTypes.add(changedClass);
+      if (typeHierarchy.contains(changedClass)) {
+        typeHierarchy.subtypesOf(changedClass).forEach(inheritingTypes::add);
+      }
+
+      Set<MethodSubSignature> subSignatures =
+          sootClass.getMethods().stream()
+              .map(method -> method.getSignature().getSubSignature())
+              .collect(Collectors.toSet());
+      Stream.concat(inheritingTypes.stream(), superTypes.stream())
+          .forEach(
+              type ->
+                  redispatchedCalls
+                      .computeIfAbsent(type, t -> new HashSet<>())
+                      .addAll(subSignatures));
+
+      if (oldSuperTypes.equals(newSuperTypes)) {
+        continue;
+      }
+      Set<MethodSubSignature> inheritedSubSignatures = declaredSubSignaturesOf(superTypes);
+      Set<MethodSubSignature> inheritingSubSignatures = declaredSubSignaturesOf(inheritingTypes);
+      for (ClassType type : inheritingTypes) {
+        redispatchedCalls
+            .computeIfAbsent(type, t -> new HashSet<>())
+            .addAll(inheritedSubSignatures);
+      }
+      for (ClassType type : superTypes) {
+        redispatchedCalls
+            .computeIfAbsent(type, t -> new HashSet<>())
+            .addAll(inheritingSubSignatures);
+      }
+    }
+    return redispatchedCalls;
+  }
+
+  /** Returns the given direct supertypes and all their supertypes. */
+  @Nonnull
+  private static Set<ClassType> superTypesOf(
+      @Nonnull Set<ClassType> directSuperTypes,
+      @Nonnull Function<ClassType, Set<ClassType>> directSuperTypesOf) {
+    Set<ClassType> superTypes = new HashSet<>();
+    Deque<ClassType> workList = new ArrayDeque<>(directSuperTypes);
+    while (!workList.isEmpty()) {
+      ClassType type = workList.pop();
+      if (superTypes.add(type)) {
+        workList.addAll(directSuperTypesOf.apply(type));
+      }
+    }
+    return superTypes;
+  }
+
+  /** Returns the superclass and the interfaces of the class, like the type hierarchy. */
+  @Nonnull
+  private static Set<ClassType> directSuperTypesOf(@Nonnull SootClass sootClass) {
+    Set<ClassType> superTypes = new HashSet<>(sootClass.getInterfaces());
+    if (!sootClass.isInterface()) {
+      sootClass.getSuperclass().ifPresent(superTypes::add);
+    }
+    return superTypes;
+  }
+
+  @Nonnull
+  private Set<ClassType> directSuperTypesInView(@Nonnull ClassType type) {
+    return view.getClass(type)
+        .map(AbstractCallGraphAlgorithm::directSuperTypesOf)
+        .orElse(Collections.emptySet());
+  }
+
+  /**
+   * Returns the direct supertypes of the type in the type hierarchy, which keeps the types of the
+   * classes that were replaced in a {@link sootup.core.views.MutableView}.
+   */
+  @Nonnull
+  private static Set<ClassType> directSuperTypesInHierarchy(
+      @Nonnull ClassType type, @Nonnull TypeHierarchy typeHierarchy) {
+    Set<ClassType> superTypes = new HashSet<>();
+    if (!typeHierarchy.contains(type)) {
+      return superTypes;
+    }
+    if (typeHierarchy.isInterface(type)) {
+      typeHierarchy.directlyExtendedInterfacesOf(type).forEach(superTypes::add);
+    } else {
+      typeHierarchy.superClassOf(type).ifPresent(superTypes::add);
+      typeHierarchy.directlyImplementedInterfacesOf(type).forEach(superTypes::add);
+    }
+    return superTypes;
+  }
+
+  @Nonnull
+  private Set<MethodSubSignature> declaredSubSignaturesOf(@Nonnull Set<ClassType> types) {
+    return types.stream()
+        .map(view::getClass)
+        .filter(Optional::isPresent)
+        .flatMap(sootClass -> sootClass.get().getMethods().stream())
+        .map(method -> method.getSignature().getSubSignature())
+        .collect(Collectors.toSet());
+  }
+
+  private static boolean isInvalidated(
+      @Nonnull CallGraph oldCallGraph,
+      @Nonnull MethodSignature method,
+      @Nonnull Set<ClassType> affectedClasses,
+      @Nonnull Map<ClassType, Set<MethodSubSignature>> redispatchedCalls) {
+    if (affectedClasses.contains(method.getDeclClassType())) {
+      return true;
+    }
+    for (Call call : oldCallGraph.callsFrom(method)) {
+      if (affectedClasses.contains(call.getTargetMethodSignature().getDeclClassType())) {
+        return true;
+      }
+      MethodSignature invokedMethod =
+          call.getInvokableStmt()
+              .getInvokeExpr()
+              .map(AbstractInvokeExpr::getMethodSignature)
+              .orElse(null);
+      if (invokedMethod != null) {
+        Set<MethodSubSignature> subSignatures =
+            redispatchedCalls.get(invokedMethod.getDeclClassType());
+        if (subSignatures != null && subSignatures.contains(invokedMethod.getSubSignature())) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /** Returns the given call graph or a copy of it without the methods that are not reachable. */
+  @Nonnull
+  private CallGraph removeUnreachableMethods(
+      @Nonnull MutableCallGraph cg,
+      @Nonnull List<MethodSignature> entryPoints,
+      @Nonnull List<MethodSignature> clinits) {
+    Set<MethodSignature> reachable = new HashSet<>();
+    Deque<MethodSignature> workList = new ArrayDeque<>(cg.getEntryMethods());
+    while (!workList.isEmpty()) {
+      MethodSignature method = workList.pop();
+      if (cg.containsMethod(method) && reachable.add(method)) {
+        workList.addAll(cg.callTargetsFrom(method));
+      }
+    }
+    if (reachable.size() == cg.getMethodSignatures().size()) {
+      return cg;
+    }
+
+    MutableCallGraph reachableCg = initializeCallGraph(entryPoints, clinits);
+    for (MethodSignature method : reachable) {
+      reachableCg.addMethod(method);
+    }
+    for (MethodSignature method : reachable) {
+      cg.callsFrom(method).forEach(reachableCg::addCall);
+    }
+    return reachableCg;
+  }
+
+  /**
+   * This method is called on an update of the call graph with the methods whose calls are taken
+   * over from the old call graph. Overwrite it to restore the state that the algorithm collects
+   * while methods are processed.
+   *
+   * @param retainedMethods the methods that are not processed again
+   */
+  protected void processRetainedMethods(@Nonnull Set<MethodSignature> retainedMethods) {
+    // not needed by default
+  }
+
+  /**
+   * This method is called on an update of the call graph after the work list was processed. It
+   * returns the retained methods whose calls have to be resolved again, because the processed
+   * methods changed the state the algorithm resolves calls with. The returned methods must only
+   * gain calls, as their old calls stay in the call graph.
+   *
+   * @param retainedMethods the methods whose calls were taken over from the old call graph
+   * @return the retained methods that have to be processed again
+   */
+  @Nonnull
+  protected Collection<MethodSignature> methodsToReprocessAfterUpdate(
+      @Nonnull Set<MethodSignature> retainedMethods) {
+    return Collections.emptyList();
+  }
+
   /**
    * The method iterates over all classes present in view, and finds method with name main and
    * SourceType - Application. This method is used by initialize() method used for creating call
@@ -485,23 +937,19 @@ public abstract class AbstractCallGraphAlgorithm implements CallGraphAlgorithm {
   /**
    * Searches for the signature of the method that is the concrete implementation of <code>m</code>.
    * This is done by checking each superclass and the class itself for whether it contains the
-   * concrete implementation.
+   * concrete implementation. The result is cached in the {@link View#getDispatchCache() dispatch
+   * cache} of the view.
    */
   @Nonnull
   public static Optional<MethodSignature> resolveConcreteDispatch(View view, MethodSignature m) {
-    Optional<? extends SootMethod> methodOp = findConcreteMethod(view, m);
-    if (methodOp.isPresent()) {
-      SootMethod method = methodOp.get();
-      if (method.isAbstract()) {
-        return Optional.empty();
-      }
-      return Optional.of(method.getSignature());
-    }
-    return Optional.empty();
+    return view.getDispatchCache()
+        .resolveConcreteDispatch(m.getDeclClassType(), m.getSubSignature())
+        .map(SootMethod::getSignature);
   }
 
   /**
-   * searches the method object in the given hierarchy
+   * searches the method object in the given hierarchy. The result is cached in the {@link
+   * View#getDispatchCache() dispatch cache} of the view.
    *
    * @param view it contains all classes
    * @param sig the signature of the searched method
@@ -509,66 +957,7 @@ public abstract class AbstractCallGraphAlgorithm implements CallGraphAlgorithm {
    */
   public static Optional<SootMethod> findConcreteMethod(
       @Nonnull View view, @Nonnull MethodSignature sig) {
-    IdentifierFactory identifierFactory = view.getIdentifierFactory();
-    SootClass startclass = view.getClass(sig.getDeclClassType()).orElse(null);
-    if (startclass == null) {
-      logger.warn(
-          "Could not find \""
-              + sig.getDeclClassType()
-              + "\" of method"
-              + sig
-              + " to resolve the concrete method");
-      return Optional.empty();
-    }
-    Optional<SootMethod> startMethod =
-        startclass.getMethod(sig.getSubSignature()).map(method -> (SootMethod) method);
-    if (startMethod.isPresent()) {
-      return startMethod;
-    }
-    TypeHierarchy typeHierarchy = view.getTypeHierarchy();
-
-    Stream<ClassType> superClasses = typeHierarchy.superClassesOf(sig.getDeclClassType());
-    Iterator<ClassType> iterator = superClasses.iterator();
-    while (iterator.hasNext()) {
-      ClassType superClassType = iterator.next();
-      Optional<SootMethod> method =
-          view.getMethod(
-                  identifierFactory.getMethodSignature(superClassType, sig.getSubSignature()))
-              .map(sm -> (SootMethod) sm);
-      if (method.isPresent()) {
-        return method;
-      }
-    }
-
-    // interface1 is a sub-interface of interface2
-    // interface1 is a super-interface of interface2
-    // due to multiple inheritance in interfaces
-    final HierarchyComparator hierarchyComparator =
-        new HierarchyComparator(view.getTypeHierarchy());
-    Optional<SootMethod> defaultMethod =
-        typeHierarchy
-            .implementedInterfacesOf(sig.getDeclClassType())
-            .map(
-                classType ->
-                    view.getMethod(
-                        identifierFactory.getMethodSignature(classType, sig.getSubSignature())))
-            .filter(Optional::isPresent)
-            .map(Optional::get)
-            .min(
-                (m1, m2) ->
-                    hierarchyComparator.compare(
-                        m1.getDeclaringClassType(), m2.getDeclaringClassType()))
-            .map(method -> (SootMethod) method);
-
-    if (defaultMethod.isPresent()) {
-      return defaultMethod;
-    }
-    logger.warn(
-        "Could not find \""
-            + sig.getSubSignature()
-            + "\" in "
-            + sig.getDeclClassType().getClassName()
-            + " and in its superclasses and interfaces");
-    return Optional.empty();
+    return view.getDispatchCache()
+        .findConcreteMethod(sig.getDeclClassType(), sig.getSubSignature());
   }
 }
@@ -22,6 +22,7 @@ package sootup.callgraph;
  * #L%
  */
 
+import java.util.Collection;
 import java.util.List;
 import javax.annotation.Nonnull;
 import sootup.core.signatures.MethodSignature;
@@ -60,4 +61,22 @@ public interface CallGraphAlgorithm {
    */
   @Nonnull
   CallGraph addClass(@Nonnull CallGraph oldCallGraph, @Nonnull ClassType classType);
+
+  /**
+   * Updates a call graph after classes of the view were changed, added or removed. Only the calls
+   * of methods that are affected by the changes are resolved again, all other calls are taken over
+   * from the old call graph. Methods that are not reachable from the entry methods anymore are
+   * removed.
+   *
+   * @param oldCallGraph the call graph which was constructed before the classes changed. It is not
+   *     modified.
+   * @param changedClasses the classes that were added or modified in the view
+   * @param removedClasses the classes that were removed from the view
+   * @return the updated call graph
+   */
+  @Nonnull
+  CallGraph updateClasses(
+      @Nonnull CallGraph oldCallGraph,
+      @Nonnull Collection<ClassType> changedClasses,
+      @Nonnull Collection<ClassType> removedClasses);
 }
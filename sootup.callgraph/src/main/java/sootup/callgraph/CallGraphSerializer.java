@@ -0,0 +1,486 @@
+package sootup.callgraph;
+
+/*-
+ * #%L
+ * SootUp
+ * %%
+ * Copyright (C) 1997 - 2024 Raja Vallée-Rai and others
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+import javax.annotation.Nonnull;
+import sootup.core.jimple.common.expr.AbstractInvokeExpr;
+import sootup.core.jimple.common.stmt.InvokableStmt;
+import sootup.core.jimple.common.stmt.Stmt;
+import sootup.core.model.MethodModifier;
+import sootup.core.model.SootClass;
+import sootup.core.model.SootMethod;
+import sootup.core.signatures.MethodSignature;
+import sootup.core.views.View;
+
+/**
+ * Stores a {@link CallGraph} in a compact binary file, so an expensive call graph can be computed
+ * once and reused by later analyses of the same code.
+ *
+ * <p>The file contains a fingerprint of every class of the view, a table of all method signatures,
+ * the entry methods, the call sites and the edges. The fingerprint of a class covers the inputs of
+ * the dispatch: whether it is an interface, its supertypes and the signatures and modifiers of its
+ * methods. Every signature is stored together with whether the view contains the method. So a file
+ * whose classes or methods do not match the view anymore, e.g. because the code changed in between
+ * or a class that overrides a called method was added, is rejected by {@link #read(Path, View)}.
+ * The bodies are not part of the fingerprints. A call site is stored as its method and the position
+ * of its statement in {@link sootup.core.model.Body#getStmts()} together with the signature it
+ * invokes. The statements are looked up in the bodies of the view when the calls of a method are
+ * requested for the first time, so reading a call graph does not resolve any body.
+ */
+public class CallGraphSerializer {
+
+  private static final int MAGIC = 0x53554347; // "SUCG"
+  private static final int FORMAT_VERSION = 3;
+  private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+  private static final int NO_SIGNATURE = -1;
+
+  private CallGraphSerializer() {}
+
+  /**
+   * Writes the given call graph to the file. The statements of the calls have to be contained in
+   * the bodies of their source methods in the given view. The file is replaced only after it has
+   * been written completely.
+   *
+   * @throws IOException if the file can not be written
+   * @throws IllegalArgumentException if a call site can not be found in the view
+   */
+  public static void write(@Nonnull CallGraph callGraph, @Nonnull View view, @Nonnull Path file)
+      throws IOException {
+    SignatureTable signatures = new SignatureTable();
+    callGraph.getMethodSignatures().forEach(signatures::idOf);
+    int nodeCount = signatures.size();
+
+    // number the call sites first, as they have to be written before the edges
+    Map<InvokableStmt, Integer> callSiteIds = new IdentityHashMap<>();
+    List<int[]> callSites = new ArrayList<>();
+    for (MethodSignature method : callGraph.getMethodSignatures()) {
+      Map<Stmt, Integer> stmtPositions = new IdentityHashMap<>();
+      forEachCallFrom(
+          callGraph,
+          method,
+          (source, target, invokableStmt) -> {
+            if (callSiteIds.containsKey(invokableStmt)) {
+              return;
+            }
+            if (stmtPositions.isEmpty()) {
+              List<Stmt> stmts = methodWithBody(view, method).getBody().getStmts();
+              for (int i = 0; i < stmts.size(); i++) {
+                stmtPositions.put(stmts.get(i), i);
+              }
+            }
+            Integer position = stmtPositions.get(invokableStmt);
+            if (position == null) {
+              throw new IllegalArgumentException(
+                  "The call site " + invokableStmt + " is not contained in " + method);
+            }
+            int invokedSignature =
+                invokableStmt
+                    .getInvokeExpr()
+                    .map(invokeExpr -> signatures.idOf(invokeExpr.getMethodSignature()))
+                    .orElse(NO_SIGNATURE);
+            callSiteIds.put(invokableStmt, callSites.size());
+            callSites.add(new int[] {signatures.idOf(method), position, invokedSignature});
+          });
+    }
+
+    Path dir = file.toAbsolutePath().getParent();
+    Files.createDirectories(dir);
+    Path tmpFile = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+    try {
+      try (DataOutputStream out =
+          new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpFile)))) {
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+
+        SortedMap<String, Long> classFingerprints = classFingerprintsOf(view);
+        out.writeInt(classFingerprints.size());
+        for (Map.Entry<String, Long> classFingerprint : classFingerprints.entrySet()) {
+          byte[] bytes = classFingerprint.getKey().getBytes(StandardCharsets.UTF_8);
+          out.writeInt(bytes.length);
+          out.write(bytes);
+          out.writeLong(classFingerprint.getValue());
+        }
+
+        out.writeInt(signatures.size());
+        out.writeInt(nodeCount);
+        for (MethodSignature signature : signatures.signatures) {
+          byte[] bytes = signature.toString().getBytes(StandardCharsets.UTF_8);
+          out.writeInt(bytes.length);
+          out.write(bytes);
+          out.writeBoolean(view.getMethod(signature).isPresent());
+        }
+
+        List<MethodSignature> entryMethods = callGraph.getEntryMethods();
+        out.writeInt(entryMethods.size());
+        for (MethodSignature entryMethod : entryMethods) {
+          out.writeInt(signatures.idOf(entryMethod));
+        }
+
+        out.writeInt(callSites.size());
+        for (int[] callSite : callSites) {
+          out.writeInt(callSite[0]);
+          out.writeInt(callSite[1]);
+          out.writeInt(callSite[2]);
+        }
+
+        out.writeInt(callGraph.callCount());
+        for (MethodSignature method : callGraph.getMethodSignatures()) {
+          int source = signatures.idOf(method);
+          IOException[] exception = new IOException[1];
+          forEachCallFrom(
+              callGraph,
+              method,
+              (sourceMethod, targetMethod, invokableStmt) -> {
+                if (exception[0] != null) {
+                  return;
+                }
+                try {
+                  out.writeInt(source);
+                  out.writeInt(signatures.idOf(targetMethod));
+                  out.writeInt(callSiteIds.get(invokableStmt));
+                } catch (IOException e) {
+                  exception[0] = e;
+                }
+              });
+          if (exception[0] != null) {
+            throw exception[0];
+          }
+        }
+      }
+      Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(tmpFile);
+    }
+  }
+
+  /**
+   * Reads a call graph that was written by {@link #write(CallGraph, View, Path)}. The file is
+   * mapped into memory and its methods are looked up in the given view, which has to contain the
+   * same code as the view the call graph was built from. The classes of the view are compared with
+   * the fingerprints of the file, so all classes of the view are resolved, but not their bodies:
+   * the statements of the call sites of a method are resolved on the first request of its calls,
+   * which throws an {@link IllegalStateException} if they do not match the view.
+   *
+   * @return the read call graph, which is frozen
+   * @throws IOException if the file can not be read, is no call graph file or does not match the
+   *     given view
+   */
+  @Nonnull
+  public static CompactCallGraph read(@Nonnull Path file, @Nonnull View view) throws IOException {
+    MappedByteBuffer buffer;
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+    try {
+      return read(buffer, view, file);
+    } catch (BufferUnderflowException
+        | IndexOutOfBoundsException
+        | NegativeArraySizeException
+        | IllegalArgumentException e) {
+      throw new IOException(file + " is truncated or corrupted.", e);
+    }
+  }
+
+  @Nonnull
+  private static CompactCallGraph read(
+      @Nonnull ByteBuffer buffer, @Nonnull View view, @Nonnull Path file) throws IOException {
+    if (buffer.getInt() != MAGIC) {
+      throw new IOException(file + " is not a call graph file.");
+    }
+    int version = buffer.getInt();
+    if (version != FORMAT_VERSION) {
+      throw new IOException(file + " has the unsupported format version " + version + ".");
+    }
+
+    SortedMap<String, Long> classFingerprints = classFingerprintsOf(view);
+    int classCount = buffer.getInt();
+    Set<String> recordedClasses = new HashSet<>();
+    for (int i = 0; i < classCount; i++) {
+      byte[] bytes = new byte[buffer.getInt()];
+      buffer.get(bytes);
+      String className = new String(bytes, StandardCharsets.UTF_8);
+      long fingerprint = buffer.getLong();
+      Long actualFingerprint = classFingerprints.get(className);
+      if (actualFingerprint == null || actualFingerprint != fingerprint) {
+        throw new IOException(
+            file
+                + " does not match the view: the class "
+                + className
+                + (actualFingerprint == null ? " is missing." : " changed."));
+      }
+      recordedClasses.add(className);
+    }
+    for (String className : classFingerprints.keySet()) {
+      if (!recordedClasses.contains(className)) {
+        throw new IOException(
+            file + " does not match the view: the class " + className + " is unexpected.");
+      }
+    }
+
+    int signatureCount = buffer.getInt();
+    int nodeCount = buffer.getInt();
+    if (nodeCount > signatureCount) {
+      throw new IllegalArgumentException("More methods than signatures.");
+    }
+    MethodSignature[] signatures = new MethodSignature[signatureCount];
+    for (int i = 0; i < signatureCount; i++) {
+      byte[] bytes = new byte[buffer.getInt()];
+      buffer.get(bytes);
+      signatures[i] =
+          view.getIdentifierFactory()
+              .parseMethodSignature(new String(bytes, StandardCharsets.UTF_8));
+      boolean present = buffer.get() != 0;
+      if (present != view.getMethod(signatures[i]).isPresent()) {
+        throw new IOException(
+            file
+                + " does not match the view: the method "
+                + signatures[i]
+                + (present ? " is missing." : " is unexpected."));
+      }
+    }
+
+    int entryMethodCount = buffer.getInt();
+    List<MethodSignature> entryMethods = new ArrayList<>(entryMethodCount);
+    for (int i = 0; i < entryMethodCount; i++) {
+      entryMethods.add(signatures[buffer.getInt()]);
+    }
+
+    CompactCallGraph callGraph = new CompactCallGraph(entryMethods);
+    for (int i = 0; i < nodeCount; i++) {
+      // the methods are numbered in the order they are added, i.e. like in the signature table
+      callGraph.addMethod(signatures[i]);
+    }
+
+    int callSiteCount = buffer.getInt();
+    BodyCallSiteResolver resolver =
+        new BodyCallSiteResolver(view, file, signatures, callSiteCount);
+    for (int i = 0; i < callSiteCount; i++) {
+      int method = buffer.getInt();
+      if (i == 0 || method != resolver.methods[i - 1]) {
+        try {
+          methodWithBody(view, signatures[method]);
+        } catch (IllegalArgumentException e) {
+          throw new IOException(file + " does not match the view: " + e.getMessage(), e);
+        }
+      }
+      resolver.methods[i] = method;
+      resolver.positions[i] = buffer.getInt();
+      resolver.invokedSignatures[i] = buffer.getInt();
+      if (resolver.invokedSignatures[i] != NO_SIGNATURE) {
+        checkIndex(resolver.invokedSignatures[i], signatureCount);
+      }
+      callGraph.addUnresolvedCallSite(resolver);
+    }
+
+    int edgeCount = buffer.getInt();
+    for (int i = 0; i < edgeCount; i++) {
+      int source = checkIndex(buffer.getInt(), nodeCount);
+      int target = checkIndex(buffer.getInt(), nodeCount);
+      callGraph.addCall(source, target, checkIndex(buffer.getInt(), callSiteCount));
+    }
+    return callGraph.freeze();
+  }
+
+  private static int checkIndex(int index, int size) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+    }
+    return index;
+  }
+
+  private static void forEachCallFrom(
+      @Nonnull CallGraph callGraph,
+      @Nonnull MethodSignature method,
+      @Nonnull CompactCallGraph.CallVisitor visitor) {
+    if (callGraph instanceof CompactCallGraph) {
+      ((CompactCallGraph) callGraph).forEachCallFrom(method, visitor);
+      return;
+    }
+    for (CallGraph.Call call : callGraph.callsFrom(method)) {
+      visitor.visit(
+          call.getSourceMethodSignature(),
+          call.getTargetMethodSignature(),
+          call.getInvokableStmt());
+    }
+  }
+
+  /** Returns the fingerprints of all classes of the view by their names. */
+  @Nonnull
+  private static SortedMap<String, Long> classFingerprintsOf(@Nonnull View view) {
+    SortedMap<String, Long> classFingerprints = new TreeMap<>();
+    for (SootClass sootClass : view.getClasses().collect(Collectors.toList())) {
+      classFingerprints.put(sootClass.getType().toString(), fingerprintOf(sootClass));
+    }
+    return classFingerprints;
+  }
+
+  /**
+   * Hashes the parts of a class that the dispatch of calls depends on: whether it is an interface,
+   * its supertypes and the signatures and modifiers of its methods.
+   */
+  private static long fingerprintOf(@Nonnull SootClass sootClass) {
+    Hasher hasher = HASH_FUNCTION.newHasher();
+    hasher.putBoolean(sootClass.isInterface());
+    putString(hasher, sootClass.getSuperclass().map(Object::toString).orElse(""));
+    List<String> interfaces =
+        sootClass.getInterfaces().stream()
+            .map(Object::toString)
+            .sorted()
+            .collect(Collectors.toList());
+    hasher.putInt(interfaces.size());
+    interfaces.forEach(interfaceName -> putString(hasher, interfaceName));
+    List<String> methods =
+        sootClass.getMethods().stream()
+            .map(
+                method ->
+                    MethodModifier.toString(method.getModifiers())
+                        + method.getSignature().getSubSignature())
+            .sorted()
+            .collect(Collectors.toList());
+    hasher.putInt(methods.size());
+    methods.forEach(method -> putString(hasher, method));
+    return hasher.hash().asLong();
+  }
+
+  private static void putString(@Nonnull Hasher hasher, @Nonnull String string) {
+    hasher.putInt(string.length());
+    hasher.putString(string, StandardCharsets.UTF_8);
+  }
+
+  @Nonnull
+  private static SootMethod methodWithBody(@Nonnull View view, @Nonnull MethodSignature method) {
+    SootMethod sootMethod =
+        view.getMethod(method)
+            .orElseThrow(() -> new IllegalArgumentException("Can not find the method " + method));
+    if (!sootMethod.hasBody()) {
+      throw new IllegalArgumentException("The method " + method + " has no body");
+    }
+    return sootMethod;
+  }
+
+  /** Looks up the statements of the call sites of a read call graph in the bodies of the view. */
+  private static class BodyCallSiteResolver implements CompactCallGraph.CallSiteResolver {
+    @Nonnull final View view;
+    @Nonnull final Path file;
+    @Nonnull final MethodSignature[] signatures;
+
+    // per call site: the method, the position of its statement and the invoked signature
+    @Nonnull final int[] methods;
+    @Nonnull final int[] positions;
+    @Nonnull final int[] invokedSignatures;
+
+    BodyCallSiteResolver(
+        @Nonnull View view,
+        @Nonnull Path file,
+        @Nonnull MethodSignature[] signatures,
+        int callSiteCount) {
+      this.view = view;
+      this.file = file;
+      this.signatures = signatures;
+      this.methods = new int[callSiteCount];
+      this.positions = new int[callSiteCount];
+      this.invokedSignatures = new int[callSiteCount];
+    }
+
+    /** Resolves all call sites of the method of the call site, which are numbered in a row. */
+    @Override
+    public void resolve(
+        int callSite, @Nonnull BiConsumer<Integer, InvokableStmt> resolvedCallSites) {
+      int method = methods[callSite];
+      int first = callSite;
+      while (first > 0 && methods[first - 1] == method) {
+        first--;
+      }
+      List<Stmt> stmts;
+      try {
+        stmts = methodWithBody(view, signatures[method]).getBody().getStmts();
+      } catch (IllegalArgumentException e) {
+        throw new IllegalStateException(file + " does not match the view: " + e.getMessage(), e);
+      }
+      for (int i = first; i < methods.length && methods[i] == method; i++) {
+        resolvedCallSites.accept(i, resolve(i, stmts));
+      }
+    }
+
+    @Nonnull
+    private InvokableStmt resolve(int callSite, @Nonnull List<Stmt> stmts) {
+      int position = positions[callSite];
+      Stmt stmt = position >= 0 && position < stmts.size() ? stmts.get(position) : null;
+      MethodSignature invokedSignature =
+          invokedSignatures[callSite] == NO_SIGNATURE
+              ? null
+              : signatures[invokedSignatures[callSite]];
+      if (!(stmt instanceof InvokableStmt)
+          || !Objects.equals(
+              ((InvokableStmt) stmt)
+                  .getInvokeExpr()
+                  .map(AbstractInvokeExpr::getMethodSignature)
+                  .orElse(null),
+              invokedSignature)) {
+        throw new IllegalStateException(
+            file
+                + " does not match the view: the call site "
+                + position
+                + " of "
+                + signatures[methods[callSite]]);
+      }
+      return (InvokableStmt) stmt;
+    }
+  }
+
+  /** Numbers the method signatures in the order they are requested. */
+  private static class SignatureTable {
+    @Nonnull final List<MethodSignature> signatures = new ArrayList<>();
+    @Nonnull final Map<MethodSignature, Integer> ids = new HashMap<>();
+
+    int idOf(@Nonnull MethodSignature signature) {
+      Integer id = ids.get(signature);
+      if (id == null) {
+        id = signatures.size();
+        signatures.add(signature);
+        ids.put(signature, id);
+      }
+      return id;
+    }
+
+    int size() {
+      return signatures.size();
+    }
+  }
+}
@@ -0,0 +1,180 @@
+package sootup.callgraph;
+
+/*-
+ * #%L
+ * SootUp
+ * %%
+ * Copyright (C) 1997 - 2024 Raja Vallée-Rai and others
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import javax.annotation.Nonnull;
+import sootup.core.jimple.basic.Value;
+import sootup.core.jimple.common.expr.AbstractInvokeExpr;
+import sootup.core.jimple.common.expr.JNewExpr;
+import sootup.core.jimple.common.expr.JStaticInvokeExpr;
+import sootup.core.jimple.common.ref.JStaticFieldRef;
+import sootup.core.jimple.common.stmt.InvokableStmt;
+import sootup.core.jimple.common.stmt.JAssignStmt;
+import sootup.core.jimple.common.stmt.Stmt;
+import sootup.core.model.Body;
+import sootup.core.types.ClassType;
+
+/**
+ * The statements of a {@link Body} that are relevant for the call graph algorithms: the call sites,
+ * the instantiated classes and the statements that trigger a static initializer. The summary is
+ * computed in a single pass over the body and cached as long as the body is alive, so the
+ * algorithms do not have to scan the statements of a body again and again.
+ *
+ * <p>The entries are stored in arrays that are accessed by index, so iterating over them does not
+ * allocate.
+ */
+public final class CallSiteSummary {
+
+  /** The summaries of the bodies, which are released together with their body. */
+  private static final Cache<Body, CallSiteSummary> summaries =
+      CacheBuilder.newBuilder().weakKeys().build();
+
+  @Nonnull private final InvokableStmt[] callSites;
+  @Nonnull private final AbstractInvokeExpr[] invokeExprs;
+  @Nonnull private final ClassType[] instantiatedClasses;
+  @Nonnull private final InvokableStmt[] staticInitializerStmts;
+  @Nonnull private final ClassType[] staticInitializerClasses;
+
+  private CallSiteSummary(@Nonnull Body body) {
+    List<InvokableStmt> callSiteList = new ArrayList<>();
+    List<AbstractInvokeExpr> invokeExprList = new ArrayList<>();
+    Set<ClassType> instantiatedClassSet = new LinkedHashSet<>();
+    List<InvokableStmt> staticInitializerStmtList = new ArrayList<>();
+    List<ClassType> staticInitializerClassList = new ArrayList<>();
+    InstantiateClassValueVisitor instantiateVisitor = new InstantiateClassValueVisitor();
+
+    for (Stmt stmt : body.getStmtGraph()) {
+      if (!stmt.isInvokableStmt()) {
+        continue;
+      }
+      InvokableStmt invokableStmt = stmt.asInvokableStmt();
+      Value rightOp =
+          invokableStmt instanceof JAssignStmt ? ((JAssignStmt) invokableStmt).getRightOp() : null;
+      if (rightOp instanceof JNewExpr) {
+        instantiatedClassSet.add(((JNewExpr) rightOp).getType());
+      }
+
+      // static field usage
+      ClassType fieldClass = null;
+      if (invokableStmt.containsFieldRef()
+          && invokableStmt.getFieldRef() instanceof JStaticFieldRef) {
+        fieldClass = invokableStmt.getFieldRef().getFieldSignature().getDeclClassType();
+        staticInitializerStmtList.add(invokableStmt);
+        staticInitializerClassList.add(fieldClass);
+      }
+
+      ClassType initializedClass = null;
+      if (invokableStmt.containsInvokeExpr()) {
+        AbstractInvokeExpr invokeExpr = invokableStmt.getInvokeExpr().orElse(null);
+        if (invokeExpr == null) {
+          continue;
+        }
+        callSiteList.add(invokableStmt);
+        invokeExprList.add(invokeExpr);
+        // static method call
+        if (invokeExpr instanceof JStaticInvokeExpr) {
+          initializedClass = invokeExpr.getMethodSignature().getDeclClassType();
+        }
+      } else if (rightOp != null) {
+        // extract class type out of new, new array and new multi array
+        instantiateVisitor.init();
+        rightOp.accept(instantiateVisitor);
+        initializedClass = instantiateVisitor.getResult();
+      }
+      // checks if the field points to the same clinit
+      if (initializedClass != null && !initializedClass.equals(fieldClass)) {
+        staticInitializerStmtList.add(invokableStmt);
+        staticInitializerClassList.add(initializedClass);
+      }
+    }
+
+    callSites = callSiteList.toArray(new InvokableStmt[0]);
+    invokeExprs = invokeExprList.toArray(new AbstractInvokeExpr[0]);
+    instantiatedClasses = instantiatedClassSet.toArray(new ClassType[0]);
+    staticInitializerStmts = staticInitializerStmtList.toArray(new InvokableStmt[0]);
+    staticInitializerClasses = staticInitializerClassList.toArray(new ClassType[0]);
+  }
+
+  /** Returns the summary of the given body, which is computed on the first request. */
+  @Nonnull
+  public static CallSiteSummary of(@Nonnull Body body) {
+    try {
+      return summaries.get(body, () -> new CallSiteSummary(body));
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  /** Returns the number of statements that contain an invoke expression. */
+  public int callSiteCount() {
+    return callSites.length;
+  }
+
+  /** Returns the i-th statement that contains an invoke expression, in the order of the body. */
+  @Nonnull
+  public InvokableStmt getCallSite(int i) {
+    return callSites[i];
+  }
+
+  /** Returns the invoke expression of {@link #getCallSite(int)}. */
+  @Nonnull
+  public AbstractInvokeExpr getInvokeExpr(int i) {
+    return invokeExprs[i];
+  }
+
+  /** Returns the number of distinct classes that are instantiated by a new expression. */
+  public int instantiatedClassCount() {
+    return instantiatedClasses.length;
+  }
+
+  /** Returns the i-th class that is instantiated by a new expression. */
+  @Nonnull
+  public ClassType getInstantiatedClass(int i) {
+    return instantiatedClasses[i];
+  }
+
+  /**
+   * Returns the number of static initializer triggers, i.e. pairs of a statement and a class whose
+   * static initializer is called by the statement due to a static field access, a static method
+   * call or an instantiation.
+   */
+  public int staticInitializerTriggerCount() {
+    return staticInitializerStmts.length;
+  }
+
+  /** Returns the statement of the i-th static initializer trigger. */
+  @Nonnull
+  public InvokableStmt getStaticInitializerStmt(int i) {
+    return staticInitializerStmts[i];
+  }
+
+  /** Returns the initialized class of the i-th static initializer trigger. */
+  @Nonnull
+  public ClassType getStaticInitializerClass(int i) {
+    return staticInitializerClasses[i];
+  }
+}
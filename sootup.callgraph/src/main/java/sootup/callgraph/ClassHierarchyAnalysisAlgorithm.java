@@ -23,9 +23,9 @@ package sootup.callgraph;
  */
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Stream;
 import javax.annotation.Nonnull;
-import sootup.core.IdentifierFactory;
 import sootup.core.jimple.common.expr.AbstractInvokeExpr;
 import sootup.core.jimple.common.expr.JDynamicInvokeExpr;
 import sootup.core.jimple.common.expr.JInterfaceInvokeExpr;
@@ -35,6 +35,7 @@ import sootup.core.model.MethodModifier;
 import sootup.core.model.SootClass;
 import sootup.core.model.SootMethod;
 import sootup.core.signatures.MethodSignature;
+import sootup.core.typehierarchy.DispatchCache;
 import sootup.core.types.ClassType;
 import sootup.core.views.View;
 
@@ -54,6 +55,17 @@ public class ClassHierarchyAnalysisAlgorithm extends AbstractCallGraphAlgorithm
     super(view);
   }
 
+  /**
+   * The constructor of the CHA algorithm that processes the methods in parallel.
+   *
+   * @param view it contains the data of the classes and methods, it should resolve classes
+   *     concurrently, otherwise the workers wait for each other while resolving the method bodies
+   * @param pool the pool that resolves the method bodies and their calls
+   */
+  public ClassHierarchyAnalysisAlgorithm(@Nonnull View view, @Nonnull ForkJoinPool pool) {
+    super(view, pool);
+  }
+
   @Nonnull
   @Override
   public CallGraph initialize() {
@@ -103,16 +115,14 @@ public class ClassHierarchyAnalysisAlgorithm extends AbstractCallGraphAlgorithm
         targets.add(targetMethod.getSignature());
       }
       if (invokeExpr instanceof JInterfaceInvokeExpr) {
-        IdentifierFactory factory = view.getIdentifierFactory();
+        DispatchCache dispatchCache = view.getDispatchCache();
         noImplementedMethod.stream()
             .map(
                 classType ->
-                    resolveConcreteDispatch(
-                        view,
-                        factory.getMethodSignature(
-                            classType, targetMethodSignature.getSubSignature())))
+                    dispatchCache.resolveConcreteDispatch(
+                        classType, targetMethodSignature.getSubSignature()))
             .filter(Optional::isPresent)
-            .map(Optional::get)
+            .map(target -> target.get().getSignature())
             .forEach(targets::add);
       }
       return targets.stream();
@@ -0,0 +1,590 @@
+package sootup.callgraph;
+
+/*-
+ * #%L
+ * SootUp
+ * %%
+ * Copyright (C) 1997 - 2024 Raja Vallée-Rai and others
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.IntConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import sootup.core.jimple.common.stmt.InvokableStmt;
+import sootup.core.signatures.MethodSignature;
+
+/**
+ * A mutable call graph that is stored in primitive arrays instead of a graph of objects. Every
+ * method gets a number and every call is an edge id that indexes the arrays of source method,
+ * target method and call site. The invoke statements are kept once per call site in a side table,
+ * so a call site with many targets does not duplicate it. {@link Call} objects are only created
+ * when they are requested by the {@link CallGraph} methods; the callees and callers can be iterated
+ * without any allocation by {@link #forEachCallee(int, IntConsumer)}, {@link #forEachCaller(int,
+ * IntConsumer)}, {@link #forEachCallFrom(MethodSignature, CallVisitor)} and {@link
+ * #forEachCallTo(MethodSignature, CallVisitor)}.
+ *
+ * <p>While the call graph is built, the edges of each method are kept in growable int arrays. Once
+ * the construction is finished, {@link #freeze()} compacts them into a compressed sparse row layout
+ * and makes the call graph read-only.
+ *
+ * <p>A call graph that is read by {@link CallGraphSerializer} resolves the statement of a call site
+ * when a call of it is requested for the first time. Looking up a call by its statement, e.g. by
+ * {@link #containsCall(Call)}, and {@link #copy()} resolve all call sites.
+ *
+ * <p>To let a call graph algorithm build a compact call graph, set {@link
+ * AbstractCallGraphAlgorithm#setCompactCallGraph(boolean)}.
+ */
+public class CompactCallGraph implements MutableCallGraph {
+
+  /** Receives the calls of {@link #forEachCallFrom} and {@link #forEachCallTo}. */
+  @FunctionalInterface
+  public interface CallVisitor {
+    void visit(
+        @Nonnull MethodSignature sourceMethod,
+        @Nonnull MethodSignature targetMethod,
+        @Nonnull InvokableStmt invokableStmt);
+  }
+
+  /**
+   * Resolves the statements of the call sites that were added by {@link
+   * #addUnresolvedCallSite(CallSiteResolver)} when they are accessed for the first time.
+   */
+  @FunctionalInterface
+  interface CallSiteResolver {
+    /**
+     * Resolves the statement of the given call site and passes it to <code>resolvedCallSites
+     * </code>. Further call sites, e.g. the ones of the same method, may be passed as well.
+     */
+    void resolve(int callSite, @Nonnull BiConsumer<Integer, InvokableStmt> resolvedCallSites);
+  }
+
+  private static final int INITIAL_CAPACITY = 16;
+  private static final int[] NO_EDGES = new int[0];
+
+  @Nonnull private final List<MethodSignature> entryMethods;
+
+  /** the methods by their number */
+  @Nonnull private final List<MethodSignature> methods = new ArrayList<>();
+
+  @Nonnull private final Map<MethodSignature, Integer> methodIds = new HashMap<>();
+
+  /** the call sites by their number, null if the call site is not resolved yet */
+  @Nonnull private final List<InvokableStmt> callSites = new ArrayList<>();
+
+  @Nonnull private final Map<InvokableStmt, Integer> callSiteIds = new HashMap<>();
+
+  /** resolves the call sites that are null in {@link #callSites}, null if all are resolved */
+  @Nullable private volatile CallSiteResolver callSiteResolver;
+
+  private int unresolvedCallSiteCount = 0;
+
+  // the edges: source method, target method and call site per edge id
+  @Nonnull private int[] edgeSources = new int[INITIAL_CAPACITY];
+  @Nonnull private int[] edgeTargets = new int[INITIAL_CAPACITY];
+  @Nonnull private int[] edgeCallSites = new int[INITIAL_CAPACITY];
+  private int edgeCount = 0;
+
+  /** open addressing hash table of edge ids + 1 to reject duplicate edges; 0 marks a free slot */
+  @Nonnull private int[] edgeTable = new int[2 * INITIAL_CAPACITY];
+
+  // the adjacency while the call graph is mutable: edge ids per method and their count
+  private int[][] outgoingEdges = new int[INITIAL_CAPACITY][];
+  private int[] outDegrees = new int[INITIAL_CAPACITY];
+  private int[][] incomingEdges = new int[INITIAL_CAPACITY][];
+  private int[] inDegrees = new int[INITIAL_CAPACITY];
+
+  // the adjacency after freezing: the edge ids of method m are at [offsets[m], offsets[m+1])
+  private int[] outOffsets;
+  private int[] outEdgeIds;
+  private int[] inOffsets;
+  private int[] inEdgeIds;
+
+  public CompactCallGraph(@Nonnull List<MethodSignature> entryMethods) {
+    this.entryMethods = entryMethods;
+  }
+
+  /**
+   * Compacts the adjacency of all methods into a compressed sparse row layout. Afterwards the call
+   * graph can not be modified anymore. Calling it multiple times has no further effect.
+   *
+   * @return this call graph
+   */
+  @Nonnull
+  public CompactCallGraph freeze() {
+    if (isFrozen()) {
+      return this;
+    }
+    int methodCount = methods.size();
+    outOffsets = toOffsets(outDegrees, methodCount);
+    inOffsets = toOffsets(inDegrees, methodCount);
+    outEdgeIds = new int[edgeCount];
+    inEdgeIds = new int[edgeCount];
+    for (int method = 0; method < methodCount; method++) {
+      System.arraycopy(
+          outgoingEdges[method], 0, outEdgeIds, outOffsets[method], outDegrees[method]);
+      System.arraycopy(incomingEdges[method], 0, inEdgeIds, inOffsets[method], inDegrees[method]);
+    }
+    outgoingEdges = null;
+    outDegrees = null;
+    incomingEdges = null;
+    inDegrees = null;
+
+    edgeSources = Arrays.copyOf(edgeSources, edgeCount);
+    edgeTargets = Arrays.copyOf(edgeTargets, edgeCount);
+    edgeCallSites = Arrays.copyOf(edgeCallSites, edgeCount);
+    return this;
+  }
+
+  @Nonnull
+  private static int[] toOffsets(@Nonnull int[] degrees, int methodCount) {
+    int[] offsets = new int[methodCount + 1];
+    for (int method = 0; method < methodCount; method++) {
+      offsets[method + 1] = offsets[method] + degrees[method];
+    }
+    return offsets;
+  }
+
+  public boolean isFrozen() {
+    return outOffsets != null;
+  }
+
+  private void checkMutable() {
+    if (isFrozen()) {
+      throw new UnsupportedOperationException("The call graph is frozen and can not be modified.");
+    }
+  }
+
+  @Override
+  public void addMethod(@Nonnull MethodSignature calledMethod) {
+    if (!containsMethod(calledMethod)) {
+      checkMutable();
+      numberMethod(calledMethod);
+    }
+  }
+
+  private int numberMethod(@Nonnull MethodSignature method) {
+    Integer id = methodIds.get(method);
+    if (id != null) {
+      return id;
+    }
+    int newId = methods.size();
+    methods.add(method);
+    methodIds.put(method, newId);
+    if (newId == outDegrees.length) {
+      int capacity = 2 * newId;
+      outgoingEdges = Arrays.copyOf(outgoingEdges, capacity);
+      outDegrees = Arrays.copyOf(outDegrees, capacity);
+      incomingEdges = Arrays.copyOf(incomingEdges, capacity);
+      inDegrees = Arrays.copyOf(inDegrees, capacity);
+    }
+    outgoingEdges[newId] = NO_EDGES;
+    incomingEdges[newId] = NO_EDGES;
+    return newId;
+  }
+
+  private int numberCallSite(@Nonnull InvokableStmt invokableStmt) {
+    if (callSiteResolver != null) {
+      resolveAllCallSites();
+    }
+    Integer id = callSiteIds.get(invokableStmt);
+    if (id != null) {
+      return id;
+    }
+    int newId = callSites.size();
+    callSites.add(invokableStmt);
+    callSiteIds.put(invokableStmt, newId);
+    return newId;
+  }
+
+  /**
+   * Numbers a call site whose statement is resolved by the {@link CallSiteResolver} on the first
+   * access.
+   */
+  int addUnresolvedCallSite(@Nonnull CallSiteResolver resolver) {
+    checkMutable();
+    callSiteResolver = resolver;
+    unresolvedCallSiteCount++;
+    callSites.add(null);
+    return callSites.size() - 1;
+  }
+
+  @Override
+  public void addCall(
+      @Nonnull MethodSignature sourceMethod,
+      @Nonnull MethodSignature targetMethod,
+      @Nonnull InvokableStmt invokableStmt) {
+    checkMutable();
+    addCall(numberMethod(sourceMethod), numberMethod(targetMethod), numberCallSite(invokableStmt));
+  }
+
+  /** Adds the call between the given numbers of methods and call site, if it is not present. */
+  void addCall(int source, int target, int callSite) {
+    checkMutable();
+    int slot = findSlot(source, target, callSite);
+    if (edgeTable[slot] != 0) {
+      return;
+    }
+
+    int edge = edgeCount++;
+    if (edge == edgeSources.length) {
+      int capacity = 2 * edge;
+      edgeSources = Arrays.copyOf(edgeSources, capacity);
+      edgeTargets = Arrays.copyOf(edgeTargets, capacity);
+      edgeCallSites = Arrays.copyOf(edgeCallSites, capacity);
+    }
+    edgeSources[edge] = source;
+    edgeTargets[edge] = target;
+    edgeCallSites[edge] = callSite;
+    edgeTable[slot] = edge + 1;
+    if (2 * edgeCount > edgeTable.length) {
+      rehash();
+    }
+
+    outgoingEdges[source] = append(outgoingEdges[source], outDegrees[source]++, edge);
+    incomingEdges[target] = append(incomingEdges[target], inDegrees[target]++, edge);
+  }
+
+  @Override
+  public void addCall(@Nonnull Call call) {
+    addCall(
+        call.getSourceMethodSignature(), call.getTargetMethodSignature(), call.getInvokableStmt());
+  }
+
+  @Nonnull
+  private static int[] append(@Nonnull int[] array, int size, int value) {
+    if (size == array.length) {
+      array = Arrays.copyOf(array, Math.max(4, 2 * size));
+    }
+    array[size] = value;
+    return array;
+  }
+
+  private static int hash(int source, int target, int callSite) {
+    int hash = source;
+    hash = 31 * hash + target;
+    hash = 31 * hash + callSite;
+    // spread the bits as the ids are small consecutive numbers
+    return hash ^ (hash >>> 16) ^ (hash * 0x9E3779B9);
+  }
+
+  /** Returns the slot of the given edge in the edge table or the free slot where it belongs. */
+  private int findSlot(int source, int target, int callSite) {
+    int mask = edgeTable.length - 1;
+    int slot = hash(source, target, callSite) & mask;
+    while (true) {
+      int entry = edgeTable[slot];
+      if (entry == 0) {
+        return slot;
+      }
+      int edge = entry - 1;
+      if (edgeSources[edge] == source
+          && edgeTargets[edge] == target
+          && edgeCallSites[edge] == callSite) {
+        return slot;
+      }
+      slot = (slot + 1) & mask;
+    }
+  }
+
+  private void rehash() {
+    edgeTable = new int[2 * edgeTable.length];
+    for (int edge = 0; edge < edgeCount; edge++) {
+      edgeTable[findSlot(edgeSources[edge], edgeTargets[edge], edgeCallSites[edge])] = edge + 1;
+    }
+  }
+
+  /**
+   * Returns the number of the given method in this call graph. The numbers are consecutive and
+   * start at 0.
+   *
+   * @throws IllegalArgumentException if the method is not contained in the call graph
+   */
+  public int methodId(@Nonnull MethodSignature method) {
+    Integer id = methodIds.get(method);
+    if (id == null) {
+      throw new IllegalArgumentException("Vertex of Method signature " + method + " not found");
+    }
+    return id;
+  }
+
+  /** Returns the method with the given number. */
+  @Nonnull
+  public MethodSignature methodSignatureOf(int methodId) {
+    return methods.get(methodId);
+  }
+
+  /** Returns the number of methods in this call graph. */
+  public int methodCount() {
+    return methods.size();
+  }
+
+  private int outDegree(int method) {
+    return isFrozen() ? outOffsets[method + 1] - outOffsets[method] : outDegrees[method];
+  }
+
+  private int outEdge(int method, int index) {
+    return isFrozen() ? outEdgeIds[outOffsets[method] + index] : outgoingEdges[method][index];
+  }
+
+  private int inDegree(int method) {
+    return isFrozen() ? inOffsets[method + 1] - inOffsets[method] : inDegrees[method];
+  }
+
+  private int inEdge(int method, int index) {
+    return isFrozen() ? inEdgeIds[inOffsets[method] + index] : incomingEdges[method][index];
+  }
+
+  /**
+   * Passes the number of the target method of every call from the given method to the consumer. A
+   * target that is called by multiple call sites is passed once per call site.
+   */
+  public void forEachCallee(int methodId, @Nonnull IntConsumer calleeConsumer) {
+    for (int i = 0, degree = outDegree(methodId); i < degree; i++) {
+      calleeConsumer.accept(edgeTargets[outEdge(methodId, i)]);
+    }
+  }
+
+  /**
+   * Passes the number of the source method of every call to the given method to the consumer. A
+   * source that calls the method from multiple call sites is passed once per call site.
+   */
+  public void forEachCaller(int methodId, @Nonnull IntConsumer callerConsumer) {
+    for (int i = 0, degree = inDegree(methodId); i < degree; i++) {
+      callerConsumer.accept(edgeSources[inEdge(methodId, i)]);
+    }
+  }
+
+  /** Passes every call from the given method to the visitor. */
+  public void forEachCallFrom(@Nonnull MethodSignature sourceMethod, @Nonnull CallVisitor visitor) {
+    int method = methodId(sourceMethod);
+    for (int i = 0, degree = outDegree(method); i < degree; i++) {
+      visitEdge(outEdge(method, i), visitor);
+    }
+  }
+
+  /** Passes every call to the given method to the visitor. */
+  public void forEachCallTo(@Nonnull MethodSignature targetMethod, @Nonnull CallVisitor visitor) {
+    int method = methodId(targetMethod);
+    for (int i = 0, degree = inDegree(method); i < degree; i++) {
+      visitEdge(inEdge(method, i), visitor);
+    }
+  }
+
+  private void visitEdge(int edge, @Nonnull CallVisitor visitor) {
+    visitor.visit(
+        methods.get(edgeSources[edge]),
+        methods.get(edgeTargets[edge]),
+        callSite(edgeCallSites[edge]));
+  }
+
+  @Nonnull
+  private Call callOf(int edge) {
+    return new Call(
+        methods.get(edgeSources[edge]),
+        methods.get(edgeTargets[edge]),
+        callSite(edgeCallSites[edge]));
+  }
+
+  @Nonnull
+  private InvokableStmt callSite(int callSite) {
+    if (callSiteResolver == null) {
+      return callSites.get(callSite);
+    }
+    return resolveCallSite(callSite);
+  }
+
+  @Nonnull
+  private synchronized InvokableStmt resolveCallSite(int callSite) {
+    CallSiteResolver resolver = callSiteResolver;
+    if (resolver != null && callSites.get(callSite) == null) {
+      resolver.resolve(
+          callSite,
+          (id, invokableStmt) -> {
+            if (callSites.get(id) == null) {
+              callSites.set(id, invokableStmt);
+              callSiteIds.put(invokableStmt, id);
+              unresolvedCallSiteCount--;
+            }
+          });
+      if (unresolvedCallSiteCount == 0) {
+        callSiteResolver = null;
+      }
+    }
+    return callSites.get(callSite);
+  }
+
+  /** Resolves all call sites that are not resolved yet, so they can be looked up by statement. */
+  private synchronized void resolveAllCallSites() {
+    for (int callSite = 0; callSiteResolver != null && callSite < callSites.size(); callSite++) {
+      resolveCallSite(callSite);
+    }
+  }
+
+  @Nonnull
+  @Override
+  public Set<MethodSignature> getMethodSignatures() {
+    return Collections.unmodifiableSet(methodIds.keySet());
+  }
+
+  @Nonnull
+  @Override
+  public Set<MethodSignature> callTargetsFrom(@Nonnull MethodSignature sourceMethod) {
+    Set<MethodSignature> targets = new HashSet<>();
+    forEachCallee(methodId(sourceMethod), target -> targets.add(methods.get(target)));
+    return targets;
+  }
+
+  @Nonnull
+  @Override
+  public Set<MethodSignature> callSourcesTo(@Nonnull MethodSignature targetMethod) {
+    Set<MethodSignature> sources = new HashSet<>();
+    forEachCaller(methodId(targetMethod), source -> sources.add(methods.get(source)));
+    return sources;
+  }
+
+  @Nonnull
+  @Override
+  public Set<Call> callsFrom(@Nonnull MethodSignature sourceMethod) {
+    int method = methodId(sourceMethod);
+    Set<Call> calls = new LinkedHashSet<>();
+    for (int i = 0, degree = outDegree(method); i < degree; i++) {
+      calls.add(callOf(outEdge(method, i)));
+    }
+    return calls;
+  }
+
+  @Nonnull
+  @Override
+  public Set<Call> callsTo(@Nonnull MethodSignature targetMethod) {
+    int method = methodId(targetMethod);
+    Set<Call> calls = new LinkedHashSet<>();
+    for (int i = 0, degree = inDegree(method); i < degree; i++) {
+      calls.add(callOf(inEdge(method, i)));
+    }
+    return calls;
+  }
+
+  @Override
+  public boolean containsMethod(@Nonnull MethodSignature method) {
+    return methodIds.containsKey(method);
+  }
+
+  @Override
+  public boolean containsCall(
+      @Nonnull MethodSignature sourceMethod,
+      @Nonnull MethodSignature targetMethod,
+      InvokableStmt invokableStmt) {
+    if (callSiteResolver != null) {
+      resolveAllCallSites();
+    }
+    Integer source = methodIds.get(sourceMethod);
+    Integer target = methodIds.get(targetMethod);
+    Integer callSite = callSiteIds.get(invokableStmt);
+    if (source == null || target == null || callSite == null) {
+      return false;
+    }
+    return edgeTable[findSlot(source, target, callSite)] != 0;
+  }
+
+  @Override
+  public boolean containsCall(@Nonnull Call call) {
+    return containsCall(
+        call.getSourceMethodSignature(), call.getTargetMethodSignature(), call.getInvokableStmt());
+  }
+
+  @Override
+  public int callCount() {
+    return edgeCount;
+  }
+
+  @Override
+  public String exportAsDot() {
+    // sorted like in GraphBasedCallGraph, i.e. by source method and then by target method
+    Comparator<MethodSignature> sourceOrder =
+        Comparator.comparing(
+                (MethodSignature method) -> method.getDeclClassType().getFullyQualifiedName())
+            .thenComparing(MethodSignature::getName)
+            .thenComparing(method -> method.getParameterTypes().toString());
+    Comparator<MethodSignature> targetOrder =
+        Comparator.comparing((MethodSignature method) -> method.getDeclClassType().getClassName())
+            .thenComparing(MethodSignature::getName)
+            .thenComparing(method -> method.getParameterTypes().toString());
+    String edges =
+        IntStream.range(0, edgeCount)
+            .boxed()
+            .sorted(
+                Comparator.comparing((Integer edge) -> methods.get(edgeSources[edge]), sourceOrder)
+                    .thenComparing(edge -> methods.get(edgeTargets[edge]), targetOrder))
+            .map(
+                edge ->
+                    "\t\""
+                        + methods.get(edgeSources[edge])
+                        + "\" -> \""
+                        + methods.get(edgeTargets[edge])
+                        + "\";\n")
+            .collect(Collectors.joining());
+    return "strict digraph ObjectGraph {\n" + edges + "}";
+  }
+
+  /**
+   * Copies the call graph. The copy is mutable, even if this call graph is frozen.
+   *
+   * @return a mutable copy of this call graph
+   */
+  @Nonnull
+  @Override
+  public CompactCallGraph copy() {
+    CompactCallGraph copy = new CompactCallGraph(new ArrayList<>(entryMethods));
+    methods.forEach(copy::addMethod);
+    for (int edge = 0; edge < edgeCount; edge++) {
+      copy.addCall(
+          methods.get(edgeSources[edge]),
+          methods.get(edgeTargets[edge]),
+          callSite(edgeCallSites[edge]));
+    }
+    return copy;
+  }
+
+  @Nonnull
+  @Override
+  public List<MethodSignature> getEntryMethods() {
+    return entryMethods;
+  }
+
+  @Nonnull
+  @Override
+  public CallGraphDifference diff(@Nonnull CallGraph callGraph) {
+    return new CallGraphDifference(this, callGraph);
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName()
+        + "("
+        + methods.size()
+        + " methods, "
+        + edgeCount
+        + " calls"
+        + (isFrozen() ? ", frozen" : "")
+        + ")";
+  }
+}
@@ -23,18 +23,21 @@ package sootup.callgraph;
  */
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Stream;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import sootup.callgraph.CallGraph.Call;
 import sootup.core.jimple.common.expr.AbstractInvokeExpr;
-import sootup.core.jimple.common.expr.JNewExpr;
 import sootup.core.jimple.common.expr.JSpecialInvokeExpr;
+import sootup.core.jimple.common.expr.JStaticInvokeExpr;
 import sootup.core.jimple.common.stmt.InvokableStmt;
-import sootup.core.jimple.common.stmt.JAssignStmt;
 import sootup.core.model.MethodModifier;
+import sootup.core.model.SootClass;
 import sootup.core.model.SootMethod;
 import sootup.core.signatures.MethodSignature;
+import sootup.core.typehierarchy.TypeHierarchy;
 import sootup.core.types.ClassType;
 import sootup.core.views.View;
 
@@ -51,6 +54,9 @@ public class RapidTypeAnalysisAlgorithm extends AbstractCallGraphAlgorithm {
   @Nonnull protected Set<ClassType> instantiatedClasses = Collections.emptySet();
   @Nonnull protected Map<ClassType, List<Call>> ignoredCalls = Collections.emptyMap();
 
+  /** the instantiated classes whose retained calls were resolved again during an update */
+  @Nonnull private Set<ClassType> handledInstantiatedClasses = Collections.emptySet();
+
   /**
    * The constructor of the RTA algorithm.
    *
@@ -60,6 +66,19 @@ public class RapidTypeAnalysisAlgorithm extends AbstractCallGraphAlgorithm {
     super(view);
   }
 
+  /**
+   * The constructor of the RTA algorithm that processes the methods in parallel. The instantiated
+   * classes are only collected in the sequential pre-processing, while the calls to classes that
+   * are not instantiated yet are saved concurrently.
+   *
+   * @param view it contains the data of the classes and methods, it should resolve classes
+   *     concurrently, otherwise the workers wait for each other while resolving the method bodies
+   * @param pool the pool that resolves the method bodies and their calls
+   */
+  public RapidTypeAnalysisAlgorithm(@Nonnull View view, @Nonnull ForkJoinPool pool) {
+    super(view, pool);
+  }
+
   @Nonnull
   @Override
   public CallGraph initialize() {
@@ -71,8 +90,13 @@ public class RapidTypeAnalysisAlgorithm extends AbstractCallGraphAlgorithm {
   @Override
   public CallGraph initialize(@Nonnull List<MethodSignature> entryPoints) {
     // init helper data structures
-    instantiatedClasses = new HashSet<>();
-    ignoredCalls = new HashMap<>();
+    if (pool == null) {
+      instantiatedClasses = new HashSet<>();
+      ignoredCalls = new HashMap<>();
+    } else {
+      instantiatedClasses = ConcurrentHashMap.newKeySet();
+      ignoredCalls = new ConcurrentHashMap<>();
+    }
 
     CallGraph cg = constructCompleteCallGraph(view, entryPoints);
 
@@ -82,6 +106,106 @@ public class RapidTypeAnalysisAlgorithm extends AbstractCallGraphAlgorithm {
     return cg;
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   * <p>The instantiated classes are collected from the retained methods, too. Classes that are
+   * instantiated by the changed code for the first time make the retained calls on their supertypes
+   * to be resolved again. As the instantiations of the old call graph are kept, calls to classes
+   * whose instantiation was removed or became unreachable can remain in the updated call graph.
+   */
+  @Nonnull
+  @Override
+  public CallGraph updateClasses(
+      @Nonnull CallGraph oldCallGraph,
+      @Nonnull Collection<ClassType> changedClasses,
+      @Nonnull Collection<ClassType> removedClasses) {
+    // init helper data structures
+    if (pool == null) {
+      instantiatedClasses = new HashSet<>();
+      ignoredCalls = new HashMap<>();
+    } else {
+      instantiatedClasses = ConcurrentHashMap.newKeySet();
+      ignoredCalls = new ConcurrentHashMap<>();
+    }
+
+    CallGraph cg = super.updateClasses(oldCallGraph, changedClasses, removedClasses);
+
+    // delete the data structures
+    instantiatedClasses = Collections.emptySet();
+    ignoredCalls = Collections.emptyMap();
+    handledInstantiatedClasses = Collections.emptySet();
+    return cg;
+  }
+
+  @Override
+  protected void processRetainedMethods(@Nonnull Set<MethodSignature> retainedMethods) {
+    for (MethodSignature retainedMethod : retainedMethods) {
+      SootMethod method = processableMethodOf(retainedMethod);
+      if (method != null) {
+        collectInstantiatedClassesInMethod(method);
+      }
+    }
+    handledInstantiatedClasses = new HashSet<>(instantiatedClasses);
+  }
+
+  @Nonnull
+  @Override
+  protected Collection<MethodSignature> methodsToReprocessAfterUpdate(
+      @Nonnull Set<MethodSignature> retainedMethods) {
+    TypeHierarchy typeHierarchy = view.getTypeHierarchy();
+    Set<ClassType> receiverTypes = new HashSet<>();
+    for (ClassType instantiatedClass : instantiatedClasses) {
+      if (handledInstantiatedClasses.add(instantiatedClass)) {
+        receiverTypes.add(instantiatedClass);
+        if (typeHierarchy.contains(instantiatedClass)) {
+          typeHierarchy.superClassesOf(instantiatedClass).forEach(receiverTypes::add);
+          typeHierarchy.implementedInterfacesOf(instantiatedClass).forEach(receiverTypes::add);
+        }
+      }
+    }
+    if (receiverTypes.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    // the retained virtual calls on the new receiver types can reach new targets
+    List<MethodSignature> reprocessedMethods = new ArrayList<>();
+    for (MethodSignature retainedMethod : retainedMethods) {
+      SootMethod method = processableMethodOf(retainedMethod);
+      if (method != null && callsReceiverTypes(method, receiverTypes)) {
+        reprocessedMethods.add(retainedMethod);
+      }
+    }
+    return reprocessedMethods;
+  }
+
+  /** Checks if the method contains a virtual call declared in one of the receiver types. */
+  private static boolean callsReceiverTypes(
+      @Nonnull SootMethod method, @Nonnull Set<ClassType> receiverTypes) {
+    CallSiteSummary summary = CallSiteSummary.of(method.getBody());
+    for (int i = 0; i < summary.callSiteCount(); i++) {
+      AbstractInvokeExpr invokeExpr = summary.getInvokeExpr(i);
+      if (!(invokeExpr instanceof JStaticInvokeExpr)
+          && receiverTypes.contains(invokeExpr.getMethodSignature().getDeclClassType())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Returns the method with a body that is processed by the work list, or null. */
+  @Nullable
+  private SootMethod processableMethodOf(@Nonnull MethodSignature methodSignature) {
+    SootClass sootClass = view.getClass(methodSignature.getDeclClassType()).orElse(null);
+    if (sootClass == null || sootClass.isLibraryClass()) {
+      return null;
+    }
+    return sootClass
+        .getMethod(methodSignature.getSubSignature())
+        .filter(SootMethod::hasBody)
+        .orElse(null);
+  }
+
   /**
    * This method is called to collect all instantiation of classes in a given method body. This is
    * important since the RTA algorithm resolves virtual calls only to instantiated classes
@@ -93,18 +217,14 @@ public class RapidTypeAnalysisAlgorithm extends AbstractCallGraphAlgorithm {
       return Collections.emptyList();
     }
 
-    Set<ClassType> instantiated =
-        method.getBody().getStmts().stream()
-            .filter(stmt -> stmt instanceof JAssignStmt)
-            .map(stmt -> ((JAssignStmt) stmt).getRightOp())
-            .filter(value -> value instanceof JNewExpr)
-            .map(value -> ((JNewExpr) value).getType())
-            .collect(Collectors.toSet());
-    List<ClassType> newInstantiatedClassTypes =
-        instantiated.stream()
-            .filter(classType -> !instantiatedClasses.contains(classType))
-            .collect(Collectors.toList());
-    instantiatedClasses.addAll(instantiated);
+    CallSiteSummary summary = CallSiteSummary.of(method.getBody());
+    List<ClassType> newInstantiatedClassTypes = new ArrayList<>();
+    for (int i = 0; i < summary.instantiatedClassCount(); i++) {
+      ClassType classType = summary.getInstantiatedClass(i);
+      if (instantiatedClasses.add(classType)) {
+        newInstantiatedClassTypes.add(classType);
+      }
+    }
     return newInstantiatedClassTypes;
   }
 
@@ -198,13 +318,13 @@ public class RapidTypeAnalysisAlgorithm extends AbstractCallGraphAlgorithm {
   private void saveIgnoredCall(
       MethodSignature source, MethodSignature target, InvokableStmt invokableStmt) {
     ClassType notInstantiatedClass = target.getDeclClassType();
-    List<Call> calls = ignoredCalls.get(notInstantiatedClass);
     Call ignoredCall = new Call(source, target, invokableStmt);
-    if (calls == null) {
-      calls = new ArrayList<>();
-      ignoredCalls.put(notInstantiatedClass, calls);
-    }
-    calls.add(ignoredCall);
+    ignoredCalls
+        .computeIfAbsent(
+            notInstantiatedClass,
+            classType ->
+                pool == null ? new ArrayList<>() : Collections.synchronizedList(new ArrayList<>()))
+        .add(ignoredCall);
   }
 
   /**
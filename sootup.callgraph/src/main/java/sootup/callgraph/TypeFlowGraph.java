@@ -0,0 +1,359 @@
+package sootup.callgraph;
+
+/*-
+ * #%L
+ * SootUp
+ * %%
+ * Copyright (C) 1997 - 2024 Raja Vallée-Rai and others
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.*;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import sootup.core.typehierarchy.TypeHierarchy;
+import sootup.core.types.ArrayType;
+import sootup.core.types.ClassType;
+import sootup.core.types.Type;
+
+/**
+ * The type flow graph of the {@link VariableTypeAnalysisAlgorithm}. A node stands for a variable,
+ * e.g. a local, a parameter or a field, and an edge for an assignment from its source to its
+ * target. The classes that are instantiated into a node are propagated along the edges. An edge can
+ * filter the propagated classes by a type, which is used for casts.
+ *
+ * <p>The nodes and edges are stored in int arrays and the sets of classes as {@link BitSet}s over
+ * the numbered classes. Before the propagation, the strongly connected components of the unfiltered
+ * edges are collapsed, as all their nodes receive the same classes.
+ */
+class TypeFlowGraph {
+
+  /** the number of the type that stands for any class, e.g. the value returned by a library */
+  static final int UNKNOWN_TYPE = 0;
+
+  private static final int INITIAL_CAPACITY = 64;
+  private static final int[] NO_SUCCESSORS = new int[0];
+
+  @Nonnull private final TypeHierarchy typeHierarchy;
+
+  @Nonnull private final Map<Object, Integer> nodeIds = new HashMap<>();
+  private int nodeCount = 0;
+  @Nonnull private int[][] successors = new int[INITIAL_CAPACITY][];
+  @Nonnull private int[] successorCounts = new int[INITIAL_CAPACITY];
+  @Nonnull private BitSet[] initialTypes = new BitSet[INITIAL_CAPACITY];
+
+  // the edges that filter the propagated classes
+  @Nonnull private final List<int[]> filteredEdges = new ArrayList<>();
+  @Nonnull private final List<Type> filterTypes = new ArrayList<>();
+
+  /** the numbered classes, starting with null for {@link #UNKNOWN_TYPE} */
+  @Nonnull private final List<ClassType> types = new ArrayList<>(Collections.singletonList(null));
+
+  @Nonnull private final Map<ClassType, Integer> typeIds = new HashMap<>();
+
+  /** the accepted and the checked classes per filter type */
+  @Nonnull private final Map<Type, BitSet[]> filterCache = new HashMap<>();
+
+  // the result of the propagation
+  private int[] componentOfNode;
+  private BitSet[] componentTypes;
+
+  TypeFlowGraph(@Nonnull TypeHierarchy typeHierarchy) {
+    this.typeHierarchy = typeHierarchy;
+  }
+
+  /** Returns the number of the node of the given key and creates the node if necessary. */
+  int nodeOf(@Nonnull Object key) {
+    Integer id = nodeIds.get(key);
+    if (id != null) {
+      return id;
+    }
+    int newId = nodeCount++;
+    if (newId == successorCounts.length) {
+      int capacity = 2 * newId;
+      successors = Arrays.copyOf(successors, capacity);
+      successorCounts = Arrays.copyOf(successorCounts, capacity);
+      initialTypes = Arrays.copyOf(initialTypes, capacity);
+    }
+    successors[newId] = NO_SUCCESSORS;
+    nodeIds.put(key, newId);
+    return newId;
+  }
+
+  void addEdge(int source, int target) {
+    int count = successorCounts[source];
+    if (count == successors[source].length) {
+      successors[source] = Arrays.copyOf(successors[source], Math.max(4, 2 * count));
+    }
+    successors[source][count] = target;
+    successorCounts[source] = count + 1;
+  }
+
+  /** Adds an edge that only propagates the classes that are assignable to the given type. */
+  void addFilteredEdge(int source, int target, @Nonnull Type filterType) {
+    filteredEdges.add(new int[] {source, target});
+    filterTypes.add(filterType);
+  }
+
+  void addType(int node, @Nonnull ClassType type) {
+    Integer typeId = typeIds.get(type);
+    if (typeId == null) {
+      typeId = types.size();
+      types.add(type);
+      typeIds.put(type, typeId);
+    }
+    addTypeId(node, typeId);
+  }
+
+  void addUnknownType(int node) {
+    addTypeId(node, UNKNOWN_TYPE);
+  }
+
+  private void addTypeId(int node, int typeId) {
+    BitSet nodeTypes = initialTypes[node];
+    if (nodeTypes == null) {
+      nodeTypes = new BitSet();
+      initialTypes[node] = nodeTypes;
+    }
+    nodeTypes.set(typeId);
+  }
+
+  /** Returns the class with the given number, which must not be {@link #UNKNOWN_TYPE}. */
+  @Nonnull
+  ClassType typeOf(int typeId) {
+    return types.get(typeId);
+  }
+
+  /**
+   * Returns the classes that reach the node of the given key after {@link #solve()}, or null if
+   * there is no such node.
+   */
+  @Nullable
+  BitSet typesOf(@Nonnull Object key) {
+    Integer node = nodeIds.get(key);
+    return node == null ? null : componentTypes[componentOfNode[node]];
+  }
+
+  /** Propagates the classes along the edges until a fixpoint is reached. */
+  void solve() {
+    int componentCount = collapseComponents();
+
+    // the successors of the components, without duplicates and self loops
+    int[][] componentSuccessors = new int[componentCount][];
+    int[] componentSuccessorCounts = new int[componentCount];
+    int[] lastSource = new int[componentCount];
+    Arrays.fill(lastSource, -1);
+    List<List<Integer>> nodesOfComponent = new ArrayList<>(componentCount);
+    for (int component = 0; component < componentCount; component++) {
+      componentSuccessors[component] = NO_SUCCESSORS;
+      nodesOfComponent.add(new ArrayList<>(1));
+    }
+    for (int node = 0; node < nodeCount; node++) {
+      nodesOfComponent.get(componentOfNode[node]).add(node);
+    }
+    for (int component = 0; component < componentCount; component++) {
+      for (int node : nodesOfComponent.get(component)) {
+        for (int i = 0; i < successorCounts[node]; i++) {
+          int successor = componentOfNode[successors[node][i]];
+          if (successor != component && lastSource[successor] != component) {
+            lastSource[successor] = component;
+            int count = componentSuccessorCounts[component];
+            if (count == componentSuccessors[component].length) {
+              componentSuccessors[component] =
+                  Arrays.copyOf(componentSuccessors[component], Math.max(4, 2 * count));
+            }
+            componentSuccessors[component][count] = successor;
+            componentSuccessorCounts[component] = count + 1;
+          }
+        }
+      }
+    }
+    List<List<Integer>> filteredEdgesOfComponent = new ArrayList<>(componentCount);
+    for (int component = 0; component < componentCount; component++) {
+      filteredEdgesOfComponent.add(Collections.emptyList());
+    }
+    for (int edge = 0; edge < filteredEdges.size(); edge++) {
+      int component = componentOfNode[filteredEdges.get(edge)[0]];
+      if (filteredEdgesOfComponent.get(component).isEmpty()) {
+        filteredEdgesOfComponent.set(component, new ArrayList<>(1));
+      }
+      filteredEdgesOfComponent.get(component).add(edge);
+    }
+
+    componentTypes = new BitSet[componentCount];
+    for (int component = 0; component < componentCount; component++) {
+      componentTypes[component] = new BitSet();
+    }
+    for (int node = 0; node < nodeCount; node++) {
+      if (initialTypes[node] != null) {
+        componentTypes[componentOfNode[node]].or(initialTypes[node]);
+      }
+    }
+    initialTypes = new BitSet[0];
+
+    // the components are numbered in reverse topological order, so the first pass follows the
+    // unfiltered edges and only filtered edges can require further passes
+    Deque<Integer> workList = new ArrayDeque<>(componentCount);
+    boolean[] queued = new boolean[componentCount];
+    for (int component = componentCount - 1; component >= 0; component--) {
+      workList.add(component);
+      queued[component] = true;
+    }
+    while (!workList.isEmpty()) {
+      int component = workList.poll();
+      queued[component] = false;
+      BitSet sourceTypes = componentTypes[component];
+      if (sourceTypes.isEmpty()) {
+        continue;
+      }
+      for (int i = 0; i < componentSuccessorCounts[component]; i++) {
+        int successor = componentSuccessors[component][i];
+        if (propagate(sourceTypes, successor) && !queued[successor]) {
+          workList.add(successor);
+          queued[successor] = true;
+        }
+      }
+      for (int edge : filteredEdgesOfComponent.get(component)) {
+        int successor = componentOfNode[filteredEdges.get(edge)[1]];
+        if (propagate(filter(sourceTypes, filterTypes.get(edge)), successor)
+            && !queued[successor]) {
+          workList.add(successor);
+          queued[successor] = true;
+        }
+      }
+    }
+  }
+
+  /** Adds the given classes to the component and returns true if it received new classes. */
+  private boolean propagate(@Nonnull BitSet sourceTypes, int targetComponent) {
+    BitSet targetTypes = componentTypes[targetComponent];
+    int oldCardinality = targetTypes.cardinality();
+    targetTypes.or(sourceTypes);
+    return targetTypes.cardinality() != oldCardinality;
+  }
+
+  @Nonnull
+  private BitSet filter(@Nonnull BitSet sourceTypes, @Nonnull Type filterType) {
+    BitSet[] cache =
+        filterCache.computeIfAbsent(filterType, t -> new BitSet[] {new BitSet(), new BitSet()});
+    BitSet accepted = cache[0];
+    BitSet checked = cache[1];
+    BitSet result = new BitSet();
+    for (int typeId = sourceTypes.nextSetBit(0);
+        typeId >= 0;
+        typeId = sourceTypes.nextSetBit(typeId + 1)) {
+      if (!checked.get(typeId)) {
+        checked.set(typeId);
+        if (isAssignable(typeId, filterType)) {
+          accepted.set(typeId);
+        }
+      }
+      if (accepted.get(typeId)) {
+        result.set(typeId);
+      }
+    }
+    return result;
+  }
+
+  private boolean isAssignable(int typeId, @Nonnull Type filterType) {
+    if (typeId == UNKNOWN_TYPE) {
+      return true;
+    }
+    ClassType type = types.get(typeId);
+    if (type.equals(filterType)) {
+      return true;
+    }
+    // arrays are represented by java.lang.Object, see VariableTypeAnalysisAlgorithm
+    boolean canBeArray = type.getFullyQualifiedName().equals("java.lang.Object");
+    if (filterType instanceof ArrayType) {
+      return canBeArray;
+    }
+    if (canBeArray && VariableTypeAnalysisAlgorithm.isSuperTypeOfArrays(filterType)) {
+      return true;
+    }
+    // be conservative if the hierarchy of the types is not known
+    if (!typeHierarchy.contains(type)
+        || (filterType instanceof ClassType && !typeHierarchy.contains((ClassType) filterType))) {
+      return true;
+    }
+    return typeHierarchy.isSubtype(filterType, type);
+  }
+
+  /**
+   * Computes the strongly connected components of the unfiltered edges with Tarjan's algorithm. The
+   * components are numbered in reverse topological order.
+   *
+   * @return the number of components
+   */
+  private int collapseComponents() {
+    componentOfNode = new int[nodeCount];
+    int[] index = new int[nodeCount];
+    Arrays.fill(index, -1);
+    int[] lowLink = new int[nodeCount];
+    boolean[] onStack = new boolean[nodeCount];
+    int[] stack = new int[nodeCount];
+    int stackSize = 0;
+    // the depth first search is iterative to not overflow the call stack on long chains
+    int[] path = new int[nodeCount];
+    int[] nextSuccessor = new int[nodeCount];
+    int counter = 0;
+    int componentCount = 0;
+
+    for (int root = 0; root < nodeCount; root++) {
+      if (index[root] != -1) {
+        continue;
+      }
+      int depth = 0;
+      path[0] = root;
+      nextSuccessor[0] = 0;
+      index[root] = lowLink[root] = counter++;
+      stack[stackSize++] = root;
+      onStack[root] = true;
+      while (depth >= 0) {
+        int node = path[depth];
+        if (nextSuccessor[depth] < successorCounts[node]) {
+          int successor = successors[node][nextSuccessor[depth]++];
+          if (index[successor] == -1) {
+            index[successor] = lowLink[successor] = counter++;
+            stack[stackSize++] = successor;
+            onStack[successor] = true;
+            path[++depth] = successor;
+            nextSuccessor[depth] = 0;
+          } else if (onStack[successor]) {
+            lowLink[node] = Math.min(lowLink[node], index[successor]);
+          }
+        } else {
+          if (lowLink[node] == index[node]) {
+            int member;
+            do {
+              member = stack[--stackSize];
+              onStack[member] = false;
+              componentOfNode[member] = componentCount;
+            } while (member != node);
+            componentCount++;
+          }
+          depth--;
+          if (depth >= 0) {
+            int parent = path[depth];
+            lowLink[parent] = Math.min(lowLink[parent], lowLink[node]);
+          }
+        }
+      }
+    }
+    return componentCount;
+  }
+}
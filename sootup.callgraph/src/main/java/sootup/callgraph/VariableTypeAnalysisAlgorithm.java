@@ -0,0 +1,473 @@
+package sootup.callgraph;
+
+/*-
+ * #%L
+ * SootUp
+ * %%
+ * Copyright (C) 1997 - 2024 Raja Vallée-Rai and others
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import sootup.callgraph.CallGraph.Call;
+import sootup.core.jimple.basic.Immediate;
+import sootup.core.jimple.basic.LValue;
+import sootup.core.jimple.basic.Local;
+import sootup.core.jimple.basic.Value;
+import sootup.core.jimple.common.constant.Constant;
+import sootup.core.jimple.common.expr.*;
+import sootup.core.jimple.common.ref.*;
+import sootup.core.jimple.common.stmt.*;
+import sootup.core.model.SootClass;
+import sootup.core.model.SootMethod;
+import sootup.core.signatures.MethodSignature;
+import sootup.core.typehierarchy.DispatchCache;
+import sootup.core.types.ArrayType;
+import sootup.core.types.ClassType;
+import sootup.core.types.PrimitiveType;
+import sootup.core.types.Type;
+import sootup.core.views.View;
+
+/**
+ * This class implements the Variable Type Analysis call graph algorithm. A virtual call is only
+ * resolved to the methods of the classes whose instances can reach the receiver of the call.
+ *
+ * <p>The algorithm first constructs a call graph with the {@link RapidTypeAnalysisAlgorithm}. For
+ * all reachable methods it builds a type flow graph, whose nodes are the locals, parameters, return
+ * values and fields and whose edges are the assignments between them, including the passing of
+ * arguments and return values along the calls of the RTA call graph. The instantiated classes are
+ * propagated along the edges (see {@link TypeFlowGraph}). Afterwards, the call graph is constructed
+ * again, where the targets of a virtual call are restricted to the RTA targets that are dispatched
+ * from the classes that reach its receiver.
+ *
+ * <p>Fields are distinguished by their name and type only and all arrays share their contents.
+ * Values that can be created outside the analyzed code, like the parameters of the entry methods,
+ * return values of library methods and caught exceptions, can be of any class, so calls on them
+ * keep the RTA targets. If such a value can be an array, the shared contents of the arrays can be
+ * of any class as well. The same holds for arrays that are passed to library methods, as these can
+ * store any object into them.
+ *
+ * <p>Compared to the RTA algorithm, this algorithm is more precise because it considers the classes
+ * that reach the receiver of a call instead of all instantiated classes.
+ */
+public class VariableTypeAnalysisAlgorithm extends AbstractCallGraphAlgorithm {
+
+  private static final String THIS_NODE = "@this";
+  private static final String PARAMETER_NODE = "@parameter";
+  private static final String RETURN_NODE = "@return";
+  private static final String ARRAY_CONTENTS_NODE = "@arraycontents";
+
+  @Nullable private TypeFlowGraph typeFlowGraph = null;
+
+  /** the targets of each call site in the RTA call graph */
+  @Nonnull
+  private Map<InvokableStmt, List<MethodSignature>> initialTargets = Collections.emptyMap();
+
+  /**
+   * The constructor of the VTA algorithm.
+   *
+   * @param view it contains the data of the classes and methods
+   */
+  public VariableTypeAnalysisAlgorithm(@Nonnull View view) {
+    super(view);
+  }
+
+  /**
+   * The constructor of the VTA algorithm that processes the methods of the call graph constructions
+   * in parallel.
+   *
+   * @param view it contains the data of the classes and methods
+   * @param pool the pool that resolves the method bodies and their calls
+   */
+  public VariableTypeAnalysisAlgorithm(@Nonnull View view, @Nonnull ForkJoinPool pool) {
+    super(view, pool);
+  }
+
+  @Nonnull
+  @Override
+  public CallGraph initialize() {
+    List<MethodSignature> entryPoints = Collections.singletonList(findMainMethod(view));
+    return initialize(entryPoints);
+  }
+
+  @Nonnull
+  @Override
+  public CallGraph initialize(@Nonnull List<MethodSignature> entryPoints) {
+    RapidTypeAnalysisAlgorithm rta =
+        pool == null
+            ? new RapidTypeAnalysisAlgorithm(view)
+            : new RapidTypeAnalysisAlgorithm(view, pool);
+    CallGraph rtaCallGraph = rta.initialize(entryPoints);
+    initialTargets = collectInitialTargets(rtaCallGraph);
+    typeFlowGraph = buildTypeFlowGraph(rtaCallGraph, entryPoints);
+    typeFlowGraph.solve();
+
+    CallGraph cg = constructCompleteCallGraph(view, entryPoints);
+
+    // delete the data structures
+    typeFlowGraph = null;
+    initialTargets = Collections.emptyMap();
+    return cg;
+  }
+
+  @Nonnull
+  private static Map<InvokableStmt, List<MethodSignature>> collectInitialTargets(
+      @Nonnull CallGraph rtaCallGraph) {
+    Map<InvokableStmt, List<MethodSignature>> targets = new IdentityHashMap<>();
+    for (MethodSignature method : rtaCallGraph.getMethodSignatures()) {
+      for (Call call : rtaCallGraph.callsFrom(method)) {
+        targets
+            .computeIfAbsent(call.getInvokableStmt(), stmt -> new ArrayList<>())
+            .add(call.getTargetMethodSignature());
+      }
+    }
+    return targets;
+  }
+
+  /** Returns the method with a body that is processed by the work list, or null. */
+  @Nullable
+  private SootMethod processableMethodOf(@Nonnull MethodSignature methodSignature) {
+    SootClass sootClass = view.getClass(methodSignature.getDeclClassType()).orElse(null);
+    if (sootClass == null || sootClass.isLibraryClass()) {
+      return null;
+    }
+    return sootClass
+        .getMethod(methodSignature.getSubSignature())
+        .filter(SootMethod::hasBody)
+        .orElse(null);
+  }
+
+  @Nonnull
+  private TypeFlowGraph buildTypeFlowGraph(
+      @Nonnull CallGraph rtaCallGraph, @Nonnull List<MethodSignature> entryPoints) {
+    TypeFlowGraph graph = new TypeFlowGraph(view.getTypeHierarchy());
+    Set<MethodSignature> entryMethods = new HashSet<>(entryPoints);
+    entryMethods.addAll(rtaCallGraph.getEntryMethods());
+
+    for (MethodSignature methodSignature : rtaCallGraph.getMethodSignatures()) {
+      SootMethod method = processableMethodOf(methodSignature);
+      if (method == null) {
+        continue;
+      }
+      if (entryMethods.contains(methodSignature)) {
+        // the arguments of the entry methods are created outside the analyzed code
+        graph.addUnknownType(graph.nodeOf(new VariableKey(methodSignature, THIS_NODE)));
+        List<Type> parameterTypes = methodSignature.getParameterTypes();
+        for (int i = 0; i < parameterTypes.size(); i++) {
+          addUnknownValue(
+              graph,
+              graph.nodeOf(new VariableKey(methodSignature, PARAMETER_NODE + i)),
+              parameterTypes.get(i));
+        }
+      }
+      for (Stmt stmt : method.getBody().getStmts()) {
+        addFlowsOfStmt(graph, methodSignature, stmt);
+      }
+    }
+    return graph;
+  }
+
+  private void addFlowsOfStmt(
+      @Nonnull TypeFlowGraph graph, @Nonnull MethodSignature method, @Nonnull Stmt stmt) {
+    if (stmt instanceof JIdentityStmt) {
+      JIdentityStmt identityStmt = (JIdentityStmt) stmt;
+      if (isPrimitive(identityStmt.getLeftOp().getType())) {
+        return;
+      }
+      int target = graph.nodeOf(new VariableKey(method, identityStmt.getLeftOp().getName()));
+      IdentityRef ref = identityStmt.getRightOp();
+      if (ref instanceof JThisRef) {
+        graph.addEdge(graph.nodeOf(new VariableKey(method, THIS_NODE)), target);
+      } else if (ref instanceof JParameterRef) {
+        int index = ((JParameterRef) ref).getIndex();
+        graph.addEdge(graph.nodeOf(new VariableKey(method, PARAMETER_NODE + index)), target);
+      } else {
+        graph.addUnknownType(target);
+      }
+    } else if (stmt instanceof JAssignStmt) {
+      JAssignStmt assignStmt = (JAssignStmt) stmt;
+      if (assignStmt.getInvokeExpr().isPresent()) {
+        addFlowsOfCall(graph, method, assignStmt, assignStmt.getInvokeExpr().get());
+      }
+      LValue leftOp = assignStmt.getLeftOp();
+      if (isPrimitive(leftOp.getType())) {
+        return;
+      }
+      int target = nodeOfVariable(graph, method, leftOp);
+      Value rightOp = assignStmt.getRightOp();
+      if (rightOp instanceof AbstractInvokeExpr) {
+        addFlowsOfReturnValue(graph, assignStmt, target, leftOp.getType());
+      } else if (rightOp instanceof JCastExpr) {
+        Immediate op = ((JCastExpr) rightOp).getOp();
+        if (op instanceof Local) {
+          graph.addFilteredEdge(
+              nodeOfVariable(graph, method, (Local) op), target, rightOp.getType());
+        } else {
+          addValue(graph, method, op, target);
+        }
+      } else {
+        addValue(graph, method, rightOp, target);
+      }
+    } else if (stmt instanceof JInvokeStmt) {
+      JInvokeStmt invokeStmt = (JInvokeStmt) stmt;
+      invokeStmt
+          .getInvokeExpr()
+          .ifPresent(invokeExpr -> addFlowsOfCall(graph, method, invokeStmt, invokeExpr));
+    } else if (stmt instanceof JReturnStmt) {
+      Immediate op = ((JReturnStmt) stmt).getOp();
+      if (!isPrimitive(op.getType())) {
+        addValue(graph, method, op, graph.nodeOf(new VariableKey(method, RETURN_NODE)));
+      }
+    }
+  }
+
+  /** Adds the flow of the given value into the target node. */
+  private void addValue(
+      @Nonnull TypeFlowGraph graph,
+      @Nonnull MethodSignature method,
+      @Nonnull Value value,
+      int target) {
+    if (value instanceof JNewExpr) {
+      graph.addType(target, ((JNewExpr) value).getType());
+    } else if (value instanceof JNewArrayExpr || value instanceof JNewMultiArrayExpr) {
+      // the methods that can be called on an array are the ones of java.lang.Object
+      graph.addType(target, view.getIdentifierFactory().getClassType("java.lang.Object"));
+    } else if (value instanceof Constant) {
+      if (value.getType() instanceof ClassType) {
+        graph.addType(target, (ClassType) value.getType());
+      }
+    } else if (value instanceof Local || value instanceof JFieldRef || value instanceof JArrayRef) {
+      graph.addEdge(nodeOfVariable(graph, method, value), target);
+    }
+  }
+
+  /** Returns the node of a local, a field or the contents of an array. */
+  private int nodeOfVariable(
+      @Nonnull TypeFlowGraph graph, @Nonnull MethodSignature method, @Nonnull Value variable) {
+    if (variable instanceof Local) {
+      return graph.nodeOf(new VariableKey(method, ((Local) variable).getName()));
+    }
+    if (variable instanceof JFieldRef) {
+      JFieldRef fieldRef = (JFieldRef) variable;
+      int node = graph.nodeOf(fieldRef.getFieldSignature().getSubSignature());
+      // fields of library classes can be written outside the analyzed code
+      SootClass declaringClass =
+          view.getClass(fieldRef.getFieldSignature().getDeclClassType()).orElse(null);
+      if (declaringClass == null || declaringClass.isLibraryClass()) {
+        addUnknownValue(graph, node, fieldRef.getFieldSignature().getType());
+      }
+      return node;
+    }
+    return graph.nodeOf(ARRAY_CONTENTS_NODE);
+  }
+
+  /**
+   * Marks the node as a value that is created outside the analyzed code. If it can be an array,
+   * the contents of the arrays are not known either.
+   */
+  private void addUnknownValue(@Nonnull TypeFlowGraph graph, int node, @Nonnull Type type) {
+    graph.addUnknownType(node);
+    if (type instanceof ArrayType || isSuperTypeOfArrays(type)) {
+      graph.addUnknownType(graph.nodeOf(ARRAY_CONTENTS_NODE));
+    }
+  }
+
+  /** Returns whether the type is a class type that arrays are assignable to. */
+  static boolean isSuperTypeOfArrays(@Nonnull Type type) {
+    if (!(type instanceof ClassType)) {
+      return false;
+    }
+    String name = ((ClassType) type).getFullyQualifiedName();
+    return name.equals("java.lang.Object")
+        || name.equals("java.lang.Cloneable")
+        || name.equals("java.io.Serializable");
+  }
+
+  /** Adds the flows of the arguments and the receiver to the parameters of the targets. */
+  private void addFlowsOfCall(
+      @Nonnull TypeFlowGraph graph,
+      @Nonnull MethodSignature method,
+      @Nonnull InvokableStmt invokableStmt,
+      @Nonnull AbstractInvokeExpr invokeExpr) {
+    for (MethodSignature target :
+        initialTargets.getOrDefault(invokableStmt, Collections.emptyList())) {
+      if (processableMethodOf(target) == null) {
+        // the library can store any object into the arrays that are passed to it
+        if (invokeExpr.getArgs().stream().anyMatch(arg -> arg.getType() instanceof ArrayType)) {
+          graph.addUnknownType(graph.nodeOf(ARRAY_CONTENTS_NODE));
+        }
+        continue;
+      }
+      List<Immediate> args = invokeExpr.getArgs();
+      for (int i = 0; i < args.size(); i++) {
+        Immediate arg = args.get(i);
+        if (!isPrimitive(arg.getType())) {
+          addValue(graph, method, arg, graph.nodeOf(new VariableKey(target, PARAMETER_NODE + i)));
+        }
+      }
+      if (invokeExpr instanceof AbstractInstanceInvokeExpr) {
+        addValue(
+            graph,
+            method,
+            ((AbstractInstanceInvokeExpr) invokeExpr).getBase(),
+            graph.nodeOf(new VariableKey(target, THIS_NODE)));
+      }
+    }
+  }
+
+  /** Adds the flows of the return values of the targets of the call into the target node. */
+  private void addFlowsOfReturnValue(
+      @Nonnull TypeFlowGraph graph,
+      @Nonnull InvokableStmt invokableStmt,
+      int target,
+      @Nonnull Type targetType) {
+    List<MethodSignature> targets = initialTargets.get(invokableStmt);
+    if (targets == null) {
+      addUnknownValue(graph, target, targetType);
+      return;
+    }
+    for (MethodSignature targetMethod : targets) {
+      if (processableMethodOf(targetMethod) == null) {
+        addUnknownValue(graph, target, targetType);
+      } else {
+        graph.addEdge(graph.nodeOf(new VariableKey(targetMethod, RETURN_NODE)), target);
+      }
+    }
+  }
+
+  private static boolean isPrimitive(@Nonnull Type type) {
+    return type instanceof PrimitiveType;
+  }
+
+  /**
+   * In the VTA algorithm, a virtual call is resolved to the RTA targets that are dispatched from
+   * the classes that reach the receiver of the call. If the receiver can be of any class, all RTA
+   * targets are kept.
+   *
+   * @param method the method object that contains the given invoke expression in the body.
+   * @param invokableStmt the statement containing the call which is resolved.
+   * @return a stream containing all reachable method signatures after applying the VTA call graph
+   *     algorithm
+   */
+  @Override
+  @Nonnull
+  protected Stream<MethodSignature> resolveCall(SootMethod method, InvokableStmt invokableStmt) {
+    List<MethodSignature> targets =
+        initialTargets.getOrDefault(invokableStmt, Collections.emptyList());
+    Optional<AbstractInvokeExpr> optInvokeExpr = invokableStmt.getInvokeExpr();
+    if (!optInvokeExpr.isPresent()
+        || !(optInvokeExpr.get() instanceof AbstractInstanceInvokeExpr)
+        || optInvokeExpr.get() instanceof JSpecialInvokeExpr
+        || typeFlowGraph == null) {
+      return targets.stream();
+    }
+
+    AbstractInstanceInvokeExpr invokeExpr = (AbstractInstanceInvokeExpr) optInvokeExpr.get();
+    BitSet receiverTypes =
+        typeFlowGraph.typesOf(
+            new VariableKey(method.getSignature(), invokeExpr.getBase().getName()));
+    if (receiverTypes == null || receiverTypes.get(TypeFlowGraph.UNKNOWN_TYPE)) {
+      return targets.stream();
+    }
+
+    DispatchCache dispatchCache = view.getDispatchCache();
+    Set<MethodSignature> dispatchedTargets = new HashSet<>();
+    for (int typeId = receiverTypes.nextSetBit(0);
+        typeId >= 0;
+        typeId = receiverTypes.nextSetBit(typeId + 1)) {
+      Optional<SootMethod> target =
+          dispatchCache.resolveConcreteDispatch(
+              typeFlowGraph.typeOf(typeId), invokeExpr.getMethodSignature().getSubSignature());
+      if (!target.isPresent()) {
+        // the class is not completely known, so the dispatch of the RTA is kept
+        return targets.stream();
+      }
+      dispatchedTargets.add(target.get().getSignature());
+    }
+    return targets.stream()
+        .filter(dispatchedTargets::contains)
+        .collect(Collectors.toList())
+        .stream();
+  }
+
+  /**
+   * Preprocessing is not needed in VTA
+   *
+   * @param view view
+   * @param sourceMethod the processed method
+   * @param workList the current work list
+   * @param cg the current cg
+   */
+  @Override
+  protected void preProcessingMethod(
+      View view,
+      MethodSignature sourceMethod,
+      @Nonnull Deque<MethodSignature> workList,
+      @Nonnull MutableCallGraph cg) {
+    //    not needed
+  }
+
+  /**
+   * Postprocessing is not needed in VTA
+   *
+   * @param view view
+   * @param sourceMethod the processed method
+   * @param workList the current worklist that is extended by methods that have to be analyzed.
+   * @param cg the current cg is extended by new call targets and calls
+   */
+  @Override
+  protected void postProcessingMethod(
+      View view,
+      MethodSignature sourceMethod,
+      @Nonnull Deque<MethodSignature> workList,
+      @Nonnull MutableCallGraph cg) {
+    //    not needed
+  }
+
+  /** The key of the type flow node of a local, a parameter or the return value of a method. */
+  private static class VariableKey {
+    @Nonnull private final MethodSignature method;
+    @Nonnull private final String name;
+
+    VariableKey(@Nonnull MethodSignature method, @Nonnull String name) {
+      this.method = method;
+      this.name = name;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      VariableKey that = (VariableKey) o;
+      return method.equals(that.method) && name.equals(that.name);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * method.hashCode() + name.hashCode();
+    }
+  }
+}
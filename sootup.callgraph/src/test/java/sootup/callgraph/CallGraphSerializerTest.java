@@ -0,0 +1,140 @@
+package sootup.callgraph;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Optional;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import sootup.core.signatures.MethodSignature;
+import sootup.java.bytecode.frontend.inputlocation.JavaClassPathAnalysisInputLocation;
+import sootup.java.core.JavaSootClass;
+import sootup.java.core.JavaSootMethod;
+import sootup.java.core.views.JavaView;
+import sootup.java.core.views.MutableJavaView;
+
+@Tag("Java8")
+public class CallGraphSerializerTest {
+
+  private static JavaView createView(String classPath) {
+    return new JavaView(new JavaClassPathAnalysisInputLocation(classPath));
+  }
+
+  private static CallGraph createCallGraph(JavaView view) {
+    return new ClassHierarchyAnalysisAlgorithm(view)
+        .initialize(CallGraphTestUtil.methodsWithBody(view));
+  }
+
+  @Test
+  public void testWriteAndRead(@TempDir Path tempDir) throws IOException {
+    JavaView view = createView(CallGraphTestUtil.JPUSH_JAR);
+    CallGraph callGraph = createCallGraph(view);
+    assertTrue(callGraph.callCount() > 0);
+    Path file = tempDir.resolve("callgraph.bin");
+    CallGraphSerializer.write(callGraph, view, file);
+
+    // read back into the same view, the calls refer to the same stmts
+    CompactCallGraph readCallGraph = CallGraphSerializer.read(file, view);
+    assertTrue(readCallGraph.isFrozen());
+    assertEquals(callGraph.getEntryMethods(), readCallGraph.getEntryMethods());
+    assertEquals(callGraph.getMethodSignatures(), readCallGraph.getMethodSignatures());
+    assertEquals(callGraph.callCount(), readCallGraph.callCount());
+    for (MethodSignature method : callGraph.getMethodSignatures()) {
+      assertEquals(callGraph.callsFrom(method), readCallGraph.callsFrom(method));
+    }
+
+    // looking up calls by their stmt resolves all call sites first
+    CompactCallGraph unresolvedCallGraph = CallGraphSerializer.read(file, view);
+    for (MethodSignature method : callGraph.getMethodSignatures()) {
+      for (CallGraph.Call call : callGraph.callsFrom(method)) {
+        assertTrue(unresolvedCallGraph.containsCall(call));
+      }
+    }
+
+    // a compact call graph is written the same way
+    Path rewrittenFile = tempDir.resolve("rewritten.bin");
+    CallGraphSerializer.write(readCallGraph, view, rewrittenFile);
+    assertEquals(
+        CallGraphSerializer.read(rewrittenFile, view).exportAsDot(), callGraph.exportAsDot());
+
+    // read into a new view of the same code
+    JavaView otherView = createView(CallGraphTestUtil.JPUSH_JAR);
+    CallGraph otherCallGraph = CallGraphSerializer.read(file, otherView);
+    assertEquals(callGraph.callCount(), otherCallGraph.callCount());
+    for (MethodSignature method : callGraph.getMethodSignatures()) {
+      assertEquals(callGraph.callTargetsFrom(method), otherCallGraph.callTargetsFrom(method));
+      assertEquals(callGraph.callsFrom(method).size(), otherCallGraph.callsFrom(method).size());
+    }
+  }
+
+  @Test
+  public void testRejectsMismatchingFiles(@TempDir Path tempDir) throws IOException {
+    JavaView view = createView(CallGraphTestUtil.JPUSH_JAR);
+    Path file = tempDir.resolve("callgraph.bin");
+    CallGraphSerializer.write(createCallGraph(view), view, file);
+
+    JavaView otherView = createView("../shared-test-resources/java-miniapps/MiniApp.jar");
+    assertThrows(IOException.class, () -> CallGraphSerializer.read(file, otherView));
+
+    byte[] content = Files.readAllBytes(file);
+    Path truncatedFile = tempDir.resolve("truncated.bin");
+    Files.write(truncatedFile, Arrays.copyOf(content, content.length / 2));
+    assertThrows(IOException.class, () -> CallGraphSerializer.read(truncatedFile, view));
+
+    // a called method that was removed from the view
+    MutableJavaView changedView =
+        new MutableJavaView(new JavaClassPathAnalysisInputLocation(CallGraphTestUtil.JPUSH_JAR));
+    CallGraph callGraph = createCallGraph(changedView);
+    CallGraphSerializer.write(callGraph, changedView, file);
+    JavaSootMethod callee =
+        callGraph.getMethodSignatures().stream()
+            .filter(method -> !callGraph.callSourcesTo(method).isEmpty())
+            .map(changedView::getMethod)
+            .filter(Optional::isPresent)
+            .map(Optional::get)
+            .findFirst()
+            .get();
+    changedView.removeMethod(callee);
+    assertThrows(IOException.class, () -> CallGraphSerializer.read(file, changedView));
+
+    Path otherFile = tempDir.resolve("other.bin");
+    Files.write(otherFile, new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+    assertThrows(IOException.class, () -> CallGraphSerializer.read(otherFile, view));
+  }
+
+  @Test
+  public void testRejectsChangedClasses(@TempDir Path tempDir) throws IOException {
+    MutableJavaView view =
+        new MutableJavaView(new JavaClassPathAnalysisInputLocation(CallGraphTestUtil.JPUSH_JAR));
+    Path file = tempDir.resolve("callgraph.bin");
+    CallGraphSerializer.write(createCallGraph(view), view, file);
+
+    // an added class could override a called method, although no method of the file changed
+    JavaSootClass addedClass =
+        createView("../shared-test-resources/java-miniapps/MiniApp.jar")
+            .getClass(view.getIdentifierFactory().getClassType("MiniApp"))
+            .get();
+    view.addClass(addedClass);
+    IOException exception =
+        assertThrows(IOException.class, () -> CallGraphSerializer.read(file, view));
+    assertTrue(exception.getMessage().endsWith("the class MiniApp is unexpected."));
+    view.removeClass(addedClass);
+    assertEquals(
+        createCallGraph(view).callCount(), CallGraphSerializer.read(file, view).callCount());
+
+    // a class that inherits its methods from another superclass now
+    JavaSootClass changedClass =
+        view.getClasses()
+            .filter(sootClass -> !sootClass.isInterface())
+            .min(Comparator.comparing(sootClass -> sootClass.getType().toString()))
+            .get();
+    view.replaceClass(changedClass, changedClass.withSuperclass(Optional.of(addedClass.getType())));
+    exception = assertThrows(IOException.class, () -> CallGraphSerializer.read(file, view));
+    assertTrue(exception.getMessage().endsWith(changedClass.getType() + " changed."));
+  }
+}
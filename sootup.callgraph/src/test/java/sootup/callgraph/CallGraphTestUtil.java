@@ -0,0 +1,48 @@
+package sootup.callgraph;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import sootup.core.model.SootClass;
+import sootup.core.model.SootMethod;
+import sootup.core.signatures.MethodSignature;
+import sootup.core.views.View;
+
+/**
+ * The shared fixture of the call graph tests that build a large call graph from a jar by using
+ * every method with a body as an entry point.
+ */
+public class CallGraphTestUtil {
+
+  public static final String JPUSH_JAR =
+      "../shared-test-resources/soot-1580/jpush-android_v3.0.5.jar";
+
+  /** Returns the signatures of all methods with a body of the given classes, in their order. */
+  public static List<MethodSignature> methodsWithBody(Stream<? extends SootClass> classes) {
+    return classes
+        .flatMap(sootClass -> sootClass.getMethods().stream())
+        .filter(SootMethod::hasBody)
+        .map(SootMethod::getSignature)
+        .collect(Collectors.toCollection(ArrayList::new));
+  }
+
+  /** Returns the signatures of all methods with a body of the view. */
+  public static List<MethodSignature> methodsWithBody(View view) {
+    return methodsWithBody(view.getClasses());
+  }
+
+  /** Asserts that both call graphs contain the same methods and the same calls. */
+  public static void assertSameCallGraph(CallGraph expected, CallGraph actual) {
+    assertEquals(expected.getMethodSignatures(), actual.getMethodSignatures());
+    assertEquals(expected.callCount(), actual.callCount());
+    for (MethodSignature method : expected.getMethodSignatures()) {
+      assertEquals(expected.callsFrom(method), actual.callsFrom(method), method.toString());
+      assertEquals(expected.callsTo(method), actual.callsTo(method), method.toString());
+      assertEquals(expected.callTargetsFrom(method), actual.callTargetsFrom(method));
+      assertEquals(expected.callSourcesTo(method), actual.callSourcesTo(method));
+    }
+  }
+}
@@ -0,0 +1,279 @@
+package sootup.callgraph;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import sootup.core.jimple.common.stmt.InvokableStmt;
+import sootup.core.model.SootMethod;
+import sootup.core.signatures.MethodSignature;
+import sootup.core.typehierarchy.TypeHierarchy;
+import sootup.core.typehierarchy.ViewTypeHierarchy;
+import sootup.java.bytecode.frontend.inputlocation.JavaClassPathAnalysisInputLocation;
+import sootup.java.core.JavaSootClass;
+import sootup.java.core.JavaSootMethod;
+import sootup.java.core.types.JavaClassType;
+import sootup.java.core.views.JavaView;
+import sootup.java.core.views.MutableJavaView;
+
+/** Compares the update of a call graph with a complete recomputation. */
+@Tag("Java8")
+public class CallGraphUpdateTest {
+
+  private final MutableJavaView view =
+      new MutableJavaView(new JavaClassPathAnalysisInputLocation(CallGraphTestUtil.JPUSH_JAR));
+
+  private final List<JavaSootClass> classes =
+      view.getClasses()
+          .sorted(Comparator.comparing(sootClass -> sootClass.getType().toString()))
+          .collect(Collectors.toList());
+
+  private final List<MethodSignature> entryPoints =
+      CallGraphTestUtil.methodsWithBody(classes.stream());
+
+  private List<MethodSignature> existingEntryPoints() {
+    return entryPoints.stream()
+        .filter(method -> view.getMethod(method).isPresent())
+        .collect(Collectors.toList());
+  }
+
+  /** Returns the first class with a method that is called from another class. */
+  private JavaSootClass calledClass(CallGraph callGraph) {
+    return classes.stream()
+        .filter(sootClass -> !sootClass.isInterface())
+        .filter(
+            sootClass ->
+                sootClass.getMethods().stream()
+                    .anyMatch(method -> isCalledFromOtherClass(callGraph, method)))
+        .findFirst()
+        .get();
+  }
+
+  private static boolean isCalledFromOtherClass(CallGraph callGraph, SootMethod method) {
+    return !method.isStatic()
+        && !method.getName().startsWith("<")
+        && callGraph.containsMethod(method.getSignature())
+        && callGraph.callSourcesTo(method.getSignature()).stream()
+            .anyMatch(source -> !source.getDeclClassType().equals(method.getDeclaringClassType()));
+  }
+
+  private static void assertContainsCallGraph(CallGraph expected, CallGraph actual) {
+    assertTrue(actual.getMethodSignatures().containsAll(expected.getMethodSignatures()));
+    for (MethodSignature method : expected.getMethodSignatures()) {
+      assertTrue(
+          actual.callsFrom(method).containsAll(expected.callsFrom(method)), method::toString);
+    }
+  }
+
+  private static Set<MethodSignature> callSourcesTo(CallGraph callGraph, MethodSignature method) {
+    return callGraph.containsMethod(method)
+        ? callGraph.callSourcesTo(method)
+        : Collections.emptySet();
+  }
+
+  /** Checks that the actual call graph equals or, if not exact, contains the expected one. */
+  private static void assertCallGraph(CallGraph expected, CallGraph actual, boolean exact) {
+    if (exact) {
+      assertEquals(expected.getMethodSignatures(), actual.getMethodSignatures());
+      assertEquals(expected.callCount(), actual.callCount());
+    }
+    assertContainsCallGraph(expected, actual);
+  }
+
+  private void testChanges(
+      Function<MutableJavaView, AbstractCallGraphAlgorithm> algorithm, boolean exact) {
+    // a class that is not part of the input location, so it can be removed from the view again
+    JavaSootClass addedClass =
+        new JavaView(
+                new JavaClassPathAnalysisInputLocation(
+                    "../shared-test-resources/java-miniapps/MiniApp.jar"))
+            .getClass(view.getIdentifierFactory().getClassType("MiniApp"))
+            .get();
+    view.addClass(addedClass);
+    ((ViewTypeHierarchy) view.getTypeHierarchy()).addType(addedClass);
+    addedClass.getMethods().stream()
+        .filter(SootMethod::hasBody)
+        .forEach(method -> entryPoints.add(method.getSignature()));
+    CallGraph oldCallGraph = algorithm.apply(view).initialize(entryPoints);
+
+    JavaSootClass modifiedClass = calledClass(oldCallGraph);
+    JavaSootMethod removedMethod =
+        modifiedClass.getMethods().stream()
+            .filter(method -> isCalledFromOtherClass(oldCallGraph, method))
+            .findFirst()
+            .get();
+    view.removeClass(addedClass);
+    view.removeMethod(removedMethod);
+    assertFalse(view.getClass(addedClass.getType()).isPresent());
+    assertFalse(view.getMethod(removedMethod.getSignature()).isPresent());
+
+    CallGraph expected = algorithm.apply(view).initialize(existingEntryPoints());
+    assertNotEquals(oldCallGraph.callCount(), expected.callCount());
+    CallGraph updated =
+        algorithm
+            .apply(view)
+            .updateClasses(
+                oldCallGraph,
+                Collections.singletonList(modifiedClass.getType()),
+                Collections.singletonList(addedClass.getType()));
+    assertCallGraph(expected, updated, exact);
+    // even an update that is not exact does not keep the calls to the removed method
+    assertEquals(
+        callSourcesTo(expected, removedMethod.getSignature()),
+        callSourcesTo(updated, removedMethod.getSignature()));
+
+    // adding the method again restores the dispatch to it
+    view.addMethod(removedMethod);
+    CallGraph expectedAfterAddition = algorithm.apply(view).initialize(existingEntryPoints());
+    CallGraph updatedAfterAddition =
+        algorithm
+            .apply(view)
+            .updateClasses(
+                updated,
+                Collections.singletonList(modifiedClass.getType()),
+                Collections.emptyList());
+    assertCallGraph(expectedAfterAddition, updatedAfterAddition, exact);
+  }
+
+  @Test
+  public void testCHA() {
+    testChanges(ClassHierarchyAnalysisAlgorithm::new, true);
+  }
+
+  @Test
+  public void testRTA() {
+    testChanges(RapidTypeAnalysisAlgorithm::new, false);
+  }
+
+  @Test
+  public void testSuperClassChange() {
+    testSuperClassChange(false);
+  }
+
+  @Test
+  public void testSuperClassChangeWithUpToDateHierarchy() {
+    testSuperClassChange(true);
+  }
+
+  /**
+   * Changes the superclass of a class that inherits a called method.
+   *
+   * @param upToDateHierarchy whether the type hierarchy of the view contains the change when the
+   *     call graph is updated
+   */
+  private void testSuperClassChange(boolean upToDateHierarchy) {
+    UpdatableHierarchyJavaView view = new UpdatableHierarchyJavaView();
+    MethodSignature caller = view.voidMethod("scc.Class", "call", "scc.SubClass");
+    CallGraph oldCallGraph = view.initializeCallGraph();
+    assertTrue(oldCallGraph.containsMethod(caller));
+
+    JavaSootClass changedClass = view.getClass(view.classType("scc.SubClass")).get();
+    view.replaceClass(
+        changedClass,
+        changedClass.withSuperclass(Optional.of(view.classType("scc.OtherSuperClass"))));
+    if (upToDateHierarchy) {
+      view.updateTypeHierarchy();
+    }
+
+    Set<MethodSignature> resolvedMethods = new HashSet<>();
+    CallGraph updated = view.updateCallGraph(oldCallGraph, changedClass, resolvedMethods);
+    // the subclass inherits the called method through another superclass now, so the caller is
+    // resolved again, although neither its class nor the target class changed
+    assertTrue(resolvedMethods.contains(caller));
+    if (upToDateHierarchy) {
+      assertTrue(
+          updated
+              .callTargetsFrom(caller)
+              .contains(view.voidMethod("scc.OtherSuperClass", "target")));
+    }
+    assertCallGraph(view.initializeCallGraph(), updated, true);
+  }
+
+  @Test
+  public void testAddedSubClass() {
+    UpdatableHierarchyJavaView view = new UpdatableHierarchyJavaView();
+    MethodSignature caller = view.voidMethod("scc.Class", "call", "scc.SubClass");
+    CallGraph oldCallGraph = view.initializeCallGraph();
+
+    // the added class overrides the called method of its superclass
+    JavaSootClass addedClass =
+        new JavaView(
+                new JavaClassPathAnalysisInputLocation(
+                    "src/test/resources/callgraph/Update/added"))
+            .getClass(view.classType("scc.AddedSubClass"))
+            .get();
+    view.addClass(addedClass);
+    view.updateTypeHierarchy();
+
+    Set<MethodSignature> resolvedMethods = new HashSet<>();
+    CallGraph updated = view.updateCallGraph(oldCallGraph, addedClass, resolvedMethods);
+    assertTrue(resolvedMethods.contains(caller));
+    assertTrue(
+        updated.callTargetsFrom(caller).contains(view.voidMethod("scc.AddedSubClass", "target")));
+    assertCallGraph(view.initializeCallGraph(), updated, true);
+  }
+
+  /** A view of the Update test classes whose type hierarchy can be built again after changes. */
+  private static class UpdatableHierarchyJavaView extends MutableJavaView {
+
+    @Nullable private TypeHierarchy typeHierarchy;
+
+    UpdatableHierarchyJavaView() {
+      super(new JavaClassPathAnalysisInputLocation("src/test/resources/callgraph/Update/binary"));
+    }
+
+    void updateTypeHierarchy() {
+      typeHierarchy = new ViewTypeHierarchy(this);
+    }
+
+    @Nonnull
+    @Override
+    public TypeHierarchy getTypeHierarchy() {
+      return typeHierarchy == null ? super.getTypeHierarchy() : typeHierarchy;
+    }
+
+    JavaClassType classType(String className) {
+      return getIdentifierFactory().getClassType(className);
+    }
+
+    MethodSignature voidMethod(String className, String methodName, String... parameterTypes) {
+      return getIdentifierFactory()
+          .getMethodSignature(
+              classType(className), methodName, "void", Arrays.asList(parameterTypes));
+    }
+
+    CallGraph initializeCallGraph() {
+      return new ClassHierarchyAnalysisAlgorithm(this)
+          .initialize(
+              Collections.singletonList(voidMethod("scc.Class", "main", "java.lang.String[]")));
+    }
+
+    /** Updates the call graph and collects the methods whose calls are resolved again. */
+    CallGraph updateCallGraph(
+        CallGraph oldCallGraph, JavaSootClass changedClass, Set<MethodSignature> resolvedMethods) {
+      return new ClassHierarchyAnalysisAlgorithm(this) {
+        @Override
+        protected Stream<MethodSignature> resolveCall(
+            SootMethod method, InvokableStmt invokableStmt) {
+          resolvedMethods.add(method.getSignature());
+          return super.resolveCall(method, invokableStmt);
+        }
+      }.updateClasses(
+          oldCallGraph,
+          Collections.singletonList(changedClass.getType()),
+          Collections.emptyList());
+    }
+  }
+}
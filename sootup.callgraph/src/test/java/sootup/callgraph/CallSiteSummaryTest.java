@@ -0,0 +1,70 @@
+package sootup.callgraph;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import sootup.core.jimple.common.stmt.Stmt;
+import sootup.core.model.Body;
+import sootup.core.types.ClassType;
+import sootup.java.bytecode.frontend.inputlocation.JavaClassPathAnalysisInputLocation;
+import sootup.java.core.views.JavaView;
+
+@Tag("Java8")
+public class CallSiteSummaryTest {
+
+  private final JavaView view =
+      new JavaView(
+          new JavaClassPathAnalysisInputLocation(
+              "src/test/resources/callgraph/VariableTypeAnalysis/binary"));
+
+  private Body mainBody() {
+    return view.getMethod(
+            view.getIdentifierFactory()
+                .parseMethodSignature("vta.VariableTypeAnalysis#main(java.lang.String[]): void"))
+        .get()
+        .getBody();
+  }
+
+  @Test
+  public void testSummaryOfBody() {
+    Body body = mainBody();
+    CallSiteSummary summary = CallSiteSummary.of(body);
+    assertSame(summary, CallSiteSummary.of(body));
+
+    List<Stmt> expectedCallSites =
+        body.getStmts().stream()
+            .filter(stmt -> stmt.isInvokableStmt() && stmt.asInvokableStmt().containsInvokeExpr())
+            .collect(Collectors.toList());
+    List<Stmt> callSites = new ArrayList<>();
+    for (int i = 0; i < summary.callSiteCount(); i++) {
+      callSites.add(summary.getCallSite(i));
+      assertEquals(summary.getCallSite(i).getInvokeExpr().get(), summary.getInvokeExpr(i));
+    }
+    assertEquals(expectedCallSites, callSites);
+
+    List<ClassType> instantiatedClasses = new ArrayList<>();
+    for (int i = 0; i < summary.instantiatedClassCount(); i++) {
+      instantiatedClasses.add(summary.getInstantiatedClass(i));
+    }
+    assertEquals(
+        Arrays.asList(
+            classType("Circle"), classType("Canvas"), classType("Square"), classType("Triangle")),
+        instantiatedClasses);
+
+    // every instantiation triggers the static initializer of its class
+    List<ClassType> initializedClasses = new ArrayList<>();
+    for (int i = 0; i < summary.staticInitializerTriggerCount(); i++) {
+      initializedClasses.add(summary.getStaticInitializerClass(i));
+    }
+    assertEquals(instantiatedClasses, initializedClasses);
+  }
+
+  private ClassType classType(String className) {
+    return view.getIdentifierFactory().getClassType("vta." + className);
+  }
+}
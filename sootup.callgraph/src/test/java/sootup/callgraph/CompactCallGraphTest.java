@@ -0,0 +1,73 @@
+package sootup.callgraph;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import sootup.core.signatures.MethodSignature;
+import sootup.java.bytecode.frontend.inputlocation.JavaClassPathAnalysisInputLocation;
+import sootup.java.core.views.JavaView;
+
+/** Compares the {@link CompactCallGraph} with the {@link GraphBasedCallGraph}. */
+@Tag("Java8")
+public class CompactCallGraphTest {
+
+  private final JavaView view =
+      new JavaView(new JavaClassPathAnalysisInputLocation(CallGraphTestUtil.JPUSH_JAR));
+
+  private static void assertSameCallGraph(CallGraph expected, CallGraph actual) {
+    CallGraphTestUtil.assertSameCallGraph(expected, actual);
+    assertEquals(expected.exportAsDot(), actual.exportAsDot());
+  }
+
+  @Test
+  public void testCompactCallGraph() {
+    List<MethodSignature> entryPoints = CallGraphTestUtil.methodsWithBody(view);
+    CallGraph expected = new ClassHierarchyAnalysisAlgorithm(view).initialize(entryPoints);
+    assertTrue(expected.callCount() > 0);
+
+    CallGraph compact =
+        new ClassHierarchyAnalysisAlgorithm(view).setCompactCallGraph(true).initialize(entryPoints);
+    assertTrue(compact instanceof CompactCallGraph);
+    assertSameCallGraph(expected, compact);
+
+    CompactCallGraph frozen = ((CompactCallGraph) compact).copy().freeze();
+    assertTrue(frozen.isFrozen());
+    assertSameCallGraph(expected, frozen);
+    for (MethodSignature method : expected.getMethodSignatures()) {
+      for (CallGraph.Call call : expected.callsFrom(method)) {
+        assertTrue(frozen.containsCall(call));
+      }
+      int[] callees = new int[1];
+      frozen.forEachCallee(frozen.methodId(method), callee -> callees[0]++);
+      assertEquals(expected.callsFrom(method).size(), callees[0]);
+    }
+
+    CallGraph.Call call =
+        expected.callsFrom(expected.getEntryMethods().get(0)).stream()
+            .findFirst()
+            .orElseGet(
+                () ->
+                    expected.getMethodSignatures().stream()
+                        .flatMap(method -> expected.callsFrom(method).stream())
+                        .findFirst()
+                        .get());
+    assertThrows(
+        UnsupportedOperationException.class,
+        () ->
+            frozen.addCall(
+                call.getTargetMethodSignature(),
+                call.getSourceMethodSignature(),
+                call.getInvokableStmt()));
+
+    // a copy of a frozen call graph can be modified again
+    MutableCallGraph copy = frozen.copy();
+    copy.addCall(
+        call.getTargetMethodSignature(), call.getSourceMethodSignature(), call.getInvokableStmt());
+    assertEquals(frozen.callCount() + 1, copy.callCount());
+    // duplicate calls are ignored
+    copy.addCall(call);
+    assertEquals(frozen.callCount() + 1, copy.callCount());
+  }
+}
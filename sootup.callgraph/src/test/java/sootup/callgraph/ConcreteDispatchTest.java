@@ -3,6 +3,7 @@ package sootup.callgraph;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
@@ -11,11 +12,15 @@ import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import sootup.core.IdentifierFactory;
 import sootup.core.inputlocation.AnalysisInputLocation;
+import sootup.core.model.SootMethod;
 import sootup.core.signatures.MethodSignature;
+import sootup.core.typehierarchy.DispatchCache;
 import sootup.core.types.ClassType;
 import sootup.java.bytecode.frontend.inputlocation.DefaultRuntimeAnalysisInputLocation;
 import sootup.java.bytecode.frontend.inputlocation.JavaClassPathAnalysisInputLocation;
+import sootup.java.core.JavaSootMethod;
 import sootup.java.core.views.JavaView;
+import sootup.java.core.views.MutableJavaView;
 
 /** @author : Hasitha Rajapakse, Jonas Klauke * */
 @Tag("Java8")
@@ -177,4 +182,34 @@ public class ConcreteDispatchTest {
     assertNotNull(candidateSubInterface2);
     assertEquals(candidateSubInterface, candidateSubInterface2);
   }
+
+  @Test
+  public void dispatchCacheOfMutableView() {
+    MutableJavaView mutableView =
+        new MutableJavaView(
+            Arrays.asList(
+                new JavaClassPathAnalysisInputLocation(
+                    "src/test/resources/callgraph/ConcreteDispatch/binary"),
+                new DefaultRuntimeAnalysisInputLocation()));
+    IdentifierFactory factory = mutableView.getIdentifierFactory();
+    MethodSignature methodOfA = factory.parseMethodSignature("A#method(): void");
+    DispatchCache dispatchCache = mutableView.getDispatchCache();
+    assertSame(dispatchCache, mutableView.getDispatchCache());
+
+    SootMethod target =
+        dispatchCache
+            .resolveConcreteDispatch(methodOfA.getDeclClassType(), methodOfA.getSubSignature())
+            .orElse(null);
+    assertNotNull(target);
+    assertEquals(methodOfA, target.getSignature());
+    // the cached method is returned for later lookups
+    assertSame(
+        target, AbstractCallGraphAlgorithm.findConcreteMethod(mutableView, methodOfA).orElse(null));
+
+    // a modification of the view invalidates the cached dispatch
+    mutableView.removeMethod((JavaSootMethod) target);
+    assertNotEquals(
+        Optional.of(methodOfA),
+        AbstractCallGraphAlgorithm.resolveConcreteDispatch(mutableView, methodOfA));
+  }
 }
@@ -0,0 +1,118 @@
+package sootup.callgraph;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import sootup.core.signatures.MethodSignature;
+import sootup.core.views.View;
+import sootup.java.bytecode.frontend.inputlocation.JavaClassPathAnalysisInputLocation;
+import sootup.java.core.views.JavaView;
+
+/** Compares the parallel call graph construction with the sequential one. */
+@Tag("Java8")
+public class ParallelCallGraphTest {
+
+  private final JavaView view =
+      new JavaView(new JavaClassPathAnalysisInputLocation(CallGraphTestUtil.JPUSH_JAR));
+
+  @Test
+  public void testCHA() {
+    List<MethodSignature> entryPoints = CallGraphTestUtil.methodsWithBody(view);
+    CallGraph sequential = new ClassHierarchyAnalysisAlgorithm(view).initialize(entryPoints);
+    assertTrue(sequential.callCount() > 0);
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      CallGraph parallel = new ClassHierarchyAnalysisAlgorithm(view, pool).initialize(entryPoints);
+      CallGraphTestUtil.assertSameCallGraph(sequential, parallel);
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void testRTA() {
+    List<MethodSignature> entryPoints = CallGraphTestUtil.methodsWithBody(view);
+    CallGraph sequential = new RapidTypeAnalysisAlgorithm(view).initialize(entryPoints);
+    assertTrue(sequential.callCount() > 0);
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      CallGraph parallel = new RapidTypeAnalysisAlgorithm(view, pool).initialize(entryPoints);
+      CallGraphTestUtil.assertSameCallGraph(sequential, parallel);
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Builds the call graph of a single <code>main</code> method. The parallel processing
+   * pre-processes all methods of a round before their calls are resolved, so RTA sees the
+   * instantiations in a different order than the sequential processing.
+   */
+  private static CallGraph assertSameCallGraphFromMain(
+      String classPath,
+      String className,
+      Function<View, AbstractCallGraphAlgorithm> sequentialAlgorithm,
+      Function<View, AbstractCallGraphAlgorithm> parallelAlgorithm) {
+    JavaView view = new JavaView(new JavaClassPathAnalysisInputLocation(classPath));
+    List<MethodSignature> entryPoints =
+        Collections.singletonList(
+            view.getIdentifierFactory()
+                .getMethodSignature(
+                    view.getIdentifierFactory().getClassType(className),
+                    "main",
+                    "void",
+                    Collections.singletonList("java.lang.String[]")));
+    CallGraph sequential = sequentialAlgorithm.apply(view).initialize(entryPoints);
+    assertTrue(sequential.callCount() > 0);
+    CallGraph parallel = parallelAlgorithm.apply(view).initialize(entryPoints);
+    CallGraphTestUtil.assertSameCallGraph(sequential, parallel);
+    return parallel;
+  }
+
+  @Test
+  public void testFromMain() {
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      String[][] mainClasses = {
+        {"../shared-test-resources/java-miniapps/MiniApp.jar", "MiniApp"},
+        // the called class is instantiated in a method that is processed later
+        {"src/test/resources/callgraph/RTA/binary", "lic.Class"},
+        // the called class is instantiated in the static initializer
+        {"src/test/resources/callgraph/RTA/binary", "cic.Class"}
+      };
+      for (String[] mainClass : mainClasses) {
+        assertSameCallGraphFromMain(
+            mainClass[0],
+            mainClass[1],
+            ClassHierarchyAnalysisAlgorithm::new,
+            view -> new ClassHierarchyAnalysisAlgorithm(view, pool));
+        assertSameCallGraphFromMain(
+            mainClass[0],
+            mainClass[1],
+            RapidTypeAnalysisAlgorithm::new,
+            view -> new RapidTypeAnalysisAlgorithm(view, pool));
+      }
+
+      // the call of the later instantiated class is replayed after its instantiation
+      CallGraph callGraph =
+          assertSameCallGraphFromMain(
+              "src/test/resources/callgraph/RTA/binary",
+              "lic.Class",
+              RapidTypeAnalysisAlgorithm::new,
+              view -> new RapidTypeAnalysisAlgorithm(view, pool));
+      assertTrue(
+          callGraph.getMethodSignatures().stream()
+              .anyMatch(
+                  method ->
+                      method.getDeclClassType().toString().equals("lic.InstantiatedClass")
+                          && method.getName().equals("method")));
+    } finally {
+      pool.shutdown();
+    }
+  }
+}
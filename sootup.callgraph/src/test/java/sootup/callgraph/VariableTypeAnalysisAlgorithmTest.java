@@ -0,0 +1,99 @@
+package sootup.callgraph;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import sootup.core.inputlocation.AnalysisInputLocation;
+import sootup.core.signatures.MethodSignature;
+import sootup.java.bytecode.frontend.inputlocation.DefaultRuntimeAnalysisInputLocation;
+import sootup.java.bytecode.frontend.inputlocation.JavaClassPathAnalysisInputLocation;
+import sootup.java.core.views.JavaView;
+
+@Tag("Java8")
+public class VariableTypeAnalysisAlgorithmTest {
+
+  private static JavaView view;
+  private static MethodSignature mainMethod;
+
+  @BeforeAll
+  public static void setUp() {
+    List<AnalysisInputLocation> inputLocations = new ArrayList<>();
+    inputLocations.add(
+        new JavaClassPathAnalysisInputLocation(
+            "src/test/resources/callgraph/VariableTypeAnalysis/binary"));
+    inputLocations.add(new DefaultRuntimeAnalysisInputLocation());
+    view = new JavaView(inputLocations);
+    mainMethod =
+        view.getIdentifierFactory()
+            .parseMethodSignature("vta.VariableTypeAnalysis#main(java.lang.String[]): void");
+  }
+
+  private static MethodSignature drawOf(String className) {
+    return view.getIdentifierFactory().parseMethodSignature("vta." + className + "#draw(): void");
+  }
+
+  private static Set<MethodSignature> calledDrawMethods(CallGraph cg) {
+    return cg.callTargetsFrom(mainMethod).stream()
+        .filter(method -> method.getName().equals("draw"))
+        .collect(Collectors.toSet());
+  }
+
+  @Test
+  public void testReceiverTypes() {
+    CallGraph rta =
+        new RapidTypeAnalysisAlgorithm(view).initialize(Collections.singletonList(mainMethod));
+    assertTrue(calledDrawMethods(rta).contains(drawOf("Triangle")));
+
+    CallGraph vta =
+        new VariableTypeAnalysisAlgorithm(view).initialize(Collections.singletonList(mainMethod));
+    // the local points to a circle and the field of the canvas to a square
+    assertEquals(
+        new HashSet<>(Arrays.asList(drawOf("Circle"), drawOf("Square"))), calledDrawMethods(vta));
+    assertFalse(vta.containsMethod(drawOf("Triangle")));
+    assertTrue(vta.containsMethod(drawOf("Square")));
+  }
+
+  @Test
+  public void testSubsetOfRapidTypeAnalysis() {
+    CallGraph rta = new RapidTypeAnalysisAlgorithm(view).initialize();
+    CallGraph vta = new VariableTypeAnalysisAlgorithm(view).initialize();
+
+    assertTrue(vta.callCount() <= rta.callCount());
+    for (MethodSignature method : vta.getMethodSignatures()) {
+      assertTrue(rta.containsMethod(method));
+      assertTrue(rta.callTargetsFrom(method).containsAll(vta.callTargetsFrom(method)));
+    }
+  }
+
+  @Test
+  public void testArrayContents() {
+    // the contents of arrays that are created outside the analyzed code can be of any class and
+    // an array is assignable to the array type it is cast to
+    for (String entryMethod :
+        Arrays.asList(
+            "vta.ArrayContents#drawParameter(vta.Shape[]): void",
+            "vta.ArrayContents#drawLibraryArray(): void",
+            "vta.ArrayContents#printArray(): void")) {
+      MethodSignature method = view.getIdentifierFactory().parseMethodSignature(entryMethod);
+      List<MethodSignature> entryMethods = Collections.singletonList(method);
+      CallGraph rta = new RapidTypeAnalysisAlgorithm(view).initialize(entryMethods);
+      CallGraph vta = new VariableTypeAnalysisAlgorithm(view).initialize(entryMethods);
+      Set<MethodSignature> targets = vta.callTargetsFrom(method);
+      assertTrue(
+          targets.stream()
+              .anyMatch(
+                  target -> target.getName().equals("draw") || target.getName().equals("toString")),
+          entryMethod);
+      assertEquals(rta.callTargetsFrom(method), targets, entryMethod);
+    }
+  }
+}
@@ -0,0 +1,8 @@
+// scc/AddedSubClass.java, added to the classes of ../binary
+package scc;
+
+class AddedSubClass extends SubClass {
+
+  public void target(){ }
+
+}
@@ -0,0 +1,28 @@
+// scc/Class.java
+package scc;
+
+class Class {
+
+  public static void main(String[] args){
+    call(new SubClass());
+  }
+
+  static void call(SubClass subClass){
+    subClass.target();
+  }
+}
+
+class SuperClass {
+
+  public void target(){ }
+
+}
+
+class OtherSuperClass {
+
+  public void target(){ }
+
+}
+
+class SubClass extends SuperClass {
+}
@@ -0,0 +1,25 @@
+package vta;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ArrayContents {
+
+    public static void drawParameter(Shape[] shapes) {
+        new Circle();
+        shapes[0].draw();
+    }
+
+    public static void drawLibraryArray() {
+        List<Shape> list = new ArrayList<>();
+        list.add(new Circle());
+        ((Shape) list.toArray()[0]).draw();
+    }
+
+    public static void printArray() {
+        new Square();
+        Object object = new Shape[0];
+        Shape[] shapes = (Shape[]) object;
+        shapes.toString();
+    }
+}
@@ -0,0 +1,45 @@
+package vta;
+
+class Shape {
+    public void draw() {}
+}
+
+class Circle extends Shape {
+    public void draw() {}
+}
+
+class Square extends Shape {
+    public void draw() {}
+}
+
+class Triangle extends Shape {
+    public void draw() {}
+}
+
+class Canvas {
+    private Shape shape;
+
+    public void setShape(Shape shape) {
+        this.shape = shape;
+    }
+
+    public Shape getShape() {
+        return shape;
+    }
+}
+
+public class VariableTypeAnalysis {
+
+    public static void main(String[] args) {
+        Shape circle = new Circle();
+        circle.draw();
+
+        Canvas canvas = new Canvas();
+        canvas.setShape(new Square());
+        canvas.getShape().draw();
+
+        Shape triangle = new Triangle();
+        Object object = triangle;
+        ((Shape) object).toString();
+    }
+}
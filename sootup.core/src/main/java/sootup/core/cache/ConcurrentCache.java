@@ -0,0 +1,126 @@
+package sootup.core.cache;
+
+/*-
+ * #%L
+ * SootUp
+ * %%
+ * Copyright (C) 1997 - 2024 Raja Vallée-Rai and others
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.function.Function;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import sootup.core.model.SootClass;
+import sootup.core.types.ClassType;
+
+/**
+ * Thread-safe cache that stores any class that has been resolved. In contrast to the {@link
+ * FullCache} it does not need external synchronization: lookups are lock-free and {@link
+ * #getOrCompute(ClassType, Function)} guarantees that a class is built at most once per {@link
+ * ClassType}, even if multiple threads request it at the same time.
+ */
+public class ConcurrentCache implements ClassCache {
+
+  protected final ConcurrentHashMap<ClassType, SootClass> cache = new ConcurrentHashMap<>();
+
+  /** classes that are currently built by some thread */
+  protected final ConcurrentHashMap<ClassType, FutureTask<SootClass>> pending =
+      new ConcurrentHashMap<>();
+
+  @Override
+  public SootClass getClass(ClassType classType) {
+    return cache.get(classType);
+  }
+
+  /**
+   * Returns the cached class for the given type or builds it via the given builder. If another
+   * thread is already building the class, the calling thread waits for that result instead of
+   * building it a second time. If the builder returns null, nothing is cached.
+   */
+  @Nullable
+  public SootClass getOrCompute(
+      @Nonnull ClassType classType,
+      @Nonnull Function<ClassType, ? extends SootClass> classBuilder) {
+    SootClass sootClass = cache.get(classType);
+    if (sootClass != null) {
+      return sootClass;
+    }
+
+    FutureTask<SootClass> task = new FutureTask<>(() -> classBuilder.apply(classType));
+    FutureTask<SootClass> runningTask = pending.putIfAbsent(classType, task);
+    if (runningTask == null) {
+      runningTask = task;
+      try {
+        task.run();
+        SootClass builtClass = getResult(task);
+        if (builtClass != null) {
+          SootClass existingClass = cache.putIfAbsent(classType, builtClass);
+          return existingClass != null ? existingClass : builtClass;
+        }
+        return null;
+      } finally {
+        pending.remove(classType, task);
+      }
+    }
+    return getResult(runningTask);
+  }
+
+  private static SootClass getResult(@Nonnull FutureTask<SootClass> task) {
+    try {
+      return task.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for a class to be built.", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException(cause);
+    }
+  }
+
+  @Nonnull
+  @Override
+  public Collection<SootClass> getClasses() {
+    return Collections.unmodifiableCollection(cache.values());
+  }
+
+  @Override
+  public void putClass(ClassType classType, SootClass sootClass) {
+    cache.putIfAbsent(classType, sootClass);
+  }
+
+  @Override
+  public boolean hasClass(ClassType classType) {
+    return cache.containsKey(classType);
+  }
+
+  @Override
+  public int size() {
+    return cache.size();
+  }
+}
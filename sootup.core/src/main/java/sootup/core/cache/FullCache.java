@@ -23,16 +23,19 @@ package sootup.core.cache;
  */
 
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import javax.annotation.Nonnull;
 import sootup.core.model.SootClass;
 import sootup.core.types.ClassType;
 
-/** Cache that stores any class that has been resolved. */
+/**
+ * Cache that stores any class that has been resolved. The classes are kept in the order in which
+ * they were added.
+ */
 public class FullCache implements ClassCache {
 
-  protected final Map<ClassType, SootClass> cache = new HashMap<>();
+  protected final Map<ClassType, SootClass> cache = new LinkedHashMap<>();
 
   @Override
   public synchronized SootClass getClass(ClassType classType) {
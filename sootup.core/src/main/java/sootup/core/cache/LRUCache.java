@@ -52,21 +52,21 @@ public class LRUCache implements ClassCache {
   @Nonnull
   @Override
   public synchronized Collection<SootClass> getClasses() {
-    return cache.values();
+    return new ArrayList<>(cache.values());
   }
 
   @Override
-  public void putClass(ClassType classType, SootClass sootClass) {
+  public synchronized void putClass(ClassType classType, SootClass sootClass) {
     cache.putIfAbsent(classType, sootClass);
   }
 
   @Override
-  public boolean hasClass(ClassType classType) {
+  public synchronized boolean hasClass(ClassType classType) {
     return cache.containsKey(classType);
   }
 
   @Override
-  public int size() {
+  public synchronized int size() {
     return cache.size();
   }
 }
@@ -0,0 +1,195 @@
+package sootup.core.cache;
+
+/*-
+ * #%L
+ * SootUp
+ * %%
+ * Copyright (C) 1997 - 2024 Raja Vallée-Rai and others
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.*;
+import javax.annotation.Nonnull;
+import sootup.core.model.Body;
+import sootup.core.model.SootClass;
+import sootup.core.model.SootMethod;
+import sootup.core.types.ClassType;
+
+/**
+ * Thread-safe cache that is bounded by the estimated retained size of the cached classes instead of
+ * their number. If the estimated size exceeds the configured limit, the resolved method bodies of
+ * the least recently used classes are released first (see {@link SootMethod#releaseBody()}) and
+ * resolved again from their {@link sootup.core.frontend.BodySource} on demand. Only if the class
+ * shells alone exceed the limit, whole classes are evicted.
+ *
+ * <p>The sizes are rough estimations based on the number of members, Stmts and Locals; they are not
+ * measured on the heap. As bodies are resolved lazily outside of the cache, their size is only
+ * known by scanning all cached classes. Hence the limit is checked periodically while classes are
+ * added and retrieved, i.e. after a number of accesses that grows with the size of the cache, and
+ * immediately if the class shells alone exceed it. {@link #trim()} enforces the limit on demand.
+ *
+ * <p>Caution: a released body is resolved again into a new {@link Body} with new {@link
+ * sootup.core.jimple.common.stmt.Stmt} and {@link sootup.core.jimple.basic.Local} instances.
+ * Results that refer to Stmts of a body by identity, e.g. the calls of a call graph, or that are
+ * keyed by them do not match the Stmts of the re-resolved body. Use this cache only if no such
+ * results are kept across the resolution of further classes, otherwise use a cache that does not
+ * release bodies.
+ */
+public class MemoryBoundedCache implements ClassCache {
+
+  /** estimated bytes of a class without its members */
+  static final long CLASS_SHELL_BYTES = 512;
+  /** estimated bytes of a method or field without a body */
+  static final long MEMBER_BYTES = 192;
+  /** estimated bytes per Stmt of a body including its Values and the StmtGraph overhead */
+  static final long STMT_BYTES = 256;
+  /** estimated bytes per Local of a body */
+  static final long LOCAL_BYTES = 48;
+
+  private static final int MIN_CHECK_INTERVAL = 256;
+  /** evicting whole classes frees an additional 1/n of the limit */
+  private static final int EVICTION_HEADROOM_DIVISOR = 4;
+
+  private final long maxRetainedBytes;
+  private final LinkedHashMap<ClassType, SootClass> cache = new LinkedHashMap<>(16, 0.75f, true);
+  private long shellBytes = 0;
+  private int accessesSinceLastCheck = 0;
+
+  /** @param maxRetainedBytes the estimated number of bytes the cached classes may retain */
+  public MemoryBoundedCache(long maxRetainedBytes) {
+    if (maxRetainedBytes < 1) {
+      throw new IllegalArgumentException("The maximum retained size has to be at least 1 byte.");
+    }
+    this.maxRetainedBytes = maxRetainedBytes;
+  }
+
+  @Override
+  public synchronized SootClass getClass(ClassType classType) {
+    SootClass sootClass = cache.get(classType);
+    if (isCheckDue()) {
+      trim();
+    }
+    return sootClass;
+  }
+
+  /**
+   * Counts an access and returns true if the limit should be checked. As a check scans all cached
+   * classes, the interval grows with the size of the cache so that the amortized cost per access
+   * stays constant.
+   */
+  private boolean isCheckDue() {
+    return ++accessesSinceLastCheck >= Math.max(MIN_CHECK_INTERVAL, cache.size());
+  }
+
+  @Nonnull
+  @Override
+  public synchronized Collection<SootClass> getClasses() {
+    return new ArrayList<>(cache.values());
+  }
+
+  @Override
+  public synchronized void putClass(ClassType classType, SootClass sootClass) {
+    if (cache.containsKey(classType)) {
+      return;
+    }
+    cache.put(classType, sootClass);
+    shellBytes += estimateShellSize(sootClass);
+    if (shellBytes > maxRetainedBytes || isCheckDue()) {
+      trim();
+    }
+  }
+
+  @Override
+  public synchronized boolean hasClass(ClassType classType) {
+    return cache.containsKey(classType);
+  }
+
+  @Override
+  public synchronized int size() {
+    return cache.size();
+  }
+
+  /** Returns the estimated number of bytes that are retained by the cached classes. */
+  public synchronized long getEstimatedRetainedSize() {
+    long bodyBytes = 0;
+    for (SootClass sootClass : cache.values()) {
+      bodyBytes += estimateResolvedBodiesSize(sootClass);
+    }
+    return shellBytes + bodyBytes;
+  }
+
+  /**
+   * Releases bodies and evicts classes, least recently used first, until the estimated retained
+   * size fits into the configured limit. If whole classes have to be evicted, a quarter of the
+   * limit is freed additionally.
+   */
+  public synchronized void trim() {
+    accessesSinceLastCheck = 0;
+    long retainedBytes = getEstimatedRetainedSize();
+    if (retainedBytes <= maxRetainedBytes) {
+      return;
+    }
+
+    // the iteration order of the access ordered map is from least to most recently used
+    for (SootClass sootClass : cache.values()) {
+      if (retainedBytes <= maxRetainedBytes) {
+        return;
+      }
+      retainedBytes -= releaseBodies(sootClass);
+    }
+
+    // evict below the limit, so that the next added classes do not trigger a check each
+    long targetBytes = maxRetainedBytes - maxRetainedBytes / EVICTION_HEADROOM_DIVISOR;
+    Iterator<SootClass> iterator = cache.values().iterator();
+    while (retainedBytes > targetBytes && iterator.hasNext()) {
+      long classBytes = estimateShellSize(iterator.next());
+      iterator.remove();
+      shellBytes -= classBytes;
+      retainedBytes -= classBytes;
+    }
+  }
+
+  private static long releaseBodies(@Nonnull SootClass sootClass) {
+    long releasedBytes = 0;
+    for (SootMethod method : sootClass.getMethods()) {
+      if (method.isBodyResolved()) {
+        releasedBytes += estimateBodySize(method.getBody());
+        method.releaseBody();
+      }
+    }
+    return releasedBytes;
+  }
+
+  private static long estimateResolvedBodiesSize(@Nonnull SootClass sootClass) {
+    long bodyBytes = 0;
+    for (SootMethod method : sootClass.getMethods()) {
+      if (method.isBodyResolved()) {
+        bodyBytes += estimateBodySize(method.getBody());
+      }
+    }
+    return bodyBytes;
+  }
+
+  static long estimateShellSize(@Nonnull SootClass sootClass) {
+    return CLASS_SHELL_BYTES
+        + (sootClass.getMethods().size() + sootClass.getFields().size()) * MEMBER_BYTES;
+  }
+
+  static long estimateBodySize(@Nonnull Body body) {
+    return body.getStmtGraph().getNodes().size() * STMT_BYTES + body.getLocalCount() * LOCAL_BYTES;
+  }
+}
@@ -0,0 +1,55 @@
+package sootup.core.cache.provider;
+
+/*-
+ * #%L
+ * SootUp
+ * %%
+ * Copyright (C) 1997 - 2024 Raja Vallée-Rai and others
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import sootup.core.cache.ClassCache;
+import sootup.core.cache.MemoryBoundedCache;
+
+/** Provides a new {@link MemoryBoundedCache} that is bounded by the estimated retained size. */
+public class MemoryBoundedCacheProvider implements ClassCacheProvider {
+  private final long maxRetainedBytes;
+
+  /**
+   * Create a new MemoryBoundedCacheProvider that returns a {@link MemoryBoundedCache} with a
+   * default limit of 256 MiB.
+   */
+  public MemoryBoundedCacheProvider() {
+    this(256L * 1024 * 1024);
+  }
+
+  /**
+   * Create a new MemoryBoundedCacheProvider that returns a {@link MemoryBoundedCache} with the
+   * specified limit of estimated retained bytes.
+   */
+  public MemoryBoundedCacheProvider(long maxRetainedBytes) {
+    if (maxRetainedBytes < 1) {
+      throw new IllegalArgumentException("The maximum retained size has to be at least 1 byte.");
+    }
+    this.maxRetainedBytes = maxRetainedBytes;
+  }
+
+  @Override
+  public ClassCache createCache() {
+    return new MemoryBoundedCache(maxRetainedBytes);
+  }
+}
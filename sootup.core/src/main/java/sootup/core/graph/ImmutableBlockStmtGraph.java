@@ -22,221 +22,639 @@ package sootup.core.graph;
  * #L%
  */
 
-import com.google.common.collect.Lists;
 import java.util.*;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import sootup.core.jimple.basic.Trap;
+import sootup.core.jimple.common.ref.JCaughtExceptionRef;
+import sootup.core.jimple.common.stmt.JIdentityStmt;
 import sootup.core.jimple.common.stmt.Stmt;
 import sootup.core.types.ClassType;
 
-// FIXME: implement!
+/**
+ * A frozen copy of a {@link StmtGraph} for Bodies that are not modified anymore. The Stmts are
+ * stored in one array in the order of {@link StmtGraph#iterator()}, grouped into blocks which are
+ * identified by the offset of their first Stmt. The flows between the blocks are stored as int
+ * arrays of block indices and the exceptional flows as one map per distinct trap configuration,
+ * which is shared by all blocks that are covered by the same traps.
+ *
+ * <p>Compared to a {@link MutableBlockStmtGraph} there are no per Stmt entries in hash maps and no
+ * per block collections, and the queries return views on the arrays instead of copies. Every
+ * modification throws an {@link UnsupportedOperationException}; use {@link
+ * MutableBlockStmtGraph#MutableBlockStmtGraph(StmtGraph)} to get a modifiable copy.
+ */
 public class ImmutableBlockStmtGraph
     extends StmtGraph<ImmutableBlockStmtGraph.ImmutableBasicBlock> {
 
-  private final List<ImmutableBasicBlock> blocks;
-  private final Map<Stmt, ImmutableBasicBlock> stmtToBlock = new HashMap<>();
+  private static final int[] NO_BLOCKS = new int[0];
+
+  @Nullable private final Stmt startingStmt;
+
+  /** the Stmts of all blocks in the iteration order */
+  @Nonnull private final Stmt[] stmts;
+
+  /** the block of each Stmt */
+  @Nonnull private final int[] stmtBlocks;
+
+  /** open addressing table that maps a Stmt (by identity) to its index in {@link #stmts} */
+  @Nonnull private final Stmt[] indexKeys;
+
+  @Nonnull private final int[] indexValues;
+
+  @Nonnull private final ImmutableBasicBlock[] blocks;
+
+  /** the index of the first Stmt of each block, with the Stmt count as last entry */
+  @Nonnull private final int[] blockStarts;
 
-  public ImmutableBlockStmtGraph(@Nonnull MutableStmtGraph graph) {
+  /** the successors of block i are successorBlocks[successorOffsets[i]..successorOffsets[i+1]) */
+  @Nonnull private final int[] successorOffsets;
 
-    final List<? extends BasicBlock<?>> mblocks = graph.getBlocksSorted();
-    blocks = Lists.newArrayListWithExpectedSize(mblocks.size());
-    for (BasicBlock<?> block : mblocks) {
-      /* TODO: link predecessors/successors as well..
-      // final ImmutableBasicBlock ib = new ImmutableBasicBlock();
-      block.getStmts().forEach(stmt -> stmtToBlock.put(stmt, ib));
+  @Nonnull private final int[] successorBlocks;
 
-      blocks.add(ib);*/
+  @Nonnull private final int[] predecessorOffsets;
+  @Nonnull private final int[] predecessorBlocks;
+
+  /** index into {@link #exceptionalSuccessorBlockMaps} for each block */
+  @Nonnull private final int[] exceptionalSuccessorIds;
+
+  @Nonnull private final List<Map<ClassType, ImmutableBasicBlock>> exceptionalSuccessorBlockMaps;
+  @Nonnull private final List<Map<ClassType, Stmt>> exceptionalSuccessorStmtMaps;
+
+  @Nullable private volatile List<Trap> traps = null;
+
+  @Nonnull private final List<ImmutableBasicBlock> blockList;
+  @Nullable private volatile List<BasicBlock<?>> blocksSorted = null;
+
+  public ImmutableBlockStmtGraph(@Nonnull StmtGraph<?> graph) {
+    startingStmt = graph.getStartingStmt();
+
+    // the blocks are stored in the iteration order, so iterating this graph is a linear scan
+    List<BasicBlock<?>> sourceBlocks = new ArrayList<>(graph.getBlocks().size());
+    for (Iterator<BasicBlock<?>> it = graph.getBlockIterator(); it.hasNext(); ) {
+      sourceBlocks.add(it.next());
+    }
+    int blockCount = sourceBlocks.size();
+    Map<BasicBlock<?>, Integer> blockIds = new IdentityHashMap<>(blockCount);
+    blocks = new ImmutableBasicBlock[blockCount];
+    blockStarts = new int[blockCount + 1];
+    int stmtCount = 0;
+    for (int i = 0; i < blockCount; i++) {
+      BasicBlock<?> block = sourceBlocks.get(i);
+      blockIds.put(block, i);
+      blocks[i] = new ImmutableBasicBlock(i);
+      blockStarts[i] = stmtCount;
+      stmtCount += block.getStmtCount();
+    }
+    blockStarts[blockCount] = stmtCount;
+    blockList = Collections.unmodifiableList(Arrays.asList(blocks));
+
+    stmts = new Stmt[stmtCount];
+    stmtBlocks = new int[stmtCount];
+    int tableSize = Integer.highestOneBit(Math.max(stmtCount, 1) * 2) * 2;
+    indexKeys = new Stmt[tableSize];
+    indexValues = new int[tableSize];
+    for (int i = 0; i < blockCount; i++) {
+      int stmtIdx = blockStarts[i];
+      for (Stmt stmt : sourceBlocks.get(i).getStmts()) {
+        stmts[stmtIdx] = stmt;
+        stmtBlocks[stmtIdx] = i;
+        putIndex(stmt, stmtIdx);
+        stmtIdx++;
+      }
     }
+
+    successorOffsets = new int[blockCount + 1];
+    predecessorOffsets = new int[blockCount + 1];
+    int[][] successors = new int[blockCount][];
+    int[][] predecessors = new int[blockCount][];
+    for (int i = 0; i < blockCount; i++) {
+      BasicBlock<?> block = sourceBlocks.get(i);
+      successors[i] = blockIdsOf(block.getSuccessors(), blockIds);
+      predecessors[i] = blockIdsOf(block.getPredecessors(), blockIds);
+      successorOffsets[i + 1] = successorOffsets[i] + successors[i].length;
+      predecessorOffsets[i + 1] = predecessorOffsets[i] + predecessors[i].length;
+    }
+    successorBlocks = new int[successorOffsets[blockCount]];
+    predecessorBlocks = new int[predecessorOffsets[blockCount]];
+    for (int i = 0; i < blockCount; i++) {
+      System.arraycopy(
+          successors[i], 0, successorBlocks, successorOffsets[i], successors[i].length);
+      System.arraycopy(
+          predecessors[i], 0, predecessorBlocks, predecessorOffsets[i], predecessors[i].length);
+    }
+
+    // blocks in the same try ranges share their exceptional flows
+    exceptionalSuccessorIds = new int[blockCount];
+    exceptionalSuccessorBlockMaps = new ArrayList<>();
+    exceptionalSuccessorStmtMaps = new ArrayList<>();
+    exceptionalSuccessorBlockMaps.add(Collections.emptyMap());
+    exceptionalSuccessorStmtMaps.add(Collections.emptyMap());
+    Map<Map<ClassType, Integer>, Integer> exceptionalSuccessorMapIds = new HashMap<>();
+    for (int i = 0; i < blockCount; i++) {
+      Map<? extends ClassType, ? extends BasicBlock<?>> exceptionalSuccessors =
+          sourceBlocks.get(i).getExceptionalSuccessors();
+      if (exceptionalSuccessors.isEmpty()) {
+        continue;
+      }
+      Map<ClassType, Integer> handlerIds = new LinkedHashMap<>();
+      exceptionalSuccessors.forEach(
+          (exceptionType, handlerBlock) ->
+              handlerIds.put(exceptionType, blockIdOf(handlerBlock, blockIds)));
+      Integer mapId = exceptionalSuccessorMapIds.get(handlerIds);
+      if (mapId == null) {
+        mapId = exceptionalSuccessorBlockMaps.size();
+        exceptionalSuccessorMapIds.put(handlerIds, mapId);
+        Map<ClassType, ImmutableBasicBlock> blockMap = new LinkedHashMap<>();
+        Map<ClassType, Stmt> stmtMap = new LinkedHashMap<>();
+        handlerIds.forEach(
+            (exceptionType, handlerId) -> {
+              blockMap.put(exceptionType, blocks[handlerId]);
+              stmtMap.put(exceptionType, stmts[blockStarts[handlerId]]);
+            });
+        exceptionalSuccessorBlockMaps.add(Collections.unmodifiableMap(blockMap));
+        exceptionalSuccessorStmtMaps.add(Collections.unmodifiableMap(stmtMap));
+      }
+      exceptionalSuccessorIds[i] = mapId;
+    }
+  }
+
+  @Nonnull
+  private static int[] blockIdsOf(
+      @Nonnull List<? extends BasicBlock<?>> blocks,
+      @Nonnull Map<BasicBlock<?>, Integer> blockIds) {
+    if (blocks.isEmpty()) {
+      return NO_BLOCKS;
+    }
+    int[] ids = new int[blocks.size()];
+    for (int i = 0; i < ids.length; i++) {
+      ids[i] = blockIdOf(blocks.get(i), blockIds);
+    }
+    return ids;
+  }
+
+  private static int blockIdOf(
+      @Nonnull BasicBlock<?> block, @Nonnull Map<BasicBlock<?>, Integer> blockIds) {
+    Integer id = blockIds.get(block);
+    if (id == null) {
+      throw new IllegalArgumentException(
+          "The block " + block + " is linked but not contained in the StmtGraph.");
+    }
+    return id;
+  }
+
+  private static int hash(@Nonnull Stmt stmt) {
+    int h = System.identityHashCode(stmt);
+    return h ^ (h >>> 16);
+  }
+
+  private void putIndex(@Nonnull Stmt stmt, int stmtIdx) {
+    int mask = indexKeys.length - 1;
+    int slot = hash(stmt) & mask;
+    while (indexKeys[slot] != null) {
+      if (indexKeys[slot] == stmt) {
+        throw new IllegalArgumentException("The Stmt '" + stmt + "' is contained twice.");
+      }
+      slot = (slot + 1) & mask;
+    }
+    indexKeys[slot] = stmt;
+    indexValues[slot] = stmtIdx;
+  }
+
+  /** Returns the index of the Stmt in {@link #stmts} or -1 if it is not contained. */
+  private int indexOf(@Nonnull Stmt stmt) {
+    int mask = indexKeys.length - 1;
+    int slot = hash(stmt) & mask;
+    Stmt key;
+    while ((key = indexKeys[slot]) != null) {
+      if (key == stmt) {
+        return indexValues[slot];
+      }
+      slot = (slot + 1) & mask;
+    }
+    return -1;
+  }
+
+  private int checkedIndexOf(@Nonnull Stmt stmt) {
+    int stmtIdx = indexOf(stmt);
+    if (stmtIdx < 0) {
+      throw new IllegalArgumentException("Stmt '" + stmt + "' is not contained in the StmtGraph");
+    }
+    return stmtIdx;
+  }
+
+  private boolean isHead(int stmtIdx) {
+    return blockStarts[stmtBlocks[stmtIdx]] == stmtIdx;
+  }
+
+  private boolean isTail(int stmtIdx) {
+    return blockStarts[stmtBlocks[stmtIdx] + 1] == stmtIdx + 1;
   }
 
   @Nullable
   @Override
   public Stmt getStartingStmt() {
-    return blocks.isEmpty() ? null : blocks.get(0).getHead();
+    return startingStmt;
+  }
+
+  @Nullable
+  @Override
+  public ImmutableBasicBlock getStartingStmtBlock() {
+    return startingStmt == null ? null : getBlockOf(startingStmt);
   }
 
+  @Nonnull
   @Override
-  public BasicBlock<?> getStartingStmtBlock() {
-    throw new UnsupportedOperationException("Not implemented yet!");
+  public ImmutableBasicBlock getBlockOf(@Nonnull Stmt stmt) {
+    return blocks[stmtBlocks[checkedIndexOf(stmt)]];
   }
 
+  @Nonnull
   @Override
-  public BasicBlock<ImmutableBasicBlock> getBlockOf(@Nonnull Stmt stmt) {
-    throw new UnsupportedOperationException("Not implemented yet!");
+  public Collection<Stmt> getNodes() {
+    return new AbstractCollection<Stmt>() {
+      @Nonnull
+      @Override
+      public Iterator<Stmt> iterator() {
+        return ImmutableBlockStmtGraph.this.iterator();
+      }
+
+      @Override
+      public int size() {
+        return stmts.length;
+      }
+
+      @Override
+      public boolean contains(Object o) {
+        return o instanceof Stmt && indexOf((Stmt) o) >= 0;
+      }
+    };
   }
 
   @Nonnull
   @Override
-  public List<Stmt> getNodes() {
-    int size = 0;
-    for (ImmutableBasicBlock block : blocks) {
-      size += block.getStmtCount();
-    }
-    final ArrayList<Stmt> stmts = new ArrayList<>(size);
-    for (ImmutableBasicBlock block : blocks) {
-      stmts.addAll(block.getStmts());
-    }
-    return stmts;
+  public List<Stmt> getStmts() {
+    return new ArrayList<>(Arrays.asList(stmts));
   }
 
   @Nonnull
   @Override
-  public Collection<ImmutableBasicBlock> getBlocks() {
-    return blocks;
+  public List<ImmutableBasicBlock> getBlocks() {
+    return blockList;
   }
 
   @Nonnull
   @Override
-  public List<? extends BasicBlock<?>> getBlocksSorted() {
-    return blocks;
+  public List<BasicBlock<?>> getBlocksSorted() {
+    List<BasicBlock<?>> sorted = blocksSorted;
+    if (sorted == null) {
+      sorted = Collections.unmodifiableList(ReversePostOrderBlockTraversal.getBlocksSorted(this));
+      blocksSorted = sorted;
+    }
+    return sorted;
+  }
+
+  @Nonnull
+  @Override
+  public Iterator<BasicBlock<?>> getBlockIterator() {
+    return Collections.<BasicBlock<?>>unmodifiableList(blockList).iterator();
   }
 
   @Override
   public boolean containsNode(@Nonnull Stmt node) {
-    throw new UnsupportedOperationException("Not implemented yet!");
+    return indexOf(node) >= 0;
   }
 
   @Nonnull
   @Override
   public List<Stmt> predecessors(@Nonnull Stmt node) {
-    throw new UnsupportedOperationException("Not implemented yet!");
+    int stmtIdx = checkedIndexOf(node);
+    if (!isHead(stmtIdx)) {
+      return Collections.singletonList(stmts[stmtIdx - 1]);
+    }
+    int block = stmtBlocks[stmtIdx];
+    return new BlockStmtList(
+        predecessorBlocks, predecessorOffsets[block], predecessorOffsets[block + 1], false);
   }
 
   @Nonnull
   @Override
   public List<Stmt> exceptionalPredecessors(@Nonnull Stmt node) {
-    throw new UnsupportedOperationException("not implemented");
+    int stmtIdx = checkedIndexOf(node);
+    if (!isHead(stmtIdx)
+        || !(node instanceof JIdentityStmt
+            && ((JIdentityStmt) node).getRightOp() instanceof JCaughtExceptionRef)) {
+      // only an exception handler stmt can have exceptional predecessors
+      return Collections.emptyList();
+    }
+    ImmutableBasicBlock handlerBlock = blocks[stmtBlocks[stmtIdx]];
+    List<Stmt> exceptionalPredecessors = new ArrayList<>();
+    for (ImmutableBasicBlock predecessor : handlerBlock.getPredecessors()) {
+      if (predecessor.getExceptionalSuccessors().containsValue(handlerBlock)) {
+        exceptionalPredecessors.addAll(predecessor.getStmts());
+      }
+    }
+    return exceptionalPredecessors;
   }
 
   @Nonnull
   @Override
   public List<Stmt> successors(@Nonnull Stmt node) {
-    throw new UnsupportedOperationException("Not implemented yet!");
+    int stmtIdx = checkedIndexOf(node);
+    if (!isTail(stmtIdx)) {
+      return Collections.singletonList(stmts[stmtIdx + 1]);
+    }
+    int block = stmtBlocks[stmtIdx];
+    return new BlockStmtList(
+        successorBlocks, successorOffsets[block], successorOffsets[block + 1], true);
   }
 
   @Nonnull
   @Override
   public Map<ClassType, Stmt> exceptionalSuccessors(@Nonnull Stmt node) {
-    // FIXME! implement
-    throw new RuntimeException("not implemented");
+    return exceptionalSuccessorStmtMaps.get(
+        exceptionalSuccessorIds[stmtBlocks[checkedIndexOf(node)]]);
   }
 
   @Override
   public int inDegree(@Nonnull Stmt node) {
-    throw new UnsupportedOperationException("Not implemented yet!");
+    int stmtIdx = checkedIndexOf(node);
+    if (!isHead(stmtIdx)) {
+      return 1;
+    }
+    int block = stmtBlocks[stmtIdx];
+    return predecessorOffsets[block + 1] - predecessorOffsets[block];
   }
 
   @Override
   public int outDegree(@Nonnull Stmt node) {
-    throw new UnsupportedOperationException("Not implemented yet!");
+    int stmtIdx = checkedIndexOf(node);
+    if (!isTail(stmtIdx)) {
+      return 1;
+    }
+    int block = stmtBlocks[stmtIdx];
+    return successorOffsets[block + 1] - successorOffsets[block];
   }
 
   @Override
   public boolean hasEdgeConnecting(@Nonnull Stmt source, @Nonnull Stmt target) {
-    throw new UnsupportedOperationException("Not implemented yet!");
+    int sourceIdx = checkedIndexOf(source);
+    int targetIdx = checkedIndexOf(target);
+    if (!isTail(sourceIdx)) {
+      return sourceIdx + 1 == targetIdx;
+    }
+    if (!isHead(targetIdx)) {
+      return false;
+    }
+    int sourceBlock = stmtBlocks[sourceIdx];
+    int targetBlock = stmtBlocks[targetIdx];
+    for (int i = successorOffsets[sourceBlock]; i < successorOffsets[sourceBlock + 1]; i++) {
+      if (successorBlocks[i] == targetBlock) {
+        return true;
+      }
+    }
+    return false;
   }
 
   @Nonnull
   @Override
   public List<Trap> buildTraps() {
-    throw new UnsupportedOperationException("Not implemented yet!");
+    List<Trap> builtTraps = traps;
+    if (builtTraps == null) {
+      builtTraps = Collections.unmodifiableList(collectTraps());
+      traps = builtTraps;
+    }
+    return builtTraps;
+  }
+
+  /**
+   * Collects the traps like {@link BlockGraphIteratorAndTrapAggregator}, but as the blocks are
+   * already stored in the iteration order, a linear scan over them is sufficient.
+   */
+  @Nonnull
+  private List<Trap> collectTraps() {
+    List<Trap> collectedTraps = new ArrayList<>();
+    Map<ClassType, Stmt> activeTraps = new HashMap<>();
+    Map<Stmt, Integer> stmtsBlockIdx = new IdentityHashMap<>();
+    Map<ClassType, ImmutableBasicBlock> lastBlocksExceptions = Collections.emptyMap();
+    for (ImmutableBasicBlock block : blocks) {
+      Map<ClassType, ImmutableBasicBlock> currentBlocksExceptions =
+          block.getExceptionalSuccessors();
+      if (currentBlocksExceptions != lastBlocksExceptions) {
+        // former trap info is not in the current blocks info -> add it to the trap collection
+        for (Map.Entry<ClassType, ImmutableBasicBlock> entry : lastBlocksExceptions.entrySet()) {
+          ClassType type = entry.getKey();
+          ImmutableBasicBlock trapHandlerBlock = entry.getValue();
+          if (trapHandlerBlock != currentBlocksExceptions.get(type)) {
+            Stmt trapBeginStmt = activeTraps.remove(type);
+            if (trapBeginStmt == null) {
+              throw new IllegalStateException("Trap start for '" + type + "' is not in the Map!");
+            }
+            // trapend is exclusive!
+            collectedTraps.add(
+                new Trap(type, trapBeginStmt, block.getHead(), trapHandlerBlock.getHead()));
+          }
+        }
+        // is there a new trap in the current block -> add it to the active traps
+        for (Map.Entry<ClassType, ImmutableBasicBlock> entry : currentBlocksExceptions.entrySet()) {
+          if (entry.getValue() != lastBlocksExceptions.get(entry.getKey())) {
+            activeTraps.put(entry.getKey(), block.getHead());
+          }
+        }
+        lastBlocksExceptions = currentBlocksExceptions;
+      }
+      stmtsBlockIdx.put(block.getHead(), block.index);
+      stmtsBlockIdx.put(block.getTail(), block.index);
+    }
+
+    // check for dangling traps that are not collected as the endStmt was not visited.
+    if (!activeTraps.isEmpty()) {
+      throw new IllegalArgumentException(
+          "Invalid StmtGraph. A Trap is not created as a traps endStmt was not visited during the iteration of all Stmts.");
+    }
+    collectedTraps.sort(MutableBlockStmtGraph.trapComparator(stmtsBlockIdx));
+    return collectedTraps;
+  }
+
+  /** Returns the number of Stmts, i.e. the upper bound of the Stmt indices. */
+  public int getStmtCount() {
+    return stmts.length;
+  }
+
+  /** Returns the Stmt with the given index in the iteration order of this graph. */
+  @Nonnull
+  public Stmt getStmt(int stmtIdx) {
+    return stmts[stmtIdx];
+  }
+
+  /**
+   * Returns the index of the Stmt in the iteration order of this graph or -1 if the Stmt is not
+   * contained.
+   */
+  public int getStmtIndex(@Nonnull Stmt stmt) {
+    return indexOf(stmt);
+  }
+
+  /** Returns the index of the block that contains the Stmt with the given index. */
+  public int getBlockIndexOfStmt(int stmtIdx) {
+    return stmtBlocks[stmtIdx];
+  }
+
+  /** Returns the block with the given index in the iteration order of this graph. */
+  @Nonnull
+  public ImmutableBasicBlock getBlock(int blockIdx) {
+    return blocks[blockIdx];
   }
 
   @Override
   public void removeExceptionalFlowFromAllBlocks(ClassType classType, Stmt exceptionHandlerStmt) {
-    throw new UnsupportedOperationException("Not implemented yet!");
+    throw new UnsupportedOperationException("An ImmutableBlockStmtGraph can not be modified.");
   }
 
   @Nonnull
   @Override
   public Iterator<Stmt> iterator() {
-    return new Iterator<Stmt>() {
-      final Iterator<ImmutableBasicBlock> blockIt = blocks.iterator();
-      Iterator<Stmt> stmtIt = blockIt.next().getStmts().iterator();
+    return Collections.unmodifiableList(Arrays.asList(stmts)).iterator();
+  }
 
-      @Override
-      public boolean hasNext() {
-        // hint: there are no empty blocks!
-        return stmtIt.hasNext() || blockIt.hasNext();
+  /**
+   * A view on the heads (for successors) or tails (for predecessors) of a range of blocks in one of
+   * the int arrays.
+   */
+  private class BlockStmtList extends AbstractList<Stmt> implements RandomAccess {
+    @Nonnull private final int[] blockIds;
+    private final int from;
+    private final int to;
+    private final boolean heads;
+
+    BlockStmtList(@Nonnull int[] blockIds, int from, int to, boolean heads) {
+      this.blockIds = blockIds;
+      this.from = from;
+      this.to = to;
+      this.heads = heads;
+    }
+
+    @Override
+    public Stmt get(int index) {
+      if (index < 0 || index >= to - from) {
+        throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
       }
+      int block = blockIds[from + index];
+      return stmts[heads ? blockStarts[block] : blockStarts[block + 1] - 1];
+    }
 
-      @Override
-      public Stmt next() {
-        if (stmtIt.hasNext()) {
-          return stmtIt.next();
-        }
-        stmtIt = blockIt.next().getStmts().iterator();
-        return stmtIt.next();
+    @Override
+    public int size() {
+      return to - from;
+    }
+  }
+
+  /** A view on a range of blocks in one of the int arrays. */
+  private class BlockList extends AbstractList<ImmutableBasicBlock> implements RandomAccess {
+    @Nonnull private final int[] blockIds;
+    private final int from;
+    private final int to;
+
+    BlockList(@Nonnull int[] blockIds, int from, int to) {
+      this.blockIds = blockIds;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    public ImmutableBasicBlock get(int index) {
+      if (index < 0 || index >= to - from) {
+        throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
       }
-    };
+      return blocks[blockIds[from + index]];
+    }
+
+    @Override
+    public int size() {
+      return to - from;
+    }
   }
 
+  /** A block of the graph, which is identified by its index. */
   public class ImmutableBasicBlock implements BasicBlock<ImmutableBasicBlock> {
-    private final MutableBasicBlock graph;
-    private final int startIdx;
-    private final int endIdx;
-    private final List<ImmutableBasicBlock> successors;
-    private final List<ImmutableBasicBlock> predecessors;
-
-    private ImmutableBasicBlock(
-        MutableBasicBlock graph,
-        int startIdx,
-        int endIdx,
-        List<ImmutableBasicBlock> successors,
-        List<ImmutableBasicBlock> predecessors) {
-      this.graph = graph;
-      this.startIdx = startIdx;
-      this.endIdx = endIdx;
-      this.successors = successors;
-      this.predecessors = predecessors;
+    private final int index;
+
+    private ImmutableBasicBlock(int index) {
+      this.index = index;
+    }
+
+    /** Returns the index of this block in the iteration order of its graph. */
+    public int getIndex() {
+      return index;
+    }
+
+    /** Returns the index of the first Stmt of this block in the iteration order of its graph. */
+    public int getHeadIndex() {
+      return blockStarts[index];
     }
 
     @Nonnull
     @Override
     public List<ImmutableBasicBlock> getPredecessors() {
-      return predecessors;
+      return new BlockList(
+          predecessorBlocks, predecessorOffsets[index], predecessorOffsets[index + 1]);
     }
 
     @Nonnull
     @Override
     public List<ImmutableBasicBlock> getSuccessors() {
-      return successors;
+      return new BlockList(successorBlocks, successorOffsets[index], successorOffsets[index + 1]);
     }
 
     @Override
     @Nonnull
     public Map<ClassType, ImmutableBasicBlock> getExceptionalPredecessors() {
-      throw new UnsupportedOperationException("not implemented yet");
+      Map<ClassType, ImmutableBasicBlock> exceptionalPredecessors = new HashMap<>();
+      for (ImmutableBasicBlock predecessor : getPredecessors()) {
+        predecessor
+            .getExceptionalSuccessors()
+            .forEach(
+                (exceptionType, handlerBlock) -> {
+                  if (handlerBlock == this) {
+                    exceptionalPredecessors.put(exceptionType, predecessor);
+                  }
+                });
+      }
+      return exceptionalPredecessors;
     }
 
     @Nonnull
     @Override
-    public Map<? extends ClassType, ImmutableBasicBlock> getExceptionalSuccessors() {
-      throw new UnsupportedOperationException("not implemented yet");
+    public Map<ClassType, ImmutableBasicBlock> getExceptionalSuccessors() {
+      return exceptionalSuccessorBlockMaps.get(exceptionalSuccessorIds[index]);
     }
 
     @Nonnull
     @Override
     public List<Stmt> getStmts() {
-      throw new UnsupportedOperationException();
+      return Collections.unmodifiableList(
+          Arrays.asList(stmts).subList(blockStarts[index], blockStarts[index + 1]));
     }
 
     @Override
     public int getStmtCount() {
-      return endIdx - startIdx + 1;
+      return blockStarts[index + 1] - blockStarts[index];
     }
 
     @Nonnull
     @Override
     public Stmt getHead() {
-      throw new UnsupportedOperationException();
+      return stmts[blockStarts[index]];
     }
 
     @Nonnull
     @Override
     public Stmt getTail() {
-      throw new UnsupportedOperationException();
+      return stmts[blockStarts[index + 1] - 1];
+    }
+
+    @Override
+    public String toString() {
+      return "Block " + getStmts();
     }
   }
 }
@@ -1476,7 +1476,7 @@ public class MutableBlockStmtGraph extends MutableStmtGraph {
 
     List<Stmt> exceptionalPred = new ArrayList<>();
     for (BasicBlock<?> pBlock : block.getPredecessors()) {
-      if (pBlock.getExceptionalSuccessors().containsValue(pBlock)) {
+      if (pBlock.getExceptionalSuccessors().containsValue(block)) {
         exceptionalPred.addAll(pBlock.getStmts());
       }
     }
@@ -1598,6 +1598,11 @@ public class MutableBlockStmtGraph extends MutableStmtGraph {
 
   /** Comparator which sorts the trap output in getTraps() */
   public Comparator<Trap> getTrapComparator(@Nonnull Map<Stmt, Integer> stmtsBlockIdx) {
+    return trapComparator(stmtsBlockIdx);
+  }
+
+  /** Comparator which sorts the traps by the given block positions of their Stmts. */
+  static Comparator<Trap> trapComparator(@Nonnull Map<Stmt, Integer> stmtsBlockIdx) {
     return (a, b) ->
         ComparisonChain.start()
             .compare(stmtsBlockIdx.get(a.getBeginStmt()), stmtsBlockIdx.get(b.getBeginStmt()))
@@ -29,6 +29,7 @@ import sootup.core.frontend.SootClassSource;
 import sootup.core.model.SootClass;
 import sootup.core.model.SourceType;
 import sootup.core.transform.BodyInterceptor;
+import sootup.core.transform.StmtGraphValidation;
 import sootup.core.types.ClassType;
 import sootup.core.views.View;
 
@@ -75,4 +76,14 @@ public interface AnalysisInputLocation {
 
   @Nonnull
   List<BodyInterceptor> getBodyInterceptors();
+
+  /**
+   * Returns how the StmtGraphs of the Bodies from this location are validated while the {@link
+   * #getBodyInterceptors()} are applied. By default, the StmtGraph is validated once after all
+   * interceptors.
+   */
+  @Nonnull
+  default StmtGraphValidation getStmtGraphValidation() {
+    return StmtGraphValidation.FINAL;
+  }
 }
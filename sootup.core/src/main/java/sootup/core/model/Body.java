@@ -29,6 +29,7 @@ import java.util.*;
 import java.util.stream.Stream;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import sootup.core.graph.ImmutableBlockStmtGraph;
 import sootup.core.graph.MutableBlockStmtGraph;
 import sootup.core.graph.MutableStmtGraph;
 import sootup.core.graph.StmtGraph;
@@ -58,19 +59,28 @@ public class Body implements HasPosition {
   /** The MethodSignature associated with this Body. */
   @Nonnull private final MethodSignature methodSignature;
 
+  /** The numbering of a Body with a frozen StmtGraph, which is created on the first request. */
+  @Nullable private volatile BodyNumbering numbering = null;
+
   /**
    * Creates an body which is not associated to any method.
    *
    * @param locals please use {@link LocalGenerator} to generate local for a body.
+   * @param freezeStmtGraph if true, the StmtGraph is copied into an {@link
+   *     ImmutableBlockStmtGraph}, otherwise the Body holds an unmodifiable view of it.
    */
   private Body(
       @Nonnull MethodSignature methodSignature,
       @Nonnull Set<Local> locals,
       @Nonnull StmtGraph<?> stmtGraph,
-      @Nonnull Position position) {
+      @Nonnull Position position,
+      boolean freezeStmtGraph) {
     this.methodSignature = methodSignature;
     this.locals = Collections.unmodifiableSet(locals);
-    this.graph = MutableBlockStmtGraph.createUnmodifiableStmtGraph(stmtGraph);
+    this.graph =
+        freezeStmtGraph && !(stmtGraph instanceof ImmutableBlockStmtGraph)
+            ? new ImmutableBlockStmtGraph(stmtGraph)
+            : MutableBlockStmtGraph.createUnmodifiableStmtGraph(stmtGraph);
     this.position = position;
   }
 
@@ -218,6 +228,23 @@ public class Body implements HasPosition {
     return graph;
   }
 
+  /**
+   * Returns a dense numbering of the Stmts, blocks and locals of this Body, which analyses can use
+   * to store their state in arrays. The numbering of a Body with a frozen {@link
+   * ImmutableBlockStmtGraph} is computed once, otherwise it is a snapshot of the current StmtGraph.
+   */
+  @Nonnull
+  public BodyNumbering getNumbering() {
+    BodyNumbering bodyNumbering = numbering;
+    if (bodyNumbering == null) {
+      bodyNumbering = new BodyNumbering(this);
+      if (graph instanceof ImmutableBlockStmtGraph) {
+        numbering = bodyNumbering;
+      }
+    }
+    return bodyNumbering;
+  }
+
   /** {@inheritDoc} */
   @Override
   public String toString() {
@@ -291,7 +318,7 @@ public class Body implements HasPosition {
 
   @Nonnull
   public Body withLocals(@Nonnull Set<Local> locals) {
-    return new Body(getMethodSignature(), locals, getStmtGraph(), getPosition());
+    return new Body(getMethodSignature(), locals, getStmtGraph(), getPosition(), false);
   }
 
   public static BodyBuilder builder() {
@@ -415,6 +442,32 @@ public class Body implements HasPosition {
 
     @Nonnull
     public Body build() {
+      return build(true);
+    }
+
+    /**
+     * Builds the Body.
+     *
+     * @param validateStmtGraph if false, the connections of the StmtGraph are not validated, e.g.
+     *     because the caller already validated them or deliberately skips the validation.
+     */
+    @Nonnull
+    public Body build(boolean validateStmtGraph) {
+      return build(validateStmtGraph, false);
+    }
+
+    /**
+     * Builds the Body.
+     *
+     * @param validateStmtGraph if false, the connections of the StmtGraph are not validated, e.g.
+     *     because the caller already validated them or deliberately skips the validation.
+     * @param freezeStmtGraph if true, the StmtGraph is copied into a compact {@link
+     *     ImmutableBlockStmtGraph}, which needs less memory than the builders' graph. Use it for
+     *     Bodies that are not modified anymore; {@link Body#builder(Body, Set)} still copies it
+     *     back into a mutable graph.
+     */
+    @Nonnull
+    public Body build(boolean validateStmtGraph, boolean freezeStmtGraph) {
 
       if (methodSig == null) {
         throw new RuntimeException("There is no MethodSignature set.");
@@ -435,14 +488,17 @@ public class Body implements HasPosition {
                 + "' does not exist in the StmtGraph.");
       }
       // validate statements
-      try {
-        graph.validateStmtConnectionsInGraph();
-      } catch (Exception e) {
-        throw new RuntimeException("StmtGraph of " + methodSig + " is invalid.", e);
-        //        System.out.println("StmtGraph of " + methodSig + " is invalid." + e.getCause());
+      if (validateStmtGraph) {
+        try {
+          graph.validateStmtConnectionsInGraph();
+        } catch (Exception e) {
+          throw new RuntimeException("StmtGraph of " + methodSig + " is invalid.", e);
+          //        System.out.println("StmtGraph of " + methodSig + " is invalid." +
+          // e.getCause());
+        }
       }
 
-      return new Body(methodSig, locals, graph, position);
+      return new Body(methodSig, locals, graph, position, freezeStmtGraph);
     }
 
     @Nonnull
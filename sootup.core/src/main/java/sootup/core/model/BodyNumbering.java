@@ -0,0 +1,124 @@
+package sootup.core.model;
+
+/*-
+ * #%L
+ * SootUp
+ * %%
+ * Copyright (C) 1997 - 2024 Raja Vallée-Rai and others
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.HashMap;
+import java.util.Map;
+import javax.annotation.Nonnull;
+import sootup.core.graph.BasicBlock;
+import sootup.core.graph.ImmutableBlockStmtGraph;
+import sootup.core.jimple.basic.Local;
+import sootup.core.jimple.common.stmt.Stmt;
+
+/**
+ * A dense numbering of the Stmts, blocks and locals of a {@link Body}. Stmts and blocks are
+ * numbered in the iteration order of the StmtGraph and locals in the order of {@link
+ * Body#getLocals()}, each starting at 0. Analyses can use the indices to store their state in
+ * arrays and {@link java.util.BitSet}s instead of maps that are keyed by Stmts or Locals.
+ *
+ * <p>Use {@link Body#getNumbering()} to get the numbering of a Body.
+ */
+public final class BodyNumbering {
+
+  @Nonnull private final ImmutableBlockStmtGraph stmtGraph;
+  @Nonnull private final Local[] locals;
+  @Nonnull private final Map<Local, Integer> localIndices;
+
+  BodyNumbering(@Nonnull Body body) {
+    stmtGraph =
+        body.getStmtGraph() instanceof ImmutableBlockStmtGraph
+            ? (ImmutableBlockStmtGraph) body.getStmtGraph()
+            : new ImmutableBlockStmtGraph(body.getStmtGraph());
+    locals = body.getLocals().toArray(new Local[0]);
+    localIndices = new HashMap<>(locals.length * 2);
+    for (int i = 0; i < locals.length; i++) {
+      localIndices.put(locals[i], i);
+    }
+  }
+
+  /**
+   * Returns the numbered StmtGraph, whose Stmt and block indices are the ones of this numbering.
+   */
+  @Nonnull
+  public ImmutableBlockStmtGraph getStmtGraph() {
+    return stmtGraph;
+  }
+
+  public int getStmtCount() {
+    return stmtGraph.getStmtCount();
+  }
+
+  @Nonnull
+  public Stmt getStmt(int stmtIdx) {
+    return stmtGraph.getStmt(stmtIdx);
+  }
+
+  /** Returns the index of the Stmt or -1 if it is not contained in the Body. */
+  public int getStmtIndex(@Nonnull Stmt stmt) {
+    return stmtGraph.getStmtIndex(stmt);
+  }
+
+  public int getBlockCount() {
+    return stmtGraph.getBlocks().size();
+  }
+
+  @Nonnull
+  public ImmutableBlockStmtGraph.ImmutableBasicBlock getBlock(int blockIdx) {
+    return stmtGraph.getBlock(blockIdx);
+  }
+
+  /**
+   * Returns the index of the block or -1 if it is not contained in the Body. The block may as well
+   * be a block of another StmtGraph of the Body, e.g. of a mutable copy, as long as it starts with
+   * the same Stmt.
+   */
+  public int getBlockIndex(@Nonnull BasicBlock<?> block) {
+    int headIdx = stmtGraph.getStmtIndex(block.getHead());
+    if (headIdx < 0) {
+      return -1;
+    }
+    ImmutableBlockStmtGraph.ImmutableBasicBlock numberedBlock =
+        stmtGraph.getBlock(stmtGraph.getBlockIndexOfStmt(headIdx));
+    return numberedBlock.getHeadIndex() == headIdx ? numberedBlock.getIndex() : -1;
+  }
+
+  /** Returns the index of the block that contains the Stmt with the given index. */
+  public int getBlockIndexOfStmt(int stmtIdx) {
+    return stmtGraph.getBlockIndexOfStmt(stmtIdx);
+  }
+
+  public int getLocalCount() {
+    return locals.length;
+  }
+
+  @Nonnull
+  public Local getLocal(int localIdx) {
+    return locals[localIdx];
+  }
+
+  /** Returns the index of the Local or -1 if it is not declared in the Body. */
+  public int getLocalIndex(@Nonnull Local local) {
+    Integer localIdx = localIndices.get(local);
+    return localIdx == null ? -1 : localIdx;
+  }
+}
@@ -22,7 +22,6 @@ package sootup.core.model;
  * #L%
  */
 
-import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import java.io.IOException;
@@ -32,7 +31,6 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.function.Function;
-import java.util.function.Supplier;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import sootup.core.IdentifierFactory;
@@ -169,12 +167,39 @@ public class SootMethod extends SootClassMember<MethodSignature> implements Meth
     return parameterTypes;
   }
 
-  @Nonnull private final Supplier<Body> _lazyBody = Suppliers.memoize(this::lazyBodyInitializer);
+  /** The resolved body. It is null until the body is resolved or after it has been released. */
+  @Nullable private volatile Body body;
 
   /** Retrieves the active body for this method. */
   @Nonnull
   public Body getBody() {
-    return this._lazyBody.get();
+    Body resolvedBody = body;
+    if (resolvedBody == null) {
+      synchronized (this) {
+        resolvedBody = body;
+        if (resolvedBody == null) {
+          resolvedBody = lazyBodyInitializer();
+          body = resolvedBody;
+        }
+      }
+    }
+    return resolvedBody;
+  }
+
+  /** Returns true if the body of this method is resolved and currently held in memory. */
+  public boolean isBodyResolved() {
+    return body != null;
+  }
+
+  /**
+   * Releases the resolved body of this method to free memory. The next call of {@link #getBody()}
+   * resolves the body again from its {@link BodySource}, which results in a new {@link Body}
+   * instance, i.e. references to Stmts or Locals of the released body are not valid for the new
+   * one. This includes the Stmts which are referenced by results of analyses, e.g. the call sites
+   * of a call graph: they do not match the Stmts of the re-resolved body.
+   */
+  public void releaseBody() {
+    body = null;
   }
 
   /** Returns true if this method has a body. */
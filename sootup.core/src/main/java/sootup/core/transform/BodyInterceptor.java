@@ -37,4 +37,16 @@ public interface BodyInterceptor {
    * @param view
    */
   void interceptBody(@Nonnull Body.BodyBuilder builder, @Nonnull View view);
+
+  /**
+   * Identifies the transformation this interceptor applies, e.g. to key bodies that are cached
+   * across runs. Interceptors with options have to include the values of these options, so that
+   * differently configured instances do not share a fingerprint.
+   *
+   * @return the name of the class of this interceptor by default
+   */
+  @Nonnull
+  default String getConfigurationFingerprint() {
+    return getClass().getName();
+  }
 }
@@ -22,29 +22,211 @@ package sootup.core.transform;
  * #L%
  */
 
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import sootup.core.signatures.MethodSignature;
+
+/**
+ * The cumulated costs of the invocations of a {@link BodyInterceptor}: the number of invocations,
+ * their total and maximum duration, the bytes allocated by them and the methods whose bodies took
+ * the longest. The metric can be updated concurrently by the threads that resolve bodies.
+ */
 public class BodyInterceptorMetric {
 
-  private long runtime;
-  private long memoryUsage;
+  /** the default number of slowest methods that are kept */
+  public static final int DEFAULT_SLOWEST_METHOD_COUNT = 10;
+
+  private final LongAdder invocationCount = new LongAdder();
+  private final LongAdder totalNanos = new LongAdder();
+  private final AtomicLong maxNanos = new AtomicLong();
+  private final LongAdder allocatedBytes = new LongAdder();
+
+  private final int slowestMethodCount;
+
+  /** the slowest methods, ordered such that the fastest of them is the head */
+  private final PriorityQueue<MethodDuration> slowestMethods =
+      new PriorityQueue<>(Comparator.comparingLong(MethodDuration::getNanos));
 
+  /** the duration a method needs to exceed to become one of the slowest methods */
+  private volatile long slowestMethodsThreshold = -1;
+
+  public BodyInterceptorMetric() {
+    this(DEFAULT_SLOWEST_METHOD_COUNT);
+  }
+
+  public BodyInterceptorMetric(int slowestMethodCount) {
+    if (slowestMethodCount < 0) {
+      throw new IllegalArgumentException("The number of slowest methods must not be negative.");
+    }
+    this.slowestMethodCount = slowestMethodCount;
+  }
+
+  /**
+   * Creates a metric that starts with the given totals, without any invocations.
+   *
+   * @param runtime the total duration in milliseconds
+   * @param memoryUsage the allocated memory in MB
+   * @deprecated the metric records the invocations itself, use {@link #record(MethodSignature,
+   *     long, long)}
+   */
+  @Deprecated
   public BodyInterceptorMetric(long runtime, long memoryUsage) {
-    this.runtime = runtime;
-    this.memoryUsage = memoryUsage;
+    this();
+    setRuntime(runtime);
+    setMemoryUsage(memoryUsage);
+  }
+
+  /**
+   * Records one invocation of the interceptor.
+   *
+   * @param method the method whose body was intercepted, if it is known
+   * @param nanos the duration of the invocation
+   * @param bytes the bytes the invocation allocated or a negative value if they are unknown
+   */
+  public void record(@Nullable MethodSignature method, long nanos, long bytes) {
+    invocationCount.increment();
+    totalNanos.add(nanos);
+    maxNanos.accumulateAndGet(nanos, Math::max);
+    if (bytes > 0) {
+      allocatedBytes.add(bytes);
+    }
+    if (method != null && nanos > slowestMethodsThreshold) {
+      recordSlowMethod(new MethodDuration(method, nanos));
+    }
+  }
+
+  private void recordSlowMethod(@Nonnull MethodDuration methodDuration) {
+    if (slowestMethodCount == 0 || methodDuration.getNanos() <= slowestMethodsThreshold) {
+      return;
+    }
+    synchronized (slowestMethods) {
+      slowestMethods.add(methodDuration);
+      if (slowestMethods.size() > slowestMethodCount) {
+        slowestMethods.poll();
+      }
+      if (slowestMethods.size() == slowestMethodCount) {
+        slowestMethodsThreshold = slowestMethods.peek().getNanos();
+      }
+    }
+  }
+
+  /** Adds the invocations recorded by the other metric to this metric. */
+  public void add(@Nonnull BodyInterceptorMetric other) {
+    invocationCount.add(other.getInvocationCount());
+    totalNanos.add(other.getTotalNanos());
+    maxNanos.accumulateAndGet(other.getMaxNanos(), Math::max);
+    allocatedBytes.add(other.getAllocatedBytes());
+    for (MethodDuration methodDuration : other.getSlowestMethods()) {
+      recordSlowMethod(methodDuration);
+    }
+  }
+
+  public long getInvocationCount() {
+    return invocationCount.sum();
+  }
+
+  /** Returns the summed up duration of all invocations in nanoseconds. */
+  public long getTotalNanos() {
+    return totalNanos.sum();
+  }
+
+  /** Returns the duration of the slowest invocation in nanoseconds. */
+  public long getMaxNanos() {
+    return maxNanos.get();
   }
 
+  /**
+   * Returns the bytes allocated by all invocations, as far as the JVM supports measuring the
+   * allocations of a thread.
+   */
+  public long getAllocatedBytes() {
+    return allocatedBytes.sum();
+  }
+
+  /** Returns the summed up duration of all invocations in milliseconds. */
   public long getRuntime() {
-    return runtime;
+    return getTotalNanos() / 1_000_000;
   }
 
+  /**
+   * Replaces the summed up duration of all invocations.
+   *
+   * @param runtime the duration in milliseconds
+   * @deprecated the metric records the invocations itself, use {@link #record(MethodSignature,
+   *     long, long)}
+   */
+  @Deprecated
   public void setRuntime(long runtime) {
-    this.runtime = runtime;
+    totalNanos.reset();
+    totalNanos.add(runtime * 1_000_000);
   }
 
+  /** Returns the bytes allocated by all invocations in MB. */
   public long getMemoryUsage() {
-    return memoryUsage;
+    return getAllocatedBytes() / (1024 * 1024);
   }
 
+  /**
+   * Replaces the bytes allocated by all invocations.
+   *
+   * @param memoryUsage the allocated memory in MB
+   * @deprecated the metric records the invocations itself, use {@link #record(MethodSignature,
+   *     long, long)}
+   */
+  @Deprecated
   public void setMemoryUsage(long memoryUsage) {
-    this.memoryUsage = memoryUsage;
+    allocatedBytes.reset();
+    allocatedBytes.add(memoryUsage * 1024 * 1024);
+  }
+
+  /** Returns the methods whose invocations took the longest, the slowest first. */
+  @Nonnull
+  public List<MethodDuration> getSlowestMethods() {
+    List<MethodDuration> methods;
+    synchronized (slowestMethods) {
+      methods = new ArrayList<>(slowestMethods);
+    }
+    methods.sort(Comparator.comparingLong(MethodDuration::getNanos).reversed());
+    return methods;
+  }
+
+  @Override
+  public String toString() {
+    return getInvocationCount()
+        + " invocations, "
+        + getRuntime()
+        + " ms total, "
+        + getMaxNanos() / 1_000
+        + " us max, "
+        + getMemoryUsage()
+        + " MB allocated";
+  }
+
+  /** The duration of an invocation of an interceptor for the body of a method. */
+  public static final class MethodDuration {
+    @Nonnull private final MethodSignature method;
+    private final long nanos;
+
+    public MethodDuration(@Nonnull MethodSignature method, long nanos) {
+      this.method = method;
+      this.nanos = nanos;
+    }
+
+    @Nonnull
+    public MethodSignature getMethod() {
+      return method;
+    }
+
+    public long getNanos() {
+      return nanos;
+    }
+
+    @Override
+    public String toString() {
+      return method + " (" + nanos / 1_000 + " us)";
+    }
   }
 }
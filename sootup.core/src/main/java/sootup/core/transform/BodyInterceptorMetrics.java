@@ -0,0 +1,220 @@
+package sootup.core.transform;
+
+/*-
+ * #%L
+ * SootUp
+ * %%
+ * Copyright (C) 1997 - 2024 Raja Vallée-Rai and others
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import sootup.core.model.Body;
+import sootup.core.signatures.MethodSignature;
+import sootup.core.views.View;
+
+/**
+ * Collects the {@link BodyInterceptorMetric}s of the interceptors of one or more frontends. The
+ * interceptors of a frontend are instrumented via {@link #instrument(String, List)} before they are
+ * passed to the input location, and the metrics can be reported at any time, also while bodies are
+ * still resolved.
+ *
+ * <p>Only the interceptors are timed. The metric of a frontend records each body once, from the
+ * start of its first interceptor to the end of its last one, so it does not contain the time the
+ * frontend needs to convert the code into a body before the interceptors are applied.
+ *
+ * <pre>{@code
+ * BodyInterceptorMetrics metrics = new BodyInterceptorMetrics();
+ * AnalysisInputLocation inputLocation =
+ *     new JavaClassPathAnalysisInputLocation(
+ *         path, SourceType.Application, metrics.instrument("bytecode", interceptors));
+ * ...
+ * System.out.println(metrics.report());
+ * }</pre>
+ */
+public class BodyInterceptorMetrics {
+
+  private final int slowestMethodCount;
+
+  /** the instrumented interceptors of each frontend in the order of their application */
+  private final Map<String, List<RunTimeBodyInterceptor>> interceptorsOfFrontends =
+      new ConcurrentHashMap<>();
+
+  /** the metric of the bodies that passed all interceptors of each frontend */
+  private final Map<String, BodyInterceptorMetric> metricsOfFrontends = new ConcurrentHashMap<>();
+
+  public BodyInterceptorMetrics() {
+    this(BodyInterceptorMetric.DEFAULT_SLOWEST_METHOD_COUNT);
+  }
+
+  /** @param slowestMethodCount the number of slowest methods that are kept per interceptor */
+  public BodyInterceptorMetrics(int slowestMethodCount) {
+    this.slowestMethodCount = slowestMethodCount;
+  }
+
+  /**
+   * Wraps each of the given interceptors into a {@link RunTimeBodyInterceptor} which records its
+   * invocations for the given frontend. The wrapped interceptors have to be applied in the given
+   * order, as the first and the last of them record each body in the metric of the frontend.
+   *
+   * @return the wrapped interceptors in the same order
+   */
+  @Nonnull
+  public List<BodyInterceptor> instrument(
+      @Nonnull String frontend, @Nonnull List<BodyInterceptor> bodyInterceptors) {
+    List<RunTimeBodyInterceptor> frontendInterceptors =
+        interceptorsOfFrontends.computeIfAbsent(frontend, key -> new CopyOnWriteArrayList<>());
+    InterceptorChain chain =
+        new InterceptorChain(
+            metricsOfFrontends.computeIfAbsent(
+                frontend, key -> new BodyInterceptorMetric(slowestMethodCount)));
+    List<BodyInterceptor> instrumented = new ArrayList<>(bodyInterceptors.size());
+    for (int i = 0; i < bodyInterceptors.size(); i++) {
+      RunTimeBodyInterceptor runTimeBodyInterceptor =
+          new ChainedBodyInterceptor(
+              bodyInterceptors.get(i),
+              new BodyInterceptorMetric(slowestMethodCount),
+              chain,
+              i == 0,
+              i == bodyInterceptors.size() - 1);
+      frontendInterceptors.add(runTimeBodyInterceptor);
+      instrumented.add(runTimeBodyInterceptor);
+    }
+    return Collections.unmodifiableList(instrumented);
+  }
+
+  /** Returns the names of the frontends whose interceptors are instrumented. */
+  @Nonnull
+  public Set<String> getFrontends() {
+    return Collections.unmodifiableSet(interceptorsOfFrontends.keySet());
+  }
+
+  /** Returns the instrumented interceptors of the given frontend. */
+  @Nonnull
+  public List<RunTimeBodyInterceptor> getInterceptors(@Nonnull String frontend) {
+    List<RunTimeBodyInterceptor> frontendInterceptors = interceptorsOfFrontends.get(frontend);
+    return frontendInterceptors == null
+        ? Collections.emptyList()
+        : Collections.unmodifiableList(frontendInterceptors);
+  }
+
+  /**
+   * Returns the metric of the bodies that passed all interceptors of the given frontend. It records
+   * one invocation per body, which lasts from the start of the first interceptor to the end of the
+   * last one. The conversion of the frontend itself is not included.
+   */
+  @Nonnull
+  public BodyInterceptorMetric getFrontendMetric(@Nonnull String frontend) {
+    BodyInterceptorMetric frontendMetric = metricsOfFrontends.get(frontend);
+    return frontendMetric == null ? new BodyInterceptorMetric(0) : frontendMetric;
+  }
+
+  /**
+   * Returns a textual report with one line per frontend and per interceptor, followed by the
+   * slowest methods of each interceptor.
+   */
+  @Nonnull
+  public String report() {
+    StringBuilder sb = new StringBuilder();
+    List<String> frontends = new ArrayList<>(interceptorsOfFrontends.keySet());
+    Collections.sort(frontends);
+    for (String frontend : frontends) {
+      sb.append(frontend).append(": ").append(getFrontendMetric(frontend)).append('\n');
+      for (RunTimeBodyInterceptor runTimeBodyInterceptor : getInterceptors(frontend)) {
+        BodyInterceptorMetric metric = runTimeBodyInterceptor.getBiMetric();
+        sb.append("  ")
+            .append(runTimeBodyInterceptor.getBodyInterceptor().getClass().getSimpleName())
+            .append(": ")
+            .append(metric)
+            .append('\n');
+        for (BodyInterceptorMetric.MethodDuration methodDuration : metric.getSlowestMethods()) {
+          sb.append("    ").append(methodDuration).append('\n');
+        }
+      }
+    }
+    return sb.toString();
+  }
+
+  /**
+   * The interceptors that are instrumented together. The costs of a body are measured from the
+   * start of the first interceptor to the end of the last one on the same thread.
+   */
+  private static class InterceptorChain {
+
+    private final BodyInterceptorMetric metric;
+
+    /** the start time and the allocated bytes of the body that the current thread intercepts */
+    private final ThreadLocal<long[]> startOfBody = new ThreadLocal<>();
+
+    InterceptorChain(@Nonnull BodyInterceptorMetric metric) {
+      this.metric = metric;
+    }
+
+    void start() {
+      startOfBody.set(
+          new long[] {System.nanoTime(), RunTimeBodyInterceptor.currentThreadAllocatedBytes()});
+    }
+
+    void finish(@Nullable MethodSignature method) {
+      long[] start = startOfBody.get();
+      if (start == null) {
+        // the first interceptor was not applied to this body
+        return;
+      }
+      startOfBody.remove();
+      long duration = System.nanoTime() - start[0];
+      long allocatedBytes =
+          start[1] < 0 ? -1 : RunTimeBodyInterceptor.currentThreadAllocatedBytes() - start[1];
+      metric.record(method, duration, allocatedBytes);
+    }
+  }
+
+  /** A {@link RunTimeBodyInterceptor} that starts or finishes the body of its chain. */
+  private static class ChainedBodyInterceptor extends RunTimeBodyInterceptor {
+
+    @Nonnull private final InterceptorChain chain;
+    private final boolean first;
+    private final boolean last;
+
+    ChainedBodyInterceptor(
+        @Nonnull BodyInterceptor bodyInterceptor,
+        @Nonnull BodyInterceptorMetric biMetric,
+        @Nonnull InterceptorChain chain,
+        boolean first,
+        boolean last) {
+      super(bodyInterceptor, biMetric);
+      this.chain = chain;
+      this.first = first;
+      this.last = last;
+    }
+
+    @Override
+    public void interceptBody(@Nonnull Body.BodyBuilder builder, @Nonnull View view) {
+      if (first) {
+        chain.start();
+      }
+      super.interceptBody(builder, view);
+      if (last) {
+        chain.finish(builder.getMethodSignature());
+      }
+    }
+  }
+}
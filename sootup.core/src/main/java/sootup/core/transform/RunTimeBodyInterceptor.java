@@ -22,18 +22,34 @@ package sootup.core.transform;
  * #L%
  */
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import javax.annotation.Nonnull;
 import sootup.core.model.Body;
 import sootup.core.views.View;
 
+/**
+ * Wraps a {@link BodyInterceptor} and records the duration and the allocated bytes of each of its
+ * invocations in a {@link BodyInterceptorMetric}. The duration is measured with {@link
+ * System#nanoTime()} and the allocations of the current thread with the {@link ThreadMXBean} if the
+ * JVM supports it, so concurrent invocations do not disturb each other's measurements.
+ */
 public class RunTimeBodyInterceptor implements BodyInterceptor {
 
-  private BodyInterceptorMetric biMetric = new BodyInterceptorMetric(0L, 0L);
+  private static final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+  private final BodyInterceptorMetric biMetric;
 
   private final BodyInterceptor bodyInterceptor;
 
   public RunTimeBodyInterceptor(BodyInterceptor bodyInterceptor) {
+    this(bodyInterceptor, new BodyInterceptorMetric());
+  }
+
+  public RunTimeBodyInterceptor(
+      @Nonnull BodyInterceptor bodyInterceptor, @Nonnull BodyInterceptorMetric biMetric) {
     this.bodyInterceptor = bodyInterceptor;
+    this.biMetric = biMetric;
   }
 
   public BodyInterceptorMetric getBiMetric() {
@@ -44,21 +60,41 @@ public class RunTimeBodyInterceptor implements BodyInterceptor {
     return bodyInterceptor;
   }
 
+  /** Measuring does not change the transformation, so this is the wrapped interceptor's one. */
+  @Nonnull
+  @Override
+  public String getConfigurationFingerprint() {
+    return bodyInterceptor.getConfigurationFingerprint();
+  }
+
   @Override
   public void interceptBody(@Nonnull Body.BodyBuilder builder, @Nonnull View view) {
-    long startTime = System.currentTimeMillis(); // Start time
-    final int MB = 1024 * 1024;
-    Runtime runtime = Runtime.getRuntime();
-    long usedMemoryBefore = runtime.totalMemory() - runtime.freeMemory();
+    long allocatedBytesBefore = currentThreadAllocatedBytes();
+    long startTime = System.nanoTime();
 
     bodyInterceptor.interceptBody(builder, view);
 
-    long endTime = System.currentTimeMillis(); // End time
-    long duration = endTime - startTime;
-    long usedMemoryAfter = runtime.totalMemory() - runtime.freeMemory();
-    long memoryUsed = (usedMemoryAfter - usedMemoryBefore) / MB;
+    long duration = System.nanoTime() - startTime;
+    long allocatedBytes =
+        allocatedBytesBefore < 0 ? -1 : currentThreadAllocatedBytes() - allocatedBytesBefore;
+    biMetric.record(builder.getMethodSignature(), duration, allocatedBytes);
+  }
 
-    biMetric.setRuntime(biMetric.getRuntime() + duration);
-    biMetric.setMemoryUsage(biMetric.getMemoryUsage() + memoryUsed);
+  /** Returns the bytes allocated by the current thread so far or -1 if they are not measured. */
+  static long currentThreadAllocatedBytes() {
+    if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+      com.sun.management.ThreadMXBean allocationMXBean =
+          (com.sun.management.ThreadMXBean) threadMXBean;
+      if (allocationMXBean.isThreadAllocatedMemorySupported()
+          && allocationMXBean.isThreadAllocatedMemoryEnabled()) {
+        return allocationMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+      }
+    }
+    return -1;
+  }
+
+  @Override
+  public String toString() {
+    return bodyInterceptor.toString();
   }
 }
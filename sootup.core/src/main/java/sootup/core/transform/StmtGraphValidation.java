@@ -0,0 +1,73 @@
+package sootup.core.transform;
+
+/*-
+ * #%L
+ * SootUp
+ * %%
+ * Copyright (C) 1997 - 2024 Raja Vallée-Rai and others
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.List;
+import javax.annotation.Nonnull;
+import sootup.core.model.Body;
+import sootup.core.views.View;
+
+/**
+ * Determines how often the frontends check the connections of a {@link sootup.core.graph.StmtGraph}
+ * (see {@link sootup.core.graph.StmtGraph#validateStmtConnectionsInGraph()}) while they apply the
+ * {@link BodyInterceptor}s to a converted Body. Each validation walks the whole graph, so
+ * validating after every interceptor is meant for debugging interceptors.
+ */
+public enum StmtGraphValidation {
+  /** the StmtGraph is not validated at all */
+  OFF,
+  /** the StmtGraph is validated once, after all interceptors are applied */
+  FINAL,
+  /**
+   * the StmtGraph is validated after each interceptor, so an invalid graph is attributed to the
+   * interceptor that produced it
+   */
+  PER_INTERCEPTOR;
+
+  /**
+   * Applies the given interceptors to the builder and builds the Body, validating the StmtGraph
+   * according to this level. As the Body is complete, its StmtGraph is frozen into an {@link
+   * sootup.core.graph.ImmutableBlockStmtGraph}.
+   *
+   * @throws IllegalStateException if an interceptor fails or, with {@link #PER_INTERCEPTOR}, leaves
+   *     an invalid StmtGraph behind
+   */
+  @Nonnull
+  public Body interceptAndBuild(
+      @Nonnull Body.BodyBuilder bodyBuilder,
+      @Nonnull List<BodyInterceptor> bodyInterceptors,
+      @Nonnull View view) {
+    for (BodyInterceptor bodyInterceptor : bodyInterceptors) {
+      try {
+        bodyInterceptor.interceptBody(bodyBuilder, view);
+        if (this == PER_INTERCEPTOR) {
+          bodyBuilder.getStmtGraph().validateStmtConnectionsInGraph();
+        }
+      } catch (Exception e) {
+        throw new IllegalStateException(
+            "Failed to apply " + bodyInterceptor + " to " + bodyBuilder.getMethodSignature(), e);
+      }
+    }
+    return bodyBuilder.build(this != OFF, true);
+  }
+}
@@ -0,0 +1,500 @@
+package sootup.core.typehierarchy;
+
+/*-
+ * #%L
+ * SootUp
+ * %%
+ * Copyright (C) 1997 - 2024 Raja Vallée-Rai and others
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import com.google.common.base.Suppliers;
+import java.util.*;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import javax.annotation.Nonnull;
+import sootup.core.model.SootClass;
+import sootup.core.types.ClassType;
+import sootup.core.types.Type;
+import sootup.core.views.View;
+
+/**
+ * An immutable {@link TypeHierarchy} that is built once from the classes of a {@link View} and
+ * answers queries from arrays instead of traversing a graph.
+ *
+ * <p>Every type is numbered. The class tree is numbered in preorder, so the subclasses of a class
+ * are a contiguous range of that order and a subclass check compares two intervals. For each type
+ * the transitive closure of its implemented (or extended) interfaces is stored as a sorted array,
+ * and for each interface the array of all its subtypes. Hence subtype checks take constant time
+ * (logarithmic in the number of implemented interfaces) and {@link #subtypesOf(ClassType)} returns
+ * a precomputed array.
+ *
+ * <p>Use {@link ViewTypeHierarchy} if types have to be added after the creation.
+ */
+public class CompactTypeHierarchy implements TypeHierarchy {
+
+  private static final int[] EMPTY = new int[0];
+
+  @Nonnull private final Supplier<Hierarchy> lazyHierarchy;
+  @Nonnull private final ClassType objectClassType;
+
+  public CompactTypeHierarchy(@Nonnull View view) {
+    lazyHierarchy = Suppliers.memoize(() -> new Hierarchy(view.getClasses()));
+    objectClassType = view.getIdentifierFactory().getClassType("java.lang.Object");
+  }
+
+  /** Returns the number of the given type or throws if the type is not part of the hierarchy. */
+  private int idOf(@Nonnull Hierarchy hierarchy, @Nonnull ClassType type) {
+    Integer id = hierarchy.idOfType.get(type);
+    if (id == null) {
+      throw new IllegalArgumentException("Could not find '" + type + "' in hierarchy.");
+    }
+    return id;
+  }
+
+  @Nonnull
+  @Override
+  public Stream<ClassType> implementersOf(@Nonnull ClassType interfaceType) {
+    Hierarchy hierarchy = lazyHierarchy.get();
+    if (!hierarchy.isInterface[idOf(hierarchy, interfaceType)]) {
+      throw new IllegalArgumentException("'" + interfaceType + "' is not an interface.");
+    }
+    return subtypesOf(interfaceType);
+  }
+
+  @Nonnull
+  @Override
+  public Stream<ClassType> subclassesOf(@Nonnull ClassType classType) {
+    Hierarchy hierarchy = lazyHierarchy.get();
+    if (hierarchy.isInterface[idOf(hierarchy, classType)]) {
+      throw new IllegalArgumentException("'" + classType + "' is not a class.");
+    }
+    return subtypesOf(classType);
+  }
+
+  @Nonnull
+  @Override
+  public Stream<ClassType> subtypesOf(@Nonnull ClassType type) {
+    Hierarchy hierarchy = lazyHierarchy.get();
+    int id = idOf(hierarchy, type);
+    if (hierarchy.isInterface[id]) {
+      return hierarchy.toTypes(
+          hierarchy.interfaceSubtypes[id], 0, hierarchy.interfaceSubtypes[id].length);
+    }
+    return hierarchy.toTypes(
+        hierarchy.classesInPreorder, hierarchy.preorder[id] + 1, hierarchy.subtreeEnd[id] + 1);
+  }
+
+  @Nonnull
+  @Override
+  public Stream<ClassType> directSubtypesOf(@Nonnull ClassType type) {
+    Hierarchy hierarchy = lazyHierarchy.get();
+    int id = idOf(hierarchy, type);
+    int[] directSubtypes = hierarchy.directSubtypes[id];
+    if (hierarchy.isInterface[id]) {
+      return hierarchy.toTypes(directSubtypes, 0, directSubtypes.length);
+    }
+    return Arrays.stream(directSubtypes)
+        .filter(subtype -> hierarchy.superClass[subtype] == id)
+        .mapToObj(subtype -> hierarchy.types[subtype]);
+  }
+
+  @Nonnull
+  @Override
+  public Stream<ClassType> implementedInterfacesOf(@Nonnull ClassType type) {
+    Hierarchy hierarchy = lazyHierarchy.get();
+    int[] superInterfaces = hierarchy.superInterfaces[idOf(hierarchy, type)];
+    return hierarchy.toTypes(superInterfaces, 0, superInterfaces.length);
+  }
+
+  @Override
+  public Stream<ClassType> directlyImplementedInterfacesOf(@Nonnull ClassType classType) {
+    Hierarchy hierarchy = lazyHierarchy.get();
+    int id = idOf(hierarchy, classType);
+    if (hierarchy.isInterface[id]) {
+      throw new IllegalArgumentException(classType + " is not a class.");
+    }
+    return hierarchy.toTypes(
+        hierarchy.directInterfaces[id], 0, hierarchy.directInterfaces[id].length);
+  }
+
+  @Override
+  public Stream<ClassType> directlyExtendedInterfacesOf(@Nonnull ClassType interfaceType) {
+    Hierarchy hierarchy = lazyHierarchy.get();
+    int id = idOf(hierarchy, interfaceType);
+    if (!hierarchy.isInterface[id]) {
+      throw new IllegalArgumentException(interfaceType + " is not an interface.");
+    }
+    return hierarchy.toTypes(
+        hierarchy.directInterfaces[id], 0, hierarchy.directInterfaces[id].length);
+  }
+
+  @Nonnull
+  @Override
+  public Optional<ClassType> superClassOf(@Nonnull ClassType classType) {
+    Hierarchy hierarchy = lazyHierarchy.get();
+    int id = idOf(hierarchy, classType);
+    if (objectClassType.equals(classType)) {
+      return Optional.empty();
+    }
+    int superClass = hierarchy.superClass[id];
+    if (superClass >= 0) {
+      return Optional.of(hierarchy.types[superClass]);
+    }
+    return hierarchy.isInterface[id] ? Optional.of(objectClassType) : Optional.empty();
+  }
+
+  @Nonnull
+  @Override
+  public Stream<ClassType> superClassesOf(@Nonnull ClassType classType) {
+    Hierarchy hierarchy = lazyHierarchy.get();
+    Integer id = hierarchy.idOfType.get(classType);
+    if (id == null) {
+      return TypeHierarchy.super.superClassesOf(classType);
+    }
+    if (hierarchy.isInterface[id]) {
+      return objectClassType.equals(classType) ? Stream.empty() : Stream.of(objectClassType);
+    }
+    List<ClassType> superClasses = new ArrayList<>();
+    // bounded by the number of types in case of a (malformed) cyclic class hierarchy
+    for (int superClass = hierarchy.superClass[id];
+        superClass >= 0 && superClasses.size() < hierarchy.types.length;
+        superClass = hierarchy.superClass[superClass]) {
+      superClasses.add(hierarchy.types[superClass]);
+    }
+    return superClasses.stream();
+  }
+
+  @Override
+  public boolean isInterface(@Nonnull ClassType type) {
+    Hierarchy hierarchy = lazyHierarchy.get();
+    return hierarchy.isInterface[idOf(hierarchy, type)];
+  }
+
+  @Override
+  public boolean contains(ClassType type) {
+    return lazyHierarchy.get().idOfType.containsKey(type);
+  }
+
+  @Override
+  public boolean isSubtype(@Nonnull Type supertype, @Nonnull Type potentialSubtype) {
+    if (!(supertype instanceof ClassType) || !(potentialSubtype instanceof ClassType)) {
+      return TypeHierarchy.super.isSubtype(supertype, potentialSubtype);
+    }
+    if (supertype.equals(objectClassType)) {
+      return !potentialSubtype.equals(objectClassType);
+    }
+    Hierarchy hierarchy = lazyHierarchy.get();
+    Integer subId = hierarchy.idOfType.get(potentialSubtype);
+    if (subId == null) {
+      return TypeHierarchy.super.isSubtype(supertype, potentialSubtype);
+    }
+    Integer superId = hierarchy.idOfType.get(supertype);
+    return superId != null && hierarchy.isSubtype(superId, subId);
+  }
+
+  /**
+   * The lowest common ancestors of two types are their common supertypes which have no direct
+   * subtype that is a common supertype as well. If there are none, <code>java.lang.Object</code> is
+   * returned.
+   */
+  @Override
+  public Collection<ClassType> getLowestCommonAncestors(ClassType a, ClassType b) {
+    Hierarchy hierarchy = lazyHierarchy.get();
+    BitSet commonAncestors = hierarchy.ancestorsOf(a);
+    BitSet ancestorsOfB = hierarchy.ancestorsOf(b);
+    if (commonAncestors.isEmpty() || ancestorsOfB.isEmpty()) {
+      return Collections.singleton(objectClassType);
+    }
+    commonAncestors.and(ancestorsOfB);
+
+    Set<ClassType> lcas = new HashSet<>();
+    for (int ancestor = commonAncestors.nextSetBit(0);
+        ancestor >= 0;
+        ancestor = commonAncestors.nextSetBit(ancestor + 1)) {
+      boolean isLowest = true;
+      for (int directSubtype : hierarchy.directSubtypes[ancestor]) {
+        if (commonAncestors.get(directSubtype)) {
+          isLowest = false;
+          break;
+        }
+      }
+      if (isLowest) {
+        lcas.add(hierarchy.types[ancestor]);
+      }
+    }
+    if (lcas.isEmpty()) {
+      return Collections.singleton(objectClassType);
+    }
+    return lcas;
+  }
+
+  /** The numbered types and their relations. */
+  private static final class Hierarchy {
+
+    @Nonnull final Map<ClassType, Integer> idOfType = new HashMap<>();
+    @Nonnull final ClassType[] types;
+    @Nonnull final boolean[] isInterface;
+
+    /** the direct superclass of each class, -1 if there is none and for interfaces */
+    @Nonnull final int[] superClass;
+
+    /** the interfaces a class implements or an interface extends directly */
+    @Nonnull final int[][] directInterfaces;
+
+    /** the direct subclasses of a class or the direct implementers and extenders of an interface */
+    @Nonnull final int[][] directSubtypes;
+
+    /** the position of each class in the preorder of the class tree, -1 for interfaces */
+    @Nonnull final int[] preorder;
+
+    /** the last preorder position in the subtree of each class */
+    @Nonnull final int[] subtreeEnd;
+
+    /** the classes in the preorder of the class tree */
+    @Nonnull final int[] classesInPreorder;
+
+    /** the sorted transitive closure of the implemented or extended interfaces of each type */
+    @Nonnull final int[][] superInterfaces;
+
+    /** the sorted transitive subtypes of each interface, empty for classes */
+    @Nonnull final int[][] interfaceSubtypes;
+
+    Hierarchy(@Nonnull Stream<? extends SootClass> classes) {
+      List<ClassType> typeList = new ArrayList<>();
+      List<Boolean> interfaceFlags = new ArrayList<>();
+      Map<Integer, SootClass> scannedClasses = new HashMap<>();
+
+      classes.forEach(
+          sootClass -> {
+            int id = number(typeList, interfaceFlags, sootClass.getType(), sootClass.isInterface());
+            // the scanned class determines whether it is an interface, not its first reference
+            interfaceFlags.set(id, sootClass.isInterface());
+            scannedClasses.putIfAbsent(id, sootClass);
+            for (ClassType interfaceType : sootClass.getInterfaces()) {
+              number(typeList, interfaceFlags, interfaceType, true);
+            }
+            if (!sootClass.isInterface()) {
+              sootClass
+                  .getSuperclass()
+                  .ifPresent(superType -> number(typeList, interfaceFlags, superType, false));
+            }
+          });
+
+      int typeCount = typeList.size();
+      types = typeList.toArray(new ClassType[0]);
+      isInterface = new boolean[typeCount];
+      superClass = new int[typeCount];
+      directInterfaces = new int[typeCount][];
+      Arrays.fill(superClass, -1);
+      Arrays.fill(directInterfaces, EMPTY);
+      int[] directSubtypeCount = new int[typeCount];
+      for (int id = 0; id < typeCount; id++) {
+        isInterface[id] = interfaceFlags.get(id);
+      }
+
+      for (Map.Entry<Integer, SootClass> entry : scannedClasses.entrySet()) {
+        int id = entry.getKey();
+        SootClass sootClass = entry.getValue();
+        directInterfaces[id] =
+            sootClass.getInterfaces().stream().mapToInt(idOfType::get).distinct().toArray();
+        for (int interfaceId : directInterfaces[id]) {
+          directSubtypeCount[interfaceId]++;
+        }
+        if (!isInterface[id] && sootClass.getSuperclass().isPresent()) {
+          superClass[id] = idOfType.get(sootClass.getSuperclass().get());
+          directSubtypeCount[superClass[id]]++;
+        }
+      }
+
+      directSubtypes = new int[typeCount][];
+      for (int id = 0; id < typeCount; id++) {
+        directSubtypes[id] = directSubtypeCount[id] == 0 ? EMPTY : new int[directSubtypeCount[id]];
+        directSubtypeCount[id] = 0;
+      }
+      for (int id = 0; id < typeCount; id++) {
+        // subclasses first, so the class tree can be walked on the prefix of the array
+        if (superClass[id] >= 0) {
+          directSubtypes[superClass[id]][directSubtypeCount[superClass[id]]++] = id;
+        }
+      }
+      int[] subclassCount = directSubtypeCount.clone();
+      for (int id = 0; id < typeCount; id++) {
+        for (int interfaceId : directInterfaces[id]) {
+          directSubtypes[interfaceId][directSubtypeCount[interfaceId]++] = id;
+        }
+      }
+
+      preorder = new int[typeCount];
+      subtreeEnd = new int[typeCount];
+      Arrays.fill(preorder, -1);
+      Arrays.fill(subtreeEnd, -1);
+      classesInPreorder = numberClassTree(subclassCount);
+
+      superInterfaces = new int[typeCount][];
+      byte[] state = new byte[typeCount];
+      for (int id = 0; id < typeCount; id++) {
+        closeSuperInterfaces(id, state);
+      }
+
+      int[] interfaceSubtypeCount = new int[typeCount];
+      for (int id = 0; id < typeCount; id++) {
+        for (int interfaceId : superInterfaces[id]) {
+          interfaceSubtypeCount[interfaceId]++;
+        }
+      }
+      interfaceSubtypes = new int[typeCount][];
+      for (int id = 0; id < typeCount; id++) {
+        interfaceSubtypes[id] =
+            interfaceSubtypeCount[id] == 0 ? EMPTY : new int[interfaceSubtypeCount[id]];
+        interfaceSubtypeCount[id] = 0;
+      }
+      for (int id = 0; id < typeCount; id++) {
+        for (int interfaceId : superInterfaces[id]) {
+          interfaceSubtypes[interfaceId][interfaceSubtypeCount[interfaceId]++] = id;
+        }
+      }
+    }
+
+    private int number(
+        @Nonnull List<ClassType> typeList,
+        @Nonnull List<Boolean> interfaceFlags,
+        @Nonnull ClassType type,
+        boolean isInterface) {
+      Integer id = idOfType.get(type);
+      if (id != null) {
+        return id;
+      }
+      id = typeList.size();
+      idOfType.put(type, id);
+      typeList.add(type);
+      interfaceFlags.add(isInterface);
+      return id;
+    }
+
+    /**
+     * Numbers the classes in the preorder of the class tree, starting from the classes without a
+     * superclass.
+     *
+     * @param subclassCount the number of subclasses at the beginning of each directSubtypes array
+     */
+    @Nonnull
+    private int[] numberClassTree(@Nonnull int[] subclassCount) {
+      int classCount = 0;
+      for (boolean anInterface : isInterface) {
+        if (!anInterface) {
+          classCount++;
+        }
+      }
+      int[] order = new int[classCount];
+      int position = 0;
+      int[] stack = new int[classCount];
+      int[] nextChild = new int[types.length];
+      // roots first; classes that are only part of a (malformed) superclass cycle are roots as well
+      for (int pass = 0; pass < 2; pass++) {
+        for (int root = 0; root < types.length; root++) {
+          if (isInterface[root] || preorder[root] >= 0 || (pass == 0 && superClass[root] >= 0)) {
+            continue;
+          }
+          int top = 0;
+          stack[top] = root;
+          preorder[root] = position;
+          order[position++] = root;
+          while (top >= 0) {
+            int current = stack[top];
+            if (nextChild[current] < subclassCount[current]) {
+              int child = directSubtypes[current][nextChild[current]++];
+              if (preorder[child] < 0) {
+                preorder[child] = position;
+                order[position++] = child;
+                stack[++top] = child;
+              }
+            } else {
+              subtreeEnd[current] = position - 1;
+              top--;
+            }
+          }
+        }
+      }
+      return order;
+    }
+
+    @Nonnull
+    private int[] closeSuperInterfaces(int id, @Nonnull byte[] state) {
+      if (state[id] == 2) {
+        return superInterfaces[id];
+      }
+      if (state[id] == 1) {
+        // (malformed) cyclic hierarchy: the closure is completed by the outer call
+        return EMPTY;
+      }
+      state[id] = 1;
+      BitSet closure = new BitSet();
+      for (int interfaceId : directInterfaces[id]) {
+        closure.set(interfaceId);
+        for (int superInterface : closeSuperInterfaces(interfaceId, state)) {
+          closure.set(superInterface);
+        }
+      }
+      if (superClass[id] >= 0) {
+        for (int superInterface : closeSuperInterfaces(superClass[id], state)) {
+          closure.set(superInterface);
+        }
+      }
+      closure.clear(id);
+      superInterfaces[id] = closure.isEmpty() ? EMPTY : closure.stream().toArray();
+      state[id] = 2;
+      return superInterfaces[id];
+    }
+
+    boolean isSubtype(int superId, int subId) {
+      if (superId == subId) {
+        return false;
+      }
+      if (isInterface[superId]) {
+        return Arrays.binarySearch(superInterfaces[subId], superId) >= 0;
+      }
+      return !isInterface[subId]
+          && preorder[superId] < preorder[subId]
+          && preorder[subId] <= subtreeEnd[superId];
+    }
+
+    /** Returns all superclasses and implemented interfaces of the given type. */
+    @Nonnull
+    BitSet ancestorsOf(@Nonnull ClassType type) {
+      BitSet ancestors = new BitSet();
+      Integer id = idOfType.get(type);
+      if (id == null) {
+        return ancestors;
+      }
+      for (int superInterface : superInterfaces[id]) {
+        ancestors.set(superInterface);
+      }
+      for (int current = superClass[id];
+          current >= 0 && !ancestors.get(current);
+          current = superClass[current]) {
+        ancestors.set(current);
+      }
+      return ancestors;
+    }
+
+    @Nonnull
+    Stream<ClassType> toTypes(@Nonnull int[] ids, int from, int to) {
+      return Arrays.stream(ids, from, to).mapToObj(id -> types[id]);
+    }
+  }
+}
@@ -0,0 +1,185 @@
+package sootup.core.typehierarchy;
+
+/*-
+ * #%L
+ * SootUp
+ * %%
+ * Copyright (C) 1997 - 2024 Raja Vallée-Rai and others
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nonnull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sootup.core.ViewChangeListener;
+import sootup.core.model.SootClass;
+import sootup.core.model.SootMethod;
+import sootup.core.signatures.MethodSubSignature;
+import sootup.core.types.ClassType;
+import sootup.core.views.View;
+
+/**
+ * Caches the virtual dispatch of a {@link View}: for a receiver type and a {@link
+ * MethodSubSignature} it stores the method that is found by looking up the subsignature in the
+ * receiver class, its superclasses and finally the most specific of its implemented interfaces. The
+ * cache is shared by all users of the view (see {@link View#getDispatchCache()}) and can be queried
+ * concurrently.
+ *
+ * <p>If the view is mutable, the cache is cleared whenever the view changes.
+ */
+public class DispatchCache implements ViewChangeListener {
+
+  private static final Logger logger = LoggerFactory.getLogger(DispatchCache.class);
+
+  @Nonnull private final View view;
+
+  @Nonnull
+  private final Map<ClassType, Map<MethodSubSignature, Optional<SootMethod>>> dispatchTable =
+      new ConcurrentHashMap<>();
+
+  public DispatchCache(@Nonnull View view) {
+    this.view = view;
+  }
+
+  /**
+   * Searches the method that is called if a method with the given subsignature is invoked on an
+   * object of the given type. First the class itself and its superclasses are checked, then the
+   * (default) methods of the implemented interfaces.
+   *
+   * @return the found method, which might be abstract, or an empty optional if neither the type nor
+   *     any of its supertypes declares the subsignature
+   */
+  @Nonnull
+  public Optional<SootMethod> findConcreteMethod(
+      @Nonnull ClassType type, @Nonnull MethodSubSignature subSignature) {
+    Map<MethodSubSignature, Optional<SootMethod>> methodsOfType =
+        dispatchTable.computeIfAbsent(type, t -> new ConcurrentHashMap<>());
+    Optional<SootMethod> method = methodsOfType.get(subSignature);
+    if (method == null) {
+      // resolved outside of the map to not block other lookups while classes are resolved
+      method = lookup(type, subSignature);
+      Optional<SootMethod> existingMethod = methodsOfType.putIfAbsent(subSignature, method);
+      if (existingMethod != null) {
+        method = existingMethod;
+      }
+    }
+    return method;
+  }
+
+  /**
+   * Returns the method of {@link #findConcreteMethod(ClassType, MethodSubSignature)} if it is not
+   * abstract.
+   */
+  @Nonnull
+  public Optional<SootMethod> resolveConcreteDispatch(
+      @Nonnull ClassType type, @Nonnull MethodSubSignature subSignature) {
+    return findConcreteMethod(type, subSignature).filter(method -> !method.isAbstract());
+  }
+
+  @Nonnull
+  private Optional<SootMethod> lookup(
+      @Nonnull ClassType type, @Nonnull MethodSubSignature subSignature) {
+    SootClass startClass = view.getClass(type).orElse(null);
+    if (startClass == null) {
+      logger.warn(
+          "Could not find \""
+              + type
+              + "\" of method "
+              + subSignature
+              + " to resolve the concrete method");
+      return Optional.empty();
+    }
+    Optional<SootMethod> startMethod = methodOf(startClass, subSignature);
+    if (startMethod.isPresent()) {
+      return startMethod;
+    }
+
+    TypeHierarchy typeHierarchy = view.getTypeHierarchy();
+    Iterator<ClassType> superClasses = typeHierarchy.superClassesOf(type).iterator();
+    while (superClasses.hasNext()) {
+      Optional<SootMethod> method = methodOf(superClasses.next(), subSignature);
+      if (method.isPresent()) {
+        return method;
+      }
+    }
+
+    // due to multiple inheritance of interfaces, the most specific default method is chosen
+    HierarchyComparator hierarchyComparator = new HierarchyComparator(typeHierarchy);
+    Optional<SootMethod> defaultMethod =
+        typeHierarchy
+            .implementedInterfacesOf(type)
+            .map(interfaceType -> methodOf(interfaceType, subSignature))
+            .filter(Optional::isPresent)
+            .map(Optional::get)
+            .min(
+                (m1, m2) ->
+                    hierarchyComparator.compare(
+                        m1.getDeclaringClassType(), m2.getDeclaringClassType()));
+    if (defaultMethod.isPresent()) {
+      return defaultMethod;
+    }
+
+    logger.warn(
+        "Could not find \""
+            + subSignature
+            + "\" in "
+            + type.getClassName()
+            + " and in its superclasses and interfaces");
+    return Optional.empty();
+  }
+
+  @Nonnull
+  private Optional<SootMethod> methodOf(
+      @Nonnull ClassType type, @Nonnull MethodSubSignature subSignature) {
+    return view.getClass(type).flatMap(sootClass -> methodOf(sootClass, subSignature));
+  }
+
+  @Nonnull
+  private static Optional<SootMethod> methodOf(
+      @Nonnull SootClass sootClass, @Nonnull MethodSubSignature subSignature) {
+    return sootClass.getMethod(subSignature).map(method -> (SootMethod) method);
+  }
+
+  /** Removes all cached dispatch results. */
+  public void invalidateAll() {
+    dispatchTable.clear();
+  }
+
+  @Override
+  public void classAdded(SootClass sc) {
+    invalidateAll();
+  }
+
+  @Override
+  public void classRemoved(SootClass sc) {
+    invalidateAll();
+  }
+
+  @Override
+  public void methodAdded(SootMethod m) {
+    invalidateAll();
+  }
+
+  @Override
+  public void methodRemoved(SootMethod m) {
+    invalidateAll();
+  }
+}
@@ -0,0 +1,369 @@
+package sootup.core.typehierarchy;
+
+/*-
+ * #%L
+ * SootUp
+ * %%
+ * Copyright (C) 1997 - 2024 Raja Vallée-Rai and others
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import com.google.common.base.Suppliers;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import sootup.core.frontend.SootClassSource;
+import sootup.core.inputlocation.AnalysisInputLocation;
+import sootup.core.model.ClassModifier;
+import sootup.core.model.SootClass;
+import sootup.core.types.ClassType;
+import sootup.core.views.View;
+
+/**
+ * A {@link TypeHierarchy} that does not scan the whole {@link View} but adds types as they are
+ * needed, so an analysis that only touches a few library types does not resolve every class of e.g.
+ * the JDK.
+ *
+ * <p>Supertypes are loaded lazily: a query resolves the class of the queried type and, while
+ * ascending, the classes of its superclass chain and interfaces. Every class that is added this way
+ * registers itself as direct subtype at the types it references as superclass or interfaces. On the
+ * first subtype query the supertype references of all classes of the <i>indexed</i> input locations
+ * are read from their class sources, without building the classes. If all input locations of the
+ * view are indexed, subtype queries are complete. Otherwise they return the subtypes declared in the
+ * indexed locations together with the subtypes that happened to be loaded so far, so their result
+ * depends on the previous queries.
+ *
+ * <p>Types that are referenced as supertype but can not be resolved are part of the hierarchy
+ * without supertypes, like in {@link ViewTypeHierarchy}. All queries can be issued concurrently.
+ */
+public class OnDemandTypeHierarchy implements TypeHierarchy {
+
+  @Nonnull private final View view;
+  @Nonnull private final ClassType objectClassType;
+
+  /** the types that were added to the hierarchy */
+  @Nonnull private final Map<ClassType, Node> nodes = new ConcurrentHashMap<>();
+
+  /** the types that are not part of the view */
+  @Nonnull private final Set<ClassType> unresolvableTypes = ConcurrentHashMap.newKeySet();
+
+  /** the types referenced as supertype by an added class, with true if referenced as interface */
+  @Nonnull private final Map<ClassType, Boolean> referencedTypes = new ConcurrentHashMap<>();
+
+  /** the direct subtypes per type, i.e. the supertype references of all added classes */
+  @Nonnull private final Map<ClassType, Set<ClassType>> directSubtypes = new ConcurrentHashMap<>();
+
+  @Nonnull private final Supplier<Boolean> lazySubtypeIndex;
+
+  /**
+   * @param view the view to resolve the classes from
+   * @param indexedLocations the input locations whose classes are added before answering subtype
+   *     queries. Pass all input locations of the view for complete subtype queries; their class
+   *     sources are read once, so locations that can read class headers only should do so.
+   */
+  public OnDemandTypeHierarchy(
+      @Nonnull View view, @Nonnull Collection<? extends AnalysisInputLocation> indexedLocations) {
+    this.view = view;
+    this.objectClassType = view.getIdentifierFactory().getClassType("java.lang.Object");
+    this.lazySubtypeIndex = Suppliers.memoize(() -> indexLocations(indexedLocations));
+  }
+
+  /**
+   * Adds the classes of the given locations. Their nodes are built from the class sources, i.e. the
+   * classes are not resolved via the view, which would read them a second time.
+   */
+  private boolean indexLocations(
+      @Nonnull Collection<? extends AnalysisInputLocation> indexedLocations) {
+    for (AnalysisInputLocation location : indexedLocations) {
+      for (SootClassSource classSource : location.getClassSources(view)) {
+        ClassType type = classSource.getClassType();
+        if (!nodes.containsKey(type)) {
+          addNode(type, new Node(classSource));
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the node of the given type, resolving its class if it was not added yet, or null if the
+   * type is neither resolvable nor referenced by an added class.
+   */
+  @Nullable
+  private Node nodeOf(@Nonnull ClassType type) {
+    Node node = nodes.get(type);
+    if (node != null) {
+      return node;
+    }
+
+    Optional<? extends SootClass> sootClass =
+        unresolvableTypes.contains(type) ? Optional.empty() : view.getClass(type);
+    if (sootClass.isPresent()) {
+      node = new Node(sootClass.get());
+    } else {
+      unresolvableTypes.add(type);
+      Boolean isInterface = referencedTypes.get(type);
+      if (isInterface == null) {
+        return null;
+      }
+      node = new Node(isInterface);
+    }
+    return addNode(type, node);
+  }
+
+  /** Adds the node unless another thread was faster and returns the node of the type. */
+  @Nonnull
+  private Node addNode(@Nonnull ClassType type, @Nonnull Node node) {
+    Node existingNode = nodes.putIfAbsent(type, node);
+    if (existingNode != null) {
+      return existingNode;
+    }
+    if (node.superClass != null) {
+      addSupertypeReference(node.superClass, type, false);
+    }
+    for (ClassType superInterface : node.interfaces) {
+      addSupertypeReference(superInterface, type, true);
+    }
+    return node;
+  }
+
+  private void addSupertypeReference(
+      @Nonnull ClassType supertype, @Nonnull ClassType subtype, boolean isInterface) {
+    referencedTypes.putIfAbsent(supertype, isInterface);
+    directSubtypes.computeIfAbsent(supertype, t -> ConcurrentHashMap.newKeySet()).add(subtype);
+  }
+
+  /**
+   * Returns the node of the given type like {@link #nodeOf(ClassType)}, but considers the supertype
+   * references of the indexed locations, too.
+   */
+  @Nullable
+  private Node findNode(@Nonnull ClassType type) {
+    Node node = nodeOf(type);
+    if (node == null) {
+      lazySubtypeIndex.get();
+      node = nodeOf(type);
+    }
+    return node;
+  }
+
+  @Nonnull
+  private Node getNode(@Nonnull ClassType type) {
+    Node node = findNode(type);
+    if (node == null) {
+      throw new IllegalArgumentException("Could not find '" + type + "' in hierarchy.");
+    }
+    return node;
+  }
+
+  @Nonnull
+  @Override
+  public Stream<ClassType> implementersOf(@Nonnull ClassType interfaceType) {
+    if (!getNode(interfaceType).isInterface) {
+      throw new IllegalArgumentException("'" + interfaceType + "' is not an interface.");
+    }
+    return subtypesOf(interfaceType);
+  }
+
+  @Nonnull
+  @Override
+  public Stream<ClassType> subclassesOf(@Nonnull ClassType classType) {
+    if (getNode(classType).isInterface) {
+      throw new IllegalArgumentException("'" + classType + "' is not a class.");
+    }
+    return subtypesOf(classType);
+  }
+
+  @Nonnull
+  @Override
+  public Stream<ClassType> subtypesOf(@Nonnull ClassType type) {
+    lazySubtypeIndex.get();
+    getNode(type);
+
+    Set<ClassType> subtypes = new LinkedHashSet<>();
+    Deque<ClassType> worklist = new ArrayDeque<>();
+    worklist.push(type);
+    while (!worklist.isEmpty()) {
+      for (ClassType subtype :
+          directSubtypes.getOrDefault(worklist.pop(), Collections.emptySet())) {
+        if (subtypes.add(subtype)) {
+          worklist.push(subtype);
+        }
+      }
+    }
+    return subtypes.stream();
+  }
+
+  @Nonnull
+  @Override
+  public Stream<ClassType> directSubtypesOf(@Nonnull ClassType type) {
+    lazySubtypeIndex.get();
+    getNode(type);
+    return new ArrayList<>(directSubtypes.getOrDefault(type, Collections.emptySet())).stream();
+  }
+
+  @Nonnull
+  @Override
+  public Stream<ClassType> implementedInterfacesOf(@Nonnull ClassType type) {
+    Node node = getNode(type);
+    Set<ClassType> interfaces = new LinkedHashSet<>();
+    Deque<ClassType> worklist = new ArrayDeque<>();
+    Set<Node> visitedClasses = new HashSet<>();
+    for (Node current = node; current != null && visitedClasses.add(current); ) {
+      worklist.addAll(current.interfaces);
+      current = current.superClass == null ? null : nodeOf(current.superClass);
+    }
+    while (!worklist.isEmpty()) {
+      ClassType superInterface = worklist.pop();
+      if (interfaces.add(superInterface)) {
+        Node interfaceNode = nodeOf(superInterface);
+        if (interfaceNode != null) {
+          worklist.addAll(interfaceNode.interfaces);
+        }
+      }
+    }
+    return interfaces.stream();
+  }
+
+  @Nonnull
+  @Override
+  public Optional<ClassType> superClassOf(@Nonnull ClassType classType) {
+    Node node = getNode(classType);
+    if (objectClassType.equals(classType)) {
+      return Optional.empty();
+    }
+    if (node.superClass != null) {
+      return Optional.of(node.superClass);
+    }
+    return node.isInterface ? Optional.of(objectClassType) : Optional.empty();
+  }
+
+  @Override
+  public Stream<ClassType> directlyImplementedInterfacesOf(@Nonnull ClassType type) {
+    Node node = getNode(type);
+    if (node.isInterface) {
+      throw new IllegalArgumentException(type + " is not a class.");
+    }
+    return node.interfaces.stream();
+  }
+
+  @Override
+  public boolean isInterface(@Nonnull ClassType type) {
+    return getNode(type).isInterface;
+  }
+
+  @Override
+  public Stream<ClassType> directlyExtendedInterfacesOf(@Nonnull ClassType type) {
+    Node node = getNode(type);
+    if (!node.isInterface) {
+      throw new IllegalArgumentException(type + " is not an interface.");
+    }
+    return node.interfaces.stream();
+  }
+
+  @Override
+  public boolean contains(ClassType type) {
+    return findNode(type) != null;
+  }
+
+  /** Returns all (transitive) supertypes of the given type, excluding itself. */
+  @Nonnull
+  private Set<ClassType> ancestorsOf(@Nonnull ClassType type) {
+    Set<ClassType> ancestors = new HashSet<>();
+    Deque<ClassType> worklist = new ArrayDeque<>();
+    worklist.push(type);
+    while (!worklist.isEmpty()) {
+      Node node = nodeOf(worklist.pop());
+      if (node == null) {
+        continue;
+      }
+      for (ClassType supertype : node.supertypes()) {
+        if (ancestors.add(supertype)) {
+          worklist.push(supertype);
+        }
+      }
+    }
+    return ancestors;
+  }
+
+  /**
+   * Computes the lowest common ancestors like {@link ViewTypeHierarchy}, but only from the
+   * supertypes: a common ancestor is not a lowest one if it is a direct supertype of another common
+   * ancestor.
+   */
+  @Override
+  public Collection<ClassType> getLowestCommonAncestors(ClassType a, ClassType b) {
+    if (findNode(a) == null || findNode(b) == null) {
+      return Collections.singleton(objectClassType);
+    }
+    Set<ClassType> commonAncestors = ancestorsOf(a);
+    commonAncestors.retainAll(ancestorsOf(b));
+
+    Set<ClassType> lcas = new HashSet<>(commonAncestors);
+    for (ClassType commonAncestor : commonAncestors) {
+      Node node = nodeOf(commonAncestor);
+      if (node != null) {
+        node.supertypes().forEach(lcas::remove);
+      }
+    }
+    return lcas.isEmpty() ? Collections.singleton(objectClassType) : lcas;
+  }
+
+  /** The supertype references of a type that was added to the hierarchy. */
+  private static class Node {
+    final boolean isInterface;
+
+    /** the direct superclass, null for interfaces and classes without superclass */
+    @Nullable final ClassType superClass;
+
+    /** the directly implemented interfaces of a class or the extended interfaces of an interface */
+    @Nonnull final List<ClassType> interfaces;
+
+    Node(@Nonnull SootClass sootClass) {
+      this.isInterface = sootClass.isInterface();
+      this.superClass = isInterface ? null : sootClass.getSuperclass().orElse(null);
+      this.interfaces = new ArrayList<>(sootClass.getInterfaces());
+    }
+
+    Node(@Nonnull SootClassSource classSource) {
+      this.isInterface = ClassModifier.isInterface(classSource.resolveModifiers());
+      this.superClass = isInterface ? null : classSource.resolveSuperclass().orElse(null);
+      this.interfaces = new ArrayList<>(classSource.resolveInterfaces());
+    }
+
+    /** Creates the node of a type that is referenced as supertype but can not be resolved. */
+    Node(boolean isInterface) {
+      this.isInterface = isInterface;
+      this.superClass = null;
+      this.interfaces = Collections.emptyList();
+    }
+
+    @Nonnull
+    List<ClassType> supertypes() {
+      if (superClass == null) {
+        return interfaces;
+      }
+      List<ClassType> supertypes = new ArrayList<>(interfaces.size() + 1);
+      supertypes.add(superClass);
+      supertypes.addAll(interfaces);
+      return supertypes;
+    }
+  }
+}
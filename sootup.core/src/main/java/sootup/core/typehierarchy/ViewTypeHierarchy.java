@@ -22,6 +22,8 @@ package sootup.core.typehierarchy;
  */
 
 import com.google.common.base.Suppliers;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import java.util.*;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
@@ -44,6 +46,9 @@ import sootup.core.views.View;
  * Full documentation is in the <a
  * href="https://github.com/secure-software-engineering/soot-reloaded/wiki/Type-Hierarchy-Algorithm">wiki</a>.
  *
+ * <p>The queries can be issued concurrently, e.g. by a parallel body conversion that resolves types
+ * against one shared hierarchy. {@link #addType(SootClass)} must not run concurrently with them.
+ *
  * @author Christian Brüggemann
  */
 public class ViewTypeHierarchy implements MutableTypeHierarchy {
@@ -52,7 +57,19 @@ public class ViewTypeHierarchy implements MutableTypeHierarchy {
 
   private final Supplier<ScanResult> lazyScanResult;
   private final ClassType objectClassType;
-  private final Map<SymmetricKey, Set<ClassType>> lcaCache = new HashMap<>();
+
+  /** maximum number of type pairs whose lowest common ancestors are kept */
+  private static final int LCA_CACHE_SIZE = 16384;
+
+  /** maximum number of types whose ancestor set is kept */
+  private static final int ANCESTOR_CACHE_SIZE = 4096;
+
+  private final Cache<SymmetricKey, Set<ClassType>> lcaCache =
+      CacheBuilder.newBuilder().maximumSize(LCA_CACHE_SIZE).build();
+
+  /** the numbers of the (transitive) supertype vertices of a vertex, excluding itself */
+  private final Cache<Vertex, BitSet> ancestorCache =
+      CacheBuilder.newBuilder().maximumSize(ANCESTOR_CACHE_SIZE).build();
 
   /** to allow caching use Typehierarchy.fromView() to get/create the Typehierarchy. */
   public ViewTypeHierarchy(@Nonnull View view) {
@@ -177,64 +194,91 @@ public class ViewTypeHierarchy implements MutableTypeHierarchy {
   }
 
   protected Set<Vertex> findAncestors(ClassType type) {
-    Graph<Vertex, Edge> graph = lazyScanResult.get().graph;
-    Vertex vertex = lazyScanResult.get().typeToVertex.get(type);
+    ScanResult scanResult = lazyScanResult.get();
+    Vertex vertex = scanResult.typeToVertex.get(type);
     if (vertex == null) {
       logger.debug("Could not find {} in this hierarchy!", type.toString());
       return Collections.emptySet();
     }
-    Set<Vertex> ancestors = new HashSet<>();
-    for (Edge edge : graph.outgoingEdgesOf(vertex)) {
-      Vertex parent = graph.getEdgeTarget(edge);
-      ancestors.add(parent);
-      ancestors.addAll(findAncestors(parent.javaClassType));
+    BitSet ancestors = ancestorsOf(scanResult, vertex);
+    Set<Vertex> ancestorVertices = new HashSet<>();
+    for (int i = ancestors.nextSetBit(0); i >= 0; i = ancestors.nextSetBit(i + 1)) {
+      ancestorVertices.add(scanResult.vertices.get(i));
+    }
+    return ancestorVertices;
+  }
+
+  /**
+   * Returns the numbers of all (transitive) supertypes of the given vertex. The returned set is
+   * shared via the cache and must not be modified.
+   */
+  @Nonnull
+  private BitSet ancestorsOf(@Nonnull ScanResult scanResult, @Nonnull Vertex vertex) {
+    BitSet ancestors = ancestorCache.getIfPresent(vertex);
+    if (ancestors != null) {
+      return ancestors;
+    }
+    Graph<Vertex, Edge> graph = scanResult.graph;
+    ancestors = new BitSet();
+    Deque<Vertex> worklist = new ArrayDeque<>();
+    worklist.push(vertex);
+    while (!worklist.isEmpty()) {
+      for (Edge edge : graph.outgoingEdgesOf(worklist.pop())) {
+        Vertex parent = graph.getEdgeTarget(edge);
+        if (!ancestors.get(parent.number)) {
+          ancestors.set(parent.number);
+          worklist.push(parent);
+        }
+      }
     }
+    ancestorCache.put(vertex, ancestors);
     return ancestors;
   }
 
   /**
    * This algorithm is implementation of the algorithm
    * https://www.baeldung.com/cs/lowest-common-ancestor-acyclic-graph
+   *
+   * <p>The common ancestors are the intersection of the cached ancestor sets of both types; a
+   * common ancestor is a lowest one if none of its direct subtypes is a common ancestor as well.
    */
   @Override
   public Collection<ClassType> getLowestCommonAncestors(ClassType a, ClassType b) {
     // search in cache
     SymmetricKey pair = new SymmetricKey(a, b);
-    Set<ClassType> lcas = lcaCache.get(pair);
+    Set<ClassType> lcas = lcaCache.getIfPresent(pair);
     if (lcas != null) {
       return lcas;
     }
 
-    Graph<Vertex, Edge> graph = lazyScanResult.get().graph;
-    Set<Vertex> ancestorsOfA = findAncestors(a);
-    Set<Vertex> ancestorsOfB = findAncestors(b);
-    lcas = new HashSet<>();
-
-    if (ancestorsOfA.isEmpty() || ancestorsOfB.isEmpty()) {
-      lcas.add(objectClassType);
+    ScanResult scanResult = lazyScanResult.get();
+    Vertex vertexA = scanResult.typeToVertex.get(a);
+    Vertex vertexB = scanResult.typeToVertex.get(b);
+    if (vertexA == null || vertexB == null) {
+      logger.debug("Could not find {} or {} in this hierarchy!", a, b);
+      lcas = Collections.singleton(objectClassType);
       lcaCache.put(pair, lcas);
       return lcas;
     }
-    // ancestorsOfA contains now common ancestors of a and b
-    ancestorsOfA.retainAll(ancestorsOfB);
-    boolean notLca = false;
-    for (Vertex ca : ancestorsOfA) {
-      Set<Edge> incomingEdges = graph.incomingEdgesOf(ca);
-      for (Edge ie : incomingEdges) {
-        if (ancestorsOfA.contains(graph.getEdgeSource(ie))) {
-          notLca = true;
+
+    Graph<Vertex, Edge> graph = scanResult.graph;
+    BitSet commonAncestors = (BitSet) ancestorsOf(scanResult, vertexA).clone();
+    commonAncestors.and(ancestorsOf(scanResult, vertexB));
+    Set<ClassType> lowest = new HashSet<>();
+    for (int i = commonAncestors.nextSetBit(0); i >= 0; i = commonAncestors.nextSetBit(i + 1)) {
+      Vertex ca = scanResult.vertices.get(i);
+      boolean isLowest = true;
+      for (Edge ie : graph.incomingEdgesOf(ca)) {
+        if (commonAncestors.get(graph.getEdgeSource(ie).number)) {
+          isLowest = false;
           break;
         }
       }
-      if (notLca) {
-        notLca = false;
-      } else {
-        lcas.add(ca.javaClassType);
+      if (isLowest) {
+        lowest.add(ca.javaClassType);
       }
     }
-    if (lcas.isEmpty()) {
-      lcas = Collections.singleton(objectClassType);
-    }
+    lcas = lowest.isEmpty() ? Collections.singleton(objectClassType) : lowest;
     lcaCache.put(pair, lcas);
     return lcas;
   }
@@ -364,34 +408,34 @@ public class ViewTypeHierarchy implements MutableTypeHierarchy {
    * <p>In the graph structure, a type is only connected to its direct subtypes.
    */
   private ScanResult scanView(@Nonnull View view) {
-    Map<ClassType, Vertex> typeToVertex = new HashMap<>();
-    Graph<Vertex, Edge> graph = new SimpleDirectedGraph<>(null, null, false);
-
-    view.getClasses().forEach(sootClass -> addSootClassToGraph(sootClass, typeToVertex, graph));
-    return new ScanResult(typeToVertex, graph);
+    ScanResult scanResult =
+        new ScanResult(new HashMap<>(), new SimpleDirectedGraph<>(null, null, false));
+    view.getClasses().forEach(sootClass -> addSootClassToGraph(sootClass, scanResult));
+    return scanResult;
   }
 
-  private static void addSootClassToGraph(
-      SootClass sootClass, Map<ClassType, Vertex> typeToVertex, Graph<Vertex, Edge> graph) {
+  private static void addSootClassToGraph(SootClass sootClass, ScanResult scanResult) {
+    Map<ClassType, Vertex> typeToVertex = scanResult.typeToVertex;
     if (sootClass.isInterface()) {
       Vertex vertex =
           typeToVertex.computeIfAbsent(
-              sootClass.getType(), type -> createAndAddInterfaceVertex(graph, type));
+              sootClass.getType(), type -> createAndAddInterfaceVertex(scanResult, type));
       for (ClassType extendedInterface : sootClass.getInterfaces()) {
         Vertex extendedInterfaceVertex =
             typeToVertex.computeIfAbsent(
-                extendedInterface, type -> createAndAddInterfaceVertex(graph, type));
-        graph.addEdge(vertex, extendedInterfaceVertex, new Edge(EdgeType.InterfaceDirectlyExtends));
+                extendedInterface, type -> createAndAddInterfaceVertex(scanResult, type));
+        scanResult.graph.addEdge(
+            vertex, extendedInterfaceVertex, new Edge(EdgeType.InterfaceDirectlyExtends));
       }
     } else {
       Vertex vertex =
           typeToVertex.computeIfAbsent(
-              sootClass.getType(), type -> createAndAddClassVertex(graph, type));
+              sootClass.getType(), type -> createAndAddClassVertex(scanResult, type));
       for (ClassType implementedInterface : sootClass.getInterfaces()) {
         Vertex implementedInterfaceVertex =
             typeToVertex.computeIfAbsent(
-                implementedInterface, type -> createAndAddInterfaceVertex(graph, type));
-        graph.addEdge(
+                implementedInterface, type -> createAndAddInterfaceVertex(scanResult, type));
+        scanResult.graph.addEdge(
             vertex, implementedInterfaceVertex, new Edge(EdgeType.ClassDirectlyImplements));
       }
       sootClass
@@ -400,30 +444,34 @@ public class ViewTypeHierarchy implements MutableTypeHierarchy {
               superClass -> {
                 Vertex superClassVertex =
                     typeToVertex.computeIfAbsent(
-                        superClass, type -> createAndAddClassVertex(graph, type));
-                graph.addEdge(vertex, superClassVertex, new Edge(EdgeType.ClassDirectlyExtends));
+                        superClass, type -> createAndAddClassVertex(scanResult, type));
+                scanResult.graph.addEdge(
+                    vertex, superClassVertex, new Edge(EdgeType.ClassDirectlyExtends));
               });
     }
   }
 
   @Nonnull
-  private static Vertex createAndAddClassVertex(Graph<Vertex, Edge> graph, ClassType type) {
-    Vertex classVertex = new ScanResult.ClassVertex(type);
-    graph.addVertex(classVertex);
+  private static Vertex createAndAddClassVertex(ScanResult scanResult, ClassType type) {
+    Vertex classVertex = new ScanResult.ClassVertex(type, scanResult.vertices.size());
+    scanResult.addVertex(classVertex);
     return classVertex;
   }
 
   @Nonnull
-  private static Vertex createAndAddInterfaceVertex(Graph<Vertex, Edge> graph, ClassType type) {
-    Vertex interfaceVertex = new ScanResult.InterfaceVertex(type);
-    graph.addVertex(interfaceVertex);
+  private static Vertex createAndAddInterfaceVertex(ScanResult scanResult, ClassType type) {
+    Vertex interfaceVertex = new ScanResult.InterfaceVertex(type, scanResult.vertices.size());
+    scanResult.addVertex(interfaceVertex);
     return interfaceVertex;
   }
 
   @Override
   public void addType(@Nonnull SootClass sootClass) {
     ScanResult scanResult = lazyScanResult.get();
-    addSootClassToGraph(sootClass, scanResult.typeToVertex, scanResult.graph);
+    addSootClassToGraph(sootClass, scanResult);
+    // the new type can add supertypes to types that were referenced before
+    ancestorCache.invalidateAll();
+    lcaCache.invalidateAll();
   }
 
   /** Holds a vertex for each {@link ClassType} encountered during the scan. */
@@ -433,16 +481,20 @@ public class ViewTypeHierarchy implements MutableTypeHierarchy {
     protected abstract static class Vertex {
       @Nonnull final ClassType javaClassType;
 
-      private Vertex(@Nonnull ClassType javaClassType) {
+      /** the position of this vertex in {@link ScanResult#vertices} */
+      final int number;
+
+      private Vertex(@Nonnull ClassType javaClassType, int number) {
         this.javaClassType = javaClassType;
+        this.number = number;
       }
 
       public abstract Stream<ClassType> directSubTypesOf(Graph<Vertex, Edge> graph, Vertex vertex);
     }
 
     private static class InterfaceVertex extends Vertex {
-      public InterfaceVertex(ClassType javaClassType) {
-        super(javaClassType);
+      public InterfaceVertex(ClassType javaClassType, int number) {
+        super(javaClassType, number);
       }
 
       public Stream<ClassType> directSubTypesOf(Graph<Vertex, Edge> graph, Vertex vertex) {
@@ -458,8 +510,8 @@ public class ViewTypeHierarchy implements MutableTypeHierarchy {
     }
 
     private static class ClassVertex extends Vertex {
-      public ClassVertex(ClassType javaClassType) {
-        super(javaClassType);
+      public ClassVertex(ClassType javaClassType, int number) {
+        super(javaClassType, number);
       }
 
       @Override
@@ -495,11 +547,19 @@ public class ViewTypeHierarchy implements MutableTypeHierarchy {
 
     @Nonnull final Graph<Vertex, Edge> graph;
 
+    /** the vertices, indexed by their number */
+    @Nonnull final List<Vertex> vertices = new ArrayList<>();
+
     private ScanResult(
         @Nonnull Map<ClassType, Vertex> typeToVertex, @Nonnull Graph<Vertex, Edge> graph) {
       this.typeToVertex = typeToVertex;
       this.graph = graph;
     }
+
+    private void addVertex(@Nonnull Vertex vertex) {
+      graph.addVertex(vertex);
+      vertices.add(vertex);
+    }
   }
 
   private class SuperClassVertexIterator implements Iterator<Vertex> {
@@ -534,5 +594,17 @@ public class ViewTypeHierarchy implements MutableTypeHierarchy {
     public int hashCode() {
       return Objects.hash(getKey()) + Objects.hash(getValue());
     }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof SymmetricKey)) {
+        return false;
+      }
+      SymmetricKey other = (SymmetricKey) obj;
+      return (Objects.equals(getKey(), other.getKey())
+              && Objects.equals(getValue(), other.getValue()))
+          || (Objects.equals(getKey(), other.getValue())
+              && Objects.equals(getValue(), other.getKey()));
+    }
   }
 }
@@ -30,6 +30,7 @@ import sootup.core.model.SootField;
 import sootup.core.model.SootMethod;
 import sootup.core.signatures.FieldSignature;
 import sootup.core.signatures.MethodSignature;
+import sootup.core.typehierarchy.DispatchCache;
 import sootup.core.typehierarchy.TypeHierarchy;
 import sootup.core.typehierarchy.ViewTypeHierarchy;
 
@@ -39,17 +40,59 @@ import sootup.core.typehierarchy.ViewTypeHierarchy;
  * @author Linghui Luo
  */
 public abstract class AbstractView implements View {
-  @Nullable private TypeHierarchy typeHierarchy;
+  @Nullable private volatile TypeHierarchy typeHierarchy;
+  @Nullable private volatile DispatchCache dispatchCache;
 
   public AbstractView() {}
 
   @Override
   @Nonnull
   public TypeHierarchy getTypeHierarchy() {
-    if (this.typeHierarchy == null) {
-      typeHierarchy = new ViewTypeHierarchy(this);
+    TypeHierarchy hierarchy = this.typeHierarchy;
+    if (hierarchy == null) {
+      synchronized (this) {
+        hierarchy = this.typeHierarchy;
+        if (hierarchy == null) {
+          hierarchy = createTypeHierarchy();
+          this.typeHierarchy = hierarchy;
+        }
+      }
     }
-    return typeHierarchy;
+    return hierarchy;
+  }
+
+  /**
+   * Returns the dispatch cache of this view. If the view is mutable, the cache is cleared on every
+   * change of the view.
+   */
+  @Override
+  @Nonnull
+  public DispatchCache getDispatchCache() {
+    DispatchCache cache = this.dispatchCache;
+    if (cache == null) {
+      synchronized (this) {
+        cache = this.dispatchCache;
+        if (cache == null) {
+          cache = new DispatchCache(this);
+          if (this instanceof MutableView) {
+            ((MutableView) this).addChangeListener(cache);
+          }
+          this.dispatchCache = cache;
+        }
+      }
+    }
+    return cache;
+  }
+
+  /** Returns true if the type hierarchy of this view was already requested and created. */
+  protected boolean isTypeHierarchyCreated() {
+    return typeHierarchy != null;
+  }
+
+  /** Creates the type hierarchy of this view when it is requested for the first time. */
+  @Nonnull
+  protected TypeHierarchy createTypeHierarchy() {
+    return new ViewTypeHierarchy(this);
   }
 
   /**
@@ -0,0 +1,40 @@
+package sootup.core.views;
+
+/*-
+ * #%L
+ * SootUp
+ * %%
+ * Copyright (C) 1997 - 2024 Raja Vallée-Rai and others
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+/**
+ * Callback that is notified while a {@link View} resolves a batch of elements (e.g. classes) in
+ * bulk. Implementations may be called concurrently from multiple worker threads.
+ */
+@FunctionalInterface
+public interface ResolutionProgressListener {
+
+  /** does nothing */
+  ResolutionProgressListener NONE = (resolved, total) -> {};
+
+  /**
+   * @param resolved the number of elements that are resolved so far
+   * @param total the number of elements that will be resolved in this batch
+   */
+  void onProgress(int resolved, int total);
+}
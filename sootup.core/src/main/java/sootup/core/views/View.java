@@ -31,6 +31,7 @@ import sootup.core.model.SootField;
 import sootup.core.model.SootMethod;
 import sootup.core.signatures.FieldSignature;
 import sootup.core.signatures.MethodSignature;
+import sootup.core.typehierarchy.DispatchCache;
 import sootup.core.typehierarchy.TypeHierarchy;
 import sootup.core.types.ClassType;
 
@@ -61,6 +62,10 @@ public interface View {
   @Nonnull
   TypeHierarchy getTypeHierarchy();
 
+  /** Returns the cache of the virtual dispatch that is shared by all users of this view. */
+  @Nonnull
+  DispatchCache getDispatchCache();
+
   /** Returns the {@link IdentifierFactory} for this view. */
   @Nonnull
   IdentifierFactory getIdentifierFactory();
@@ -0,0 +1,122 @@
+package sootup.core.transform;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import sootup.core.TestUtil;
+import sootup.core.model.Body;
+import sootup.core.signatures.MethodSignature;
+import sootup.core.types.VoidType;
+
+@Tag("Java8")
+public class BodyInterceptorMetricsTest {
+
+  private static MethodSignature method(String name) {
+    return new MethodSignature(
+        TestUtil.createDummyClassType(), name, Collections.emptyList(), VoidType.getInstance());
+  }
+
+  @Test
+  public void testMetric() {
+    BodyInterceptorMetric metric = new BodyInterceptorMetric(2);
+    metric.record(method("a"), 3_000_000, 1024);
+    metric.record(method("b"), 1_000_000, -1);
+    metric.record(method("c"), 5_000_000, 2048);
+    metric.record(null, 7_000_000, 0);
+
+    assertEquals(4, metric.getInvocationCount());
+    assertEquals(16_000_000, metric.getTotalNanos());
+    assertEquals(16, metric.getRuntime());
+    assertEquals(7_000_000, metric.getMaxNanos());
+    assertEquals(3072, metric.getAllocatedBytes());
+    assertEquals(
+        Arrays.asList(method("c"), method("a")),
+        metric.getSlowestMethods().stream()
+            .map(BodyInterceptorMetric.MethodDuration::getMethod)
+            .collect(Collectors.toList()));
+  }
+
+  @Test
+  @SuppressWarnings("deprecation")
+  public void testDeprecatedAccessors() {
+    BodyInterceptorMetric metric = new BodyInterceptorMetric(3, 2);
+    assertEquals(3, metric.getRuntime());
+    assertEquals(2, metric.getMemoryUsage());
+    assertEquals(0, metric.getInvocationCount());
+
+    metric.record(method("a"), 2_000_000, 1024 * 1024);
+    assertEquals(5, metric.getRuntime());
+    assertEquals(3, metric.getMemoryUsage());
+
+    metric.setRuntime(7);
+    metric.setMemoryUsage(1);
+    assertEquals(7, metric.getRuntime());
+    assertEquals(7_000_000, metric.getTotalNanos());
+    assertEquals(1, metric.getMemoryUsage());
+    assertEquals(1, metric.getInvocationCount());
+  }
+
+  @Test
+  public void testConcurrentRecording() {
+    BodyInterceptorMetric metric = new BodyInterceptorMetric(3);
+    IntStream.range(0, 10_000).parallel().forEach(i -> metric.record(method("m" + i), i, 1));
+
+    assertEquals(10_000, metric.getInvocationCount());
+    assertEquals(10_000L * 9_999 / 2, metric.getTotalNanos());
+    assertEquals(9_999, metric.getMaxNanos());
+    assertEquals(10_000, metric.getAllocatedBytes());
+    assertEquals(
+        Arrays.asList(9_999L, 9_998L, 9_997L),
+        metric.getSlowestMethods().stream()
+            .map(BodyInterceptorMetric.MethodDuration::getNanos)
+            .collect(Collectors.toList()));
+  }
+
+  @Test
+  public void testInstrumentedInterceptors() {
+    BodyInterceptorMetrics metrics = new BodyInterceptorMetrics();
+    BodyInterceptor noOp = (builder, view) -> {};
+    List<BodyInterceptor> interceptors = metrics.instrument("frontend", Arrays.asList(noOp, noOp));
+    assertEquals(2, interceptors.size());
+
+    Body.BodyBuilder builder = Body.builder().setMethodSignature(method("m"));
+    for (BodyInterceptor interceptor : interceptors) {
+      interceptor.interceptBody(builder, null);
+    }
+    // an aborted chain is not recorded for the frontend
+    interceptors.get(0).interceptBody(builder, null);
+    Body.BodyBuilder otherBuilder = Body.builder().setMethodSignature(method("n"));
+    for (BodyInterceptor interceptor : interceptors) {
+      interceptor.interceptBody(otherBuilder, null);
+    }
+
+    assertEquals(Collections.singleton("frontend"), metrics.getFrontends());
+    assertEquals(3, metrics.getInterceptors("frontend").get(0).getBiMetric().getInvocationCount());
+    assertEquals(2, metrics.getInterceptors("frontend").get(1).getBiMetric().getInvocationCount());
+    BodyInterceptorMetric frontendMetric = metrics.getFrontendMetric("frontend");
+    assertEquals(2, frontendMetric.getInvocationCount());
+    assertEquals(
+        Arrays.asList("m", "n"),
+        frontendMetric.getSlowestMethods().stream()
+            .map(methodDuration -> methodDuration.getMethod().getName())
+            .sorted()
+            .collect(Collectors.toList()));
+    assertEquals(
+        method("m"),
+        metrics
+            .getInterceptors("frontend")
+            .get(1)
+            .getBiMetric()
+            .getSlowestMethods()
+            .get(0)
+            .getMethod());
+    assertTrue(metrics.report().startsWith("frontend: 2 invocations"));
+    assertTrue(metrics.getInterceptors("other").isEmpty());
+  }
+}
@@ -41,6 +41,19 @@ public enum BytecodeBodyInterceptors {
       new ConstantPropagatorAndFolder(),
       // new DeadAssignmentEliminator(), bug: creates unconnected exceptional flows - see
       // RuntimeJarConversionTests
+      new TypeAssigner()),
+
+  /**
+   * Like {@link #Default}, but the {@link LocalSplitter}, the {@link Aggregator}, the {@link
+   * CopyPropagator} and the {@link ConstantPropagatorAndFolder} are replaced by the {@link
+   * LocalCleaner}, which computes the def-use information only once per body. The resulting Jimple
+   * is equivalent, but not always identical.
+   */
+  FastCleanup(
+      new NopEliminator(),
+      new EmptySwitchEliminator(),
+      new CastAndReturnInliner(),
+      new LocalCleaner(),
       new TypeAssigner());
 
   @Nonnull private final List<BodyInterceptor> bodyInterceptors;
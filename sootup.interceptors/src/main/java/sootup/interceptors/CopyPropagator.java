@@ -21,13 +21,12 @@ package sootup.interceptors;
  * #L%
  */
 
-import com.google.common.collect.Lists;
-import java.util.Iterator;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
 import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
+import sootup.core.graph.ImmutableBlockStmtGraph;
 import sootup.core.graph.MutableStmtGraph;
+import sootup.core.graph.StmtGraph;
 import sootup.core.jimple.basic.Local;
 import sootup.core.jimple.basic.Value;
 import sootup.core.jimple.common.constant.Constant;
@@ -41,6 +40,7 @@ import sootup.core.jimple.common.stmt.Stmt;
 import sootup.core.model.Body;
 import sootup.core.transform.BodyInterceptor;
 import sootup.core.types.ReferenceType;
+import sootup.core.types.Type;
 import sootup.core.views.View;
 
 /**
@@ -61,15 +61,22 @@ public class CopyPropagator implements BodyInterceptor {
   @Override
   public void interceptBody(@Nonnull Body.BodyBuilder builder, @Nonnull View view) {
     MutableStmtGraph stmtGraph = builder.getStmtGraph();
-    for (Stmt stmt : Lists.newArrayList(stmtGraph)) {
+    // the propagation only replaces uses, so the definitions of the locals stay the same and the
+    // reaching definitions can be computed once
+    ReachingDefinitions reachingDefinitions = new ReachingDefinitions(stmtGraph);
+    List<Stmt> stmts = reachingDefinitions.getStmts();
+    Map<Local, Integer> defCounts = countDefs(stmts);
+    for (int stmtIdx = 0; stmtIdx < stmts.size(); stmtIdx++) {
+      Stmt stmt = stmts.get(stmtIdx);
       Stmt newStmt = stmt;
+      reachingDefinitions.enter(stmtIdx);
       Set<Value> valueList = newStmt.getUses().collect(Collectors.toSet());
       for (Value use : valueList) {
         if (!(use instanceof Local)) {
           continue;
         }
 
-        List<Stmt> defsOfUse = ((Local) use).getDefsForLocalUse(stmtGraph, newStmt);
+        List<Stmt> defsOfUse = reachingDefinitions.getDefsForLocalUse((Local) use, newStmt);
         if (!isPropatabable(defsOfUse)) {
           continue;
         }
@@ -94,7 +101,7 @@ public class CopyPropagator implements BodyInterceptor {
         else if (rhs instanceof Local && !rhs.equivTo(use)) {
           Local m = (Local) rhs;
           if (use != m) {
-            Integer defCount = m.getDefs(stmtGraph.getStmts()).size();
+            int defCount = defCounts.getOrDefault(m, 0);
             if (defCount == 0) {
               throw new IllegalStateException("Local `" + m + "' is used without a definition!");
             } else if (defCount == 1) {
@@ -136,9 +143,170 @@ public class CopyPropagator implements BodyInterceptor {
           }
         }
       }
+      reachingDefinitions.leave(stmtIdx, newStmt);
     }
   }
 
+  /**
+   * The definitions of the locals that reach the Stmts along the non-exceptional flows, i.e. the
+   * result of {@link Local#getDefsForLocalUse(StmtGraph, Stmt)} for all uses. They are computed
+   * once on the blocks and then updated while the Stmts are visited in their iteration order.
+   */
+  private static class ReachingDefinitions {
+    @Nonnull private final ImmutableBlockStmtGraph numberedGraph;
+
+    /** the current version of each Stmt, as the uses of the Stmts are replaced */
+    @Nonnull private final Stmt[] stmts;
+
+    /** identifies a local like {@link Local#equivTo(Object)} by its name and type */
+    @Nonnull private final Map<Map.Entry<String, Type>, Integer> localIds = new HashMap<>();
+
+    /** the id of the local that is defined by each Stmt, or -1 */
+    @Nonnull private final int[] stmtDefs;
+
+    /** the Stmts that define each local */
+    @Nonnull private final List<BitSet> defsOfLocals = new ArrayList<>();
+
+    @Nonnull private final BitSet[] blockIn;
+
+    /** the definitions that reach the visited Stmt */
+    @Nonnull private final BitSet reaching = new BitSet();
+
+    private int visitedStmtIdx = -1;
+
+    ReachingDefinitions(@Nonnull StmtGraph<?> stmtGraph) {
+      numberedGraph = new ImmutableBlockStmtGraph(stmtGraph);
+      int stmtCount = numberedGraph.getStmtCount();
+      stmts = new Stmt[stmtCount];
+      stmtDefs = new int[stmtCount];
+      for (int i = 0; i < stmtCount; i++) {
+        Stmt stmt = numberedGraph.getStmt(i);
+        stmts[i] = stmt;
+        stmtDefs[i] = -1;
+        if (stmt instanceof AbstractDefinitionStmt) {
+          Value leftOp = ((AbstractDefinitionStmt) stmt).getLeftOp();
+          if (leftOp instanceof Local) {
+            Local local = (Local) leftOp;
+            int localId =
+                localIds.computeIfAbsent(
+                    new AbstractMap.SimpleImmutableEntry<>(local.getName(), local.getType()),
+                    key -> {
+                      defsOfLocals.add(new BitSet(stmtCount));
+                      return defsOfLocals.size() - 1;
+                    });
+            stmtDefs[i] = localId;
+            defsOfLocals.get(localId).set(i);
+          }
+        }
+      }
+
+      int blockCount = numberedGraph.getBlocks().size();
+      BitSet[] gen = new BitSet[blockCount];
+      BitSet[] kill = new BitSet[blockCount];
+      BitSet[] blockOut = new BitSet[blockCount];
+      blockIn = new BitSet[blockCount];
+      for (int blockIdx = 0; blockIdx < blockCount; blockIdx++) {
+        ImmutableBlockStmtGraph.ImmutableBasicBlock block = numberedGraph.getBlock(blockIdx);
+        gen[blockIdx] = new BitSet();
+        kill[blockIdx] = new BitSet();
+        int headIdx = block.getHeadIndex();
+        for (int i = headIdx; i < headIdx + block.getStmtCount(); i++) {
+          if (stmtDefs[i] >= 0) {
+            BitSet defsOfLocal = defsOfLocals.get(stmtDefs[i]);
+            gen[blockIdx].andNot(defsOfLocal);
+            gen[blockIdx].set(i);
+            kill[blockIdx].or(defsOfLocal);
+          }
+        }
+        blockIn[blockIdx] = new BitSet();
+        blockOut[blockIdx] = (BitSet) gen[blockIdx].clone();
+      }
+
+      BitSet out = new BitSet();
+      boolean changed = true;
+      while (changed) {
+        changed = false;
+        for (int blockIdx = 0; blockIdx < blockCount; blockIdx++) {
+          BitSet in = blockIn[blockIdx];
+          for (ImmutableBlockStmtGraph.ImmutableBasicBlock predecessor :
+              numberedGraph.getBlock(blockIdx).getPredecessors()) {
+            in.or(blockOut[predecessor.getIndex()]);
+          }
+          out.clear();
+          out.or(in);
+          out.andNot(kill[blockIdx]);
+          out.or(gen[blockIdx]);
+          if (!out.equals(blockOut[blockIdx])) {
+            blockOut[blockIdx].or(out);
+            changed = true;
+          }
+        }
+      }
+    }
+
+    /** Returns the original Stmts, the index of a Stmt in the list is the one of its visit. */
+    @Nonnull
+    List<Stmt> getStmts() {
+      return numberedGraph.getStmts();
+    }
+
+    /** Starts the visit of the Stmt with the given index. */
+    void enter(int stmtIdx) {
+      visitedStmtIdx = stmtIdx;
+      int blockIdx = numberedGraph.getBlockIndexOfStmt(stmtIdx);
+      if (numberedGraph.getBlock(blockIdx).getHeadIndex() == stmtIdx) {
+        reaching.clear();
+        reaching.or(blockIn[blockIdx]);
+      }
+    }
+
+    /** Ends the visit of the Stmt with the given index, which is replaced by the given Stmt. */
+    void leave(int stmtIdx, @Nonnull Stmt stmt) {
+      stmts[stmtIdx] = stmt;
+      int localId = stmtDefs[stmtIdx];
+      if (localId >= 0) {
+        reaching.andNot(defsOfLocals.get(localId));
+        reaching.set(stmtIdx);
+      }
+    }
+
+    /** Returns the definitions of the local that reach its use in the visited Stmt. */
+    @Nonnull
+    List<Stmt> getDefsForLocalUse(@Nonnull Local local, @Nonnull Stmt visitedStmt) {
+      Integer localId =
+          localIds.get(new AbstractMap.SimpleImmutableEntry<>(local.getName(), local.getType()));
+      if (localId == null) {
+        return Collections.emptyList();
+      }
+      if (stmtDefs[visitedStmtIdx] == localId) {
+        // the walk to the definitions starts at the visited Stmt itself
+        return Collections.singletonList(visitedStmt);
+      }
+      List<Stmt> defs = new ArrayList<>();
+      BitSet defsOfLocal = defsOfLocals.get(localId);
+      for (int i = defsOfLocal.nextSetBit(0); i >= 0; i = defsOfLocal.nextSetBit(i + 1)) {
+        if (reaching.get(i)) {
+          defs.add(stmts[i]);
+        }
+      }
+      return defs;
+    }
+  }
+
+  @Nonnull
+  private static Map<Local, Integer> countDefs(@Nonnull List<Stmt> stmts) {
+    Map<Local, Integer> defCounts = new HashMap<>();
+    for (Stmt stmt : stmts) {
+      if (stmt instanceof AbstractDefinitionStmt) {
+        Value leftOp = ((AbstractDefinitionStmt) stmt).getLeftOp();
+        if (leftOp instanceof Local) {
+          defCounts.merge((Local) leftOp, 1, Integer::sum);
+        }
+      }
+    }
+    return defCounts;
+  }
+
   private Stmt replaceUse(
       @Nonnull MutableStmtGraph graph, @Nonnull Stmt stmt, @Nonnull Value use, @Nonnull Value rhs) {
     if (rhs != use) {
@@ -62,6 +62,12 @@ public class DeadAssignmentEliminator implements BodyInterceptor {
     this.eliminateOnlyStackLocals = eliminateOnlyStackLocals;
   }
 
+  @Nonnull
+  @Override
+  public String getConfigurationFingerprint() {
+    return getClass().getName() + "(eliminateOnlyStackLocals=" + eliminateOnlyStackLocals + ")";
+  }
+
   @Override
   public void interceptBody(@Nonnull Body.BodyBuilder builder, @Nonnull View view) {
     MutableStmtGraph stmtGraph = builder.getStmtGraph();
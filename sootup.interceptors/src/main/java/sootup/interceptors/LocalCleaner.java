@@ -0,0 +1,644 @@
+package sootup.interceptors;
+/*-
+ * #%L
+ * Soot - a J*va Optimization Framework
+ * %%
+ * Copyright (C) 1997-2024 Raja Vallée-Rai and others
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.*;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import sootup.core.graph.ImmutableBlockStmtGraph;
+import sootup.core.graph.MutableStmtGraph;
+import sootup.core.jimple.basic.Immediate;
+import sootup.core.jimple.basic.LValue;
+import sootup.core.jimple.basic.Local;
+import sootup.core.jimple.basic.Value;
+import sootup.core.jimple.common.constant.Constant;
+import sootup.core.jimple.common.constant.NullConstant;
+import sootup.core.jimple.common.expr.AbstractBinopExpr;
+import sootup.core.jimple.common.expr.Expr;
+import sootup.core.jimple.common.expr.JCastExpr;
+import sootup.core.jimple.common.expr.JDivExpr;
+import sootup.core.jimple.common.expr.JRemExpr;
+import sootup.core.jimple.common.stmt.AbstractDefinitionStmt;
+import sootup.core.jimple.common.stmt.JAssignStmt;
+import sootup.core.jimple.common.stmt.JNopStmt;
+import sootup.core.jimple.common.stmt.Stmt;
+import sootup.core.jimple.visitor.ReplaceUseStmtVisitor;
+import sootup.core.model.Body;
+import sootup.core.transform.BodyInterceptor;
+import sootup.core.types.ReferenceType;
+import sootup.core.views.View;
+
+/**
+ * Combines the {@link LocalSplitter}, the {@link Aggregator}, the {@link CopyPropagator} and the
+ * {@link ConstantPropagatorAndFolder}. The def-use information is computed once per body: the
+ * definitions that reach each use, including the exceptional flows, are computed on the blocks,
+ * and the definitions that reach a common use form the webs by which the locals are split. Then a
+ * single walk over the Stmts renames the locals of every Stmt to their webs, aggregates and
+ * propagates the definitions into the uses, and folds constant expressions. The counts of the
+ * definitions and uses of the webs are updated while the Stmts are rewritten, so no pass needs to
+ * scan the body again.
+ *
+ * <p>The result is equivalent to the one of the separate interceptors, but not always identical:
+ * definitions are only aggregated within a block and only past Stmts that neither have side effects
+ * nor can throw, and copies are propagated before the values are aggregated.
+ */
+public class LocalCleaner implements BodyInterceptor {
+
+  @Override
+  public void interceptBody(@Nonnull Body.BodyBuilder builder, @Nonnull View view) {
+    new Cleanup(builder).run();
+  }
+
+  /** The def-use information of a single body and the walk that rewrites its Stmts. */
+  private static class Cleanup {
+    @Nonnull private final Body.BodyBuilder builder;
+    @Nonnull private final ImmutableBlockStmtGraph numberedGraph;
+    private final int stmtCount;
+
+    /** the Stmts as they are in the StmtGraph, and their current versions */
+    @Nonnull private final Stmt[] originalStmts;
+
+    @Nonnull private final Stmt[] stmts;
+    @Nonnull private final boolean[] renamed;
+    @Nonnull private final boolean[] removed;
+
+    /** the locals are numbered by their names, like {@link Local#equals(Object)} */
+    @Nonnull private final Map<Local, Integer> localIds = new HashMap<>();
+
+    @Nonnull private final List<Local> locals = new ArrayList<>();
+
+    /** the Stmts that define each local */
+    @Nonnull private final List<BitSet> defsOfLocals = new ArrayList<>();
+
+    /** the id of the local that is defined by each Stmt, or -1 */
+    @Nonnull private final int[] stmtDefs;
+
+    /** the local objects that are used by each Stmt, their ids and how often they are used */
+    @Nonnull private final Local[][] stmtUses;
+
+    @Nonnull private final int[][] stmtUseIds;
+    @Nonnull private final int[][] stmtUseCounts;
+
+    /** a definition that reaches each use, or -1 */
+    @Nonnull private final int[][] stmtUseDefs;
+
+    /** the definitions that reach the head of each block */
+    @Nonnull private final BitSet[] blockIn;
+
+    /**
+     * Every definition of a local is a node. The definitions that reach a common use are in the
+     * same set, which is the web that becomes a local of its own.
+     */
+    @Nonnull private final LocalSplitter.DisjointSetForest webs;
+
+    /** the local of each web, and the definitions and uses of the web, by its representative */
+    @Nonnull private final Local[] webLocals;
+
+    @Nonnull private final int[] webDefCounts;
+    @Nonnull private final int[] webUseCounts;
+    @Nonnull private final Map<Local, Integer> websOfLocals = new HashMap<>();
+
+    /** the definitions that reach the visited Stmt */
+    @Nonnull private final BitSet reaching = new BitSet();
+
+    Cleanup(@Nonnull Body.BodyBuilder builder) {
+      this.builder = builder;
+      numberedGraph = new ImmutableBlockStmtGraph(builder.getStmtGraph());
+      stmtCount = numberedGraph.getStmtCount();
+      originalStmts = new Stmt[stmtCount];
+      stmts = new Stmt[stmtCount];
+      renamed = new boolean[stmtCount];
+      removed = new boolean[stmtCount];
+      stmtDefs = new int[stmtCount];
+      stmtUses = new Local[stmtCount][];
+      stmtUseIds = new int[stmtCount][];
+      stmtUseCounts = new int[stmtCount][];
+      stmtUseDefs = new int[stmtCount][];
+      blockIn = new BitSet[numberedGraph.getBlocks().size()];
+      webs = new LocalSplitter.DisjointSetForest(stmtCount);
+      webLocals = new Local[stmtCount];
+      webDefCounts = new int[stmtCount];
+      webUseCounts = new int[stmtCount];
+    }
+
+    void run() {
+      collectDefsAndUses();
+      computeReachingDefinitions();
+      buildWebs();
+      nameWebs();
+      rewriteStmts();
+      updateBody();
+    }
+
+    private int localIdOf(@Nonnull Local local) {
+      Integer localId = localIds.get(local);
+      if (localId == null) {
+        localId = locals.size();
+        localIds.put(local, localId);
+        locals.add(local);
+        defsOfLocals.add(new BitSet(stmtCount));
+      }
+      return localId;
+    }
+
+    private void collectDefsAndUses() {
+      for (Local local : builder.getLocals()) {
+        localIdOf(local);
+      }
+
+      Map<Local, Integer> usedLocals = new IdentityHashMap<>();
+      for (int i = 0; i < stmtCount; i++) {
+        Stmt stmt = numberedGraph.getStmt(i);
+        originalStmts[i] = stmt;
+        stmts[i] = stmt;
+
+        Optional<LValue> def = stmt.getDef();
+        if (def.isPresent() && def.get() instanceof Local) {
+          int localId = localIdOf((Local) def.get());
+          stmtDefs[i] = localId;
+          defsOfLocals.get(localId).set(i);
+          webs.add(i);
+        } else {
+          stmtDefs[i] = -1;
+        }
+
+        usedLocals.clear();
+        for (Iterator<Value> iterator = stmt.getUses().iterator(); iterator.hasNext(); ) {
+          Value use = iterator.next();
+          if (use instanceof Local) {
+            usedLocals.merge((Local) use, 1, Integer::sum);
+          }
+        }
+        int useCount = usedLocals.size();
+        stmtUses[i] = new Local[useCount];
+        stmtUseIds[i] = new int[useCount];
+        stmtUseCounts[i] = new int[useCount];
+        stmtUseDefs[i] = new int[useCount];
+        int k = 0;
+        for (Map.Entry<Local, Integer> entry : usedLocals.entrySet()) {
+          stmtUses[i][k] = entry.getKey();
+          stmtUseIds[i][k] = localIdOf(entry.getKey());
+          stmtUseCounts[i][k] = entry.getValue();
+          k++;
+        }
+      }
+    }
+
+    /**
+     * Computes the definitions that reach the heads of the blocks. An exception can be thrown
+     * before and after every Stmt of a block, so the handlers are reached by the definitions that
+     * reach the block and by all definitions in the block.
+     */
+    private void computeReachingDefinitions() {
+      int blockCount = blockIn.length;
+      BitSet[] gen = new BitSet[blockCount];
+      BitSet[] kill = new BitSet[blockCount];
+      BitSet[] defs = new BitSet[blockCount];
+      for (int blockIdx = 0; blockIdx < blockCount; blockIdx++) {
+        ImmutableBlockStmtGraph.ImmutableBasicBlock block = numberedGraph.getBlock(blockIdx);
+        gen[blockIdx] = new BitSet();
+        kill[blockIdx] = new BitSet();
+        defs[blockIdx] = new BitSet();
+        int headIdx = block.getHeadIndex();
+        for (int i = headIdx; i < headIdx + block.getStmtCount(); i++) {
+          if (stmtDefs[i] >= 0) {
+            BitSet defsOfLocal = defsOfLocals.get(stmtDefs[i]);
+            gen[blockIdx].andNot(defsOfLocal);
+            gen[blockIdx].set(i);
+            kill[blockIdx].or(defsOfLocal);
+            defs[blockIdx].set(i);
+          }
+        }
+        blockIn[blockIdx] = new BitSet();
+      }
+
+      BitSet out = new BitSet();
+      boolean changed = true;
+      while (changed) {
+        changed = false;
+        for (int blockIdx = 0; blockIdx < blockCount; blockIdx++) {
+          ImmutableBlockStmtGraph.ImmutableBasicBlock block = numberedGraph.getBlock(blockIdx);
+          BitSet in = blockIn[blockIdx];
+          out.clear();
+          out.or(in);
+          out.andNot(kill[blockIdx]);
+          out.or(gen[blockIdx]);
+          for (ImmutableBlockStmtGraph.ImmutableBasicBlock successor : block.getSuccessors()) {
+            changed |= addTo(blockIn[successor.getIndex()], out);
+          }
+
+          out.clear();
+          out.or(in);
+          out.or(defs[blockIdx]);
+          for (ImmutableBlockStmtGraph.ImmutableBasicBlock handler :
+              block.getExceptionalSuccessors().values()) {
+            changed |= addTo(blockIn[handler.getIndex()], out);
+          }
+        }
+      }
+    }
+
+    /** Adds the definitions to the target set and returns whether it has changed. */
+    private static boolean addTo(@Nonnull BitSet target, @Nonnull BitSet definitions) {
+      int cardinality = target.cardinality();
+      target.or(definitions);
+      return target.cardinality() != cardinality;
+    }
+
+    /** Moves the reaching definitions past the given Stmt, when it is the head of a block. */
+    private void enter(int stmtIdx) {
+      int blockIdx = numberedGraph.getBlockIndexOfStmt(stmtIdx);
+      if (numberedGraph.getBlock(blockIdx).getHeadIndex() == stmtIdx) {
+        reaching.clear();
+        reaching.or(blockIn[blockIdx]);
+      }
+    }
+
+    private void leave(int stmtIdx) {
+      int localId = stmtDefs[stmtIdx];
+      if (localId >= 0) {
+        reaching.andNot(defsOfLocals.get(localId));
+        reaching.set(stmtIdx);
+      }
+    }
+
+    private void buildWebs() {
+      for (int i = 0; i < stmtCount; i++) {
+        enter(i);
+        for (int k = 0; k < stmtUses[i].length; k++) {
+          BitSet defsOfLocal = defsOfLocals.get(stmtUseIds[i][k]);
+          int first = -1;
+          for (int d = defsOfLocal.nextSetBit(0); d >= 0; d = defsOfLocal.nextSetBit(d + 1)) {
+            if (reaching.get(d)) {
+              if (first < 0) {
+                first = d;
+              } else {
+                webs.union(first, d);
+              }
+            }
+          }
+          stmtUseDefs[i][k] = first;
+        }
+        leave(i);
+      }
+
+      for (int i = 0; i < stmtCount; i++) {
+        if (stmtDefs[i] >= 0) {
+          webDefCounts[webs.find(i)]++;
+        }
+        for (int k = 0; k < stmtUses[i].length; k++) {
+          if (stmtUseDefs[i][k] >= 0) {
+            webUseCounts[webs.find(stmtUseDefs[i][k])] += stmtUseCounts[i][k];
+          }
+        }
+      }
+    }
+
+    /**
+     * A local with a single web keeps its name, the webs of a split local are named like in the
+     * {@link LocalSplitter}.
+     */
+    private void nameWebs() {
+      Set<Local> bodyLocals = builder.getLocals();
+      List<Integer> representatives = new ArrayList<>();
+      for (int localId = 0; localId < locals.size(); localId++) {
+        Local local = locals.get(localId);
+        BitSet defsOfLocal = defsOfLocals.get(localId);
+        representatives.clear();
+        for (int d = defsOfLocal.nextSetBit(0); d >= 0; d = defsOfLocal.nextSetBit(d + 1)) {
+          int representative = webs.find(d);
+          if (!representatives.contains(representative)) {
+            representatives.add(representative);
+          }
+        }
+
+        if (representatives.size() == 1) {
+          webLocals[representatives.get(0)] = local;
+          websOfLocals.put(local, representatives.get(0));
+          continue;
+        }
+        int nextId = 0;
+        for (int representative : representatives) {
+          Local webLocal;
+          do {
+            webLocal = local.withName(local.getName() + "#" + (nextId++));
+          } while (bodyLocals.contains(webLocal) || localIds.containsKey(webLocal));
+          webLocals[representative] = webLocal;
+          websOfLocals.put(webLocal, representative);
+        }
+      }
+    }
+
+    /** Returns the Stmt with the given index, with its locals renamed to their webs. */
+    @Nonnull
+    private Stmt stmt(int stmtIdx) {
+      if (renamed[stmtIdx]) {
+        return stmts[stmtIdx];
+      }
+      Stmt stmt = stmts[stmtIdx];
+      if (stmtDefs[stmtIdx] >= 0) {
+        Local webLocal = webLocals[webs.find(stmtIdx)];
+        if (!webLocal.equals(stmt.getDef().get())) {
+          stmt = ((AbstractDefinitionStmt) stmt).withNewDef(webLocal);
+        }
+      }
+      for (int k = 0; k < stmtUses[stmtIdx].length; k++) {
+        int def = stmtUseDefs[stmtIdx][k];
+        if (def >= 0) {
+          Local use = stmtUses[stmtIdx][k];
+          Local webLocal = webLocals[webs.find(def)];
+          if (!webLocal.equals(use)) {
+            stmt = stmt.withNewUse(use, webLocal);
+          }
+          stmtUses[stmtIdx][k] = webLocal;
+        }
+      }
+      stmts[stmtIdx] = stmt;
+      renamed[stmtIdx] = true;
+      return stmt;
+    }
+
+    /** Visits the Stmts in their order and rewrites their uses. */
+    private void rewriteStmts() {
+      List<Integer> defsOfUse = new ArrayList<>();
+      for (int i = 0; i < stmtCount; i++) {
+        enter(i);
+        Stmt stmt = stmt(i);
+        for (int k = 0; k < stmtUses[i].length; k++) {
+          if (stmtUseDefs[i][k] < 0) {
+            continue;
+          }
+          int web = webs.find(stmtUseDefs[i][k]);
+          Local use = stmtUses[i][k];
+
+          defsOfUse.clear();
+          BitSet defsOfLocal = defsOfLocals.get(stmtUseIds[i][k]);
+          for (int d = defsOfLocal.nextSetBit(0); d >= 0; d = defsOfLocal.nextSetBit(d + 1)) {
+            if (reaching.get(d)) {
+              defsOfUse.add(d);
+            }
+          }
+
+          if (stmt instanceof JAssignStmt
+              && defsOfUse.size() == 1
+              && webDefCounts[web] == 1
+              && webUseCounts[web] == 1) {
+            Stmt aggregatedStmt = aggregate(defsOfUse.get(0), i, (JAssignStmt) stmt, use);
+            if (aggregatedStmt != null) {
+              webUseCounts[web] = 0;
+              stmt = aggregatedStmt;
+              continue;
+            }
+          }
+
+          Value value = propagatedValue(defsOfUse, i, use);
+          if (value != null) {
+            Stmt newStmt = stmt.withNewUse(use, value);
+            // some positions only accept locals, so not every occurrence might be replaced
+            int replacedCount = stmtUseCounts[i][k] - countUses(newStmt, use);
+            webUseCounts[web] -= replacedCount;
+            stmtUseCounts[i][k] -= replacedCount;
+            if (value instanceof Local) {
+              webUseCounts[websOfLocals.get(value)] += replacedCount;
+            }
+            stmt = newStmt;
+          }
+        }
+        stmts[i] = fold(stmt);
+        leave(i);
+      }
+    }
+
+    /**
+     * Moves the right-hand side of the definition into its single use, like the {@link
+     * Aggregator}. Returns the new Stmt or null, if the definition can not be moved.
+     */
+    @Nullable
+    private Stmt aggregate(int defIdx, int stmtIdx, @Nonnull JAssignStmt stmt, @Nonnull Local use) {
+      if (defIdx >= stmtIdx
+          || removed[defIdx]
+          || numberedGraph.getBlockIndexOfStmt(defIdx)
+              != numberedGraph.getBlockIndexOfStmt(stmtIdx)) {
+        return null;
+      }
+      Stmt def = stmt(defIdx);
+      if (!(def instanceof JAssignStmt)) {
+        return null;
+      }
+      Value aggregatee = ((JAssignStmt) def).getRightOp();
+      if (!(aggregatee instanceof Immediate) && !(stmt.getLeftOp() instanceof Local)) {
+        // a field or an array element can only be assigned an immediate
+        return null;
+      }
+
+      Set<Value> usedLocals = new HashSet<>();
+      if (aggregatee instanceof Local) {
+        usedLocals.add(aggregatee);
+      }
+      for (Iterator<Value> iterator = aggregatee.getUses().iterator(); iterator.hasNext(); ) {
+        Value value = iterator.next();
+        if (value instanceof Local) {
+          usedLocals.add(value);
+        }
+      }
+      for (int i = defIdx + 1; i < stmtIdx; i++) {
+        if (removed[i]) {
+          continue;
+        }
+        Optional<LValue> stmtDef = stmts[i].getDef();
+        if (stmtDef.isPresent() && usedLocals.contains(stmtDef.get())) {
+          return null;
+        }
+        // the order of side effects and exceptions must not change
+        if (!(aggregatee instanceof Immediate) && !isInert(stmts[i])) {
+          return null;
+        }
+      }
+
+      Stmt newStmt;
+      ReplaceUseStmtVisitor replaceVisitor = new ReplaceUseStmtVisitor(use, aggregatee);
+      try {
+        replaceVisitor.caseAssignStmt(stmt);
+        newStmt = replaceVisitor.getResult();
+      } catch (ClassCastException e) {
+        // the value can not be used at this position
+        return null;
+      }
+      if (newStmt == stmt || countUses(newStmt, use) > 0) {
+        return null;
+      }
+      removed[defIdx] = true;
+      return newStmt;
+    }
+
+    private static int countUses(@Nonnull Stmt stmt, @Nonnull Local local) {
+      int count = 0;
+      for (Iterator<Value> iterator = stmt.getUses().iterator(); iterator.hasNext(); ) {
+        if (local.equals(iterator.next())) {
+          count++;
+        }
+      }
+      return count;
+    }
+
+    /** Whether the Stmt neither has side effects nor can throw an exception. */
+    private static boolean isInert(@Nonnull Stmt stmt) {
+      if (stmt instanceof JNopStmt) {
+        return true;
+      }
+      if (!(stmt instanceof JAssignStmt) || !(((JAssignStmt) stmt).getLeftOp() instanceof Local)) {
+        return false;
+      }
+      Value rightOp = ((JAssignStmt) stmt).getRightOp();
+      return rightOp instanceof Immediate
+          || (rightOp instanceof AbstractBinopExpr
+              && !(rightOp instanceof JDivExpr)
+              && !(rightOp instanceof JRemExpr));
+    }
+
+    /**
+     * Returns the value that can replace the use, like the {@link CopyPropagator}, or null. The
+     * given definitions of the use are the ones that reach the visited Stmt.
+     */
+    @Nullable
+    private Value propagatedValue(
+        @Nonnull List<Integer> defsOfUse, int stmtIdx, @Nonnull Local use) {
+      if (defsOfUse.isEmpty()) {
+        return null;
+      }
+      if (defsOfUse.size() > 1) {
+        // all definitions assign the same constant
+        Constant constant = null;
+        for (int defIdx : defsOfUse) {
+          Stmt def = stmt(defIdx);
+          if (removed[defIdx]
+              || !(def instanceof JAssignStmt)
+              || !(((JAssignStmt) def).getRightOp() instanceof Constant)) {
+            return null;
+          }
+          Constant rhs = (Constant) ((JAssignStmt) def).getRightOp();
+          if (constant == null) {
+            constant = rhs;
+          } else if (!constant.equals(rhs)) {
+            return null;
+          }
+        }
+        return constant;
+      }
+
+      int defIdx = defsOfUse.get(0);
+      Stmt def = stmt(defIdx);
+      if (removed[defIdx] || !(def instanceof JAssignStmt)) {
+        return null;
+      }
+      Value rhs = ((JAssignStmt) def).getRightOp();
+      if (rhs instanceof Constant) {
+        return rhs;
+      }
+      if (rhs instanceof JCastExpr && rhs.getType() instanceof ReferenceType) {
+        Value op = ((JCastExpr) rhs).getOp();
+        if (CopyPropagator.zeroIntConstInstance.equals(op)
+            || CopyPropagator.zeroLongConstInstance.equals(op)) {
+          return NullConstant.getInstance();
+        }
+        return null;
+      }
+      if (!(rhs instanceof Local) || rhs.equals(use)) {
+        return null;
+      }
+
+      Integer web = websOfLocals.get(rhs);
+      if (web == null) {
+        return null;
+      }
+      if (webDefCounts[web] == 1) {
+        return rhs;
+      }
+      // the copied local must not be redefined between the copy and the use
+      if (defIdx >= stmtIdx
+          || numberedGraph.getBlockIndexOfStmt(defIdx)
+              != numberedGraph.getBlockIndexOfStmt(stmtIdx)) {
+        return null;
+      }
+      for (int i = defIdx + 1; i < stmtIdx; i++) {
+        if (!removed[i] && stmtDefs[i] >= 0 && rhs.equals(stmts[i].getDef().get())) {
+          return null;
+        }
+      }
+      return rhs;
+    }
+
+    /** Folds a constant right-hand side, like the {@link ConstantPropagatorAndFolder}. */
+    @Nonnull
+    private static Stmt fold(@Nonnull Stmt stmt) {
+      if (!(stmt instanceof JAssignStmt)) {
+        return stmt;
+      }
+      Value rhs = ((JAssignStmt) stmt).getRightOp();
+      if (!(rhs instanceof Expr)) {
+        return stmt;
+      }
+      Constant evaluatedValue = Evaluator.getConstantValueOf(rhs);
+      if (evaluatedValue == null) {
+        return stmt;
+      }
+      return ((JAssignStmt) stmt).withRValue(evaluatedValue);
+    }
+
+    /** Writes the rewritten Stmts and the locals of the webs into the body. */
+    private void updateBody() {
+      MutableStmtGraph graph = builder.getStmtGraph();
+      for (int i = 0; i < stmtCount; i++) {
+        if (removed[i]) {
+          graph.removeNode(originalStmts[i]);
+        } else if (stmts[i] != originalStmts[i]) {
+          graph.replaceNode(originalStmts[i], stmts[i]);
+        }
+      }
+
+      Set<Local> newLocals = new LinkedHashSet<>();
+      for (int localId = 0; localId < locals.size(); localId++) {
+        BitSet defsOfLocal = defsOfLocals.get(localId);
+        boolean hasOccurrence = false;
+        for (int d = defsOfLocal.nextSetBit(0); d >= 0; d = defsOfLocal.nextSetBit(d + 1)) {
+          if (!removed[d]) {
+            newLocals.add(webLocals[webs.find(d)]);
+          }
+          hasOccurrence = true;
+        }
+        if (!hasOccurrence) {
+          // a local without definitions, e.g. one that is only declared
+          newLocals.add(locals.get(localId));
+        }
+      }
+      for (int i = 0; i < stmtCount; i++) {
+        for (int k = 0; k < stmtUses[i].length; k++) {
+          if (stmtUseDefs[i][k] < 0) {
+            // a use that is not reached by any definition keeps its local
+            newLocals.add(stmtUses[i][k]);
+          }
+        }
+      }
+      builder.setLocals(newLocals);
+    }
+  }
+}
@@ -24,82 +24,111 @@ package sootup.interceptors;
 
 import java.util.*;
 import javax.annotation.Nonnull;
+import sootup.core.graph.BasicBlock;
+import sootup.core.graph.ImmutableBlockStmtGraph;
 import sootup.core.graph.StmtGraph;
 import sootup.core.jimple.basic.LValue;
 import sootup.core.jimple.basic.Local;
 import sootup.core.jimple.basic.Value;
 import sootup.core.jimple.common.stmt.Stmt;
+import sootup.core.model.Body;
 
-/** @author Zun Wang */
+/**
+ * Computes the live locals before and after each Stmt of a StmtGraph.
+ *
+ * <p>The locals are numbered and the live locals are stored as {@link BitSet}s. The uses and
+ * definitions of each block are summarized once into a gen and a kill set, so the fixpoint is
+ * computed on the blocks, which are visited in post-order. The live locals of the single Stmts are
+ * only computed for the blocks whose Stmts are queried.
+ *
+ * @author Zun Wang
+ */
 public class LocalLivenessAnalyser {
 
-  // Each stmt(node) has out-edges and in-edges
-  // A local is live-in at a node if it is live on any its in-edges
-  private final Map<Stmt, Set<Local>> liveIn = new HashMap<>();
-  // A local is live-out at a node if it is live on any of its out-edges.
-  // e.g: a = b + c; live-in={b,c}  live-out={a,b,c}
-  private final Map<Stmt, Set<Local>> liveOut = new HashMap<>();
-
-  public LocalLivenessAnalyser(@Nonnull StmtGraph<?> graph) {
-    // initial liveIn and liveOut
-    List<Stmt> startingStmts = new ArrayList<>();
-    for (Stmt stmt : graph.getNodes()) {
-      liveIn.put(stmt, Collections.emptySet());
-      liveOut.put(stmt, Collections.emptySet());
-      if (graph.successors(stmt).isEmpty() && graph.exceptionalSuccessors(stmt).isEmpty()) {
-        startingStmts.add(stmt);
+  @Nonnull private final ImmutableBlockStmtGraph graph;
+
+  @Nonnull private final List<Local> locals = new ArrayList<>();
+  @Nonnull private final Map<Local, Integer> localIndices = new HashMap<>();
+
+  /** the successor blocks and the exception handler blocks of each block */
+  @Nonnull private final int[][] successors;
+
+  @Nonnull private final int[][] handlers;
+
+  // A local is live-in at a block if it is used in the block before it is defined there, or if it
+  // is live-out at the block and not defined in the block. A local that is live at a handler is
+  // live after every Stmt of the block, as each of them can throw.
+  @Nonnull private final BitSet[] blockLiveIn;
+
+  // the Stmt results, which are computed per block on the first request
+  @Nonnull private final Set<Local>[] liveIn;
+  @Nonnull private final Set<Local>[] liveOut;
+
+  public LocalLivenessAnalyser(@Nonnull Body body) {
+    this(body.getNumbering().getStmtGraph());
+  }
+
+  @SuppressWarnings("unchecked")
+  public LocalLivenessAnalyser(@Nonnull StmtGraph<?> stmtGraph) {
+    graph =
+        stmtGraph instanceof ImmutableBlockStmtGraph
+            ? (ImmutableBlockStmtGraph) stmtGraph
+            : new ImmutableBlockStmtGraph(stmtGraph);
+    int blockCount = graph.getBlocks().size();
+    liveIn = (Set<Local>[]) new Set[graph.getStmtCount()];
+    liveOut = (Set<Local>[]) new Set[graph.getStmtCount()];
+
+    successors = new int[blockCount][];
+    handlers = new int[blockCount][];
+    BitSet[] gen = new BitSet[blockCount];
+    BitSet[] kill = new BitSet[blockCount];
+    int[] headDefs = new int[blockCount];
+    for (int blockIdx = 0; blockIdx < blockCount; blockIdx++) {
+      ImmutableBlockStmtGraph.ImmutableBasicBlock block = graph.getBlock(blockIdx);
+      successors[blockIdx] = indicesOf(block.getSuccessors());
+      handlers[blockIdx] = indicesOf(block.getExceptionalSuccessors().values());
+
+      BitSet blockGen = new BitSet();
+      BitSet blockKill = new BitSet();
+      int headIdx = block.getHeadIndex();
+      int def = -1;
+      for (int stmtIdx = headIdx + block.getStmtCount() - 1; stmtIdx >= headIdx; stmtIdx--) {
+        Stmt stmt = graph.getStmt(stmtIdx);
+        def = defIndexOf(stmt);
+        if (def >= 0) {
+          blockGen.clear(def);
+          blockKill.set(def);
+        }
+        addUses(stmt, blockGen);
       }
+      gen[blockIdx] = blockGen;
+      kill[blockIdx] = blockKill;
+      headDefs[blockIdx] = def;
     }
 
+    blockLiveIn = new BitSet[blockCount];
+    for (int blockIdx = 0; blockIdx < blockCount; blockIdx++) {
+      blockLiveIn[blockIdx] = (BitSet) gen[blockIdx].clone();
+    }
+    int[] order = postOrder();
+    BitSet in = new BitSet();
+    BitSet handlerIn = new BitSet();
     boolean fixed = false;
     while (!fixed) {
       fixed = true;
-      Deque<Stmt> queue = new ArrayDeque<>(startingStmts);
-      HashSet<Stmt> visitedStmts = new HashSet<>();
-      while (!queue.isEmpty()) {
-        Stmt stmt = queue.removeFirst();
-        visitedStmts.add(stmt);
-
-        Set<Local> out = new HashSet<>(liveOut.get(stmt));
-        for (Stmt succ : graph.successors(stmt)) {
-          out = merge(out, liveIn.get(succ));
-        }
-        for (Stmt esucc : graph.exceptionalSuccessors(stmt).values()) {
-          out = merge(out, liveIn.get(esucc));
+      for (int blockIdx : order) {
+        liveAtHandlers(blockIdx, handlerIn);
+        liveOutOfBlock(blockIdx, handlerIn, in);
+        in.andNot(kill[blockIdx]);
+        in.or(gen[blockIdx]);
+        // a handler can be reached before the first Stmt of the block defined its local
+        if (headDefs[blockIdx] >= 0) {
+          handlerIn.clear(headDefs[blockIdx]);
         }
-        if (isNotEqual(out, liveOut.get(stmt))) {
+        in.or(handlerIn);
+        if (!in.equals(blockLiveIn[blockIdx])) {
+          blockLiveIn[blockIdx].or(in);
           fixed = false;
-          liveOut.put(stmt, new HashSet<>(out));
-        }
-
-        Set<Local> in = new HashSet<>();
-        for (Iterator<Value> iterator = stmt.getUses().iterator(); iterator.hasNext(); ) {
-          Value use = iterator.next();
-          if (use instanceof Local) {
-            in.add((Local) use);
-          }
-        }
-        final Optional<LValue> def = stmt.getDef();
-        if (def.isPresent()) {
-          final Value value = def.get();
-          if (value instanceof Local) {
-            out.remove(value);
-          }
-        }
-        in = merge(in, out);
-        if (isNotEqual(in, liveIn.get(stmt))) {
-          fixed = false;
-          liveIn.put(stmt, in);
-        }
-        for (Stmt pred : graph.predecessors(stmt)) {
-          if (!visitedStmts.contains(pred)) {
-            queue.addLast(pred);
-          }
-        }
-        for (Stmt epred : graph.exceptionalPredecessors(stmt)) {
-          if (!visitedStmts.contains(epred)) {
-            queue.addLast(epred);
-          }
         }
       }
     }
@@ -108,51 +137,167 @@ public class LocalLivenessAnalyser {
   /** Get all live locals before the given stmt. */
   @Nonnull
   public Set<Local> getLiveLocalsBeforeStmt(@Nonnull Stmt stmt) {
-    if (!liveIn.containsKey(stmt)) {
-      throw new RuntimeException("Stmt: " + stmt + " is not in StmtGraph!");
-    }
-    return liveIn.get(stmt);
+    int stmtIdx = computeStmtResults(stmt);
+    return liveIn[stmtIdx];
   }
 
   /** Get all live locals after the given stmt. */
   @Nonnull
   public Set<Local> getLiveLocalsAfterStmt(@Nonnull Stmt stmt) {
-    if (!liveOut.containsKey(stmt)) {
+    int stmtIdx = computeStmtResults(stmt);
+    return liveOut[stmtIdx];
+  }
+
+  /** Computes the live locals of the Stmts of the block of the given Stmt, if not done yet. */
+  private int computeStmtResults(@Nonnull Stmt stmt) {
+    int stmtIdx = graph.getStmtIndex(stmt);
+    if (stmtIdx < 0) {
       throw new RuntimeException("Stmt: " + stmt + " is not in StmtGraph!");
     }
-    return liveOut.get(stmt);
+    if (liveIn[stmtIdx] != null) {
+      return stmtIdx;
+    }
+    int blockIdx = graph.getBlockIndexOfStmt(stmtIdx);
+    ImmutableBlockStmtGraph.ImmutableBasicBlock block = graph.getBlock(blockIdx);
+    BitSet handlerIn = new BitSet();
+    liveAtHandlers(blockIdx, handlerIn);
+    BitSet live = new BitSet();
+    liveOutOfBlock(blockIdx, handlerIn, live);
+    int headIdx = block.getHeadIndex();
+    for (int i = headIdx + block.getStmtCount() - 1; i >= headIdx; i--) {
+      Stmt blockStmt = graph.getStmt(i);
+      liveOut[i] = toLocals(live);
+      int def = defIndexOf(blockStmt);
+      if (def >= 0) {
+        live.clear(def);
+      }
+      addUses(blockStmt, live);
+      liveIn[i] = toLocals(live);
+      live.or(handlerIn);
+    }
+    return stmtIdx;
   }
 
-  /**
-   * Merge two local sets into one set.
-   *
-   * @return a merged local set
-   */
-  @Nonnull
-  private Set<Local> merge(@Nonnull Set<Local> set1, @Nonnull Set<Local> set2) {
-    if (set1.isEmpty()) {
-      return set2;
-    } else {
-      set1.addAll(set2);
-      return set1;
+  /** Stores the locals that are live at the beginning of the handlers of the block into result. */
+  private void liveAtHandlers(int blockIdx, @Nonnull BitSet result) {
+    result.clear();
+    for (int handlerIdx : handlers[blockIdx]) {
+      result.or(blockLiveIn[handlerIdx]);
+    }
+  }
+
+  /** Stores the locals that are live after the last Stmt of the block into result. */
+  private void liveOutOfBlock(int blockIdx, @Nonnull BitSet handlerIn, @Nonnull BitSet result) {
+    result.clear();
+    for (int successorIdx : successors[blockIdx]) {
+      result.or(blockLiveIn[successorIdx]);
     }
+    result.or(handlerIn);
   }
 
   /**
-   * Check whether two sets contains same locals.
-   *
-   * @return if same return true, else return false;
+   * Returns the blocks in post-order, i.e. a block comes after its (exceptional) successors unless
+   * they are on a cycle. Blocks that are not reachable from the starting block are appended.
    */
-  private boolean isNotEqual(@Nonnull Set<Local> set1, @Nonnull Set<Local> set2) {
-    if (set1.size() != set2.size()) {
-      return true;
-    } else {
-      for (Local local : set1) {
-        if (!set2.contains(local)) {
-          return true;
+  @Nonnull
+  private int[] postOrder() {
+    int blockCount = successors.length;
+    int[] order = new int[blockCount];
+    int orderSize = 0;
+    boolean[] visited = new boolean[blockCount];
+    int[] stack = new int[blockCount];
+    int[] nextSuccessor = new int[blockCount];
+    BasicBlock<?> startingBlock = graph.getStartingStmtBlock();
+    int startingIdx =
+        startingBlock == null
+            ? 0
+            : ((ImmutableBlockStmtGraph.ImmutableBasicBlock) startingBlock).getIndex();
+    for (int i = 0; i < blockCount; i++) {
+      int root = i == 0 ? startingIdx : (i == startingIdx ? 0 : i);
+      if (visited[root]) {
+        continue;
+      }
+      visited[root] = true;
+      int stackSize = 0;
+      stack[stackSize] = root;
+      nextSuccessor[stackSize++] = 0;
+      while (stackSize > 0) {
+        int blockIdx = stack[stackSize - 1];
+        int next = nextSuccessor[stackSize - 1]++;
+        int[] blockSuccessors = successors[blockIdx];
+        int[] blockHandlers = handlers[blockIdx];
+        if (next < blockSuccessors.length + blockHandlers.length) {
+          int successorIdx =
+              next < blockSuccessors.length
+                  ? blockSuccessors[next]
+                  : blockHandlers[next - blockSuccessors.length];
+          if (!visited[successorIdx]) {
+            visited[successorIdx] = true;
+            stack[stackSize] = successorIdx;
+            nextSuccessor[stackSize++] = 0;
+          }
+        } else {
+          stackSize--;
+          order[orderSize++] = blockIdx;
         }
       }
     }
-    return false;
+    return order;
+  }
+
+  @Nonnull
+  private static int[] indicesOf(
+      @Nonnull Collection<ImmutableBlockStmtGraph.ImmutableBasicBlock> blocks) {
+    int[] indices = new int[blocks.size()];
+    int i = 0;
+    for (ImmutableBlockStmtGraph.ImmutableBasicBlock block : blocks) {
+      indices[i++] = block.getIndex();
+    }
+    return indices;
+  }
+
+  private int localIndexOf(@Nonnull Local local) {
+    Integer localIdx = localIndices.get(local);
+    if (localIdx == null) {
+      localIdx = locals.size();
+      locals.add(local);
+      localIndices.put(local, localIdx);
+    }
+    return localIdx;
+  }
+
+  /** Returns the index of the local that is defined by the Stmt or -1 if it defines no local. */
+  private int defIndexOf(@Nonnull Stmt stmt) {
+    final Optional<LValue> def = stmt.getDef();
+    if (def.isPresent()) {
+      final Value value = def.get();
+      if (value instanceof Local) {
+        return localIndexOf((Local) value);
+      }
+    }
+    return -1;
+  }
+
+  private void addUses(@Nonnull Stmt stmt, @Nonnull BitSet live) {
+    for (Iterator<Value> iterator = stmt.getUses().iterator(); iterator.hasNext(); ) {
+      Value use = iterator.next();
+      if (use instanceof Local) {
+        live.set(localIndexOf((Local) use));
+      }
+    }
+  }
+
+  @Nonnull
+  private Set<Local> toLocals(@Nonnull BitSet live) {
+    if (live.isEmpty()) {
+      return Collections.emptySet();
+    }
+    Set<Local> result = new HashSet<>(live.cardinality() * 2);
+    for (int localIdx = live.nextSetBit(0);
+        localIdx >= 0;
+        localIdx = live.nextSetBit(localIdx + 1)) {
+      result.add(locals.get(localIdx));
+    }
+    return Collections.unmodifiableSet(result);
   }
 }
@@ -23,12 +23,12 @@ package sootup.interceptors;
  */
 
 import java.util.*;
-import java.util.function.Function;
-import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
+import sootup.core.graph.ImmutableBlockStmtGraph;
 import sootup.core.graph.MutableStmtGraph;
 import sootup.core.jimple.basic.LValue;
 import sootup.core.jimple.basic.Local;
+import sootup.core.jimple.basic.Value;
 import sootup.core.jimple.common.stmt.AbstractDefinitionStmt;
 import sootup.core.jimple.common.stmt.Stmt;
 import sootup.core.model.Body;
@@ -62,62 +62,81 @@ import sootup.core.views.View;
  *    l2#1 = l2#0 + 1
  *    return
  * </pre>
+ *
+ * <p>The Stmts are numbered once, and the uses, definitions and successors of each Stmt are stored
+ * as int arrays, so the walks for the single locals do not need to query the StmtGraph.
  */
 public class LocalSplitter implements BodyInterceptor {
 
   /**
    * Contains disjoint sets of nodes which are implemented as trees. Every set is represented by a
    * tree in the forest. Each set is identified by the root node of its tree, also known as its
-   * representative.
+   * representative. The nodes are the ints from 0 to the capacity of the forest, and {@link
+   * #clear()} empties the forest without touching every node.
    *
    * <p><a href="https://en.wikipedia.org/wiki/Disjoint-set_data_structure">Disjoint-set data
    * structure</a>
    */
-  static class DisjointSetForest<T> {
+  static class DisjointSetForest {
     /** Every node points to its parent in its tree. Roots of trees point to themselves. */
-    @Nonnull private final Map<T, T> parent = new HashMap<>();
+    @Nonnull private final int[] parent;
+
+    /** Stores the size of a tree under the node. Only updated for roots of trees. */
+    @Nonnull private final int[] sizes;
+
+    /** A node is contained in the forest iff its generation is the current one. */
+    @Nonnull private final int[] generations;
 
-    /** Stores the size of a tree under the key. Only updated for roots of trees. */
-    @Nonnull private final Map<T, Integer> sizes = new HashMap<>();
+    private int generation = 1;
+    private int setCount = 0;
+
+    DisjointSetForest(int capacity) {
+      parent = new int[capacity];
+      sizes = new int[capacity];
+      generations = new int[capacity];
+    }
+
+    /** Removes all nodes from the forest. */
+    void clear() {
+      generation++;
+      setCount = 0;
+    }
+
+    boolean contains(int node) {
+      return generations[node] == generation;
+    }
 
     /**
      * Creates a new set that only contains the {@code node}. Does nothing when the forest already
      * contains the {@code node}.
      */
-    void add(@Nonnull T node) {
-      if (parent.containsKey(node)) {
+    void add(int node) {
+      if (contains(node)) {
         return;
       }
-
-      parent.put(node, node);
-      sizes.put(node, 1);
+      generations[node] = generation;
+      parent[node] = node;
+      sizes[node] = 1;
+      setCount++;
     }
 
     /** Finds the representative of the set that contains the {@code node}. */
-    @Nonnull
-    T find(T node) {
-      T parentNode = parent.get(node);
-      if (parentNode == null) {
+    int find(int node) {
+      if (!contains(node)) {
         throw new IllegalArgumentException("The DisjointSetForest does not contain the node.");
       }
 
-      T itNode = node;
-      while (parentNode != itNode) {
+      int itNode = node;
+      while (parent[itNode] != itNode) {
         // Path Halving to get amortized constant operations
-        T grandparent = parent.get(parentNode);
-        parent.put(itNode, grandparent);
-
-        itNode = grandparent;
-        parentNode = parent.get(grandparent);
+        parent[itNode] = parent[parent[itNode]];
+        itNode = parent[itNode];
       }
       return itNode;
     }
 
-    /**
-     * Combines the sets of {@code first} and {@code second}. Returns the representative of the
-     * combined set.
-     */
-    void union(@Nonnull T first, @Nonnull T second) {
+    /** Combines the sets of {@code first} and {@code second}. */
+    void union(int first, int second) {
       first = find(first);
       second = find(second);
 
@@ -125,11 +144,8 @@ public class LocalSplitter implements BodyInterceptor {
         return;
       }
 
-      final Integer firstSize = sizes.get(first);
-      final Integer secondSize = sizes.get(second);
-
-      T smaller, larger;
-      if (firstSize > secondSize) {
+      int smaller, larger;
+      if (sizes[first] > sizes[second]) {
         larger = first;
         smaller = second;
       } else {
@@ -138,115 +154,134 @@ public class LocalSplitter implements BodyInterceptor {
       }
 
       // adding the smaller subtree to the larger tree keeps the tree flatter
-      parent.put(smaller, larger);
-      sizes.put(larger, firstSize + secondSize);
-      sizes.remove(smaller);
+      parent[smaller] = larger;
+      sizes[larger] += sizes[smaller];
+      setCount--;
     }
 
     int getSetCount() {
-      // `sizes` only contains values for the root of the trees,
-      // so its size matches the total number of sets
-      return sizes.size();
+      return setCount;
     }
   }
 
-  static class PartialStmt {
-    @Nonnull final Stmt backingStmt;
-
-    /**
-     * Whether the partial statement refers to only the definitions of the inner statement or only
-     * to the uses.
-     */
-    final boolean isDef;
-
-    PartialStmt(@Nonnull Stmt backingStmt, boolean isDef) {
-      this.backingStmt = backingStmt;
-      this.isDef = isDef;
-    }
-
-    @Override
-    public boolean equals(Object o) {
-      if (this == o) {
-        return true;
-      }
-      if (o == null || getClass() != o.getClass()) {
-        return false;
-      }
-
-      PartialStmt that = (PartialStmt) o;
-
-      if (isDef != that.isDef) {
-        return false;
-      }
-      return backingStmt.equals(that.backingStmt);
-    }
+  // The nodes of the disjoint sets are the definitions and the uses of a local in the Stmts. As a
+  // Stmt might contain both a definition and a use of a local, which need to be processed
+  // separately, each Stmt has two nodes.
+  private static int useNode(int stmtIdx) {
+    return 2 * stmtIdx;
+  }
 
-    @Override
-    public int hashCode() {
-      int result = backingStmt.hashCode();
-      result = 31 * result + (isDef ? 1 : 0);
-      return result;
-    }
+  private static int defNode(int stmtIdx) {
+    return 2 * stmtIdx + 1;
   }
 
   @Override
   public void interceptBody(@Nonnull Body.BodyBuilder builder, @Nonnull View view) {
     MutableStmtGraph graph = builder.getStmtGraph();
+    ImmutableBlockStmtGraph numberedGraph = new ImmutableBlockStmtGraph(graph);
+    int stmtCount = numberedGraph.getStmtCount();
 
-    // Cache the stmts to not have to retrieve them for every local
-    List<Stmt> stmts = graph.getStmts();
+    // Cache the stmts to not have to retrieve them for every local. They are taken from the
+    // numbered graph, so the index of a Stmt in the list is its index in the numbered graph.
+    List<Stmt> stmts = numberedGraph.getStmts();
     // Maps every local to its assignment stmts.
     // Contains indices to the above list to reduce bookkeeping when modifying stmts.
     Map<Local, List<Integer>> assignmentsByLocal = groupAssignmentsByLocal(stmts);
 
-    Set<Local> newLocals = new HashSet<>();
-
     final Set<Local> locals = builder.getLocals();
+    // the locals of the body are numbered, the Stmts refer to the local objects themselves
+    Map<Local, Integer> localIds = new IdentityHashMap<>(locals.size());
     for (Local local : locals) {
-      // Use a disjoint set while walking the statement graph to union all uses of the local that
-      // can be reached from each definition. This will automatically union definitions that have
-      // overlapping uses and therefore can't be split.
-      // It uses a `PartialStmt` instead of `Stmt` because a statement might contain both a
-      // definition and use of a local, and they need to be processed separately.
-      DisjointSetForest<PartialStmt> disjointSet = new DisjointSetForest<>();
+      localIds.put(local, localIds.size());
+    }
 
-      List<AbstractDefinitionStmt> assignments =
-          assignmentsByLocal.getOrDefault(local, Collections.emptyList()).stream()
-              .map(i -> (AbstractDefinitionStmt) stmts.get(i))
-              .collect(Collectors.toList());
+    // the local defined by each Stmt, the locals used by each Stmt and the successors of each Stmt
+    int[] stmtDefs = new int[stmtCount];
+    int[][] stmtUses = new int[stmtCount][];
+    int[][] stmtSuccessors = new int[stmtCount][];
+    BitSet usedLocals = new BitSet(localIds.size());
+    for (int i = 0; i < stmtCount; i++) {
+      Stmt stmt = stmts.get(i);
+      Optional<LValue> def = stmt.getDef();
+      Integer defId = def.isPresent() ? localIds.get(def.get()) : null;
+      stmtDefs[i] = defId == null ? -1 : defId;
+
+      usedLocals.clear();
+      for (Iterator<Value> iterator = stmt.getUses().iterator(); iterator.hasNext(); ) {
+        Integer useId = localIds.get(iterator.next());
+        if (useId != null) {
+          usedLocals.set(useId);
+        }
+      }
+      stmtUses[i] = usedLocals.stream().toArray();
+
+      List<Stmt> successors = numberedGraph.successors(stmt);
+      Collection<Stmt> handlers = numberedGraph.exceptionalSuccessors(stmt).values();
+      int[] successorIdxs = new int[successors.size() + handlers.size()];
+      int j = 0;
+      for (Stmt successor : successors) {
+        successorIdxs[j++] = numberedGraph.getStmtIndex(successor);
+      }
+      for (Stmt handler : handlers) {
+        successorIdxs[j++] = numberedGraph.getStmtIndex(handler);
+      }
+      stmtSuccessors[i] = successorIdxs;
+    }
+
+    Set<Local> newLocals = new HashSet<>();
+    DisjointSetForest disjointSet = new DisjointSetForest(2 * stmtCount);
+    int[] visited = new int[stmtCount];
+    int walk = 0;
+    int[] stack = new int[stmtCount];
+
+    for (Local local : locals) {
+      int localId = localIds.get(local);
 
+      List<Integer> assignments = assignmentsByLocal.getOrDefault(local, Collections.emptyList());
       if (assignments.size() <= 1) {
         // There is only a single assignment to the local, so no splitting is necessary
         newLocals.add(local);
         continue;
       }
 
+      // Use a disjoint set while walking the statement graph to union all uses of the local that
+      // can be reached from each definition. This will automatically union definitions that have
+      // overlapping uses and therefore can't be split.
+      disjointSet.clear();
+
       // Walk the statement graph starting from every definition and union all uses until a
       // different definition is encountered.
-      for (AbstractDefinitionStmt assignment : assignments) {
-        PartialStmt defStmt = new PartialStmt(assignment, true);
-        disjointSet.add(defStmt);
-
-        Deque<Stmt> stack = new ArrayDeque<>(graph.getAllSuccessors(assignment));
-        Set<Stmt> visited = new HashSet<>();
-
-        while (!stack.isEmpty()) {
-          Stmt stmt = stack.pop();
-          if (!visited.add(stmt)) {
-            continue;
+      for (int assignment : assignments) {
+        int defNode = defNode(assignment);
+        disjointSet.add(defNode);
+
+        walk++;
+        int stackSize = 0;
+        for (int successor : stmtSuccessors[assignment]) {
+          if (visited[successor] != walk) {
+            visited[successor] = walk;
+            stack[stackSize++] = successor;
           }
+        }
 
-          if (stmt.getUses().anyMatch(l -> l == local)) {
-            PartialStmt useStmt = new PartialStmt(stmt, false);
-            disjointSet.add(useStmt);
-            disjointSet.union(defStmt, useStmt);
+        while (stackSize > 0) {
+          int stmtIdx = stack[--stackSize];
+
+          if (usesLocal(stmtUses[stmtIdx], localId)) {
+            int useNode = useNode(stmtIdx);
+            disjointSet.add(useNode);
+            disjointSet.union(defNode, useNode);
           }
 
           // a new assignment to the local -> end walk here
           // otherwise continue by adding all successors to the stack
-          Optional<LValue> defOpt = stmt.getDef();
-          if (!defOpt.isPresent() || defOpt.get() != local) {
-            stack.addAll(graph.getAllSuccessors(stmt));
+          if (stmtDefs[stmtIdx] != localId) {
+            for (int successor : stmtSuccessors[stmtIdx]) {
+              if (visited[successor] != walk) {
+                visited[successor] = walk;
+                stack[stackSize++] = successor;
+              }
+            }
           }
         }
       }
@@ -258,48 +293,33 @@ public class LocalSplitter implements BodyInterceptor {
       }
 
       // Split locals, according to the disjoint sets found above.
-      Map<PartialStmt, Local> representativeToNewLocal = new HashMap<>();
-      final int[] nextId = {0}; // Java quirk; just an `int` doesn't work
-
-      Function<PartialStmt, Local> getNewLocal =
-          partialStmt ->
-              representativeToNewLocal.computeIfAbsent(
-                  disjointSet.find(partialStmt),
-                  s -> {
-                    Local newLocal;
-                    do {
-                      newLocal = local.withName(local.getName() + "#" + (nextId[0]++));
-                    } while (locals.contains(newLocal));
-                    return newLocal;
-                  });
-
-      for (int i = 0; i < stmts.size(); i++) {
-        Stmt stmt = stmts.get(i);
-
-        Optional<LValue> stmtDef = stmt.getDef();
-        boolean localIsDef = stmtDef.isPresent() && stmtDef.get() == local;
-        boolean localIsUse = stmt.getUses().anyMatch(l -> l == local);
-
-        Stmt oldStmt = stmt;
+      Map<Integer, Local> representativeToNewLocal = new HashMap<>();
+      final int[] nextId = {0};
 
-        if (localIsDef) {
-          Local newDefLocal = getNewLocal.apply(new PartialStmt(oldStmt, true));
-          if (local != newDefLocal) {
-            newLocals.add(newDefLocal);
-            stmt = ((AbstractDefinitionStmt) stmt).withNewDef(newDefLocal);
-          }
+      for (int i = 0; i < stmtCount; i++) {
+        boolean localIsDef = stmtDefs[i] == localId;
+        boolean localIsUse = usesLocal(stmtUses[i], localId);
+        if (!localIsDef && !localIsUse) {
+          continue;
         }
 
-        if (localIsUse) {
-          Local newUseLocal = getNewLocal.apply(new PartialStmt(oldStmt, false));
-          if (local != newUseLocal) {
-            newLocals.add(newUseLocal);
-            stmt = stmt.withNewUse(local, newUseLocal);
-          }
+        Stmt oldStmt = stmts.get(i);
+        Stmt stmt = oldStmt;
+
+        if (localIsDef) {
+          Local newDefLocal =
+              newLocalOf(
+                  local, disjointSet.find(defNode(i)), representativeToNewLocal, nextId, locals);
+          newLocals.add(newDefLocal);
+          stmt = ((AbstractDefinitionStmt) stmt).withNewDef(newDefLocal);
         }
 
-        if (oldStmt == stmt) {
-          continue;
+        if (localIsUse) {
+          Local newUseLocal =
+              newLocalOf(
+                  local, disjointSet.find(useNode(i)), representativeToNewLocal, nextId, locals);
+          newLocals.add(newUseLocal);
+          stmt = stmt.withNewUse(local, newUseLocal);
         }
 
         graph.replaceNode(oldStmt, stmt);
@@ -310,6 +330,33 @@ public class LocalSplitter implements BodyInterceptor {
     builder.setLocals(newLocals);
   }
 
+  /** Returns the local that replaces the given local in the set with the given representative. */
+  @Nonnull
+  private static Local newLocalOf(
+      @Nonnull Local local,
+      int representative,
+      @Nonnull Map<Integer, Local> representativeToNewLocal,
+      @Nonnull int[] nextId,
+      @Nonnull Set<Local> locals) {
+    Local newLocal = representativeToNewLocal.get(representative);
+    if (newLocal == null) {
+      do {
+        newLocal = local.withName(local.getName() + "#" + (nextId[0]++));
+      } while (locals.contains(newLocal));
+      representativeToNewLocal.put(representative, newLocal);
+    }
+    return newLocal;
+  }
+
+  private static boolean usesLocal(@Nonnull int[] uses, int localId) {
+    for (int use : uses) {
+      if (use == localId) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   @Nonnull
   Map<Local, List<Integer>> groupAssignmentsByLocal(List<Stmt> statements) {
     Map<Local, List<Integer>> groupings = new HashMap<>();
@@ -0,0 +1,1042 @@
+package sootup.java.bytecode.frontend.cache;
+
+/*-
+ * #%L
+ * SootUp
+ * %%
+ * Copyright (C) 1997 - 2024 Raja Vallée-Rai and others
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import javax.annotation.Nonnull;
+import sootup.core.IdentifierFactory;
+import sootup.core.graph.BasicBlock;
+import sootup.core.graph.MutableBlockStmtGraph;
+import sootup.core.graph.StmtGraph;
+import sootup.core.jimple.Jimple;
+import sootup.core.jimple.basic.*;
+import sootup.core.jimple.common.constant.*;
+import sootup.core.jimple.common.expr.*;
+import sootup.core.jimple.common.ref.*;
+import sootup.core.jimple.common.stmt.*;
+import sootup.core.jimple.javabytecode.stmt.*;
+import sootup.core.model.Body;
+import sootup.core.model.FullPosition;
+import sootup.core.model.LinePosition;
+import sootup.core.model.Position;
+import sootup.core.signatures.FieldSignature;
+import sootup.core.signatures.MethodSignature;
+import sootup.core.signatures.SootClassMemberSignature;
+import sootup.core.types.*;
+import sootup.java.core.jimple.basic.JavaLocal;
+import sootup.java.core.language.JavaJimple;
+import sootup.java.core.types.JavaClassType;
+
+/**
+ * Compact binary encoding of a Jimple {@link Body}. Strings are written once per body and
+ * referenced by index afterwards, numbers are written as variable length integers and the StmtGraph
+ * is stored as a list of blocks with their (exceptional) successors.
+ *
+ * <p>Only the constructs that are created by the bytecode frontend are supported. Any other
+ * construct (e.g. Phi expressions or types that only exist during type assignment) results in an
+ * {@link UnsupportedBodyException}, i.e. the body is not cached.
+ */
+final class BinaryBodyFormat {
+
+  static final int VERSION = 1;
+
+  /** Thrown if a body contains a construct that can not be encoded. */
+  static class UnsupportedBodyException extends IOException {
+    UnsupportedBodyException(@Nonnull Object unsupported) {
+      super("Can not encode " + unsupported.getClass().getName() + ": " + unsupported);
+    }
+  }
+
+  // type tags
+  private static final int T_BOOLEAN = 1;
+  private static final int T_BYTE = 2;
+  private static final int T_CHAR = 3;
+  private static final int T_SHORT = 4;
+  private static final int T_INT = 5;
+  private static final int T_LONG = 6;
+  private static final int T_FLOAT = 7;
+  private static final int T_DOUBLE = 8;
+  private static final int T_CLASS = 9;
+  private static final int T_ARRAY = 10;
+  private static final int T_NULL = 11;
+  private static final int T_VOID = 12;
+  private static final int T_UNKNOWN = 13;
+
+  // value tags
+  private static final int V_LOCAL = 1;
+  private static final int V_INT = 2;
+  private static final int V_LONG = 3;
+  private static final int V_FLOAT = 4;
+  private static final int V_DOUBLE = 5;
+  private static final int V_NULL = 6;
+  private static final int V_STRING = 7;
+  private static final int V_CLASS = 8;
+  private static final int V_METHOD_HANDLE = 9;
+  private static final int V_METHOD_TYPE = 10;
+  private static final int V_ENUM = 11;
+  private static final int V_THIS_REF = 20;
+  private static final int V_PARAMETER_REF = 21;
+  private static final int V_CAUGHT_EXCEPTION_REF = 22;
+  private static final int V_STATIC_FIELD_REF = 23;
+  private static final int V_INSTANCE_FIELD_REF = 24;
+  private static final int V_ARRAY_REF = 25;
+  private static final int V_NEG = 40;
+  private static final int V_LENGTH = 41;
+  private static final int V_CAST = 42;
+  private static final int V_INSTANCE_OF = 43;
+  private static final int V_NEW = 44;
+  private static final int V_NEW_ARRAY = 45;
+  private static final int V_NEW_MULTI_ARRAY = 46;
+  private static final int V_STATIC_INVOKE = 50;
+  private static final int V_SPECIAL_INVOKE = 51;
+  private static final int V_VIRTUAL_INVOKE = 52;
+  private static final int V_INTERFACE_INVOKE = 53;
+  private static final int V_DYNAMIC_INVOKE = 54;
+  private static final int V_BINOP = 60;
+
+  // binop kinds, the order must not be changed
+  private static final List<Class<? extends AbstractBinopExpr>> BINOPS =
+      Arrays.asList(
+          JAddExpr.class,
+          JAndExpr.class,
+          JCmpExpr.class,
+          JCmpgExpr.class,
+          JCmplExpr.class,
+          JDivExpr.class,
+          JEqExpr.class,
+          JGeExpr.class,
+          JGtExpr.class,
+          JLeExpr.class,
+          JLtExpr.class,
+          JMulExpr.class,
+          JNeExpr.class,
+          JOrExpr.class,
+          JRemExpr.class,
+          JShlExpr.class,
+          JShrExpr.class,
+          JSubExpr.class,
+          JUshrExpr.class,
+          JXorExpr.class);
+
+  // stmt tags
+  private static final int S_ASSIGN = 1;
+  private static final int S_IDENTITY = 2;
+  private static final int S_INVOKE = 3;
+  private static final int S_IF = 4;
+  private static final int S_GOTO = 5;
+  private static final int S_NOP = 6;
+  private static final int S_RETURN = 7;
+  private static final int S_RETURN_VOID = 8;
+  private static final int S_THROW = 9;
+  private static final int S_TABLE_SWITCH = 10;
+  private static final int S_LOOKUP_SWITCH = 11;
+  private static final int S_ENTER_MONITOR = 12;
+  private static final int S_EXIT_MONITOR = 13;
+  private static final int S_BREAKPOINT = 14;
+  private static final int S_RET = 15;
+
+  private BinaryBodyFormat() {}
+
+  /** Writes the locals, Stmts, StmtGraph and Position of the given body. */
+  static void write(@Nonnull Body body, @Nonnull DataOutput out) throws IOException {
+    new Writer(out).writeBody(body);
+  }
+
+  /** Reads a body that was written via {@link #write(Body, DataOutput)}. */
+  @Nonnull
+  static Body read(
+      @Nonnull DataInput in,
+      @Nonnull MethodSignature methodSignature,
+      @Nonnull IdentifierFactory identifierFactory)
+      throws IOException {
+    return new Reader(in, identifierFactory).readBody(methodSignature);
+  }
+
+  private static class Writer {
+    private final DataOutput out;
+    private final Map<String, Integer> strings = new HashMap<>();
+    private final Map<Local, Integer> locals = new HashMap<>();
+
+    Writer(@Nonnull DataOutput out) {
+      this.out = out;
+    }
+
+    void writeBody(@Nonnull Body body) throws IOException {
+      writeVarInt(body.getLocalCount());
+      for (Local local : body.getLocals()) {
+        if (local.getClass() != JavaLocal.class && local.getClass() != Local.class) {
+          throw new UnsupportedBodyException(local);
+        }
+        if (local instanceof JavaLocal
+            && ((JavaLocal) local).getAnnotations().iterator().hasNext()) {
+          throw new UnsupportedBodyException(local);
+        }
+        locals.put(local, locals.size());
+        writeString(local.getName());
+        writeType(local.getType());
+      }
+
+      StmtGraph<?> graph = body.getStmtGraph();
+      List<? extends BasicBlock<?>> blocks = new ArrayList<>(graph.getBlocks());
+      Map<BasicBlock<?>, Integer> blockIdx = new IdentityHashMap<>();
+      for (BasicBlock<?> block : blocks) {
+        blockIdx.put(block, blockIdx.size());
+      }
+
+      writeVarInt(blocks.size());
+      for (BasicBlock<?> block : blocks) {
+        writeVarInt(block.getStmtCount());
+        for (Stmt stmt : block.getStmts()) {
+          writeStmt(stmt);
+        }
+      }
+      for (BasicBlock<?> block : blocks) {
+        List<? extends BasicBlock<?>> successors = block.getSuccessors();
+        writeVarInt(successors.size());
+        for (BasicBlock<?> successor : successors) {
+          writeVarInt(blockIdx.get(successor));
+        }
+        Map<? extends ClassType, ? extends BasicBlock<?>> exceptionalSuccessors =
+            block.getExceptionalSuccessors();
+        writeVarInt(exceptionalSuccessors.size());
+        for (Map.Entry<? extends ClassType, ? extends BasicBlock<?>> entry :
+            exceptionalSuccessors.entrySet()) {
+          writeType(entry.getKey());
+          writeVarInt(blockIdx.get(entry.getValue()));
+        }
+      }
+
+      Stmt startingStmt = graph.getStartingStmt();
+      int startingBlockIdx = -1;
+      if (startingStmt != null) {
+        for (BasicBlock<?> block : blocks) {
+          if (block.getHead() == startingStmt) {
+            startingBlockIdx = blockIdx.get(block);
+            break;
+          }
+        }
+      }
+      writeVarInt(startingBlockIdx + 1);
+
+      writePosition(body.getPosition());
+    }
+
+    private void writePosition(@Nonnull Position position) throws IOException {
+      if (position instanceof NoPositionInformation) {
+        out.writeByte(0);
+      } else if (position.getClass() == FullPosition.class) {
+        out.writeByte(1);
+        writeVarInt(position.getFirstLine());
+        writeVarInt(position.getFirstCol());
+        writeVarInt(position.getLastLine());
+        writeVarInt(position.getLastCol());
+      } else {
+        throw new UnsupportedBodyException(position);
+      }
+    }
+
+    private void writeStmtPosition(@Nonnull StmtPositionInfo positionInfo) throws IOException {
+      if (positionInfo == StmtPositionInfo.getNoStmtPositionInfo()) {
+        writeVarInt(0);
+      } else if (positionInfo.getClass() == SimpleStmtPositionInfo.class
+          && positionInfo.getStmtPosition().getClass() == LinePosition.class) {
+        // line numbers are >= 0
+        writeVarInt(positionInfo.getStmtPosition().getFirstLine() + 1);
+      } else {
+        throw new UnsupportedBodyException(positionInfo);
+      }
+    }
+
+    private void writeStmt(@Nonnull Stmt stmt) throws IOException {
+      if (stmt instanceof JAssignStmt) {
+        out.writeByte(S_ASSIGN);
+        writeValue(((JAssignStmt) stmt).getLeftOp());
+        writeValue(((JAssignStmt) stmt).getRightOp());
+      } else if (stmt instanceof JIdentityStmt) {
+        out.writeByte(S_IDENTITY);
+        writeValue(((JIdentityStmt) stmt).getLeftOp());
+        writeValue(((JIdentityStmt) stmt).getRightOp());
+      } else if (stmt instanceof JInvokeStmt) {
+        out.writeByte(S_INVOKE);
+        writeValue(((JInvokeStmt) stmt).getInvokeExpr().get());
+      } else if (stmt instanceof JIfStmt) {
+        out.writeByte(S_IF);
+        writeValue(((JIfStmt) stmt).getCondition());
+      } else if (stmt instanceof JGotoStmt) {
+        out.writeByte(S_GOTO);
+      } else if (stmt instanceof JNopStmt) {
+        out.writeByte(S_NOP);
+      } else if (stmt instanceof JReturnStmt) {
+        out.writeByte(S_RETURN);
+        writeValue(((JReturnStmt) stmt).getOp());
+      } else if (stmt instanceof JReturnVoidStmt) {
+        out.writeByte(S_RETURN_VOID);
+      } else if (stmt instanceof JThrowStmt) {
+        out.writeByte(S_THROW);
+        writeValue(((JThrowStmt) stmt).getOp());
+      } else if (stmt instanceof JSwitchStmt) {
+        JSwitchStmt switchStmt = (JSwitchStmt) stmt;
+        List<IntConstant> values = switchStmt.getValues();
+        if (switchStmt.isTableSwitch()) {
+          out.writeByte(S_TABLE_SWITCH);
+          writeValue(switchStmt.getKey());
+          writeSignedVarInt(values.get(0).getValue());
+          writeSignedVarInt(values.get(values.size() - 1).getValue());
+        } else {
+          out.writeByte(S_LOOKUP_SWITCH);
+          writeValue(switchStmt.getKey());
+          writeVarInt(values.size());
+          for (IntConstant value : values) {
+            writeSignedVarInt(value.getValue());
+          }
+        }
+      } else if (stmt instanceof JEnterMonitorStmt) {
+        out.writeByte(S_ENTER_MONITOR);
+        writeValue(((JEnterMonitorStmt) stmt).getOp());
+      } else if (stmt instanceof JExitMonitorStmt) {
+        out.writeByte(S_EXIT_MONITOR);
+        writeValue(((JExitMonitorStmt) stmt).getOp());
+      } else if (stmt instanceof JBreakpointStmt) {
+        out.writeByte(S_BREAKPOINT);
+      } else if (stmt instanceof JRetStmt) {
+        out.writeByte(S_RET);
+        writeValue(((JRetStmt) stmt).getStmtAddress());
+      } else {
+        throw new UnsupportedBodyException(stmt);
+      }
+      writeStmtPosition(stmt.getPositionInfo());
+    }
+
+    private void writeValue(@Nonnull Value value) throws IOException {
+      if (value instanceof Local) {
+        Integer idx = locals.get(value);
+        if (idx == null) {
+          throw new UnsupportedBodyException(value);
+        }
+        out.writeByte(V_LOCAL);
+        writeVarInt(idx);
+      } else if (value instanceof Constant) {
+        writeConstant((Constant) value);
+      } else if (value instanceof Ref) {
+        writeRef((Ref) value);
+      } else if (value instanceof AbstractBinopExpr) {
+        int kind = BINOPS.indexOf(value.getClass());
+        if (kind < 0) {
+          throw new UnsupportedBodyException(value);
+        }
+        out.writeByte(V_BINOP);
+        out.writeByte(kind);
+        writeValue(((AbstractBinopExpr) value).getOp1());
+        writeValue(((AbstractBinopExpr) value).getOp2());
+      } else if (value instanceof AbstractInvokeExpr) {
+        writeInvokeExpr((AbstractInvokeExpr) value);
+      } else if (value instanceof JNegExpr) {
+        out.writeByte(V_NEG);
+        writeValue(((JNegExpr) value).getOp());
+      } else if (value instanceof JLengthExpr) {
+        out.writeByte(V_LENGTH);
+        writeValue(((JLengthExpr) value).getOp());
+      } else if (value instanceof JCastExpr) {
+        out.writeByte(V_CAST);
+        writeValue(((JCastExpr) value).getOp());
+        writeType(value.getType());
+      } else if (value instanceof JInstanceOfExpr) {
+        out.writeByte(V_INSTANCE_OF);
+        writeValue(((JInstanceOfExpr) value).getOp());
+        writeType(((JInstanceOfExpr) value).getCheckType());
+      } else if (value instanceof JNewExpr) {
+        out.writeByte(V_NEW);
+        writeType(((JNewExpr) value).getType());
+      } else if (value instanceof JNewArrayExpr) {
+        out.writeByte(V_NEW_ARRAY);
+        writeType(((JNewArrayExpr) value).getBaseType());
+        writeValue(((JNewArrayExpr) value).getSize());
+      } else if (value instanceof JNewMultiArrayExpr) {
+        out.writeByte(V_NEW_MULTI_ARRAY);
+        writeType(((JNewMultiArrayExpr) value).getBaseType());
+        writeValues(((JNewMultiArrayExpr) value).getSizes());
+      } else {
+        throw new UnsupportedBodyException(value);
+      }
+    }
+
+    private void writeConstant(@Nonnull Constant constant) throws IOException {
+      if (constant instanceof IntConstant) {
+        out.writeByte(V_INT);
+        writeSignedVarInt(((IntConstant) constant).getValue());
+      } else if (constant instanceof LongConstant) {
+        out.writeByte(V_LONG);
+        out.writeLong(((LongConstant) constant).getValue());
+      } else if (constant instanceof FloatConstant) {
+        out.writeByte(V_FLOAT);
+        out.writeFloat(((FloatConstant) constant).getValue());
+      } else if (constant instanceof DoubleConstant) {
+        out.writeByte(V_DOUBLE);
+        out.writeDouble(((DoubleConstant) constant).getValue());
+      } else if (constant instanceof NullConstant) {
+        out.writeByte(V_NULL);
+      } else if (constant instanceof StringConstant) {
+        out.writeByte(V_STRING);
+        writeString(((StringConstant) constant).getValue());
+        writeType(constant.getType());
+      } else if (constant instanceof ClassConstant) {
+        out.writeByte(V_CLASS);
+        writeString(((ClassConstant) constant).getValue());
+        writeType(constant.getType());
+      } else if (constant instanceof MethodHandle) {
+        MethodHandle handle = (MethodHandle) constant;
+        out.writeByte(V_METHOD_HANDLE);
+        out.writeByte(handle.getKind().getValue());
+        if (handle.isMethodRef()) {
+          writeMethodSignature((MethodSignature) handle.getReferenceSignature());
+        } else {
+          writeFieldSignature((FieldSignature) handle.getReferenceSignature());
+        }
+        writeType(handle.getType());
+      } else if (constant instanceof MethodType) {
+        out.writeByte(V_METHOD_TYPE);
+        writeTypes(((MethodType) constant).getParameterTypes());
+        writeType(((MethodType) constant).getReturnType());
+      } else if (constant instanceof EnumConstant) {
+        out.writeByte(V_ENUM);
+        writeString(((EnumConstant) constant).getValue());
+        writeType(constant.getType());
+      } else {
+        throw new UnsupportedBodyException(constant);
+      }
+    }
+
+    private void writeRef(@Nonnull Ref ref) throws IOException {
+      if (ref instanceof JThisRef) {
+        out.writeByte(V_THIS_REF);
+        writeType(ref.getType());
+      } else if (ref instanceof JParameterRef) {
+        out.writeByte(V_PARAMETER_REF);
+        writeType(ref.getType());
+        writeVarInt(((JParameterRef) ref).getIndex());
+      } else if (ref instanceof JCaughtExceptionRef) {
+        out.writeByte(V_CAUGHT_EXCEPTION_REF);
+        writeType(ref.getType());
+      } else if (ref instanceof JStaticFieldRef) {
+        out.writeByte(V_STATIC_FIELD_REF);
+        writeFieldSignature(((JStaticFieldRef) ref).getFieldSignature());
+      } else if (ref instanceof JInstanceFieldRef) {
+        out.writeByte(V_INSTANCE_FIELD_REF);
+        writeValue(((JInstanceFieldRef) ref).getBase());
+        writeFieldSignature(((JInstanceFieldRef) ref).getFieldSignature());
+      } else if (ref instanceof JArrayRef) {
+        out.writeByte(V_ARRAY_REF);
+        writeValue(((JArrayRef) ref).getBase());
+        writeValue(((JArrayRef) ref).getIndex());
+      } else {
+        throw new UnsupportedBodyException(ref);
+      }
+    }
+
+    private void writeInvokeExpr(@Nonnull AbstractInvokeExpr expr) throws IOException {
+      if (expr instanceof JStaticInvokeExpr) {
+        out.writeByte(V_STATIC_INVOKE);
+      } else if (expr instanceof JSpecialInvokeExpr) {
+        out.writeByte(V_SPECIAL_INVOKE);
+      } else if (expr instanceof JVirtualInvokeExpr) {
+        out.writeByte(V_VIRTUAL_INVOKE);
+      } else if (expr instanceof JInterfaceInvokeExpr) {
+        out.writeByte(V_INTERFACE_INVOKE);
+      } else if (expr instanceof JDynamicInvokeExpr) {
+        JDynamicInvokeExpr dynamicInvoke = (JDynamicInvokeExpr) expr;
+        out.writeByte(V_DYNAMIC_INVOKE);
+        writeMethodSignature(dynamicInvoke.getBootstrapMethodSignature());
+        writeValues(dynamicInvoke.getBootstrapArgs());
+        writeVarInt(dynamicInvoke.getHandleTag());
+        writeMethodSignature(expr.getMethodSignature());
+        writeValues(expr.getArgs());
+        return;
+      } else {
+        throw new UnsupportedBodyException(expr);
+      }
+      if (expr instanceof AbstractInstanceInvokeExpr) {
+        writeValue(((AbstractInstanceInvokeExpr) expr).getBase());
+      }
+      writeMethodSignature(expr.getMethodSignature());
+      writeValues(expr.getArgs());
+    }
+
+    private void writeValues(@Nonnull List<? extends Value> values) throws IOException {
+      writeVarInt(values.size());
+      for (Value value : values) {
+        writeValue(value);
+      }
+    }
+
+    private void writeMethodSignature(@Nonnull MethodSignature signature) throws IOException {
+      writeType(signature.getDeclClassType());
+      writeString(signature.getName());
+      writeType(signature.getType());
+      writeTypes(signature.getParameterTypes());
+    }
+
+    private void writeFieldSignature(@Nonnull FieldSignature signature) throws IOException {
+      writeType(signature.getDeclClassType());
+      writeString(signature.getName());
+      writeType(signature.getType());
+    }
+
+    private void writeTypes(@Nonnull List<Type> types) throws IOException {
+      writeVarInt(types.size());
+      for (Type type : types) {
+        writeType(type);
+      }
+    }
+
+    private void writeType(@Nonnull Type type) throws IOException {
+      Class<?> typeClass = type.getClass();
+      if (typeClass == PrimitiveType.BooleanType.class) {
+        out.writeByte(T_BOOLEAN);
+      } else if (typeClass == PrimitiveType.ByteType.class) {
+        out.writeByte(T_BYTE);
+      } else if (typeClass == PrimitiveType.CharType.class) {
+        out.writeByte(T_CHAR);
+      } else if (typeClass == PrimitiveType.ShortType.class) {
+        out.writeByte(T_SHORT);
+      } else if (typeClass == PrimitiveType.IntType.class) {
+        out.writeByte(T_INT);
+      } else if (typeClass == PrimitiveType.LongType.class) {
+        out.writeByte(T_LONG);
+      } else if (typeClass == PrimitiveType.FloatType.class) {
+        out.writeByte(T_FLOAT);
+      } else if (typeClass == PrimitiveType.DoubleType.class) {
+        out.writeByte(T_DOUBLE);
+      } else if (typeClass == JavaClassType.class) {
+        out.writeByte(T_CLASS);
+        writeString(((ClassType) type).getFullyQualifiedName());
+      } else if (typeClass == ArrayType.class) {
+        out.writeByte(T_ARRAY);
+        writeType(((ArrayType) type).getBaseType());
+        writeVarInt(((ArrayType) type).getDimension());
+      } else if (typeClass == NullType.class) {
+        out.writeByte(T_NULL);
+      } else if (typeClass == VoidType.class) {
+        out.writeByte(T_VOID);
+      } else if (typeClass == UnknownType.class) {
+        out.writeByte(T_UNKNOWN);
+      } else {
+        throw new UnsupportedBodyException(type);
+      }
+    }
+
+    private void writeString(@Nonnull String str) throws IOException {
+      Integer idx = strings.get(str);
+      if (idx != null) {
+        writeVarInt(idx + 1);
+        return;
+      }
+      strings.put(str, strings.size());
+      writeVarInt(0);
+      byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+      writeVarInt(bytes.length);
+      out.write(bytes);
+    }
+
+    private void writeSignedVarInt(int value) throws IOException {
+      writeVarInt((value << 1) ^ (value >> 31));
+    }
+
+    private void writeVarInt(int value) throws IOException {
+      while ((value & ~0x7F) != 0) {
+        out.writeByte((value & 0x7F) | 0x80);
+        value >>>= 7;
+      }
+      out.writeByte(value);
+    }
+  }
+
+  private static class Reader {
+    private final DataInput in;
+    private final IdentifierFactory identifierFactory;
+    private final List<String> strings = new ArrayList<>();
+    private final List<Local> locals = new ArrayList<>();
+
+    Reader(@Nonnull DataInput in, @Nonnull IdentifierFactory identifierFactory) {
+      this.in = in;
+      this.identifierFactory = identifierFactory;
+    }
+
+    @Nonnull
+    Body readBody(@Nonnull MethodSignature methodSignature) throws IOException {
+      int localCount = readVarInt();
+      Set<Local> bodyLocals = new LinkedHashSet<>(localCount);
+      for (int i = 0; i < localCount; i++) {
+        String name = readString();
+        Local local = JavaJimple.newLocal(name, readType());
+        locals.add(local);
+        bodyLocals.add(local);
+      }
+
+      int blockCount = readVarInt();
+      List<List<Stmt>> blocks = new ArrayList<>(blockCount);
+      for (int i = 0; i < blockCount; i++) {
+        int stmtCount = readVarInt();
+        List<Stmt> stmts = new ArrayList<>(stmtCount);
+        for (int j = 0; j < stmtCount; j++) {
+          stmts.add(readStmt());
+        }
+        blocks.add(stmts);
+      }
+
+      MutableBlockStmtGraph graph = new MutableBlockStmtGraph();
+      List<int[]> successors = new ArrayList<>(blockCount);
+      for (List<Stmt> block : blocks) {
+        int[] blockSuccessors = new int[readVarInt()];
+        for (int i = 0; i < blockSuccessors.length; i++) {
+          blockSuccessors[i] = readVarInt();
+        }
+        successors.add(blockSuccessors);
+
+        int exceptionalSuccessorCount = readVarInt();
+        Map<ClassType, Stmt> exceptionalSuccessors = new HashMap<>(exceptionalSuccessorCount);
+        for (int i = 0; i < exceptionalSuccessorCount; i++) {
+          ClassType exceptionType = (ClassType) readType();
+          exceptionalSuccessors.put(exceptionType, blocks.get(readVarInt()).get(0));
+        }
+        graph.addBlock(block, exceptionalSuccessors);
+      }
+
+      int startingBlockIdx = readVarInt() - 1;
+      if (startingBlockIdx >= 0) {
+        graph.setStartingStmt(blocks.get(startingBlockIdx).get(0));
+      }
+
+      // link the branches first, so that fall through edges can not merge branch targets into
+      // their predecessor block
+      for (int i = 0; i < blockCount; i++) {
+        List<Stmt> block = blocks.get(i);
+        Stmt tail = block.get(block.size() - 1);
+        if (tail instanceof BranchingStmt) {
+          int[] blockSuccessors = successors.get(i);
+          for (int j = 0; j < blockSuccessors.length; j++) {
+            graph.putEdge((BranchingStmt) tail, j, blocks.get(blockSuccessors[j]).get(0));
+          }
+        }
+      }
+      for (int i = 0; i < blockCount; i++) {
+        List<Stmt> block = blocks.get(i);
+        Stmt tail = block.get(block.size() - 1);
+        if (!(tail instanceof BranchingStmt) && successors.get(i).length > 0) {
+          graph.putEdge((FallsThroughStmt) tail, blocks.get(successors.get(i)[0]).get(0));
+        }
+      }
+
+      return Body.builder(graph)
+          .setLocals(bodyLocals)
+          .setPosition(readPosition())
+          .setMethodSignature(methodSignature)
+          .build();
+    }
+
+    @Nonnull
+    private Position readPosition() throws IOException {
+      if (in.readByte() == 0) {
+        return NoPositionInformation.getInstance();
+      }
+      return new FullPosition(readVarInt(), readVarInt(), readVarInt(), readVarInt());
+    }
+
+    @Nonnull
+    private StmtPositionInfo readStmtPosition() throws IOException {
+      int line = readVarInt();
+      return line == 0
+          ? StmtPositionInfo.getNoStmtPositionInfo()
+          : new SimpleStmtPositionInfo(line - 1);
+    }
+
+    @Nonnull
+    private Stmt readStmt() throws IOException {
+      int tag = in.readByte();
+      switch (tag) {
+        case S_ASSIGN:
+          {
+            LValue leftOp = (LValue) readValue();
+            Value rightOp = readValue();
+            return Jimple.newAssignStmt(leftOp, rightOp, readStmtPosition());
+          }
+        case S_IDENTITY:
+          {
+            Local local = (Local) readValue();
+            IdentityRef identityRef = (IdentityRef) readValue();
+            return Jimple.newIdentityStmt(local, identityRef, readStmtPosition());
+          }
+        case S_INVOKE:
+          {
+            AbstractInvokeExpr invokeExpr = (AbstractInvokeExpr) readValue();
+            return Jimple.newInvokeStmt(invokeExpr, readStmtPosition());
+          }
+        case S_IF:
+          {
+            AbstractConditionExpr condition = (AbstractConditionExpr) readValue();
+            return Jimple.newIfStmt(condition, readStmtPosition());
+          }
+        case S_GOTO:
+          return Jimple.newGotoStmt(readStmtPosition());
+        case S_NOP:
+          return Jimple.newNopStmt(readStmtPosition());
+        case S_RETURN:
+          {
+            Immediate op = (Immediate) readValue();
+            return Jimple.newReturnStmt(op, readStmtPosition());
+          }
+        case S_RETURN_VOID:
+          return Jimple.newReturnVoidStmt(readStmtPosition());
+        case S_THROW:
+          {
+            Immediate op = (Immediate) readValue();
+            return Jimple.newThrowStmt(op, readStmtPosition());
+          }
+        case S_TABLE_SWITCH:
+          {
+            Immediate key = (Immediate) readValue();
+            int lowIndex = readSignedVarInt();
+            int highIndex = readSignedVarInt();
+            return Jimple.newTableSwitchStmt(key, lowIndex, highIndex, readStmtPosition());
+          }
+        case S_LOOKUP_SWITCH:
+          {
+            Immediate key = (Immediate) readValue();
+            int valueCount = readVarInt();
+            List<IntConstant> values = new ArrayList<>(valueCount);
+            for (int i = 0; i < valueCount; i++) {
+              values.add(IntConstant.getInstance(readSignedVarInt()));
+            }
+            return Jimple.newLookupSwitchStmt(key, values, readStmtPosition());
+          }
+        case S_ENTER_MONITOR:
+          {
+            Immediate op = (Immediate) readValue();
+            return Jimple.newEnterMonitorStmt(op, readStmtPosition());
+          }
+        case S_EXIT_MONITOR:
+          {
+            Immediate op = (Immediate) readValue();
+            return Jimple.newExitMonitorStmt(op, readStmtPosition());
+          }
+        case S_BREAKPOINT:
+          return Jimple.newBreakpointStmt(readStmtPosition());
+        case S_RET:
+          {
+            Immediate stmtAddress = (Immediate) readValue();
+            return Jimple.newRetStmt(stmtAddress, readStmtPosition());
+          }
+        default:
+          throw new IOException("Unknown stmt tag " + tag);
+      }
+    }
+
+    @Nonnull
+    private Value readValue() throws IOException {
+      int tag = in.readByte();
+      switch (tag) {
+        case V_LOCAL:
+          return locals.get(readVarInt());
+        case V_INT:
+          return IntConstant.getInstance(readSignedVarInt());
+        case V_LONG:
+          return LongConstant.getInstance(in.readLong());
+        case V_FLOAT:
+          return FloatConstant.getInstance(in.readFloat());
+        case V_DOUBLE:
+          return DoubleConstant.getInstance(in.readDouble());
+        case V_NULL:
+          return NullConstant.getInstance();
+        case V_STRING:
+          {
+            String value = readString();
+            return new StringConstant(value, readType());
+          }
+        case V_CLASS:
+          {
+            String value = readString();
+            return new ClassConstant(value, readType());
+          }
+        case V_METHOD_HANDLE:
+          {
+            MethodHandle.Kind kind = MethodHandle.Kind.getKind(in.readByte());
+            SootClassMemberSignature<?> referenceSignature =
+                MethodHandle.isMethodRef(kind.getValue())
+                    ? readMethodSignature()
+                    : readFieldSignature();
+            return new MethodHandle(referenceSignature, kind, readType());
+          }
+        case V_METHOD_TYPE:
+          {
+            List<Type> parameterTypes = readTypes();
+            return JavaJimple.getInstance().newMethodType(parameterTypes, readType());
+          }
+        case V_ENUM:
+          {
+            String value = readString();
+            return new EnumConstant(value, (ClassType) readType());
+          }
+        case V_THIS_REF:
+          return Jimple.newThisRef((ClassType) readType());
+        case V_PARAMETER_REF:
+          {
+            Type type = readType();
+            return Jimple.newParameterRef(type, readVarInt());
+          }
+        case V_CAUGHT_EXCEPTION_REF:
+          return new JCaughtExceptionRef(readType());
+        case V_STATIC_FIELD_REF:
+          return Jimple.newStaticFieldRef(readFieldSignature());
+        case V_INSTANCE_FIELD_REF:
+          {
+            Local base = (Local) readValue();
+            return Jimple.newInstanceFieldRef(base, readFieldSignature());
+          }
+        case V_ARRAY_REF:
+          {
+            Local base = (Local) readValue();
+            return new JArrayRef(base, (Immediate) readValue());
+          }
+        case V_NEG:
+          return Jimple.newNegExpr((Immediate) readValue());
+        case V_LENGTH:
+          return Jimple.newLengthExpr((Immediate) readValue());
+        case V_CAST:
+          {
+            Immediate op = (Immediate) readValue();
+            return Jimple.newCastExpr(op, readType());
+          }
+        case V_INSTANCE_OF:
+          {
+            Immediate op = (Immediate) readValue();
+            return Jimple.newInstanceOfExpr(op, readType());
+          }
+        case V_NEW:
+          return Jimple.newNewExpr((ClassType) readType());
+        case V_NEW_ARRAY:
+          {
+            Type baseType = readType();
+            return new JNewArrayExpr(baseType, (Immediate) readValue(), identifierFactory);
+          }
+        case V_NEW_MULTI_ARRAY:
+          {
+            ArrayType baseType = (ArrayType) readType();
+            return Jimple.newNewMultiArrayExpr(baseType, readImmediates());
+          }
+        case V_STATIC_INVOKE:
+          {
+            MethodSignature signature = readMethodSignature();
+            return Jimple.newStaticInvokeExpr(signature, readImmediates());
+          }
+        case V_SPECIAL_INVOKE:
+          {
+            Local base = (Local) readValue();
+            MethodSignature signature = readMethodSignature();
+            return Jimple.newSpecialInvokeExpr(base, signature, readImmediates());
+          }
+        case V_VIRTUAL_INVOKE:
+          {
+            Local base = (Local) readValue();
+            MethodSignature signature = readMethodSignature();
+            return Jimple.newVirtualInvokeExpr(base, signature, readImmediates());
+          }
+        case V_INTERFACE_INVOKE:
+          {
+            Local base = (Local) readValue();
+            MethodSignature signature = readMethodSignature();
+            return Jimple.newInterfaceInvokeExpr(base, signature, readImmediates());
+          }
+        case V_DYNAMIC_INVOKE:
+          {
+            MethodSignature bootstrapSignature = readMethodSignature();
+            List<Immediate> bootstrapArgs = readImmediates();
+            int handleTag = readVarInt();
+            MethodSignature signature = readMethodSignature();
+            return Jimple.newDynamicInvokeExpr(
+                bootstrapSignature, bootstrapArgs, signature, handleTag, readImmediates());
+          }
+        case V_BINOP:
+          return readBinop(in.readByte());
+        default:
+          throw new IOException("Unknown value tag " + tag);
+      }
+    }
+
+    @Nonnull
+    private AbstractBinopExpr readBinop(int kind) throws IOException {
+      if (kind < 0 || kind >= BINOPS.size()) {
+        throw new IOException("Unknown binop kind " + kind);
+      }
+      Class<? extends AbstractBinopExpr> binopClass = BINOPS.get(kind);
+      Immediate op1 = (Immediate) readValue();
+      Immediate op2 = (Immediate) readValue();
+      if (binopClass == JAddExpr.class) {
+        return Jimple.newAddExpr(op1, op2);
+      } else if (binopClass == JAndExpr.class) {
+        return Jimple.newAndExpr(op1, op2);
+      } else if (binopClass == JCmpExpr.class) {
+        return Jimple.newCmpExpr(op1, op2);
+      } else if (binopClass == JCmpgExpr.class) {
+        return Jimple.newCmpgExpr(op1, op2);
+      } else if (binopClass == JCmplExpr.class) {
+        return Jimple.newCmplExpr(op1, op2);
+      } else if (binopClass == JDivExpr.class) {
+        return Jimple.newDivExpr(op1, op2);
+      } else if (binopClass == JEqExpr.class) {
+        return Jimple.newEqExpr(op1, op2);
+      } else if (binopClass == JGeExpr.class) {
+        return Jimple.newGeExpr(op1, op2);
+      } else if (binopClass == JGtExpr.class) {
+        return Jimple.newGtExpr(op1, op2);
+      } else if (binopClass == JLeExpr.class) {
+        return Jimple.newLeExpr(op1, op2);
+      } else if (binopClass == JLtExpr.class) {
+        return Jimple.newLtExpr(op1, op2);
+      } else if (binopClass == JMulExpr.class) {
+        return Jimple.newMulExpr(op1, op2);
+      } else if (binopClass == JNeExpr.class) {
+        return Jimple.newNeExpr(op1, op2);
+      } else if (binopClass == JOrExpr.class) {
+        return Jimple.newOrExpr(op1, op2);
+      } else if (binopClass == JRemExpr.class) {
+        return Jimple.newRemExpr(op1, op2);
+      } else if (binopClass == JShlExpr.class) {
+        return Jimple.newShlExpr(op1, op2);
+      } else if (binopClass == JShrExpr.class) {
+        return Jimple.newShrExpr(op1, op2);
+      } else if (binopClass == JSubExpr.class) {
+        return Jimple.newSubExpr(op1, op2);
+      } else if (binopClass == JUshrExpr.class) {
+        return Jimple.newUshrExpr(op1, op2);
+      } else {
+        return Jimple.newXorExpr(op1, op2);
+      }
+    }
+
+    @Nonnull
+    private List<Immediate> readImmediates() throws IOException {
+      int count = readVarInt();
+      List<Immediate> immediates = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        immediates.add((Immediate) readValue());
+      }
+      return immediates;
+    }
+
+    @Nonnull
+    private MethodSignature readMethodSignature() throws IOException {
+      ClassType declClassType = (ClassType) readType();
+      String name = readString();
+      Type returnType = readType();
+      return identifierFactory.getMethodSignature(declClassType, name, returnType, readTypes());
+    }
+
+    @Nonnull
+    private FieldSignature readFieldSignature() throws IOException {
+      ClassType declClassType = (ClassType) readType();
+      String name = readString();
+      return identifierFactory.getFieldSignature(name, declClassType, readType());
+    }
+
+    @Nonnull
+    private List<Type> readTypes() throws IOException {
+      int count = readVarInt();
+      List<Type> types = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        types.add(readType());
+      }
+      return types;
+    }
+
+    @Nonnull
+    private Type readType() throws IOException {
+      int tag = in.readByte();
+      switch (tag) {
+        case T_BOOLEAN:
+          return PrimitiveType.getBoolean();
+        case T_BYTE:
+          return PrimitiveType.getByte();
+        case T_CHAR:
+          return PrimitiveType.getChar();
+        case T_SHORT:
+          return PrimitiveType.getShort();
+        case T_INT:
+          return PrimitiveType.getInt();
+        case T_LONG:
+          return PrimitiveType.getLong();
+        case T_FLOAT:
+          return PrimitiveType.getFloat();
+        case T_DOUBLE:
+          return PrimitiveType.getDouble();
+        case T_CLASS:
+          return identifierFactory.getClassType(readString());
+        case T_ARRAY:
+          {
+            Type baseType = readType();
+            return identifierFactory.getArrayType(baseType, readVarInt());
+          }
+        case T_NULL:
+          return NullType.getInstance();
+        case T_VOID:
+          return VoidType.getInstance();
+        case T_UNKNOWN:
+          return UnknownType.getInstance();
+        default:
+          throw new IOException("Unknown type tag " + tag);
+      }
+    }
+
+    @Nonnull
+    private String readString() throws IOException {
+      int idx = readVarInt();
+      if (idx > 0) {
+        return strings.get(idx - 1);
+      }
+      byte[] bytes = new byte[readVarInt()];
+      in.readFully(bytes);
+      String str = new String(bytes, StandardCharsets.UTF_8);
+      strings.add(str);
+      return str;
+    }
+
+    private int readSignedVarInt() throws IOException {
+      int value = readVarInt();
+      return (value >>> 1) ^ -(value & 1);
+    }
+
+    private int readVarInt() throws IOException {
+      int value = 0;
+      for (int shift = 0; shift < 35; shift += 7) {
+        int b = in.readByte();
+        value |= (b & 0x7F) << shift;
+        if ((b & 0x80) == 0) {
+          return value;
+        }
+      }
+      throw new IOException("Malformed variable length integer.");
+    }
+  }
+}
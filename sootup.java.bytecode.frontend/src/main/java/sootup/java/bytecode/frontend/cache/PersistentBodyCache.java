@@ -0,0 +1,152 @@
+package sootup.java.bytecode.frontend.cache;
+
+/*-
+ * #%L
+ * SootUp
+ * %%
+ * Copyright (C) 1997 - 2024 Raja Vallée-Rai and others
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.List;
+import java.util.Optional;
+import javax.annotation.Nonnull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sootup.core.IdentifierFactory;
+import sootup.core.model.Body;
+import sootup.core.signatures.MethodSignature;
+import sootup.core.transform.BodyInterceptor;
+
+/**
+ * Stores Jimple bodies that were converted from bytecode on disk, so that subsequent runs can skip
+ * the conversion and the interceptors for class files that did not change.
+ *
+ * <p>Bodies are keyed by the hash of the class file contents, the applied {@link BodyInterceptor}s
+ * and the subsignature of the method: {@code <cacheDirectory>/<classKey>/<methodKey>}. The
+ * interceptors are part of the key via their {@link BodyInterceptor#getConfigurationFingerprint()
+ * configuration fingerprint}, i.e. a custom interceptor with options has to override it, otherwise
+ * the cache directory has to be cleared if its configuration changes. Cache entries that can not be
+ * read are ignored and the body is converted again.
+ */
+public class PersistentBodyCache {
+
+  private static final @Nonnull Logger logger = LoggerFactory.getLogger(PersistentBodyCache.class);
+
+  private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+  @Nonnull private final Path cacheDirectory;
+
+  /** @param cacheDirectory the directory in which the bodies are stored; created if necessary */
+  public PersistentBodyCache(@Nonnull Path cacheDirectory) {
+    if (Files.exists(cacheDirectory) && !Files.isDirectory(cacheDirectory)) {
+      throw new IllegalArgumentException(
+          "The cache location '" + cacheDirectory + "' is not a directory.");
+    }
+    this.cacheDirectory = cacheDirectory;
+  }
+
+  @Nonnull
+  public Path getCacheDirectory() {
+    return cacheDirectory;
+  }
+
+  /**
+   * Computes the key under which the bodies of a class are stored.
+   *
+   * @param classFileContents the bytes of the class file the bodies are converted from
+   * @param bodyInterceptors the interceptors that are applied after the conversion
+   */
+  @Nonnull
+  public String getClassKey(
+      @Nonnull byte[] classFileContents, @Nonnull List<BodyInterceptor> bodyInterceptors) {
+    Hasher hasher = HASH_FUNCTION.newHasher();
+    hasher.putInt(BinaryBodyFormat.VERSION);
+    hasher.putInt(bodyInterceptors.size());
+    for (BodyInterceptor bodyInterceptor : bodyInterceptors) {
+      // wrappers like the RunTimeBodyInterceptor return the fingerprint of the wrapped interceptor
+      String fingerprint = bodyInterceptor.getConfigurationFingerprint();
+      hasher.putInt(fingerprint.length());
+      hasher.putString(fingerprint, StandardCharsets.UTF_8);
+    }
+    hasher.putBytes(classFileContents);
+    return hasher.hash().toString();
+  }
+
+  /** Returns the cached body of the given method, if there is a readable one. */
+  @Nonnull
+  public Optional<Body> load(
+      @Nonnull String classKey,
+      @Nonnull MethodSignature methodSignature,
+      @Nonnull IdentifierFactory identifierFactory) {
+    Path file = getFile(classKey, methodSignature);
+    if (!Files.isRegularFile(file)) {
+      return Optional.empty();
+    }
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      return Optional.of(BinaryBodyFormat.read(in, methodSignature, identifierFactory));
+    } catch (IOException | RuntimeException e) {
+      logger.debug("Ignoring unreadable cache entry " + file, e);
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Writes the given body to the cache. Bodies that contain constructs which are not supported by
+   * the format are skipped, as are failures to write to the file system.
+   */
+  public void store(@Nonnull String classKey, @Nonnull Body body) {
+    Path file = getFile(classKey, body.getMethodSignature());
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try {
+      BinaryBodyFormat.write(body, new DataOutputStream(bytes));
+    } catch (IOException | RuntimeException e) {
+      logger.debug("Can not cache the body of " + body.getMethodSignature(), e);
+      return;
+    }
+
+    try {
+      Files.createDirectories(file.getParent());
+      // write to a temporary file first, so concurrent readers never see a partially written entry
+      Path tmpFile = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+      try {
+        Files.write(tmpFile, bytes.toByteArray());
+        Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING);
+      } finally {
+        Files.deleteIfExists(tmpFile);
+      }
+    } catch (IOException e) {
+      logger.warn("Failed to write cache entry " + file, e);
+    }
+  }
+
+  @Nonnull
+  private Path getFile(@Nonnull String classKey, @Nonnull MethodSignature methodSignature) {
+    String methodKey =
+        HASH_FUNCTION
+            .hashString(methodSignature.getSubSignature().toString(), StandardCharsets.UTF_8)
+            .toString();
+    return cacheDirectory.resolve(classKey).resolve(methodKey);
+  }
+}
@@ -21,9 +21,12 @@ package sootup.java.bytecode.frontend.conversion;
  * #L%
  */
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Optional;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.tree.ClassNode;
@@ -35,6 +38,7 @@ import sootup.core.inputlocation.AnalysisInputLocation;
 import sootup.core.inputlocation.FileType;
 import sootup.core.types.ClassType;
 import sootup.core.views.View;
+import sootup.java.bytecode.frontend.cache.PersistentBodyCache;
 import sootup.java.core.JavaModuleIdentifierFactory;
 import sootup.java.core.types.JavaClassType;
 import sootup.java.core.types.ModuleJavaClassType;
@@ -43,10 +47,33 @@ import sootup.java.core.types.ModuleJavaClassType;
 public class AsmJavaClassProvider implements ClassProvider {
 
   @Nonnull private final View view;
+  @Nullable private final PersistentBodyCache bodyCache;
+  private final boolean deferMethodCode;
   private static final @Nonnull Logger logger = LoggerFactory.getLogger(AsmJavaClassProvider.class);
 
   public AsmJavaClassProvider(@Nonnull View view) {
+    this(view, null);
+  }
+
+  /**
+   * @param bodyCache if not null, converted bodies are stored in and retrieved from the given cache
+   */
+  public AsmJavaClassProvider(@Nonnull View view, @Nullable PersistentBodyCache bodyCache) {
+    this(view, bodyCache, false);
+  }
+
+  /**
+   * @param bodyCache if not null, converted bodies are stored in and retrieved from the given cache
+   * @param deferMethodCode if true, only the header, fields and method declarations of a class are
+   *     read when its class source is created. The code of a method is read from the class file
+   *     when its body is resolved for the first time, so classes that are only used for their
+   *     hierarchy or signatures do not hold their instructions on the heap.
+   */
+  public AsmJavaClassProvider(
+      @Nonnull View view, @Nullable PersistentBodyCache bodyCache, boolean deferMethodCode) {
     this.view = view;
+    this.bodyCache = bodyCache;
+    this.deferMethodCode = deferMethodCode;
   }
 
   @Override
@@ -57,9 +84,20 @@ public class AsmJavaClassProvider implements ClassProvider {
 
     SootClassNode classNode;
     final String actualClassSignature;
+    final int parsingOptions =
+        deferMethodCode ? ClassReader.SKIP_FRAMES | ClassReader.SKIP_CODE : ClassReader.SKIP_FRAMES;
     try {
-      classNode = new SootClassNode(analysisInputLocation);
-      actualClassSignature = AsmUtil.initAsmClassSource(sourcePath, classNode);
+      if (bodyCache == null) {
+        classNode = new SootClassNode(analysisInputLocation, sourcePath, null);
+        actualClassSignature = AsmUtil.initAsmClassSource(sourcePath, classNode, parsingOptions);
+      } else {
+        byte[] classFileContents = Files.readAllBytes(sourcePath);
+        String classKey =
+            bodyCache.getClassKey(classFileContents, analysisInputLocation.getBodyInterceptors());
+        classNode = new SootClassNode(analysisInputLocation, sourcePath, classKey);
+        actualClassSignature =
+            AsmUtil.initAsmClassSource(classFileContents, classNode, parsingOptions);
+      }
     } catch (IOException exception) {
       logger.warn("ioe: " + sourcePath, exception);
       return Optional.empty();
@@ -104,10 +142,17 @@ public class AsmJavaClassProvider implements ClassProvider {
   class SootClassNode extends ClassNode {
 
     private final AnalysisInputLocation analysisInputLocation;
+    @Nonnull private final Path sourcePath;
+    @Nullable private final String classKey;
 
-    SootClassNode(AnalysisInputLocation analysisInputLocation) {
+    SootClassNode(
+        AnalysisInputLocation analysisInputLocation,
+        @Nonnull Path sourcePath,
+        @Nullable String classKey) {
       super(AsmUtil.SUPPORTED_ASM_OPCODE);
       this.analysisInputLocation = analysisInputLocation;
+      this.sourcePath = sourcePath;
+      this.classKey = classKey;
     }
 
     @Override
@@ -127,7 +172,14 @@ public class AsmJavaClassProvider implements ClassProvider {
               signature,
               exceptions,
               view,
-              analysisInputLocation.getBodyInterceptors());
+              analysisInputLocation.getBodyInterceptors(),
+              analysisInputLocation.getStmtGraphValidation());
+      if (classKey != null) {
+        mn.setBodyCache(bodyCache, classKey);
+      }
+      if (deferMethodCode) {
+        mn.setDeferredCodeSource(sourcePath);
+      }
       methods.add(mn);
       return mn;
     }
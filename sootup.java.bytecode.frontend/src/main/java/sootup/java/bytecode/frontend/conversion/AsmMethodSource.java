@@ -27,6 +27,8 @@ import com.google.common.base.Suppliers;
 import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.LinkedListMultimap;
 import com.google.common.collect.Table;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.Map.Entry;
 import java.util.function.BiFunction;
@@ -37,9 +39,11 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import org.objectweb.asm.ConstantDynamic;
 import org.objectweb.asm.Handle;
+import org.objectweb.asm.Label;
 import org.objectweb.asm.commons.JSRInlinerAdapter;
 import org.objectweb.asm.tree.*;
 import sootup.core.frontend.BodySource;
+import sootup.core.frontend.ResolveException;
 import sootup.core.graph.MutableBlockStmtGraph;
 import sootup.core.jimple.Jimple;
 import sootup.core.jimple.basic.*;
@@ -52,9 +56,11 @@ import sootup.core.model.*;
 import sootup.core.signatures.FieldSignature;
 import sootup.core.signatures.MethodSignature;
 import sootup.core.transform.BodyInterceptor;
+import sootup.core.transform.StmtGraphValidation;
 import sootup.core.types.*;
 import sootup.core.util.Modifiers;
 import sootup.core.views.View;
+import sootup.java.bytecode.frontend.cache.PersistentBodyCache;
 import sootup.java.core.JavaIdentifierFactory;
 import sootup.java.core.jimple.basic.JavaLocal;
 import sootup.java.core.language.JavaJimple;
@@ -106,6 +112,7 @@ public class AsmMethodSource extends JSRInlinerAdapter implements BodySource {
 
   private final View view;
   private final List<BodyInterceptor> bodyInterceptors;
+  @Nonnull private final StmtGraphValidation stmtGraphValidation;
 
   @Nonnull private final Set<LabelNode> inlineExceptionLabels = new HashSet<>();
 
@@ -116,6 +123,18 @@ public class AsmMethodSource extends JSRInlinerAdapter implements BodySource {
   private final JavaIdentifierFactory identifierFactory;
   private final Supplier<MethodSignature> lazyMethodSignature;
 
+  @Nullable private PersistentBodyCache bodyCache;
+  @Nullable private String classKey;
+
+  /** the class file from which the code is read on the first body resolution, if it was skipped */
+  @Nullable private Path deferredCodeSource;
+
+  /**
+   * the code contains subroutines: the JSRInlinerAdapter keeps state about them, so the code can
+   * not be visited a second time
+   */
+  private boolean containsSubroutines = false;
+
   AsmMethodSource(
       int access,
       @Nonnull String name,
@@ -123,9 +142,11 @@ public class AsmMethodSource extends JSRInlinerAdapter implements BodySource {
       @Nonnull String signature,
       @Nonnull String[] exceptions,
       View view,
-      @Nonnull List<BodyInterceptor> bodyInterceptors) {
+      @Nonnull List<BodyInterceptor> bodyInterceptors,
+      @Nonnull StmtGraphValidation stmtGraphValidation) {
     super(AsmUtil.SUPPORTED_ASM_OPCODE, null, access, name, desc, signature, exceptions);
     this.bodyInterceptors = bodyInterceptors;
+    this.stmtGraphValidation = stmtGraphValidation;
     this.view = view;
 
     identifierFactory = (JavaIdentifierFactory) view.getIdentifierFactory();
@@ -145,6 +166,23 @@ public class AsmMethodSource extends JSRInlinerAdapter implements BodySource {
     return lazyMethodSignature.get();
   }
 
+  void setBodyCache(@Nonnull PersistentBodyCache bodyCache, @Nonnull String classKey) {
+    this.bodyCache = bodyCache;
+    this.classKey = classKey;
+  }
+
+  void setDeferredCodeSource(@Nonnull Path classFile) {
+    this.deferredCodeSource = classFile;
+  }
+
+  @Override
+  public void visitJumpInsn(int opcode, Label label) {
+    if (opcode == JSR) {
+      containsSubroutines = true;
+    }
+    super.visitJumpInsn(opcode, label);
+  }
+
   void setDeclaringClass(@Nonnull ClassType declaringClass) {
     this.declaringClass = (JavaClassType) declaringClass;
   }
@@ -159,8 +197,36 @@ public class AsmMethodSource extends JSRInlinerAdapter implements BodySource {
   @Nonnull
   public Body resolveBody(@Nonnull Iterable<MethodModifier> modifierIt) {
 
-    /* initialize */
+    if (bodyCache != null && classKey != null) {
+      Optional<Body> cachedBody =
+          bodyCache.load(classKey, lazyMethodSignature.get(), identifierFactory);
+      if (cachedBody.isPresent()) {
+        return cachedBody.get();
+      }
+    }
+
+    final Path codeSource = deferredCodeSource;
+    if (codeSource != null) {
+      try {
+        AsmUtil.visitMethodCode(codeSource, name, desc, this);
+      } catch (IOException e) {
+        throw new ResolveException(
+            "Can not read the code of " + lazyMethodSignature.get(), codeSource, e);
+      }
+      deferredCodeSource = null;
+    }
+
+    /* initialize: the body might have been resolved before */
     nextLocal = maxLocals;
+    currentLineNumber = -1;
+    maxLineNumber = 0;
+    replacedStmt.clear();
+    startTrapHandler.clear();
+    endTrapHandler.clear();
+    activeTrapHandlers.clear();
+    inlineExceptionLabels.clear();
+    inlineExceptionHandlers.clear();
+    labelsToStmt.clear();
     locals =
         new NonIndexOutofBoundsArrayList<>(
             maxLocals
@@ -229,20 +295,36 @@ public class AsmMethodSource extends JSRInlinerAdapter implements BodySource {
     insnToStmt = null;
     operandStack = null;
 
+    if (codeSource != null && !containsSubroutines) {
+      // the code is read again if the body has to be resolved another time
+      releaseCode();
+      deferredCodeSource = codeSource;
+    }
+
     bodyBuilder.setMethodSignature(lazyMethodSignature.get());
 
-    for (BodyInterceptor bodyInterceptor : bodyInterceptors) {
-      try {
-        bodyInterceptor.interceptBody(bodyBuilder, view);
-        bodyBuilder
-            .getStmtGraph()
-            .validateStmtConnectionsInGraph(); // TODO: remove in the future ;-)
-      } catch (Exception e) {
-        throw new IllegalStateException(
-            "Failed to apply " + bodyInterceptor + " to " + lazyMethodSignature.get(), e);
-      }
+    Body body = stmtGraphValidation.interceptAndBuild(bodyBuilder, bodyInterceptors, view);
+    if (bodyCache != null && classKey != null) {
+      bodyCache.store(classKey, body);
     }
-    return bodyBuilder.build();
+    return body;
+  }
+
+  /** Drops the instructions and everything that refers to them. */
+  private void releaseCode() {
+    instructions = new InsnList();
+    tryCatchBlocks = new ArrayList<>();
+    localVariables = null;
+    visibleLocalVariableAnnotations = null;
+    invisibleLocalVariableAnnotations = null;
+    trapHandler = null;
+    startTrapHandler.clear();
+    endTrapHandler.clear();
+    activeTrapHandlers.clear();
+    inlineExceptionLabels.clear();
+    inlineExceptionHandlers.clear();
+    labelsToStmt.clear();
+    replacedStmt.clear();
   }
 
   @Override
@@ -21,9 +21,10 @@ package sootup.java.bytecode.frontend.conversion;
  * #L%
  */
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
@@ -31,9 +32,13 @@ import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.Attribute;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.TypePath;
 import org.objectweb.asm.tree.AbstractInsnNode;
 import org.objectweb.asm.tree.AnnotationNode;
 import org.objectweb.asm.tree.ClassNode;
@@ -59,6 +64,15 @@ public final class AsmUtil {
 
   public static final int SUPPORTED_ASM_OPCODE = Opcodes.ASM9;
 
+  /** initial size of the per thread buffer for class files */
+  private static final int INITIAL_CLASS_FILE_BUFFER_SIZE = 16 * 1024;
+
+  /** buffers that grew beyond this size for a huge class file are not kept for the next one */
+  private static final int MAX_RETAINED_CLASS_FILE_BUFFER_SIZE = 1024 * 1024;
+
+  private static final ThreadLocal<byte[]> classFileBuffer =
+      ThreadLocal.withInitial(() -> new byte[INITIAL_CLASS_FILE_BUFFER_SIZE]);
+
   /**
    * Initializes a class node.
    *
@@ -68,11 +82,149 @@ public final class AsmUtil {
    */
   protected static String initAsmClassSource(
       @Nonnull Path classSource, @Nonnull ClassVisitor classNode) throws IOException {
-    try (InputStream sourceFileInputStream = Files.newInputStream(classSource)) {
-      ClassReader clsr = new ClassReader(sourceFileInputStream);
-      clsr.accept(classNode, ClassReader.SKIP_FRAMES);
-      return clsr.getClassName();
+    return initAsmClassSource(classSource, classNode, ClassReader.SKIP_FRAMES);
+  }
+
+  /**
+   * Initializes a class node.
+   *
+   * @param classSource The source.
+   * @param classNode The node to initialize
+   * @param parsingOptions the options for {@link ClassReader#accept(ClassVisitor, int)}
+   * @return the actual class signature found in the compilation unit
+   */
+  protected static String initAsmClassSource(
+      @Nonnull Path classSource, @Nonnull ClassVisitor classNode, int parsingOptions)
+      throws IOException {
+    ClassReader clsr = newClassReader(classSource);
+    clsr.accept(classNode, parsingOptions);
+    return clsr.getClassName();
+  }
+
+  /**
+   * Reads the code of a single method from the given class file, i.e. the instructions, try catch
+   * blocks, local variables, line numbers and the maximum stack and locals. The annotations and
+   * parameters of the method are not visited, so they can be read before with {@link
+   * ClassReader#SKIP_CODE}.
+   *
+   * @param classFile the class file which declares the method
+   * @param name the name of the method
+   * @param desc the descriptor of the method
+   * @param methodVisitor receives the code of the method
+   */
+  protected static void visitMethodCode(
+      @Nonnull Path classFile,
+      @Nonnull String name,
+      @Nonnull String desc,
+      @Nonnull MethodVisitor methodVisitor)
+      throws IOException {
+    newClassReader(classFile)
+        .accept(
+            new ClassVisitor(SUPPORTED_ASM_OPCODE) {
+              @Override
+              public MethodVisitor visitMethod(
+                  int access,
+                  String methodName,
+                  String methodDesc,
+                  String signature,
+                  String[] exceptions) {
+                if (name.equals(methodName) && desc.equals(methodDesc)) {
+                  return new MethodCodeVisitor(methodVisitor);
+                }
+                return null;
+              }
+            },
+            ClassReader.SKIP_FRAMES);
+  }
+
+  /** Forwards only the code of a method, i.e. drops everything that is visited before the code. */
+  private static class MethodCodeVisitor extends MethodVisitor {
+
+    MethodCodeVisitor(@Nonnull MethodVisitor methodVisitor) {
+      super(SUPPORTED_ASM_OPCODE, methodVisitor);
+    }
+
+    @Override
+    public void visitParameter(String name, int access) {}
+
+    @Override
+    public AnnotationVisitor visitAnnotationDefault() {
+      return null;
     }
+
+    @Override
+    public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+      return null;
+    }
+
+    @Override
+    public AnnotationVisitor visitTypeAnnotation(
+        int typeRef, TypePath typePath, String descriptor, boolean visible) {
+      return null;
+    }
+
+    @Override
+    public void visitAnnotableParameterCount(int parameterCount, boolean visible) {}
+
+    @Override
+    public AnnotationVisitor visitParameterAnnotation(
+        int parameter, String descriptor, boolean visible) {
+      return null;
+    }
+
+    @Override
+    public void visitAttribute(Attribute attribute) {}
+  }
+
+  /**
+   * Creates a ClassReader for the given class file. The file is read into a buffer of the calling
+   * thread that is reused for the following class files, instead of copying it via an InputStream
+   * into a new array per class. The size of the file is known upfront - for archives it is taken
+   * from the central directory - so the buffer is filled with a single copy.
+   *
+   * <p>The returned reader is only valid until the next call of this method on the same thread, so
+   * it has to be consumed immediately. {@link ClassReader#accept(ClassVisitor, int)} copies all
+   * data it passes to the visitor, i.e. the visited ClassNode does not reference the buffer.
+   */
+  @Nonnull
+  private static ClassReader newClassReader(@Nonnull Path classFile) throws IOException {
+    byte[] buffer = classFileBuffer.get();
+    int length;
+    try (SeekableByteChannel channel = Files.newByteChannel(classFile)) {
+      long size = channel.size();
+      if (size >= buffer.length && size < Integer.MAX_VALUE) {
+        // one spare byte, so a completely filled buffer indicates that the size was not accurate
+        buffer = new byte[(int) size + 1];
+      }
+      ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
+      while (channel.read(byteBuffer) >= 0) {
+        if (!byteBuffer.hasRemaining()) {
+          // the size was unknown or the file grew in the meantime
+          int position = byteBuffer.position();
+          buffer = Arrays.copyOf(buffer, buffer.length * 2);
+          byteBuffer = ByteBuffer.wrap(buffer);
+          byteBuffer.position(position);
+        }
+      }
+      length = byteBuffer.position();
+    }
+    if (buffer.length <= MAX_RETAINED_CLASS_FILE_BUFFER_SIZE) {
+      classFileBuffer.set(buffer);
+    }
+    return new ClassReader(buffer, 0, length);
+  }
+
+  /**
+   * Initializes a class node from the contents of a class file.
+   *
+   * @param parsingOptions the options for {@link ClassReader#accept(ClassVisitor, int)}
+   * @return the internal name of the class
+   */
+  protected static String initAsmClassSource(
+      @Nonnull byte[] classFileContents, @Nonnull ClassVisitor classNode, int parsingOptions) {
+    ClassReader clsr = new ClassReader(classFileContents);
+    clsr.accept(classNode, parsingOptions);
+    return clsr.getClassName();
   }
 
   /**
@@ -374,8 +526,8 @@ public final class AsmUtil {
   @Nonnull
   public static ClassNode getModuleDescriptor(Path moduleInfoFile) {
     ClassNode moduleDescriptor;
-    try (InputStream sourceFileInputStream = Files.newInputStream(moduleInfoFile)) {
-      ClassReader clsr = new ClassReader(sourceFileInputStream);
+    try {
+      ClassReader clsr = newClassReader(moduleInfoFile);
       moduleDescriptor = new ClassNode(AsmUtil.SUPPORTED_ASM_OPCODE);
       clsr.accept(moduleDescriptor, ClassReader.SKIP_FRAMES);
     } catch (IOException e) {
@@ -38,7 +38,6 @@ import sootup.core.transform.BodyInterceptor;
 import sootup.core.types.ClassType;
 import sootup.core.views.View;
 import sootup.interceptors.BytecodeBodyInterceptors;
-import sootup.java.bytecode.frontend.conversion.AsmJavaClassProvider;
 import sootup.java.core.JavaSootClassSource;
 import sootup.java.core.types.JavaClassType;
 
@@ -93,14 +92,18 @@ public class ArchiveBasedAnalysisInputLocation extends PathBasedAnalysisInputLoc
     super(path, srcType, bodyInterceptors, ignoredPaths);
   }
 
+  @Override
+  boolean isIndexable() {
+    return true;
+  }
+
   @Override
   @Nonnull
   public Optional<JavaSootClassSource> getClassSource(@Nonnull ClassType type, @Nonnull View view) {
     try {
       FileSystem fs = fileSystemCache.get(path);
       final Path archiveRoot = fs.getPath("/");
-      return getClassSourceInternal(
-          (JavaClassType) type, archiveRoot, new AsmJavaClassProvider(view));
+      return getClassSourceInternal((JavaClassType) type, archiveRoot, getClassProvider(view));
     } catch (ExecutionException e) {
       throw new RuntimeException("Failed to retrieve file system from cache for " + path, e);
     }
@@ -112,8 +115,7 @@ public class ArchiveBasedAnalysisInputLocation extends PathBasedAnalysisInputLoc
     try {
       FileSystem fs = fileSystemCache.get(path);
       final Path archiveRoot = fs.getPath("/");
-      return walkDirectory(
-          archiveRoot, view.getIdentifierFactory(), new AsmJavaClassProvider(view));
+      return walkDirectory(archiveRoot, view.getIdentifierFactory(), getClassProvider(view));
     } catch (ExecutionException e) {
       throw new RuntimeException("Failed to retrieve file system from cache for " + path, e);
     }
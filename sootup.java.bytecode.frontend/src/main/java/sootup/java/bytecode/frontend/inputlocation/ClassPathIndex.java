@@ -0,0 +1,272 @@
+package sootup.java.bytecode.frontend.inputlocation;
+
+/*-
+ * #%L
+ * SootUp
+ * %%
+ * Copyright (C) 1997 - 2024 Raja Vallée-Rai and others
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.io.*;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sootup.core.inputlocation.AnalysisInputLocation;
+import sootup.java.core.JavaModuleIdentifierFactory;
+
+/**
+ * Maps the fully qualified names of the classes on a class path to the index of the first input
+ * location that contains them, so a class lookup does not have to probe every archive of the class
+ * path.
+ *
+ * <p>Only jars and directories are indexed (see {@link
+ * PathBasedAnalysisInputLocation#isIndexable()}), any other input location is queried as before.
+ * The index can be persisted next to the class path: on loading, the entries of archives whose
+ * modification time and size did not change are reused, while changed archives and all directories
+ * are scanned again.
+ */
+class ClassPathIndex {
+
+  private static final @Nonnull Logger logger = LoggerFactory.getLogger(ClassPathIndex.class);
+
+  private static final int FORMAT_VERSION = 1;
+  private static final String CLASS_FILE_EXTENSION = ".class";
+  private static final String MODULE_INFO_FILE =
+      JavaModuleIdentifierFactory.MODULE_INFO_FILE + CLASS_FILE_EXTENSION;
+
+  /** the class names per indexed location, null for locations that are not indexed */
+  @Nonnull private final List<List<String>> classNamesPerLocation;
+
+  @Nonnull private final Map<String, Integer> locationOfClass = new HashMap<>();
+
+  /** index of the first location that is not indexed */
+  private final int firstUnindexedLocation;
+
+  private ClassPathIndex(@Nonnull List<List<String>> classNamesPerLocation) {
+    this.classNamesPerLocation = classNamesPerLocation;
+    int firstUnindexed = classNamesPerLocation.size();
+    for (int i = 0; i < classNamesPerLocation.size(); i++) {
+      List<String> classNames = classNamesPerLocation.get(i);
+      if (classNames == null) {
+        firstUnindexed = Math.min(firstUnindexed, i);
+        continue;
+      }
+      for (String className : classNames) {
+        locationOfClass.putIfAbsent(className, i);
+      }
+    }
+    this.firstUnindexedLocation = firstUnindexed;
+  }
+
+  /**
+   * Returns the index of the first indexed location that contains the given class, or -1 if no
+   * indexed location contains it.
+   */
+  int getLocationIndex(@Nonnull String fullyQualifiedName) {
+    return locationOfClass.getOrDefault(fullyQualifiedName, -1);
+  }
+
+  /** Returns true if the classes of the location at the given index are part of the index. */
+  boolean isIndexed(int locationIdx) {
+    return classNamesPerLocation.get(locationIdx) != null;
+  }
+
+  /**
+   * Returns the index of the first location that is not part of the index, or the number of
+   * locations if all of them are indexed.
+   */
+  int getFirstUnindexedLocation() {
+    return firstUnindexedLocation;
+  }
+
+  int size() {
+    return locationOfClass.size();
+  }
+
+  /**
+   * Builds the index for the given locations. If an index file is given, the still valid entries of
+   * it are reused and the file is updated afterwards.
+   */
+  @Nonnull
+  static ClassPathIndex build(
+      @Nonnull List<AnalysisInputLocation> locations, @Nullable Path indexFile) {
+    Map<String, PersistedEntry> persisted =
+        indexFile != null && Files.isRegularFile(indexFile)
+            ? readEntries(indexFile)
+            : Collections.emptyMap();
+
+    List<PersistedEntry> archiveEntries = new ArrayList<>();
+    List<List<String>> classNamesPerLocation = new ArrayList<>(locations.size());
+    boolean changed = false;
+    for (AnalysisInputLocation location : locations) {
+      if (!(location instanceof PathBasedAnalysisInputLocation)
+          || !((PathBasedAnalysisInputLocation) location).isIndexable()) {
+        classNamesPerLocation.add(null);
+        continue;
+      }
+
+      Path path = ((PathBasedAnalysisInputLocation) location).path;
+      try {
+        if (Files.isDirectory(path)) {
+          classNamesPerLocation.add(scanDirectory(path));
+          continue;
+        }
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        String key = path.toAbsolutePath().toString();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        PersistedEntry entry = persisted.get(key);
+        if (entry == null
+            || entry.lastModified != lastModified
+            || entry.size != attributes.size()) {
+          entry = new PersistedEntry(key, lastModified, attributes.size(), scanArchive(path));
+          changed = true;
+        }
+        archiveEntries.add(entry);
+        classNamesPerLocation.add(entry.classNames);
+      } catch (IOException e) {
+        logger.warn("Can not index " + path + ", it is queried without the index.", e);
+        classNamesPerLocation.add(null);
+      }
+    }
+
+    if (indexFile != null && (changed || archiveEntries.size() != persisted.size())) {
+      writeEntries(indexFile, archiveEntries);
+    }
+    return new ClassPathIndex(classNamesPerLocation);
+  }
+
+  @Nonnull
+  private static List<String> scanDirectory(@Nonnull Path dir) throws IOException {
+    try (Stream<Path> walk = Files.walk(dir)) {
+      return walk.filter(
+              file ->
+                  file.toString().endsWith(CLASS_FILE_EXTENSION)
+                      && !file.endsWith(MODULE_INFO_FILE))
+          .map(
+              file ->
+                  toClassName(
+                      dir.relativize(file)
+                          .toString()
+                          .replace(file.getFileSystem().getSeparator(), "/")))
+          .collect(Collectors.toList());
+    }
+  }
+
+  @Nonnull
+  private static List<String> scanArchive(@Nonnull Path archive) throws IOException {
+    List<String> classNames = new ArrayList<>();
+    try (ZipFile zipFile = new ZipFile(archive.toFile())) {
+      Enumeration<? extends ZipEntry> entries = zipFile.entries();
+      while (entries.hasMoreElements()) {
+        String name = entries.nextElement().getName();
+        if (name.endsWith(CLASS_FILE_EXTENSION)
+            && !name.startsWith("META-INF/")
+            && !name.endsWith(MODULE_INFO_FILE)) {
+          classNames.add(toClassName(name));
+        }
+      }
+    }
+    return classNames;
+  }
+
+  @Nonnull
+  private static String toClassName(@Nonnull String entryName) {
+    return entryName
+        .substring(0, entryName.length() - CLASS_FILE_EXTENSION.length())
+        .replace('/', '.');
+  }
+
+  private static class PersistedEntry {
+    @Nonnull final String path;
+    final long lastModified;
+    final long size;
+    @Nonnull final List<String> classNames;
+
+    PersistedEntry(
+        @Nonnull String path, long lastModified, long size, @Nonnull List<String> classNames) {
+      this.path = path;
+      this.lastModified = lastModified;
+      this.size = size;
+      this.classNames = classNames;
+    }
+  }
+
+  @Nonnull
+  private static Map<String, PersistedEntry> readEntries(@Nonnull Path indexFile) {
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+      if (in.readInt() != FORMAT_VERSION) {
+        return Collections.emptyMap();
+      }
+      int entryCount = in.readInt();
+      Map<String, PersistedEntry> entries = new HashMap<>(entryCount * 2);
+      for (int i = 0; i < entryCount; i++) {
+        String path = in.readUTF();
+        long lastModified = in.readLong();
+        long size = in.readLong();
+        int classCount = in.readInt();
+        List<String> classNames = new ArrayList<>(classCount);
+        for (int j = 0; j < classCount; j++) {
+          classNames.add(in.readUTF());
+        }
+        entries.put(path, new PersistedEntry(path, lastModified, size, classNames));
+      }
+      return entries;
+    } catch (IOException e) {
+      logger.warn("Ignoring unreadable class path index " + indexFile, e);
+      return Collections.emptyMap();
+    }
+  }
+
+  private static void writeEntries(@Nonnull Path indexFile, @Nonnull List<PersistedEntry> entries) {
+    try {
+      Path dir = indexFile.toAbsolutePath().getParent();
+      Files.createDirectories(dir);
+      Path tmpFile = Files.createTempFile(dir, indexFile.getFileName().toString(), ".tmp");
+      try {
+        try (DataOutputStream out =
+            new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpFile)))) {
+          out.writeInt(FORMAT_VERSION);
+          out.writeInt(entries.size());
+          for (PersistedEntry entry : entries) {
+            out.writeUTF(entry.path);
+            out.writeLong(entry.lastModified);
+            out.writeLong(entry.size);
+            out.writeInt(entry.classNames.size());
+            for (String className : entry.classNames) {
+              out.writeUTF(className);
+            }
+          }
+        }
+        Files.move(tmpFile, indexFile, StandardCopyOption.REPLACE_EXISTING);
+      } finally {
+        Files.deleteIfExists(tmpFile);
+      }
+    } catch (IOException e) {
+      logger.warn("Failed to write class path index " + indexFile, e);
+    }
+  }
+}
@@ -30,6 +30,7 @@ import java.util.regex.PatternSyntaxException;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import sootup.core.frontend.SootClassSource;
@@ -56,13 +57,17 @@ public class JavaClassPathAnalysisInputLocation implements AnalysisInputLocation
       LoggerFactory.getLogger(JavaClassPathAnalysisInputLocation.class);
   private static final @Nonnull String WILDCARD_CHAR = "*";
 
-  @Nonnull private final Collection<AnalysisInputLocation> cpEntries;
+  @Nonnull private final List<AnalysisInputLocation> cpEntries;
 
   /** Variable to track if user has specified the SourceType. By default, it will be set to null. */
   private final SourceType srcType;
 
   private final List<BodyInterceptor> bodyInterceptors;
 
+  private boolean useIndex = false;
+  @Nullable private Path indexFile;
+  @Nullable private volatile ClassPathIndex index;
+
   /**
    * Creates a {@link JavaClassPathAnalysisInputLocation} which locates classes in the given class
    * path.
@@ -111,6 +116,35 @@ public class JavaClassPathAnalysisInputLocation implements AnalysisInputLocation
     return bodyInterceptors;
   }
 
+  /**
+   * Enables an index of the classes in the jars and directories of the class path, so that {@link
+   * #getClassSource(ClassType, View)} asks only the class path entry that contains the class
+   * instead of probing every entry. The index is built on the first lookup.
+   *
+   * @param indexFile if not null, the index is loaded from and stored in this file, so that only
+   *     archives whose modification time or size changed have to be scanned again
+   */
+  public synchronized void enableClassPathIndex(@Nullable Path indexFile) {
+    this.useIndex = true;
+    this.indexFile = indexFile;
+    this.index = null;
+  }
+
+  @Nonnull
+  private ClassPathIndex getIndex() {
+    ClassPathIndex classPathIndex = index;
+    if (classPathIndex == null) {
+      synchronized (this) {
+        classPathIndex = index;
+        if (classPathIndex == null) {
+          classPathIndex = ClassPathIndex.build(cpEntries, indexFile);
+          index = classPathIndex;
+        }
+      }
+    }
+    return classPathIndex;
+  }
+
   /**
    * Explode the class or modulepath entries, separated by {@link File#pathSeparator}.
    *
@@ -187,9 +221,32 @@ public class JavaClassPathAnalysisInputLocation implements AnalysisInputLocation
   @Override
   @Nonnull
   public Optional<JavaSootClassSource> getClassSource(@Nonnull ClassType type, @Nonnull View view) {
-    for (AnalysisInputLocation inputLocation : cpEntries) {
+    if (!useIndex) {
+      return getClassSource(type, view, 0);
+    }
+
+    ClassPathIndex classPathIndex = getIndex();
+    int owner = classPathIndex.getLocationIndex(type.getFullyQualifiedName());
+    // entries that are not indexed and precede the owner still have to be asked first
+    int end = owner < 0 ? cpEntries.size() : owner;
+    for (int i = classPathIndex.getFirstUnindexedLocation(); i < end; i++) {
+      if (!classPathIndex.isIndexed(i)) {
+        final Optional<? extends SootClassSource> classSource =
+            cpEntries.get(i).getClassSource(type, view);
+        if (classSource.isPresent()) {
+          return classSource.map(src -> (JavaSootClassSource) src);
+        }
+      }
+    }
+    return owner < 0 ? Optional.empty() : getClassSource(type, view, owner);
+  }
+
+  @Nonnull
+  private Optional<JavaSootClassSource> getClassSource(
+      @Nonnull ClassType type, @Nonnull View view, int firstEntry) {
+    for (int i = firstEntry; i < cpEntries.size(); i++) {
       final Optional<? extends SootClassSource> classSource =
-          inputLocation.getClassSource(type, view);
+          cpEntries.get(i).getClassSource(type, view);
       if (classSource.isPresent()) {
         return classSource.map(src -> (JavaSootClassSource) src);
       }
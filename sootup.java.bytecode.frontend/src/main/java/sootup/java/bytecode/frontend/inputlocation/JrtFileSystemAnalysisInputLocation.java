@@ -28,6 +28,7 @@ import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import org.apache.commons.io.FilenameUtils;
 import sootup.core.IdentifierFactory;
 import sootup.core.frontend.ClassProvider;
@@ -36,10 +37,12 @@ import sootup.core.frontend.SootClassSource;
 import sootup.core.inputlocation.AnalysisInputLocation;
 import sootup.core.model.SourceType;
 import sootup.core.transform.BodyInterceptor;
+import sootup.core.transform.StmtGraphValidation;
 import sootup.core.types.ClassType;
 import sootup.core.util.StreamUtils;
 import sootup.core.views.View;
 import sootup.interceptors.BytecodeBodyInterceptors;
+import sootup.java.bytecode.frontend.cache.PersistentBodyCache;
 import sootup.java.bytecode.frontend.conversion.AsmJavaClassProvider;
 import sootup.java.bytecode.frontend.conversion.AsmModuleSource;
 import sootup.java.core.*;
@@ -63,6 +66,11 @@ public class JrtFileSystemAnalysisInputLocation implements ModuleInfoAnalysisInp
 
   @Nonnull private final List<BodyInterceptor> bodyInterceptors;
 
+  @Nullable private PersistentBodyCache bodyCache;
+
+  private boolean deferMethodCode = false;
+  @Nonnull private StmtGraphValidation stmtGraphValidation = StmtGraphValidation.FINAL;
+
   public JrtFileSystemAnalysisInputLocation() {
     this(SourceType.Library);
   }
@@ -177,8 +185,38 @@ public class JrtFileSystemAnalysisInputLocation implements ModuleInfoAnalysisInp
     }
   }
 
+  /**
+   * Sets a cache in which the converted bodies of the runtime classes are persisted, so that they
+   * are not converted again in subsequent runs.
+   */
+  public void setBodyCache(@Nullable PersistentBodyCache bodyCache) {
+    this.bodyCache = bodyCache;
+  }
+
+  /**
+   * If enabled, the code of a method is read when its body is resolved instead of when the class
+   * source is created.
+   */
+  public void setDeferMethodCode(boolean deferMethodCode) {
+    this.deferMethodCode = deferMethodCode;
+  }
+
+  /**
+   * Sets how the StmtGraphs of the converted bodies are validated while the body interceptors are
+   * applied.
+   */
+  public void setStmtGraphValidation(@Nonnull StmtGraphValidation stmtGraphValidation) {
+    this.stmtGraphValidation = stmtGraphValidation;
+  }
+
+  @Override
+  @Nonnull
+  public StmtGraphValidation getStmtGraphValidation() {
+    return stmtGraphValidation;
+  }
+
   protected ClassProvider getClassProvider(@Nonnull View view) {
-    return new AsmJavaClassProvider(view);
+    return new AsmJavaClassProvider(view, bodyCache, deferMethodCode);
   }
 
   @Override
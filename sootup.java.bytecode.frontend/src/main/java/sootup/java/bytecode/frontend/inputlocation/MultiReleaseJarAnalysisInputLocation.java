@@ -156,6 +156,12 @@ public class MultiReleaseJarAnalysisInputLocation extends ArchiveBasedAnalysisIn
         Collections.singletonList(Paths.get("/META-INF")));
   }
 
+  @Override
+  boolean isIndexable() {
+    // the classes are resolved from the versioned directories
+    return false;
+  }
+
   @Override
   @Nonnull
   public Optional<JavaSootClassSource> getClassSource(@Nonnull ClassType type, @Nonnull View view) {
@@ -1,13 +1,14 @@
 package sootup.java.bytecode.frontend.inputlocation;
 
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import java.io.*;
 import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
@@ -24,11 +25,13 @@ import sootup.core.inputlocation.AnalysisInputLocation;
 import sootup.core.inputlocation.FileType;
 import sootup.core.model.SourceType;
 import sootup.core.transform.BodyInterceptor;
+import sootup.core.transform.StmtGraphValidation;
 import sootup.core.types.ClassType;
 import sootup.core.util.PathUtils;
 import sootup.core.util.StreamUtils;
 import sootup.core.views.View;
 import sootup.interceptors.BytecodeBodyInterceptors;
+import sootup.java.bytecode.frontend.cache.PersistentBodyCache;
 import sootup.java.bytecode.frontend.conversion.AsmJavaClassProvider;
 import sootup.java.core.*;
 import sootup.java.core.types.JavaClassType;
@@ -67,6 +70,9 @@ public abstract class PathBasedAnalysisInputLocation implements AnalysisInputLoc
   @Nonnull protected Collection<Path> ignoredPaths;
   @Nonnull protected final SourceType sourceType;
   @Nonnull protected final List<BodyInterceptor> bodyInterceptors;
+  @Nullable protected PersistentBodyCache bodyCache;
+  protected boolean deferMethodCode = false;
+  @Nonnull protected StmtGraphValidation stmtGraphValidation = StmtGraphValidation.FINAL;
 
   protected PathBasedAnalysisInputLocation(@Nonnull Path path, @Nonnull SourceType srcType) {
     this(path, srcType, Collections.emptyList());
@@ -109,6 +115,55 @@ public abstract class PathBasedAnalysisInputLocation implements AnalysisInputLoc
     return bodyInterceptors;
   }
 
+  /**
+   * Sets a cache in which the converted bodies of this input location are persisted, so that
+   * unchanged class files are not converted again in subsequent runs.
+   */
+  public void setBodyCache(@Nullable PersistentBodyCache bodyCache) {
+    this.bodyCache = bodyCache;
+  }
+
+  @Nullable
+  public PersistentBodyCache getBodyCache() {
+    return bodyCache;
+  }
+
+  /**
+   * If enabled, only the header, fields and method declarations of a class are read when its class
+   * source is created, while the code of a method is read when its body is resolved. This keeps the
+   * instructions of classes that are only used for the type hierarchy or signatures off the heap.
+   */
+  public void setDeferMethodCode(boolean deferMethodCode) {
+    this.deferMethodCode = deferMethodCode;
+  }
+
+  /**
+   * Sets how the StmtGraphs of the converted bodies are validated while the body interceptors are
+   * applied.
+   */
+  public void setStmtGraphValidation(@Nonnull StmtGraphValidation stmtGraphValidation) {
+    this.stmtGraphValidation = stmtGraphValidation;
+  }
+
+  @Override
+  @Nonnull
+  public StmtGraphValidation getStmtGraphValidation() {
+    return stmtGraphValidation;
+  }
+
+  /**
+   * Returns true if {@link #getClassSource(ClassType, View)} resolves classes by their path
+   * relative to {@link #path}, i.e. the classes can be listed by scanning the directory or archive.
+   */
+  boolean isIndexable() {
+    return false;
+  }
+
+  @Nonnull
+  protected ClassProvider getClassProvider(@Nonnull View view) {
+    return new AsmJavaClassProvider(view, bodyCache, deferMethodCode);
+  }
+
   @Nonnull
   public static PathBasedAnalysisInputLocation create(
       @Nonnull Path path, @Nonnull SourceType sourceType) {
@@ -269,13 +324,13 @@ public abstract class PathBasedAnalysisInputLocation implements AnalysisInputLoc
         return Optional.empty();
       }
 
-      return getSingleClass((JavaClassType) type, path, new AsmJavaClassProvider(view));
+      return getSingleClass((JavaClassType) type, path, getClassProvider(view));
     }
 
     @Nonnull
     @Override
     public Collection<JavaSootClassSource> getClassSources(@Nonnull View view) {
-      AsmJavaClassProvider classProvider = new AsmJavaClassProvider(view);
+      ClassProvider classProvider = getClassProvider(view);
       IdentifierFactory factory = view.getIdentifierFactory();
       Path dirPath = this.path.getParent();
 
@@ -318,27 +373,43 @@ public abstract class PathBasedAnalysisInputLocation implements AnalysisInputLoc
       super(path, srcType, bodyInterceptors, ignoredPaths);
     }
 
+    @Override
+    boolean isIndexable() {
+      return true;
+    }
+
     @Override
     @Nonnull
     public Collection<JavaSootClassSource> getClassSources(@Nonnull View view) {
       // FIXME: 1) store the classprovider reference as a field; 2) and above too; and 3) move view
       // which is only used in SootNode to be just there?
-      return walkDirectory(path, view.getIdentifierFactory(), new AsmJavaClassProvider(view));
+      return walkDirectory(path, view.getIdentifierFactory(), getClassProvider(view));
     }
 
     @Override
     @Nonnull
     public Optional<JavaSootClassSource> getClassSource(
         @Nonnull ClassType type, @Nonnull View view) {
-      return getClassSourceInternal((JavaClassType) type, path, new AsmJavaClassProvider(view));
+      return getClassSourceInternal((JavaClassType) type, path, getClassProvider(view));
     }
   }
 
+  /**
+   * Reads the classes of a war file in place: WEB-INF/classes is read through the zip file system
+   * of the war and the jars in WEB-INF/lib are opened as nested zip file systems, whose central
+   * directories serve as in-memory index of their entries. Nothing is extracted to the disk, except
+   * for the nested jars on runtimes that can not open a zip file system inside of another one.
+   */
   private static final class WarArchiveAnalysisInputLocation
-      extends DirectoryBasedAnalysisInputLocation {
+      extends PathBasedAnalysisInputLocation {
     public List<AnalysisInputLocation> containedInputLocations = new ArrayList<>();
-    public static int maxAllowedBytesToExtract =
-        1024 * 1024 * 500; // limit of extracted file size to protect against archive bombs
+    // limit of the uncompressed size of nested jars to protect against archive bombs
+    public static long maxAllowedBytesToExtract = 1024 * 1024 * 500;
+
+    /** keeps the file systems of the war and the nested jars open as long as this location */
+    @Nonnull private final List<FileSystem> fileSystems = new ArrayList<>();
+
+    @Nonnull private final Path warRoot;
 
     private WarArchiveAnalysisInputLocation(@Nonnull Path warPath, @Nonnull SourceType srcType)
         throws IOException {
@@ -355,15 +426,11 @@ public abstract class PathBasedAnalysisInputLocation implements AnalysisInputLoc
         @Nonnull List<BodyInterceptor> bodyInterceptors,
         @Nonnull Collection<Path> ignoredPaths)
         throws IOException {
-      super(
-          Files.createTempDirectory("sootUp-war-" + warPath.hashCode()).toAbsolutePath(),
-          srcType,
-          bodyInterceptors,
-          ignoredPaths);
+      super(warPath, srcType, bodyInterceptors, ignoredPaths);
 
-      extractWarFile(warPath, path);
+      warRoot = openFileSystem(warPath).getPath("/");
 
-      Path webInfPath = path.resolve("WEB-INF");
+      Path webInfPath = warRoot.resolve("WEB-INF");
       // directorystructre as specified in SRV.9.5 of
       // https://download.oracle.com/otn-pub/jcp/servlet-2.4-fr-spec-oth-JSpec/servlet-2_4-fr-spec.pdf?AuthParam=1625059899_16c705c72f7db7f85a8a7926558701fe
       Path classDir = webInfPath.resolve("classes");
@@ -374,15 +441,25 @@ public abstract class PathBasedAnalysisInputLocation implements AnalysisInputLoc
 
       Path libDir = webInfPath.resolve("lib");
       if (Files.exists(libDir)) {
+        List<Path> jars;
         try (Stream<Path> paths = Files.walk(libDir)) {
-          paths
-              .filter(f -> PathUtils.hasExtension(f, FileType.JAR))
-              .forEach(
-                  f ->
-                      containedInputLocations.add(
-                          new ArchiveBasedAnalysisInputLocation(f, srcType, bodyInterceptors)));
-        } catch (IOException e) {
-          throw new RuntimeException(e);
+          jars =
+              paths
+                  .filter(f -> PathUtils.hasExtension(f, FileType.JAR))
+                  .collect(Collectors.toList());
+        }
+        long nestedSize = 0;
+        for (Path jar : jars) {
+          nestedSize += Files.size(jar);
+          if (nestedSize > maxAllowedBytesToExtract) {
+            throw new RuntimeException(
+                "The nested jars of the warfile exceed the size of "
+                    + maxAllowedBytesToExtract
+                    + " byte. Either the file is a big archive (-> increase PathBasedAnalysisInputLocation.WarArchiveInputLocation.maxAllowedBytesToExtract) or maybe it contains an archive bomb.");
+          }
+          containedInputLocations.add(
+              new ArchiveBasedAnalysisInputLocation(
+                  openNestedArchive(jar), srcType, bodyInterceptors));
         }
       }
     }
@@ -392,6 +469,61 @@ public abstract class PathBasedAnalysisInputLocation implements AnalysisInputLoc
       this(path, srcType, bodyInterceptors, Collections.emptyList());
     }
 
+    @Nonnull
+    private FileSystem openFileSystem(@Nonnull Path archive) throws IOException {
+      try {
+        FileSystem fileSystem = ArchiveBasedAnalysisInputLocation.fileSystemCache.get(archive);
+        fileSystems.add(fileSystem);
+        return fileSystem;
+      } catch (ExecutionException | UncheckedExecutionException e) {
+        throw new IOException("Can not open the file system of " + archive, e.getCause());
+      }
+    }
+
+    /**
+     * Returns a path to the given jar inside of the war, which can be opened as zip file system.
+     *
+     * <p>Nested (zip)filesystems work with java11 runtime (maybe java10) - older runtimes need the
+     * nested jar as a regular file, so it is copied to a temporary file.
+     */
+    @Nonnull
+    private Path openNestedArchive(@Nonnull Path nestedArchive) throws IOException {
+      try {
+        openFileSystem(nestedArchive);
+        return nestedArchive;
+      } catch (IOException e) {
+        Path tmpFile = Files.createTempFile("sootUp-war-lib-", FileType.JAR.getExtensionWithDot());
+        tmpFile.toFile().deleteOnExit();
+        Files.copy(nestedArchive, tmpFile, StandardCopyOption.REPLACE_EXISTING);
+        return tmpFile;
+      }
+    }
+
+    @Override
+    public void setBodyCache(@Nullable PersistentBodyCache bodyCache) {
+      super.setBodyCache(bodyCache);
+      for (AnalysisInputLocation inputLocation : containedInputLocations) {
+        ((PathBasedAnalysisInputLocation) inputLocation).setBodyCache(bodyCache);
+      }
+    }
+
+    @Override
+    public void setDeferMethodCode(boolean deferMethodCode) {
+      super.setDeferMethodCode(deferMethodCode);
+      for (AnalysisInputLocation inputLocation : containedInputLocations) {
+        ((PathBasedAnalysisInputLocation) inputLocation).setDeferMethodCode(deferMethodCode);
+      }
+    }
+
+    @Override
+    public void setStmtGraphValidation(@Nonnull StmtGraphValidation stmtGraphValidation) {
+      super.setStmtGraphValidation(stmtGraphValidation);
+      for (AnalysisInputLocation inputLocation : containedInputLocations) {
+        ((PathBasedAnalysisInputLocation) inputLocation)
+            .setStmtGraphValidation(stmtGraphValidation);
+      }
+    }
+
     @Override
     @Nonnull
     public Collection<JavaSootClassSource> getClassSources(@Nonnull View view) {
@@ -423,116 +555,19 @@ public abstract class PathBasedAnalysisInputLocation implements AnalysisInputLoc
     }
 
     /**
-     * Extracts the war file at the temporary location to analyze underlying class and jar files
-     *
-     * <p>[ms] hint: extracting is necessary to access nested (zip)filesystems with java8/java9
-     * runtime - nested (zip)filesystems would work with java11 runtime (maybe java10)
-     *
-     * @param warFilePath The path to war file to be extracted
-     */
-    void extractWarFile(Path warFilePath, final Path destDirectory) {
-      int extractedSize = 0;
-      try (ZipInputStream zis = new ZipInputStream(Files.newInputStream(warFilePath))) {
-        File dest = destDirectory.toFile();
-        if (!dest.exists()) {
-          if (!dest.mkdir()) {
-            throw new RuntimeException(
-                "Could not create the directory to extract Warfile: " + destDirectory);
-          }
-          dest.deleteOnExit();
-        }
-
-        ZipEntry zipEntry;
-        while ((zipEntry = zis.getNextEntry()) != null) {
-          Path filepath = destDirectory.resolve(zipEntry.getName());
-          final File file = filepath.toFile();
-
-          String canonicalPathStr = file.getCanonicalPath();
-          if (!canonicalPathStr.startsWith(destDirectory + File.separator)) {
-            throw new IllegalArgumentException(
-                "ZipSlip Attack Mitigated: ZipEntry points outside of the target dir: "
-                    + file.getName());
-          }
-
-          file.deleteOnExit();
-          if (zipEntry.isDirectory()) {
-            boolean mkdir = file.mkdir();
-            if (!mkdir) {
-              throw new IllegalStateException(
-                  "Could not create Directory: " + file.getAbsolutePath());
-            }
-          } else {
-            byte[] incomingValues = new byte[4096];
-            int readBytesZip;
-            if (file.exists()) {
-              // compare contents -> does it contain the extracted war already?
-              int readBytesExistingFile;
-              try (InputStream fis = Files.newInputStream(file.toPath());
-                  final BufferedInputStream bis = new BufferedInputStream(fis)) {
-                byte[] bisBuf = new byte[4096];
-                while ((readBytesZip = zis.read(incomingValues)) != -1) {
-                  if (extractedSize > maxAllowedBytesToExtract) {
-                    throw new RuntimeException(
-                        "The extracted warfile exceeds the size of "
-                            + maxAllowedBytesToExtract
-                            + " byte. Either the file is a big archive (-> increase PathBasedAnalysisInputLocation.WarArchiveInputLocation.maxAllowedBytesToExtract) or maybe it contains an archive bomb.");
-                  }
-                  readBytesExistingFile = bis.read(bisBuf, 0, readBytesZip);
-                  if (readBytesExistingFile != readBytesZip) {
-                    throw new RuntimeException(
-                        "Can't extract File \""
-                            + file
-                            + "\" as it already exists and has a different size.");
-                  } else if (!Arrays.equals(bisBuf, incomingValues)) {
-                    throw new RuntimeException(
-                        "Can't extract File \""
-                            + file
-                            + "\" as it already exists and has a different content which we can't override.");
-                  }
-                  extractedSize += readBytesZip;
-                }
-              }
-
-            } else {
-              try (OutputStream fos = Files.newOutputStream(file.toPath());
-                  BufferedOutputStream bos = new BufferedOutputStream(fos); ) {
-                while ((readBytesZip = zis.read(incomingValues)) != -1) {
-                  if (extractedSize > maxAllowedBytesToExtract) {
-                    throw new RuntimeException(
-                        "The extracted warfile exceeds the size of "
-                            + maxAllowedBytesToExtract
-                            + " byte. Either the file is a big archive or maybe it contains an archive bomb.");
-                  }
-                  bos.write(incomingValues, 0, readBytesZip);
-                  extractedSize += readBytesZip;
-                }
-              }
-            }
-          }
-          zis.closeEntry();
-        }
-
-      } catch (IOException e) {
-        throw new RuntimeException(e);
-      }
-    }
-
-    /**
-     * Parses the web.xml file to search for the servlet-class classes in the extracted directory
-     * after the war file is extracted
+     * Parses the web.xml file of the war to search for the servlet-class classes
      *
      * <p>[ms] helps to set entrypoints for analyses automatically (later)
      *
-     * @param extractedWARPath The path where the war file is extracted Adds the classes associated
-     *     to servlet-class in a {@link ArrayList} of {@link String}
+     * @return the classes associated to servlet-class in a {@link ArrayList} of {@link String}
      */
     @Nonnull
-    public List<String> retrieveServletClasses(String extractedWARPath) {
+    public List<String> retrieveServletClasses() {
       List<String> classesInXML = new ArrayList<>();
-      try {
+      try (InputStream webXml = Files.newInputStream(warRoot.resolve("WEB-INF/web.xml"))) {
         DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
         DocumentBuilder builder = factory.newDocumentBuilder();
-        Document document = builder.parse(new File(extractedWARPath + "/WEB-INF/web.xml"));
+        Document document = builder.parse(webXml);
         document.getDocumentElement().normalize();
         NodeList nList = document.getElementsByTagName("servlet");
         for (int temp = 0; temp < nList.getLength(); temp++) {
@@ -0,0 +1,113 @@
+package sootup.java.bytecode.frontend.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import categories.TestCategories;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import sootup.core.model.SootClass;
+import sootup.core.model.SootMethod;
+import sootup.core.model.SourceType;
+import sootup.core.transform.BodyInterceptor;
+import sootup.core.transform.BodyInterceptorMetrics;
+import sootup.interceptors.Aggregator;
+import sootup.interceptors.BytecodeBodyInterceptors;
+import sootup.interceptors.DeadAssignmentEliminator;
+import sootup.java.bytecode.frontend.inputlocation.PathBasedAnalysisInputLocation;
+import sootup.java.core.views.JavaView;
+
+@Tag(TestCategories.JAVA_8_CATEGORY)
+public class PersistentBodyCacheTest {
+
+  final Path directory = Paths.get("../shared-test-resources/bugfixes/");
+
+  private Map<String, String> convertBodies(PersistentBodyCache bodyCache) {
+    PathBasedAnalysisInputLocation inputLocation =
+        PathBasedAnalysisInputLocation.create(
+            directory,
+            SourceType.Application,
+            BytecodeBodyInterceptors.Default.getBodyInterceptors());
+    inputLocation.setBodyCache(bodyCache);
+    JavaView view = new JavaView(inputLocation);
+
+    Map<String, String> bodies = new HashMap<>();
+    for (SootClass sootClass : view.getClasses().collect(Collectors.toList())) {
+      for (SootMethod method : sootClass.getMethods()) {
+        if (method.hasBody()) {
+          bodies.put(method.getSignature().toString(), method.getBody().toString());
+        }
+      }
+    }
+    return bodies;
+  }
+
+  @Test
+  public void testRoundtrip(@TempDir Path cacheDir) throws IOException {
+    PersistentBodyCache bodyCache = new PersistentBodyCache(cacheDir);
+    Map<String, String> convertedBodies = convertBodies(bodyCache);
+    assertFalse(convertedBodies.isEmpty());
+
+    List<Path> entries;
+    try (Stream<Path> files = Files.walk(cacheDir)) {
+      entries = files.filter(Files::isRegularFile).collect(Collectors.toList());
+    }
+    assertEquals(convertedBodies.size(), entries.size());
+
+    // the second run retrieves exactly the stored bodies from the cache
+    assertEquals(convertedBodies, convertBodies(bodyCache));
+
+    // corrupted entries are ignored and the bodies are converted again
+    for (Path entry : entries) {
+      Files.write(entry, new byte[] {42});
+    }
+    assertEquals(convertedBodies.keySet(), convertBodies(bodyCache).keySet());
+  }
+
+  @Test
+  public void testClassKeyContainsInterceptorConfiguration(@TempDir Path cacheDir) {
+    PersistentBodyCache bodyCache = new PersistentBodyCache(cacheDir);
+    byte[] classFile = {1, 2, 3};
+    String defaultKey =
+        bodyCache.getClassKey(
+            classFile, Arrays.asList(new Aggregator(), new DeadAssignmentEliminator()));
+
+    assertEquals(
+        defaultKey,
+        bodyCache.getClassKey(
+            classFile, Arrays.asList(new Aggregator(false), new DeadAssignmentEliminator(false))));
+    assertNotEquals(
+        defaultKey,
+        bodyCache.getClassKey(
+            classFile, Arrays.asList(new Aggregator(true), new DeadAssignmentEliminator())));
+    assertNotEquals(
+        defaultKey,
+        bodyCache.getClassKey(
+            classFile, Arrays.asList(new Aggregator(), new DeadAssignmentEliminator(true))));
+  }
+
+  @Test
+  public void testClassKeyOfInstrumentedInterceptors(@TempDir Path cacheDir) {
+    PersistentBodyCache bodyCache = new PersistentBodyCache(cacheDir);
+    byte[] classFile = {1, 2, 3};
+    List<BodyInterceptor> aggregator = Collections.singletonList(new Aggregator());
+    List<BodyInterceptor> eliminator = Collections.singletonList(new DeadAssignmentEliminator());
+    BodyInterceptorMetrics metrics = new BodyInterceptorMetrics();
+
+    // measuring an interceptor does not change its key ...
+    assertEquals(
+        bodyCache.getClassKey(classFile, aggregator),
+        bodyCache.getClassKey(classFile, metrics.instrument("bytecode", aggregator)));
+    // ... and instrumented pipelines of the same length do not share one
+    assertNotEquals(
+        bodyCache.getClassKey(classFile, metrics.instrument("bytecode", aggregator)),
+        bodyCache.getClassKey(classFile, metrics.instrument("bytecode", eliminator)));
+  }
+}
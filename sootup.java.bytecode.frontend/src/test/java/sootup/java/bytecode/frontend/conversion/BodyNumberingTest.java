@@ -0,0 +1,70 @@
+package sootup.java.bytecode.frontend.conversion;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import categories.TestCategories;
+import java.util.Iterator;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import sootup.core.graph.BasicBlock;
+import sootup.core.graph.MutableStmtGraph;
+import sootup.core.jimple.basic.Local;
+import sootup.core.jimple.common.stmt.Stmt;
+import sootup.core.model.Body;
+import sootup.core.model.BodyNumbering;
+import sootup.core.model.SootMethod;
+import sootup.java.bytecode.frontend.inputlocation.JavaClassPathAnalysisInputLocation;
+import sootup.java.core.views.JavaView;
+
+@Tag(TestCategories.JAVA_8_CATEGORY)
+public class BodyNumberingTest {
+
+  private final JavaView view =
+      new JavaView(
+          new JavaClassPathAnalysisInputLocation(
+              "../shared-test-resources/soot-1580/jpush-android_v3.0.5.jar"));
+
+  @Test
+  public void testDenseIndices() {
+    view.getClasses()
+        .flatMap(sootClass -> sootClass.getMethods().stream())
+        .filter(SootMethod::hasBody)
+        .forEach(this::assertDenseIndices);
+  }
+
+  private void assertDenseIndices(SootMethod method) {
+    Body body = method.getBody();
+    BodyNumbering numbering = body.getNumbering();
+    assertSame(numbering, body.getNumbering());
+
+    assertEquals(body.getStmtGraph().getNodes().size(), numbering.getStmtCount());
+    Iterator<Stmt> stmts = body.getStmtGraph().iterator();
+    for (int i = 0; i < numbering.getStmtCount(); i++) {
+      Stmt stmt = stmts.next();
+      assertSame(stmt, numbering.getStmt(i));
+      assertEquals(i, numbering.getStmtIndex(stmt));
+      assertSame(
+          body.getStmtGraph().getBlockOf(stmt),
+          numbering.getBlock(numbering.getBlockIndexOfStmt(i)));
+    }
+
+    assertEquals(body.getStmtGraph().getBlocks().size(), numbering.getBlockCount());
+    for (int i = 0; i < numbering.getBlockCount(); i++) {
+      assertEquals(i, numbering.getBlockIndex(numbering.getBlock(i)));
+    }
+    // blocks of a mutable copy are numbered like the frozen blocks with the same head
+    MutableStmtGraph mutableGraph = Body.builder(body, method.getModifiers()).getStmtGraph();
+    for (BasicBlock<?> block : mutableGraph.getBlocks()) {
+      int blockIdx = numbering.getBlockIndex(block);
+      assertSame(block.getHead(), numbering.getBlock(blockIdx).getHead());
+    }
+
+    assertEquals(body.getLocalCount(), numbering.getLocalCount());
+    int localIdx = 0;
+    for (Local local : body.getLocals()) {
+      assertEquals(local, numbering.getLocal(localIdx));
+      assertEquals(localIdx, numbering.getLocalIndex(local));
+      localIdx++;
+    }
+  }
+}
@@ -0,0 +1,99 @@
+package sootup.java.bytecode.frontend.conversion;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import categories.TestCategories;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import sootup.core.model.Body;
+import sootup.core.model.SootClass;
+import sootup.core.model.SootMethod;
+import sootup.core.model.SourceType;
+import sootup.java.bytecode.frontend.inputlocation.PathBasedAnalysisInputLocation;
+import sootup.java.core.views.JavaView;
+
+@Tag(TestCategories.JAVA_8_CATEGORY)
+public class DeferredMethodCodeTest {
+
+  private JavaView createView(boolean deferMethodCode) {
+    PathBasedAnalysisInputLocation inputLocation =
+        PathBasedAnalysisInputLocation.create(
+            Paths.get("../shared-test-resources/bugfixes/"),
+            SourceType.Application,
+            // compare the bodies of the frontend: the interceptors do not name their locals stably
+            Collections.emptyList());
+    inputLocation.setDeferMethodCode(deferMethodCode);
+    return new JavaView(inputLocation);
+  }
+
+  @Test
+  public void testDeferredCode() {
+    JavaView eagerView = createView(false);
+    JavaView deferredView = createView(true);
+
+    Map<String, Body> eagerBodies = new HashMap<>();
+    for (SootClass sootClass : eagerView.getClasses().collect(Collectors.toList())) {
+      for (SootMethod method : sootClass.getMethods()) {
+        if (method.hasBody()) {
+          eagerBodies.put(method.getSignature().toString(), method.getBody());
+        }
+      }
+    }
+
+    int deferredBodyCount = 0;
+    for (SootClass sootClass : deferredView.getClasses().collect(Collectors.toList())) {
+      for (SootMethod method : sootClass.getMethods()) {
+        if (!method.hasBody()) {
+          continue;
+        }
+        AsmMethodSource methodSource = (AsmMethodSource) method.getBodySource();
+        assertEquals(0, methodSource.instructions.size());
+
+        Body eagerBody = eagerBodies.get(method.getSignature().toString());
+        Body deferredBody = method.getBody();
+        assertSameBody(eagerBody, deferredBody);
+
+        // the code is not retained once the body is built, but it is read again if necessary
+        assertEquals(0, methodSource.instructions.size());
+        method.releaseBody();
+        assertSameBody(deferredBody, method.getBody());
+        deferredBodyCount++;
+      }
+    }
+    assertEquals(eagerBodies.size(), deferredBodyCount);
+  }
+
+  @Test
+  public void testResolveRetainedCodeAgain() {
+    JavaView eagerView = createView(false);
+    for (SootClass sootClass : eagerView.getClasses().collect(Collectors.toList())) {
+      for (SootMethod method : sootClass.getMethods()) {
+        if (method.hasBody()) {
+          Body body = method.getBody();
+          method.releaseBody();
+          assertSameBody(body, method.getBody());
+        }
+      }
+    }
+  }
+
+  private void assertSameBody(Body expected, Body actual) {
+    String message = expected.getMethodSignature().toString();
+    assertEquals(expected.toString(), actual.toString(), message);
+    assertEquals(positionsOf(expected), positionsOf(actual), message);
+    assertEquals(expected.getPosition().toString(), actual.getPosition().toString(), message);
+    assertEquals(expected.getTraps().toString(), actual.getTraps().toString(), message);
+  }
+
+  private List<String> positionsOf(Body body) {
+    return body.getStmts().stream()
+        .map(stmt -> stmt.getPositionInfo().getStmtPosition().toString())
+        .collect(Collectors.toList());
+  }
+}
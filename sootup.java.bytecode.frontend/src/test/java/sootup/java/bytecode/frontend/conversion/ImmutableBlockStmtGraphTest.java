@@ -0,0 +1,99 @@
+package sootup.java.bytecode.frontend.conversion;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import categories.TestCategories;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import sootup.core.graph.BasicBlock;
+import sootup.core.graph.ImmutableBlockStmtGraph;
+import sootup.core.graph.MutableStmtGraph;
+import sootup.core.jimple.common.stmt.Stmt;
+import sootup.core.model.Body;
+import sootup.core.model.SootMethod;
+import sootup.java.bytecode.frontend.inputlocation.JavaClassPathAnalysisInputLocation;
+import sootup.java.core.views.JavaView;
+
+@Tag(TestCategories.JAVA_8_CATEGORY)
+public class ImmutableBlockStmtGraphTest {
+
+  private final JavaView view =
+      new JavaView(
+          new JavaClassPathAnalysisInputLocation(
+              "../shared-test-resources/soot-1580/jpush-android_v3.0.5.jar"));
+
+  private List<SootMethod> methodsWithBody() {
+    return view.getClasses()
+        .flatMap(sootClass -> sootClass.getMethods().stream())
+        .filter(SootMethod::hasBody)
+        .collect(Collectors.toList());
+  }
+
+  @Test
+  public void testFrozenGraphAnswersLikeMutableGraph() {
+    int traps = 0;
+    for (SootMethod method : methodsWithBody()) {
+      Body body = method.getBody();
+      assertTrue(body.getStmtGraph() instanceof ImmutableBlockStmtGraph);
+
+      MutableStmtGraph mutableGraph = Body.builder(body, method.getModifiers()).getStmtGraph();
+      ImmutableBlockStmtGraph frozenGraph = new ImmutableBlockStmtGraph(mutableGraph);
+
+      assertEquals(mutableGraph.getStmts(), frozenGraph.getStmts());
+      assertEquals(mutableGraph.getStartingStmt(), frozenGraph.getStartingStmt());
+      assertEquals(mutableGraph.buildTraps(), frozenGraph.buildTraps());
+      assertEquals(mutableGraph.getBlocks().size(), frozenGraph.getBlocks().size());
+      assertEquals(heads(mutableGraph.getBlocksSorted()), heads(frozenGraph.getBlocksSorted()));
+      assertEquals(mutableGraph, frozenGraph);
+      assertEquals(frozenGraph, mutableGraph);
+      traps += frozenGraph.buildTraps().size();
+
+      for (Stmt stmt : mutableGraph.getNodes()) {
+        assertTrue(frozenGraph.containsNode(stmt));
+        assertTrue(frozenGraph.getNodes().contains(stmt));
+        assertEquals(mutableGraph.successors(stmt), frozenGraph.successors(stmt));
+        assertEquals(mutableGraph.predecessors(stmt), frozenGraph.predecessors(stmt));
+        assertEquals(
+            mutableGraph.exceptionalSuccessors(stmt), frozenGraph.exceptionalSuccessors(stmt));
+        assertEquals(
+            mutableGraph.exceptionalPredecessors(stmt), frozenGraph.exceptionalPredecessors(stmt));
+        assertEquals(mutableGraph.inDegree(stmt), frozenGraph.inDegree(stmt));
+        assertEquals(mutableGraph.outDegree(stmt), frozenGraph.outDegree(stmt));
+        assertEquals(
+            mutableGraph.getBlockOf(stmt).getStmts(), frozenGraph.getBlockOf(stmt).getStmts());
+        for (Stmt successor : mutableGraph.successors(stmt)) {
+          assertTrue(frozenGraph.hasEdgeConnecting(stmt, successor));
+        }
+      }
+    }
+    assertTrue(traps > 0);
+  }
+
+  @Test
+  public void testModifyFrozenBody() {
+    SootMethod method = methodsWithBody().get(0);
+    Body body = method.getBody();
+    assertThrows(
+        UnsupportedOperationException.class, () -> body.getStmtGraph().getBlocks().remove(0));
+
+    // a builder works on a mutable copy of the frozen graph
+    int stmtCount = body.getStmtGraph().getNodes().size();
+    Body.BodyBuilder builder = Body.builder(body, method.getModifiers());
+    Stmt tail = builder.getStmtGraph().getTails().get(0);
+    builder.getStmtGraph().removeNode(tail, false);
+    assertFalse(builder.getStmtGraph().containsNode(tail));
+    assertTrue(body.getStmtGraph().containsNode(tail));
+    assertEquals(stmtCount, body.getStmtGraph().getNodes().size());
+  }
+
+  private static List<Stmt> heads(List<? extends BasicBlock<?>> blocks) {
+    List<Stmt> heads = new ArrayList<>(blocks.size());
+    for (BasicBlock<?> block : blocks) {
+      heads.add(block.getHead());
+    }
+    return heads;
+  }
+}
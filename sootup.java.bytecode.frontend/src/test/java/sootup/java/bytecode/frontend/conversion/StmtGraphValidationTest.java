@@ -0,0 +1,62 @@
+package sootup.java.bytecode.frontend.conversion;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import categories.TestCategories;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import sootup.core.jimple.basic.StmtPositionInfo;
+import sootup.core.jimple.common.stmt.JNopStmt;
+import sootup.core.model.SootMethod;
+import sootup.core.model.SourceType;
+import sootup.core.transform.BodyInterceptor;
+import sootup.core.transform.StmtGraphValidation;
+import sootup.java.bytecode.frontend.inputlocation.PathBasedAnalysisInputLocation;
+import sootup.java.core.views.JavaView;
+
+@Tag(TestCategories.JAVA_8_CATEGORY)
+public class StmtGraphValidationTest {
+
+  final JNopStmt danglingStmt = new JNopStmt(StmtPositionInfo.getNoStmtPositionInfo());
+
+  /** adds a Stmt without predecessors, i.e. leaves an invalid StmtGraph behind */
+  final BodyInterceptor addDanglingStmt =
+      (builder, view) -> builder.getStmtGraph().addNode(danglingStmt);
+
+  final BodyInterceptor removeDanglingStmt =
+      (builder, view) -> builder.getStmtGraph().removeNode(danglingStmt);
+
+  private SootMethod getMainMethod(
+      List<BodyInterceptor> bodyInterceptors, StmtGraphValidation stmtGraphValidation) {
+    PathBasedAnalysisInputLocation inputLocation =
+        PathBasedAnalysisInputLocation.create(
+            Paths.get("../shared-test-resources/java-miniapps/MiniApp.jar"),
+            SourceType.Application,
+            bodyInterceptors);
+    inputLocation.setStmtGraphValidation(stmtGraphValidation);
+    JavaView view = new JavaView(inputLocation);
+    return view.getClassOrThrow(view.getIdentifierFactory().getClassType("MiniApp"))
+        .getMethodsByName("main")
+        .iterator()
+        .next();
+  }
+
+  @Test
+  public void testInvalidFinalGraph() {
+    List<BodyInterceptor> interceptors = Arrays.asList(addDanglingStmt);
+    assertNotNull(getMainMethod(interceptors, StmtGraphValidation.OFF).getBody());
+    SootMethod method = getMainMethod(interceptors, StmtGraphValidation.FINAL);
+    assertThrows(RuntimeException.class, method::getBody);
+  }
+
+  @Test
+  public void testInvalidIntermediateGraph() {
+    List<BodyInterceptor> interceptors = Arrays.asList(addDanglingStmt, removeDanglingStmt);
+    assertNotNull(getMainMethod(interceptors, StmtGraphValidation.FINAL).getBody());
+    SootMethod method = getMainMethod(interceptors, StmtGraphValidation.PER_INTERCEPTOR);
+    assertThrows(RuntimeException.class, method::getBody);
+  }
+}
@@ -0,0 +1,60 @@
+package sootup.java.bytecode.frontend.inputlocation;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import categories.TestCategories;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import sootup.core.types.ClassType;
+import sootup.java.core.views.JavaView;
+
+@Tag(TestCategories.JAVA_8_CATEGORY)
+public class ClassPathIndexTest {
+
+  final String classPath =
+      "../shared-test-resources/java-miniapps/MiniApp.jar"
+          + File.pathSeparator
+          + "../shared-test-resources/bugfixes/"
+          + File.pathSeparator
+          + "../shared-test-resources/java-warApp/dummyWarApp.war";
+
+  final List<String> classNames =
+      Arrays.asList(
+          "MiniApp", "ds.Employee", "utils.Operations", "Indy", "SimpleWarRead", "does.not.Exist");
+
+  @Test
+  public void testLookupWithIndex(@TempDir Path tempDir) throws Exception {
+    JavaClassPathAnalysisInputLocation plainLocation =
+        new JavaClassPathAnalysisInputLocation(classPath);
+    JavaClassPathAnalysisInputLocation indexedLocation =
+        new JavaClassPathAnalysisInputLocation(classPath);
+    Path indexFile = tempDir.resolve("classpath.idx");
+    indexedLocation.enableClassPathIndex(indexFile);
+
+    JavaView view = new JavaView(plainLocation);
+    for (String className : classNames) {
+      ClassType type = view.getIdentifierFactory().getClassType(className);
+      assertEquals(
+          plainLocation.getClassSource(type, view).map(src -> src.getSourcePath()),
+          indexedLocation.getClassSource(type, view).map(src -> src.getSourcePath()));
+    }
+    assertTrue(Files.exists(indexFile));
+
+    // an unchanged class path reuses the persisted index without rewriting it
+    FileTime written = FileTime.fromMillis(0);
+    Files.setLastModifiedTime(indexFile, written);
+    JavaClassPathAnalysisInputLocation reloadedLocation =
+        new JavaClassPathAnalysisInputLocation(classPath);
+    reloadedLocation.enableClassPathIndex(indexFile);
+    ClassType type = view.getIdentifierFactory().getClassType("ds.Department");
+    assertTrue(reloadedLocation.getClassSource(type, view).isPresent());
+    assertEquals(written, Files.getLastModifiedTime(indexFile));
+  }
+}
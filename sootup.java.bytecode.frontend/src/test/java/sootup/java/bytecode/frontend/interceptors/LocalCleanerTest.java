@@ -0,0 +1,497 @@
+package sootup.java.bytecode.frontend.interceptors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import categories.TestCategories;
+import java.util.*;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import sootup.core.graph.BasicBlock;
+import sootup.core.graph.StmtGraph;
+import sootup.core.jimple.basic.Immediate;
+import sootup.core.jimple.basic.Local;
+import sootup.core.jimple.basic.Value;
+import sootup.core.jimple.common.constant.Constant;
+import sootup.core.jimple.common.expr.AbstractBinopExpr;
+import sootup.core.jimple.common.expr.AbstractInstanceInvokeExpr;
+import sootup.core.jimple.common.expr.AbstractInvokeExpr;
+import sootup.core.jimple.common.expr.Expr;
+import sootup.core.jimple.common.expr.JCastExpr;
+import sootup.core.jimple.common.expr.JDivExpr;
+import sootup.core.jimple.common.expr.JInstanceOfExpr;
+import sootup.core.jimple.common.expr.JNegExpr;
+import sootup.core.jimple.common.expr.JRemExpr;
+import sootup.core.jimple.common.ref.ConcreteRef;
+import sootup.core.jimple.common.ref.JArrayRef;
+import sootup.core.jimple.common.ref.JInstanceFieldRef;
+import sootup.core.jimple.common.stmt.*;
+import sootup.core.jimple.javabytecode.stmt.JEnterMonitorStmt;
+import sootup.core.jimple.javabytecode.stmt.JExitMonitorStmt;
+import sootup.core.jimple.javabytecode.stmt.JSwitchStmt;
+import sootup.core.model.Body;
+import sootup.core.model.SootMethod;
+import sootup.core.model.SourceType;
+import sootup.core.signatures.MethodSignature;
+import sootup.interceptors.BytecodeBodyInterceptors;
+import sootup.interceptors.CopyPropagator;
+import sootup.interceptors.Evaluator;
+import sootup.java.bytecode.frontend.inputlocation.JavaClassPathAnalysisInputLocation;
+import sootup.java.core.views.JavaView;
+
+/**
+ * Compares the bodies of the {@link BytecodeBodyInterceptors#FastCleanup} interceptors with the
+ * ones of the {@link BytecodeBodyInterceptors#Default} interceptors.
+ */
+@Tag(TestCategories.JAVA_8_CATEGORY)
+public class LocalCleanerTest {
+
+  @Test
+  public void testBugfixes() {
+    assertEquivalentBodies("../shared-test-resources/bugfixes/", Collections.emptySet());
+  }
+
+  @Test
+  public void testMiniTestSuite() {
+    assertEquivalentBodies(
+        "../shared-test-resources/miniTestSuite/java6/binary/", Collections.emptySet());
+    assertEquivalentBodies(
+        "../shared-test-resources/miniTestSuite/java8/binary/", Collections.emptySet());
+  }
+
+  @Test
+  public void testLocalSplitterTarget() {
+    assertEquivalentBodies("src/test/resources/interceptors/", Collections.emptySet());
+  }
+
+  @Test
+  public void testJpush() {
+    Set<String> knownDivergences =
+        new HashSet<>(
+            Arrays.asList(
+                // the Aggregator of the Default interceptors moves a call past another call
+                "<cn.jpush.android.a.g: long"
+                    + " a(android.content.Context,long,cn.jiguang.api.JResponse)>",
+                // the CopyPropagator of the Default interceptors propagates definitions into the
+                // handlers of try blocks that can throw before the definitions
+                "<cn.jpush.android.c.j: byte a(android.content.Context)>",
+                "<cn.jpush.android.d.c: boolean a(java.lang.String,byte[])>",
+                "<cn.jpush.android.d.c: boolean"
+                    + " a(java.lang.String,java.lang.String,android.content.Context)>",
+                "<cn.jpush.android.d.g: java.util.ArrayList"
+                    + " b(android.content.Context,java.lang.String)>",
+                "<cn.jpush.android.d.j: java.lang.Object"
+                    + " a(java.lang.Object,java.lang.String,java.lang.Class[],java.lang.Object[])>",
+                "<cn.jpush.android.data.e: boolean c()>",
+                "<cn.jpush.android.data.e: boolean d()>",
+                "<cn.jpush.android.e.a.f: void"
+                    + " click(java.lang.String,java.lang.String,java.lang.String)>",
+                "<cn.jpush.android.e.a.f: void"
+                    + " createShortcut(java.lang.String,java.lang.String,java.lang.String)>",
+                "<cn.jpush.android.e.a.f: void userClick(java.lang.String)>"));
+    assertEquivalentBodies(
+        "../shared-test-resources/soot-1580/jpush-android_v3.0.5.jar", knownDivergences);
+  }
+
+  /**
+   * Asserts that the bodies of both interceptor sets perform the same operations on the same
+   * operands in the same order, except for the methods with the given signatures, and that the
+   * bodies of the cleanup are valid Jimple.
+   */
+  private void assertEquivalentBodies(String classPath, Set<String> knownDivergences) {
+    JavaView defaultView = createView(classPath, BytecodeBodyInterceptors.Default);
+    JavaView fastView = createView(classPath, BytecodeBodyInterceptors.FastCleanup);
+
+    List<SootMethod> methods =
+        defaultView
+            .getClasses()
+            .flatMap(sootClass -> sootClass.getMethods().stream())
+            .filter(SootMethod::hasBody)
+            .collect(Collectors.toList());
+    assertFalse(methods.isEmpty());
+
+    Set<String> divergences = new HashSet<>();
+    for (SootMethod method : methods) {
+      MethodSignature signature = method.getSignature();
+      Body expected = method.getBody();
+      Body actual = fastView.getMethod(signature).get().getBody();
+
+      List<String> expectedOperations = new Operations(expected).operations;
+      List<String> actualOperations = new Operations(actual).operations;
+      if (knownDivergences.contains(signature.toString())) {
+        if (!expectedOperations.equals(actualOperations)) {
+          divergences.add(signature.toString());
+        }
+      } else {
+        assertEquals(expectedOperations, actualOperations, signature.toString());
+      }
+      assertEquals(expected.getTraps().size(), actual.getTraps().size(), signature.toString());
+      assertValidJimple(actual);
+    }
+    assertEquals(knownDivergences, divergences);
+  }
+
+  private JavaView createView(String classPath, BytecodeBodyInterceptors interceptors) {
+    return new JavaView(
+        new JavaClassPathAnalysisInputLocation(
+            classPath, SourceType.Application, interceptors.getBodyInterceptors()));
+  }
+
+  /**
+   * The operations of a body that are neither removed nor moved by the cleanup: calls, writes to
+   * the heap, branches, returns and the identity Stmts, together with their operands.
+   *
+   * <p>The cleanup renames, propagates, aggregates and folds the locals, so an operand is described
+   * by the values it can hold: a local by the values of its definitions that reach the use, a
+   * constant expression by its value and the result of a call by the position of the call.
+   */
+  private static class Operations {
+    final List<String> operations = new ArrayList<>();
+
+    private final StmtGraph<?> graph;
+    private final Map<Stmt, Integer> positionsOfCalls = new IdentityHashMap<>();
+    /** the definitions of the locals, numbered by their bits in the reaching definitions */
+    private final List<AbstractDefinitionStmt> defs = new ArrayList<>();
+
+    private final Map<Stmt, Integer> indicesOfDefs = new IdentityHashMap<>();
+    private final Map<Value, BitSet> defsOfLocals = new HashMap<>();
+    private final Map<Stmt, BitSet> reachingDefsAtHeads = new IdentityHashMap<>();
+
+    /** the descriptions of the definitions that do not depend on a cycle */
+    private final Map<Stmt, String> descriptions = new IdentityHashMap<>();
+
+    private final Set<Stmt> describedDefs = Collections.newSetFromMap(new IdentityHashMap<>());
+    /** the constant values of the definitions that do not depend on a cycle */
+    private final Map<Stmt, Optional<Constant>> evaluations = new IdentityHashMap<>();
+
+    private final Set<Stmt> evaluatedDefs = Collections.newSetFromMap(new IdentityHashMap<>());
+    private boolean reachedCycle;
+
+    Operations(Body body) {
+      graph = body.getStmtGraph();
+      List<Stmt> operationStmts = new ArrayList<>();
+      for (Stmt stmt : body.getStmts()) {
+        if (stmt instanceof AbstractDefinitionStmt
+            && ((AbstractDefinitionStmt) stmt).getLeftOp() instanceof Local) {
+          defsOfLocals
+              .computeIfAbsent(((AbstractDefinitionStmt) stmt).getLeftOp(), key -> new BitSet())
+              .set(defs.size());
+          indicesOfDefs.put(stmt, defs.size());
+          defs.add((AbstractDefinitionStmt) stmt);
+        }
+        if (isOperation(stmt)) {
+          if (stmt instanceof JAssignStmt && isCall(((JAssignStmt) stmt).getRightOp())) {
+            positionsOfCalls.put(stmt, operationStmts.size());
+          }
+          operationStmts.add(stmt);
+        }
+      }
+      computeReachingDefs();
+      for (Stmt stmt : operationStmts) {
+        operations.add(describe(stmt));
+      }
+    }
+
+    private static boolean isOperation(Stmt stmt) {
+      if (stmt instanceof JAssignStmt) {
+        JAssignStmt assignStmt = (JAssignStmt) stmt;
+        return isCall(assignStmt.getRightOp()) || !(assignStmt.getLeftOp() instanceof Local);
+      }
+      return stmt instanceof JIdentityStmt
+          || stmt instanceof JInvokeStmt
+          || stmt instanceof JReturnStmt
+          || stmt instanceof JIfStmt
+          || stmt instanceof JSwitchStmt
+          || stmt instanceof JGotoStmt
+          || stmt instanceof JReturnVoidStmt
+          || stmt instanceof JThrowStmt
+          || stmt instanceof JEnterMonitorStmt
+          || stmt instanceof JExitMonitorStmt;
+    }
+
+    private static boolean isCall(Value value) {
+      return value instanceof AbstractInvokeExpr;
+    }
+
+    private String describe(Stmt stmt) {
+      if (stmt instanceof JIdentityStmt) {
+        return "identity " + ((JIdentityStmt) stmt).getRightOp();
+      } else if (stmt instanceof JAssignStmt) {
+        JAssignStmt assignStmt = (JAssignStmt) stmt;
+        if (assignStmt.getLeftOp() instanceof Local) {
+          return "call " + describe(assignStmt.getRightOp(), stmt);
+        }
+        return "store "
+            + describe(assignStmt.getRightOp(), stmt)
+            + " to "
+            + describe(assignStmt.getLeftOp(), stmt);
+      } else if (stmt instanceof JInvokeStmt) {
+        return "call " + describe(((JInvokeStmt) stmt).getInvokeExpr().get(), stmt);
+      } else if (stmt instanceof JReturnStmt) {
+        return "return " + describe(((JReturnStmt) stmt).getOp(), stmt);
+      } else if (stmt instanceof JIfStmt) {
+        return "if " + describe(((JIfStmt) stmt).getCondition(), stmt);
+      } else if (stmt instanceof JSwitchStmt) {
+        return "switch " + describe(((JSwitchStmt) stmt).getKey(), stmt);
+      } else if (stmt instanceof JThrowStmt) {
+        return "throw " + describe(((JThrowStmt) stmt).getOp(), stmt);
+      } else if (stmt instanceof JEnterMonitorStmt) {
+        return "enter monitor " + describe(((JEnterMonitorStmt) stmt).getOp(), stmt);
+      } else if (stmt instanceof JExitMonitorStmt) {
+        return "exit monitor " + describe(((JExitMonitorStmt) stmt).getOp(), stmt);
+      }
+      return stmt.getClass().getSimpleName();
+    }
+
+    /** Describes the given value that is used by the given Stmt. */
+    private String describe(Value value, Stmt stmt) {
+      Constant constant = evaluate(value, stmt);
+      if (constant != null) {
+        return constant.toString();
+      } else if (value instanceof Local) {
+        Set<String> values = new TreeSet<>();
+        for (AbstractDefinitionStmt defStmt : reachingDefsOf((Local) value, stmt)) {
+          values.add(describe(defStmt));
+        }
+        return values.size() == 1 ? values.iterator().next() : values.toString();
+      } else if (value instanceof AbstractInvokeExpr) {
+        AbstractInvokeExpr invokeExpr = (AbstractInvokeExpr) value;
+        String base =
+            invokeExpr instanceof AbstractInstanceInvokeExpr
+                ? describe(((AbstractInstanceInvokeExpr) invokeExpr).getBase(), stmt) + "."
+                : "";
+        return base + invokeExpr.getMethodSignature() + describe(invokeExpr.getArgs(), stmt);
+      } else if (value instanceof JInstanceFieldRef) {
+        JInstanceFieldRef fieldRef = (JInstanceFieldRef) value;
+        return describe(fieldRef.getBase(), stmt) + "." + fieldRef.getFieldSignature();
+      } else if (value instanceof JArrayRef) {
+        JArrayRef arrayRef = (JArrayRef) value;
+        return describe(arrayRef.getBase(), stmt)
+            + "["
+            + describe(arrayRef.getIndex(), stmt)
+            + "]";
+      } else if (value instanceof JCastExpr) {
+        return "(" + value.getType() + ") " + describe(((JCastExpr) value).getOp(), stmt);
+      } else if (value instanceof JInstanceOfExpr) {
+        JInstanceOfExpr instanceOfExpr = (JInstanceOfExpr) value;
+        return describe(instanceOfExpr.getOp(), stmt)
+            + " instanceof "
+            + instanceOfExpr.getCheckType();
+      } else if (value instanceof Expr) {
+        // the other expressions only use immediates
+        List<Value> operands = value.getUses().collect(Collectors.toList());
+        return value.getClass().getSimpleName() + " " + value.getType() + describe(operands, stmt);
+      }
+      return value.toString();
+    }
+
+    private String describe(List<? extends Value> values, Stmt stmt) {
+      return values.stream()
+          .map(value -> describe(value, stmt))
+          .collect(Collectors.joining(", ", "(", ")"));
+    }
+
+    /** Describes the value of the definition, or returns "cycle" for a cyclic definition. */
+    private String describe(AbstractDefinitionStmt defStmt) {
+      Integer position = positionsOfCalls.get(defStmt);
+      if (position != null) {
+        return "result of " + position;
+      }
+      String description = descriptions.get(defStmt);
+      if (description != null) {
+        return description;
+      }
+      if (!describedDefs.add(defStmt)) {
+        reachedCycle = true;
+        return "cycle";
+      }
+      boolean reachedOuterCycle = reachedCycle;
+      reachedCycle = false;
+      description = describe(defStmt.getRightOp(), defStmt);
+      describedDefs.remove(defStmt);
+      if (!reachedCycle) {
+        // the description of a definition on a cycle depends on where the cycle was entered
+        descriptions.put(defStmt, description);
+      }
+      reachedCycle |= reachedOuterCycle;
+      return description;
+    }
+
+    /** Returns the constant value of the definition, or null, which a cycle also evaluates to. */
+    @Nullable
+    private Constant evaluate(AbstractDefinitionStmt defStmt) {
+      Optional<Constant> evaluation = evaluations.get(defStmt);
+      if (evaluation != null) {
+        return evaluation.orElse(null);
+      }
+      if (!evaluatedDefs.add(defStmt)) {
+        reachedCycle = true;
+        return null;
+      }
+      boolean reachedOuterCycle = reachedCycle;
+      reachedCycle = false;
+      Constant constant = evaluate(defStmt.getRightOp(), defStmt);
+      evaluatedDefs.remove(defStmt);
+      if (!reachedCycle) {
+        evaluations.put(defStmt, Optional.ofNullable(constant));
+      }
+      reachedCycle |= reachedOuterCycle;
+      return constant;
+    }
+
+    /** Returns the constant value of the given value like the {@link Evaluator}, or null. */
+    @Nullable
+    private Constant evaluate(Value value, Stmt stmt) {
+      if (value instanceof Constant) {
+        return (Constant) value;
+      } else if (value instanceof Local) {
+        Constant constant = null;
+        for (AbstractDefinitionStmt defStmt : reachingDefsOf((Local) value, stmt)) {
+          Constant defValue = evaluate(defStmt);
+          if (defValue == null || (constant != null && !constant.equals(defValue))) {
+            return null;
+          }
+          constant = defValue;
+        }
+        return constant;
+      } else if (value instanceof AbstractBinopExpr) {
+        AbstractBinopExpr binopExpr = (AbstractBinopExpr) value;
+        Constant op1 = evaluate(binopExpr.getOp1(), stmt);
+        Constant op2 = evaluate(binopExpr.getOp2(), stmt);
+        return op1 == null || op2 == null
+            ? null
+            : Evaluator.getConstantValueOf(binopExpr.withOp1(op1).withOp2(op2));
+      } else if (value instanceof JNegExpr) {
+        Constant op = evaluate(((JNegExpr) value).getOp(), stmt);
+        return op == null ? null : Evaluator.getConstantValueOf(((JNegExpr) value).withOp(op));
+      }
+      return null;
+    }
+
+    /**
+     * Computes the definitions that reach the heads of the blocks. A handler is reached by the
+     * definitions that reach the Stmts of its try blocks that can throw. A handler whose try blocks
+     * can not throw is unreachable, so the definitions at the ends of its try blocks reach it, like
+     * in the {@link CopyPropagator}.
+     */
+    private void computeReachingDefs() {
+      Collection<? extends BasicBlock<?>> blocks = graph.getBlocks();
+      Set<Stmt> handlersOfThrowingBlocks = Collections.newSetFromMap(new IdentityHashMap<>());
+      for (BasicBlock<?> block : blocks) {
+        if (block.getStmts().stream().anyMatch(Operations::canThrow)) {
+          for (BasicBlock<?> handler : block.getExceptionalSuccessors().values()) {
+            handlersOfThrowingBlocks.add(handler.getHead());
+          }
+        }
+      }
+
+      Map<Stmt, BitSet> normalIns = new IdentityHashMap<>();
+      Map<Stmt, BitSet> thrownIns = new IdentityHashMap<>();
+      Map<Stmt, BitSet> tailIns = new IdentityHashMap<>();
+      boolean changed = true;
+      while (changed) {
+        changed = false;
+        for (BasicBlock<?> block : blocks) {
+          Stmt head = block.getHead();
+          BitSet state = new BitSet();
+          state.or(normalIns.getOrDefault(head, new BitSet()));
+          state.or(
+              (handlersOfThrowingBlocks.contains(head) ? thrownIns : tailIns)
+                  .getOrDefault(head, new BitSet()));
+          reachingDefsAtHeads.put(head, (BitSet) state.clone());
+
+          for (Stmt stmt : block.getStmts()) {
+            if (canThrow(stmt)) {
+              // the exception is thrown before the definition of the Stmt
+              for (BasicBlock<?> handler : block.getExceptionalSuccessors().values()) {
+                changed |= join(thrownIns, handler.getHead(), state);
+              }
+            }
+            applyDefinition(stmt, state);
+          }
+          for (BasicBlock<?> successor : block.getSuccessors()) {
+            changed |= join(normalIns, successor.getHead(), state);
+          }
+          for (BasicBlock<?> handler : block.getExceptionalSuccessors().values()) {
+            changed |= join(tailIns, handler.getHead(), state);
+          }
+        }
+      }
+    }
+
+    private static boolean join(Map<Stmt, BitSet> states, Stmt head, BitSet state) {
+      BitSet headState = states.computeIfAbsent(head, key -> new BitSet());
+      int cardinality = headState.cardinality();
+      headState.or(state);
+      return headState.cardinality() != cardinality;
+    }
+
+    private void applyDefinition(Stmt stmt, BitSet state) {
+      Integer index = indicesOfDefs.get(stmt);
+      if (index != null) {
+        state.andNot(defsOfLocals.get(defs.get(index).getLeftOp()));
+        state.set(index);
+      }
+    }
+
+    /** Returns the definitions of the local that reach its use in the given Stmt. */
+    private List<AbstractDefinitionStmt> reachingDefsOf(Local local, Stmt use) {
+      BasicBlock<?> block = graph.getBlockOf(use);
+      List<Stmt> stmts = block.getStmts();
+      for (int i = stmts.indexOf(use) - 1; i >= 0; i--) {
+        Stmt stmt = stmts.get(i);
+        if (stmt instanceof AbstractDefinitionStmt
+            && local.equals(((AbstractDefinitionStmt) stmt).getLeftOp())) {
+          return Collections.singletonList((AbstractDefinitionStmt) stmt);
+        }
+      }
+      BitSet state = (BitSet) reachingDefsAtHeads.get(block.getHead()).clone();
+      state.and(defsOfLocals.getOrDefault(local, new BitSet()));
+      return state.stream().mapToObj(defs::get).collect(Collectors.toList());
+    }
+
+    /** Returns false for the Stmts that can not throw an exception, like copies and branches. */
+    private static boolean canThrow(Stmt stmt) {
+      if (stmt instanceof JAssignStmt && ((JAssignStmt) stmt).getLeftOp() instanceof Local) {
+        Value rightOp = ((JAssignStmt) stmt).getRightOp();
+        return !(rightOp instanceof Immediate
+            || rightOp instanceof JNegExpr
+            || (rightOp instanceof AbstractBinopExpr
+                && !(rightOp instanceof JDivExpr || rightOp instanceof JRemExpr)));
+      }
+      return !(stmt instanceof JIdentityStmt
+          || stmt instanceof JGotoStmt
+          || stmt instanceof JIfStmt
+          || stmt instanceof JNopStmt);
+    }
+  }
+
+  /**
+   * Asserts that every used local is defined and that no call or heap access is aggregated into an
+   * assignment to the heap.
+   */
+  private void assertValidJimple(Body body) {
+    Set<Local> definedLocals = new HashSet<>();
+    for (Stmt stmt : body.getStmts()) {
+      if (stmt instanceof JAssignStmt && !(((JAssignStmt) stmt).getLeftOp() instanceof Local)) {
+        Value rightOp = ((JAssignStmt) stmt).getRightOp();
+        assertFalse(
+            rightOp instanceof ConcreteRef || rightOp instanceof AbstractInvokeExpr,
+            stmt::toString);
+      }
+      stmt.getDef()
+          .filter(def -> def instanceof Local)
+          .ifPresent(def -> definedLocals.add((Local) def));
+    }
+    for (Stmt stmt : body.getStmts()) {
+      for (Iterator<Value> iterator = stmt.getUses().iterator(); iterator.hasNext(); ) {
+        Value use = iterator.next();
+        if (use instanceof Local) {
+          assertTrue(definedLocals.contains(use), () -> use + " is not defined in\n" + body);
+          assertTrue(body.getLocals().contains(use), () -> use + " is not a local of\n" + body);
+        }
+      }
+    }
+  }
+}
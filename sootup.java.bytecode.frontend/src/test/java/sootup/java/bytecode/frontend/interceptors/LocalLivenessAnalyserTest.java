@@ -1,11 +1,17 @@
 package sootup.java.bytecode.frontend.interceptors;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
 import categories.TestCategories;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import sootup.core.graph.MutableStmtGraph;
+import sootup.core.graph.StmtGraph;
 import sootup.core.jimple.basic.Local;
 import sootup.core.jimple.basic.NoPositionInformation;
 import sootup.core.jimple.basic.StmtPositionInfo;
@@ -16,13 +22,16 @@ import sootup.core.jimple.common.stmt.JIfStmt;
 import sootup.core.jimple.common.stmt.Stmt;
 import sootup.core.model.Body;
 import sootup.core.model.Position;
+import sootup.core.model.SootMethod;
 import sootup.core.signatures.MethodSignature;
 import sootup.core.types.VoidType;
 import sootup.core.util.ImmutableUtils;
 import sootup.interceptors.LocalLivenessAnalyser;
+import sootup.java.bytecode.frontend.inputlocation.JavaClassPathAnalysisInputLocation;
 import sootup.java.core.JavaIdentifierFactory;
 import sootup.java.core.language.JavaJimple;
 import sootup.java.core.types.JavaClassType;
+import sootup.java.core.views.JavaView;
 
 /** @author Zun Wang */
 @Tag(TestCategories.JAVA_8_CATEGORY)
@@ -91,6 +100,57 @@ public class LocalLivenessAnalyserTest {
     AssertUtils.assertSetsEquiv(Collections.emptySet(), analyser.getLiveLocalsAfterStmt(ret));
   }
 
+  /** compares the block based analysis with a fixpoint over the single stmts */
+  @Test
+  public void testLivenessOfJarBodies() {
+    JavaView view =
+        new JavaView(
+            new JavaClassPathAnalysisInputLocation(
+                "../shared-test-resources/soot-1580/jpush-android_v3.0.5.jar"));
+    view.getClasses()
+        .flatMap(sootClass -> sootClass.getMethods().stream())
+        .filter(SootMethod::hasBody)
+        .forEach(
+            method -> {
+              Body body = method.getBody();
+              StmtGraph<?> graph = body.getStmtGraph();
+              Map<Stmt, Set<Local>> liveIn = new HashMap<>();
+              Map<Stmt, Set<Local>> liveOut = new HashMap<>();
+              computeStmtLiveness(graph, liveIn, liveOut);
+
+              LocalLivenessAnalyser analyser = new LocalLivenessAnalyser(body);
+              for (Stmt stmt : graph.getNodes()) {
+                assertEquals(liveIn.get(stmt), analyser.getLiveLocalsBeforeStmt(stmt));
+                assertEquals(liveOut.get(stmt), analyser.getLiveLocalsAfterStmt(stmt));
+              }
+            });
+  }
+
+  private static void computeStmtLiveness(
+      StmtGraph<?> graph, Map<Stmt, Set<Local>> liveIn, Map<Stmt, Set<Local>> liveOut) {
+    for (Stmt stmt : graph.getNodes()) {
+      liveIn.put(stmt, new HashSet<>());
+      liveOut.put(stmt, new HashSet<>());
+    }
+    boolean changed = true;
+    while (changed) {
+      changed = false;
+      for (Stmt stmt : graph.getNodes()) {
+        Set<Local> out = liveOut.get(stmt);
+        for (Stmt succ : graph.successors(stmt)) {
+          changed |= out.addAll(liveIn.get(succ));
+        }
+        for (Stmt esucc : graph.exceptionalSuccessors(stmt).values()) {
+          changed |= out.addAll(liveIn.get(esucc));
+        }
+        Set<Local> in = new HashSet<>(out);
+        stmt.getDef().ifPresent(in::remove);
+        stmt.getUses().filter(use -> use instanceof Local).forEach(use -> in.add((Local) use));
+        changed |= liveIn.get(stmt).addAll(in);
+      }
+    }
+  }
+
   private Body createBody() {
 
     Body.BodyBuilder builder = Body.builder();
@@ -22,12 +22,16 @@ package sootup.java.core.views;
  * #L%
  */
 
-import java.util.Collections;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import javax.annotation.Nonnull;
 import sootup.core.cache.ClassCache;
+import sootup.core.cache.ConcurrentCache;
 import sootup.core.cache.FullCache;
 import sootup.core.cache.provider.ClassCacheProvider;
 import sootup.core.cache.provider.FullCacheProvider;
@@ -35,14 +39,22 @@ import sootup.core.frontend.AbstractClassSource;
 import sootup.core.inputlocation.AnalysisInputLocation;
 import sootup.core.signatures.FieldSignature;
 import sootup.core.signatures.MethodSignature;
+import sootup.core.typehierarchy.CompactTypeHierarchy;
+import sootup.core.typehierarchy.OnDemandTypeHierarchy;
+import sootup.core.typehierarchy.TypeHierarchy;
 import sootup.core.types.ClassType;
 import sootup.core.views.AbstractView;
+import sootup.core.views.ResolutionProgressListener;
 import sootup.java.core.*;
 
 /**
  * The Class JavaView manages the Java classes of the application being analyzed. This view cannot
  * be altered after its creation.
  *
+ * <p>If the view is created with a {@link sootup.core.cache.provider.ConcurrentCacheProvider}, the
+ * classes are resolved without locking the view, so multiple threads can resolve classes in
+ * parallel. Otherwise the resolution is synchronized on the view.
+ *
  * @author Linghui Luo created on 31.07.2018
  * @author Jan Martin Persch
  */
@@ -54,6 +66,12 @@ public class JavaView extends AbstractView {
 
   protected volatile boolean isFullyResolved = false;
 
+  /** @see #setOnDemandTypeHierarchy(boolean) */
+  protected volatile boolean onDemandTypeHierarchy = false;
+
+  /** @see #setCompactTypeHierarchy(boolean) */
+  protected volatile boolean compactTypeHierarchy = false;
+
   public JavaView(@Nonnull AnalysisInputLocation inputLocation) {
     this(Collections.singletonList(inputLocation));
   }
@@ -80,8 +98,19 @@ public class JavaView extends AbstractView {
   /** Resolves all classes that are part of the view and stores them in the cache. */
   @Override
   @Nonnull
-  public synchronized Stream<JavaSootClass> getClasses() {
-    if (isFullyResolved && cache instanceof FullCache) {
+  public Stream<JavaSootClass> getClasses() {
+    if (isConcurrent()) {
+      return resolveClasses();
+    }
+    synchronized (this) {
+      return resolveClasses();
+    }
+  }
+
+  @Nonnull
+  private Stream<JavaSootClass> resolveClasses() {
+    boolean cacheRetainsAllClasses = cache instanceof FullCache || isConcurrent();
+    if (isFullyResolved && cacheRetainsAllClasses) {
       return cache.getClasses().stream().map(clazz -> (JavaSootClass) clazz);
     }
 
@@ -92,22 +121,214 @@ public class JavaView extends AbstractView {
             .filter(Optional::isPresent)
             .map(Optional::get);
 
+    if (!cacheRetainsAllClasses) {
+      // the cache does not answer later calls anyway, so the classes are not materialized
+      return resolvedClasses;
+    }
+
+    // the flag may only be set once every class is in the cache: otherwise a concurrent caller
+    // would take the shortcut above and receive a partially filled cache
+    List<JavaSootClass> classes = resolvedClasses.collect(Collectors.toList());
     isFullyResolved = true;
+    return classes.stream();
+  }
+
+  /**
+   * Resolves all classes that are part of the view in parallel on the given pool and stores them in
+   * the cache. The class sources of the input locations are collected and the classes are built by
+   * the workers of the pool, while the cache is filled afterwards in classpath order, i.e. the
+   * result and the iteration order of the cache do not depend on the scheduling of the workers. If
+   * a class is found in multiple input locations, the first one wins, as in {@link
+   * #getClass(ClassType)}.
+   *
+   * @param pool the pool which parses and builds the classes
+   * @param listener is notified after each built class
+   * @return the resolved classes in classpath order
+   */
+  @Nonnull
+  public List<JavaSootClass> resolveAllClasses(
+      @Nonnull ForkJoinPool pool, @Nonnull ResolutionProgressListener listener) {
+    List<JavaSootClassSource> classSources =
+        runOn(
+            pool,
+            () ->
+                inputLocations
+                    .parallelStream()
+                    .flatMap(location -> location.getClassSources(this).stream())
+                    .map(classSource -> (JavaSootClassSource) classSource)
+                    .collect(Collectors.toList()));
+
+    // like javas behaviour: the first matching class on the classpath is used
+    Map<ClassType, JavaSootClassSource> uniqueSources = new LinkedHashMap<>();
+    for (JavaSootClassSource classSource : classSources) {
+      uniqueSources.putIfAbsent(classSource.getClassType(), classSource);
+    }
+    List<JavaSootClassSource> sources = new ArrayList<>(uniqueSources.values());
 
-    return resolvedClasses;
+    final int total = sources.size();
+    AtomicInteger resolvedCount = new AtomicInteger();
+    List<JavaSootClass> builtClasses =
+        runOn(
+            pool,
+            () ->
+                sources
+                    .parallelStream()
+                    .map(
+                        classSource -> {
+                          JavaSootClass theClass;
+                          if (isConcurrent()) {
+                            theClass = buildClassFrom(classSource).get();
+                          } else {
+                            theClass = (JavaSootClass) cache.getClass(classSource.getClassType());
+                            if (theClass == null) {
+                              theClass = buildClass(classSource);
+                            }
+                          }
+                          listener.onProgress(resolvedCount.incrementAndGet(), total);
+                          return theClass;
+                        })
+                    .collect(Collectors.toList()));
+
+    if (isConcurrent()) {
+      isFullyResolved = true;
+      return builtClasses;
+    }
+
+    synchronized (this) {
+      List<JavaSootClass> resolvedClasses = new ArrayList<>(total);
+      for (JavaSootClass builtClass : builtClasses) {
+        JavaSootClass cachedClass = (JavaSootClass) cache.getClass(builtClass.getType());
+        if (cachedClass != null) {
+          resolvedClasses.add(cachedClass);
+        } else {
+          cache.putClass(builtClass.getType(), builtClass);
+          resolvedClasses.add(builtClass);
+        }
+      }
+      isFullyResolved = true;
+      return resolvedClasses;
+    }
+  }
+
+  /**
+   * Resolves all classes that are part of the view in parallel on the given pool.
+   *
+   * @see #resolveAllClasses(ForkJoinPool, ResolutionProgressListener)
+   */
+  @Nonnull
+  public List<JavaSootClass> resolveAllClasses(@Nonnull ForkJoinPool pool) {
+    return resolveAllClasses(pool, ResolutionProgressListener.NONE);
+  }
+
+  /**
+   * Resolves the bodies of all methods of the given classes in parallel on the given pool, i.e.
+   * converts them and applies the {@link sootup.core.transform.BodyInterceptor}s of their input
+   * location, so that later calls of {@link sootup.core.model.SootMethod#getBody()} return the
+   * already resolved body. Each body is held by its method, so the pool does not buffer results and
+   * the number of bodies that are converted at the same time is bounded by the parallelism of the
+   * pool.
+   *
+   * <p>A method whose body can not be resolved does not abort the batch: the failure is recorded
+   * and the remaining methods are resolved nonetheless.
+   *
+   * @param classes the classes whose bodies are resolved
+   * @param pool the pool which converts the bodies and runs the interceptors
+   * @param listener is notified after each resolved (or failed) body
+   * @return the methods whose bodies could not be resolved mapped to the cause, in the order of the
+   *     given classes
+   */
+  @Nonnull
+  public Map<MethodSignature, RuntimeException> resolveBodies(
+      @Nonnull Collection<? extends JavaSootClass> classes,
+      @Nonnull ForkJoinPool pool,
+      @Nonnull ResolutionProgressListener listener) {
+    List<JavaSootMethod> methods =
+        classes.stream()
+            .flatMap(sootClass -> sootClass.getMethods().stream())
+            .filter(JavaSootMethod::hasBody)
+            .collect(Collectors.toList());
+
+    final int total = methods.size();
+    AtomicInteger resolvedCount = new AtomicInteger();
+    List<RuntimeException> failures =
+        runOn(
+            pool,
+            () ->
+                methods
+                    .parallelStream()
+                    .map(
+                        method -> {
+                          RuntimeException failure = null;
+                          try {
+                            method.getBody();
+                          } catch (RuntimeException e) {
+                            failure = e;
+                          }
+                          listener.onProgress(resolvedCount.incrementAndGet(), total);
+                          return failure;
+                        })
+                    .collect(Collectors.toList()));
+
+    Map<MethodSignature, RuntimeException> failedMethods = new LinkedHashMap<>();
+    for (int i = 0; i < total; i++) {
+      RuntimeException failure = failures.get(i);
+      if (failure != null) {
+        failedMethods.put(methods.get(i).getSignature(), failure);
+      }
+    }
+    return failedMethods;
+  }
+
+  /**
+   * Resolves all classes that are part of the view and the bodies of their methods in parallel on
+   * the given pool.
+   *
+   * @see #resolveAllClasses(ForkJoinPool, ResolutionProgressListener)
+   * @see #resolveBodies(Collection, ForkJoinPool, ResolutionProgressListener)
+   * @return the methods whose bodies could not be resolved mapped to the cause
+   */
+  @Nonnull
+  public Map<MethodSignature, RuntimeException> resolveAllBodies(@Nonnull ForkJoinPool pool) {
+    return resolveBodies(resolveAllClasses(pool), pool, ResolutionProgressListener.NONE);
+  }
+
+  private static <T> T runOn(@Nonnull ForkJoinPool pool, @Nonnull Callable<T> task) {
+    try {
+      return pool.submit(task).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while resolving the view.", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException(cause);
+    }
   }
 
   /** Resolves the class matching the provided {@link ClassType ClassType}. */
   @Override
   @Nonnull
-  public synchronized Optional<JavaSootClass> getClass(@Nonnull ClassType type) {
-    JavaSootClass cachedClass = (JavaSootClass) cache.getClass(type);
-    if (cachedClass != null) {
-      return Optional.of(cachedClass);
+  public Optional<JavaSootClass> getClass(@Nonnull ClassType type) {
+    if (isConcurrent()) {
+      return Optional.ofNullable(
+          (JavaSootClass)
+              ((ConcurrentCache) cache)
+                  .getOrCompute(type, t -> getClassSource(t).map(this::buildClass).orElse(null)));
     }
+    synchronized (this) {
+      JavaSootClass cachedClass = (JavaSootClass) cache.getClass(type);
+      if (cachedClass != null) {
+        return Optional.of(cachedClass);
+      }
 
-    Optional<JavaSootClassSource> abstractClass = getClassSource(type);
-    return abstractClass.flatMap(this::buildClassFrom);
+      Optional<JavaSootClassSource> abstractClass = getClassSource(type);
+      return abstractClass.flatMap(this::buildClassFrom);
+    }
   }
 
   @Nonnull
@@ -155,18 +376,91 @@ public class JavaView extends AbstractView {
   }
 
   @Nonnull
-  protected synchronized Optional<JavaSootClass> buildClassFrom(AbstractClassSource classSource) {
-
+  protected Optional<JavaSootClass> buildClassFrom(AbstractClassSource classSource) {
     ClassType classType = classSource.getClassType();
-    JavaSootClass theClass;
-    if (cache.hasClass(classType)) {
-      theClass = (JavaSootClass) cache.getClass(classType);
-    } else {
-      theClass =
+    if (isConcurrent()) {
+      return Optional.ofNullable(
           (JavaSootClass)
-              classSource.buildClass(classSource.getAnalysisInputLocation().getSourceType());
-      cache.putClass(classType, theClass);
+              ((ConcurrentCache) cache).getOrCompute(classType, t -> buildClass(classSource)));
+    }
+
+    synchronized (this) {
+      JavaSootClass theClass;
+      if (cache.hasClass(classType)) {
+        theClass = (JavaSootClass) cache.getClass(classType);
+      } else {
+        theClass = buildClass(classSource);
+        cache.putClass(classType, theClass);
+      }
+      return Optional.of(theClass);
+    }
+  }
+
+  @Nonnull
+  private JavaSootClass buildClass(@Nonnull AbstractClassSource classSource) {
+    return (JavaSootClass)
+        classSource.buildClass(classSource.getAnalysisInputLocation().getSourceType());
+  }
+
+  /**
+   * If set, the type hierarchy of this view is an {@link OnDemandTypeHierarchy} instead of one that
+   * resolves all classes of the view on the first query. Supertype queries only resolve the classes
+   * they reach. The first subtype query indexes the supertype references of the class sources of all
+   * input locations without building their classes, so the subtypes are complete. Locations that
+   * can skip the method code of their class sources should do so for large libraries. Has to be set
+   * before the type hierarchy is requested for the first time.
+   *
+   * @throws IllegalStateException if the type hierarchy was already created
+   */
+  public synchronized void setOnDemandTypeHierarchy(boolean onDemandTypeHierarchy) {
+    checkTypeHierarchyNotCreated();
+    this.onDemandTypeHierarchy = onDemandTypeHierarchy;
+  }
+
+  /**
+   * If set, the type hierarchy of this view is an immutable {@link CompactTypeHierarchy} instead of
+   * the graph based {@link sootup.core.typehierarchy.ViewTypeHierarchy}. It answers subtype queries
+   * from arrays, which is faster and smaller for large views whose classes do not change. Has to be
+   * set before the type hierarchy is requested for the first time; {@link
+   * #setOnDemandTypeHierarchy(boolean)} takes precedence.
+   *
+   * @throws IllegalStateException if the type hierarchy was already created
+   */
+  public synchronized void setCompactTypeHierarchy(boolean compactTypeHierarchy) {
+    checkTypeHierarchyNotCreated();
+    this.compactTypeHierarchy = compactTypeHierarchy;
+  }
+
+  /**
+   * Creates an {@link OnDemandTypeHierarchy} if {@link #setOnDemandTypeHierarchy(boolean)} is set,
+   * a {@link CompactTypeHierarchy} if {@link #setCompactTypeHierarchy(boolean)} is set and the
+   * graph based hierarchy otherwise.
+   */
+  @Override
+  @Nonnull
+  protected TypeHierarchy createTypeHierarchy() {
+    if (onDemandTypeHierarchy) {
+      return new OnDemandTypeHierarchy(this, inputLocations);
+    }
+    if (compactTypeHierarchy) {
+      return new CompactTypeHierarchy(this);
     }
-    return Optional.of(theClass);
+    return super.createTypeHierarchy();
+  }
+
+  /**
+   * Callers have to hold the lock of the view, as it is held while the type hierarchy is created.
+   *
+   * @throws IllegalStateException if the type hierarchy was already created
+   */
+  private void checkTypeHierarchyNotCreated() {
+    if (isTypeHierarchyCreated()) {
+      throw new IllegalStateException("The type hierarchy of the view was already created.");
+    }
+  }
+
+  /** Returns true if the classes of this view are resolved without locking the view. */
+  protected boolean isConcurrent() {
+    return cache instanceof ConcurrentCache;
   }
 }
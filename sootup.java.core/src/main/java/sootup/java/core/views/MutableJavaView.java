@@ -32,6 +32,8 @@ import sootup.core.cache.MutableClassCache;
 import sootup.core.cache.provider.MutableFullCacheProvider;
 import sootup.core.inputlocation.AnalysisInputLocation;
 import sootup.core.signatures.MethodSubSignature;
+import sootup.core.typehierarchy.TypeHierarchy;
+import sootup.core.typehierarchy.ViewTypeHierarchy;
 import sootup.core.types.ClassType;
 import sootup.core.views.MutableView;
 import sootup.java.core.JavaSootClass;
@@ -148,6 +150,16 @@ public class MutableJavaView extends JavaView implements MutableView {
     changeListeners.remove(listener);
   }
 
+  /**
+   * The classes of this view can change, so it always uses the graph based {@link
+   * ViewTypeHierarchy}.
+   */
+  @Override
+  @Nonnull
+  protected TypeHierarchy createTypeHierarchy() {
+    return new ViewTypeHierarchy(this);
+  }
+
   /**
    * Triggers an event in the {@link ViewChangeListener ViewChangeListener} class, when a class is
    * added to the view.
@@ -39,6 +39,7 @@ import sootup.core.inputlocation.AnalysisInputLocation;
 import sootup.core.inputlocation.FileType;
 import sootup.core.model.SourceType;
 import sootup.core.transform.BodyInterceptor;
+import sootup.core.transform.StmtGraphValidation;
 import sootup.core.types.ClassType;
 import sootup.core.util.PathUtils;
 import sootup.core.util.StreamUtils;
@@ -51,6 +52,7 @@ public class JimpleAnalysisInputLocation implements AnalysisInputLocation {
   private final SourceType srcType;
 
   @Nonnull private final List<BodyInterceptor> bodyInterceptors;
+  @Nonnull private StmtGraphValidation stmtGraphValidation = StmtGraphValidation.FINAL;
 
   public JimpleAnalysisInputLocation(@Nonnull Path path) {
     this(path, SourceType.Application, Collections.emptyList());
@@ -89,6 +91,19 @@ public class JimpleAnalysisInputLocation implements AnalysisInputLocation {
     return bodyInterceptors;
   }
 
+  /**
+   * Sets how the StmtGraphs of the bodies are validated while the body interceptors are applied.
+   */
+  public void setStmtGraphValidation(@Nonnull StmtGraphValidation stmtGraphValidation) {
+    this.stmtGraphValidation = stmtGraphValidation;
+  }
+
+  @Nonnull
+  @Override
+  public StmtGraphValidation getStmtGraphValidation() {
+    return stmtGraphValidation;
+  }
+
   @Nonnull
   List<SootClassSource> walkDirectory(
       @Nonnull Path dirPath,
@@ -48,6 +48,7 @@ import sootup.core.signatures.MethodSignature;
 import sootup.core.signatures.SootClassMemberSignature;
 import sootup.core.signatures.SootClassMemberSubSignature;
 import sootup.core.transform.BodyInterceptor;
+import sootup.core.transform.StmtGraphValidation;
 import sootup.core.types.*;
 import sootup.core.views.View;
 import sootup.java.core.JavaIdentifierFactory;
@@ -80,7 +81,9 @@ public class JimpleConverter {
 
     ClassVisitor classVisitor;
     try {
-      classVisitor = new ClassVisitor(sourcePath, bodyInterceptors, view);
+      classVisitor =
+          new ClassVisitor(
+              sourcePath, bodyInterceptors, inputlocation.getStmtGraphValidation(), view);
       classVisitor.visit(parser.file());
     } catch (ParseCancellationException ex) {
       throw new ResolveException("Syntax Error", sourcePath, ex);
@@ -107,13 +110,23 @@ public class JimpleConverter {
     @Nonnull private final JimpleConverterUtil util;
     @Nonnull private final Path path;
     @Nonnull private final List<BodyInterceptor> bodyInterceptors;
+    @Nonnull private final StmtGraphValidation stmtGraphValidation;
     @Nonnull private final View view;
 
     public ClassVisitor(
         @Nonnull Path path, @Nonnull List<BodyInterceptor> bodyInterceptors, @Nonnull View view) {
+      this(path, bodyInterceptors, StmtGraphValidation.FINAL, view);
+    }
+
+    public ClassVisitor(
+        @Nonnull Path path,
+        @Nonnull List<BodyInterceptor> bodyInterceptors,
+        @Nonnull StmtGraphValidation stmtGraphValidation,
+        @Nonnull View view) {
       this.path = path;
       util = new JimpleConverterUtil(path);
       this.bodyInterceptors = bodyInterceptors;
+      this.stmtGraphValidation = stmtGraphValidation;
       this.view = view;
     }
 
@@ -191,18 +204,8 @@ public class JimpleConverter {
           }
           if (m.isConcrete()) {
             Body.BodyBuilder bodyBuilder = Body.builder(m.getBody(), m.getModifiers());
-            for (BodyInterceptor bodyInterceptor : bodyInterceptors) {
-              try {
-                bodyInterceptor.interceptBody(bodyBuilder, view);
-                bodyBuilder
-                    .getStmtGraph()
-                    .validateStmtConnectionsInGraph(); // TODO: remove in the future ;-)
-              } catch (Exception e) {
-                throw new IllegalStateException(
-                    "Failed to apply " + bodyInterceptor + " to " + m.getSignature(), e);
-              }
-            }
-            Body modifiedBody = bodyBuilder.build();
+            Body modifiedBody =
+                stmtGraphValidation.interceptAndBuild(bodyBuilder, bodyInterceptors, view);
             SootMethod sm =
                 new SootMethod(
                     new OverridingBodySource(m.getBodySource()).withBody(modifiedBody),
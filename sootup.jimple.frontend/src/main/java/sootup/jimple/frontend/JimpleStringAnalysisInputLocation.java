@@ -35,6 +35,7 @@ import sootup.core.frontend.SootClassSource;
 import sootup.core.inputlocation.AnalysisInputLocation;
 import sootup.core.model.SourceType;
 import sootup.core.transform.BodyInterceptor;
+import sootup.core.transform.StmtGraphValidation;
 import sootup.core.types.ClassType;
 import sootup.core.views.View;
 import sootup.interceptors.BytecodeBodyInterceptors;
@@ -49,6 +50,7 @@ public class JimpleStringAnalysisInputLocation implements AnalysisInputLocation
 
   @Nonnull final Path path = Paths.get("only-in-memory.jimple");
   @Nonnull final List<BodyInterceptor> bodyInterceptors;
+  @Nonnull private StmtGraphValidation stmtGraphValidation = StmtGraphValidation.FINAL;
   @Nonnull final SourceType sourceType;
   private String jimpleFileContents;
 
@@ -107,4 +109,17 @@ public class JimpleStringAnalysisInputLocation implements AnalysisInputLocation
   public List<BodyInterceptor> getBodyInterceptors() {
     return bodyInterceptors;
   }
+
+  /**
+   * Sets how the StmtGraphs of the bodies are validated while the body interceptors are applied.
+   */
+  public void setStmtGraphValidation(@Nonnull StmtGraphValidation stmtGraphValidation) {
+    this.stmtGraphValidation = stmtGraphValidation;
+  }
+
+  @Nonnull
+  @Override
+  public StmtGraphValidation getStmtGraphValidation() {
+    return stmtGraphValidation;
+  }
 }
@@ -19,7 +19,6 @@
 package qilin.core;
 
 import java.util.*;
-import qilin.util.DataFactory;
 import qilin.util.PTAUtils;
 import qilin.util.queue.ChunkedQueue;
 import sootup.core.jimple.common.expr.JSpecialInvokeExpr;
@@ -39,12 +38,10 @@ import sootup.core.views.View;
  * @author Ondrej Lhotak
  */
 public class VirtualCalls {
-  private final Map<Type, Map<MethodSubSignature, SootMethod>> typeToVtbl;
   protected View view;
 
   public VirtualCalls(View view) {
     this.view = view;
-    this.typeToVtbl = DataFactory.createMap((int) view.getClasses().count());
   }
 
   public SootMethod resolveSpecial(
@@ -78,36 +75,16 @@ public class VirtualCalls {
     return resolveNonSpecial(t, subSig, false);
   }
 
+  /**
+   * Resolves the virtual dispatch via the {@link sootup.core.typehierarchy.DispatchCache} that is
+   * shared with the call graph algorithms of the view.
+   */
   public SootMethod resolveNonSpecial(ClassType t, MethodSubSignature subSig, boolean appOnly) {
-    Map<MethodSubSignature, SootMethod> vtbl =
-        typeToVtbl.computeIfAbsent(t, k -> DataFactory.createMap(8));
-    SootMethod ret = vtbl.get(subSig);
-    if (ret != null) {
-      return ret;
-    }
     SootClass cls = view.getClass(t).get();
     if (appOnly && cls.isLibraryClass()) {
       return null;
     }
-    Optional<? extends SootMethod> om = cls.getMethod(subSig);
-    if (om.isPresent()) {
-      SootMethod m = om.get();
-      if (!m.isAbstract()) {
-        ret = m;
-      }
-    } else {
-      Optional<? extends ClassType> oc = cls.getSuperclass();
-      if (oc.isPresent()) {
-        ClassType ct = oc.get();
-        SootClass c = view.getClass(ct).get();
-        ret = resolveNonSpecial(c.getType(), subSig);
-      }
-    }
-    if (ret == null) {
-      return null;
-    }
-    vtbl.put(subSig, ret);
-    return ret;
+    return view.getDispatchCache().resolveConcreteDispatch(t, subSig).orElse(null);
   }
 
   public void resolve(
@@ -1,18 +1,38 @@
 package sootup.tests;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import sootup.core.cache.MemoryBoundedCache;
+import sootup.core.cache.provider.ConcurrentCacheProvider;
 import sootup.core.cache.provider.FullCacheProvider;
 import sootup.core.cache.provider.LRUCacheProvider;
+import sootup.core.cache.provider.MemoryBoundedCacheProvider;
 import sootup.core.inputlocation.AnalysisInputLocation;
+import sootup.core.model.Body;
+import sootup.core.model.SootClass;
+import sootup.core.model.SootMethod;
 import sootup.core.model.SourceType;
+import sootup.core.signatures.MethodSignature;
+import sootup.core.transform.BodyInterceptor;
 import sootup.core.types.ClassType;
 import sootup.java.bytecode.frontend.inputlocation.PathBasedAnalysisInputLocation;
 import sootup.java.core.views.JavaView;
@@ -75,4 +95,154 @@ public class CacheTest {
     newView.getClasses().count();
     assertEquals(6, newView.getCachedClassesCount());
   }
+
+  /** Test the {@link sootup.core.cache.ConcurrentCache} class */
+  @Test
+  public void concurrentCacheTest() throws Exception {
+    JavaView view = new JavaView(inputLocations, new ConcurrentCacheProvider());
+    assertEquals(0, view.getCachedClassesCount());
+
+    ClassType miniAppClassType = view.getIdentifierFactory().getClassType("MiniApp");
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<SootClass>> futures =
+          IntStream.range(0, 32)
+              .mapToObj(
+                  i -> executor.submit(() -> (SootClass) view.getClassOrThrow(miniAppClassType)))
+              .collect(Collectors.toList());
+      SootClass first = futures.get(0).get();
+      for (Future<SootClass> future : futures) {
+        assertSame(first, future.get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+    assertEquals(1, view.getCachedClassesCount());
+
+    view.getClasses().count();
+    assertEquals(6, view.getCachedClassesCount());
+    assertEquals(6, view.getClasses().count());
+  }
+
+  /** Test the parallel bulk resolution of a view */
+  @Test
+  public void parallelResolutionTest() {
+    JavaView view = new JavaView(inputLocations, new FullCacheProvider());
+    ForkJoinPool pool = new ForkJoinPool(4);
+    AtomicInteger progress = new AtomicInteger();
+    List<ClassType> resolvedTypes;
+    try {
+      resolvedTypes =
+          view
+              .resolveAllClasses(
+                  pool, (resolved, total) -> progress.accumulateAndGet(resolved, Math::max))
+              .stream()
+              .map(SootClass::getType)
+              .collect(Collectors.toList());
+    } finally {
+      pool.shutdown();
+    }
+    assertEquals(6, resolvedTypes.size());
+    assertEquals(6, progress.get());
+    assertEquals(6, view.getCachedClassesCount());
+
+    // the cache keeps the classpath order regardless of the scheduling
+    assertEquals(
+        resolvedTypes, view.getClasses().map(SootClass::getType).collect(Collectors.toList()));
+    JavaView sequentialView = new JavaView(inputLocations, new FullCacheProvider());
+    assertEquals(
+        resolvedTypes,
+        sequentialView.getClasses().map(SootClass::getType).collect(Collectors.toList()));
+  }
+
+  /** Test the parallel resolution of the bodies of a view */
+  @Test
+  public void parallelBodyResolutionTest() {
+    // fails the conversion of every main method
+    BodyInterceptor failingInterceptor =
+        (builder, view) -> {
+          if (builder.getMethodSignature().getName().equals("main")) {
+            throw new IllegalStateException("failing on purpose");
+          }
+        };
+    JavaView view =
+        new JavaView(
+            Collections.singletonList(
+                PathBasedAnalysisInputLocation.create(
+                    pathToJar,
+                    SourceType.Application,
+                    Collections.singletonList(failingInterceptor))));
+    ForkJoinPool pool = new ForkJoinPool(4);
+    Map<MethodSignature, RuntimeException> failures;
+    try {
+      failures = view.resolveAllBodies(pool);
+    } finally {
+      pool.shutdown();
+    }
+
+    assertFalse(failures.isEmpty());
+    for (MethodSignature failedMethod : failures.keySet()) {
+      assertEquals("main", failedMethod.getName());
+    }
+    List<SootMethod> methods =
+        view.getClasses()
+            .flatMap(sootClass -> sootClass.getMethods().stream())
+            .filter(SootMethod::hasBody)
+            .collect(Collectors.toList());
+    for (SootMethod method : methods) {
+      assertEquals(!failures.containsKey(method.getSignature()), method.isBodyResolved());
+    }
+  }
+
+  /** Test the {@link sootup.core.cache.MemoryBoundedCache} class */
+  @Test
+  public void memoryBoundedCacheTest() {
+    JavaView view = new JavaView(inputLocations);
+    SootClass miniApp = view.getClassOrThrow(view.getIdentifierFactory().getClassType("MiniApp"));
+    SootClass operations =
+        view.getClassOrThrow(view.getIdentifierFactory().getClassType("utils.Operations"));
+
+    MemoryBoundedCache unboundedCache = new MemoryBoundedCache(Long.MAX_VALUE);
+    unboundedCache.putClass(miniApp.getType(), miniApp);
+    unboundedCache.putClass(operations.getType(), operations);
+    long shellSize = unboundedCache.getEstimatedRetainedSize();
+
+    // large enough for the class shells but not for any additional body
+    MemoryBoundedCache cache = new MemoryBoundedCache(shellSize);
+    cache.putClass(miniApp.getType(), miniApp);
+    SootMethod method =
+        miniApp.getMethods().stream().filter(SootMethod::isConcrete).findFirst().get();
+    Body body = method.getBody();
+    assertTrue(method.isBodyResolved());
+
+    // the shells fit, so adding a class does not scan the resolved bodies
+    cache.putClass(operations.getType(), operations);
+    assertEquals(2, cache.size());
+    assertTrue(method.isBodyResolved());
+
+    // checking the limit releases the body
+    cache.trim();
+    assertEquals(2, cache.size());
+    assertFalse(method.isBodyResolved());
+
+    // the body is resolved again on demand
+    Body reresolvedBody = method.getBody();
+    assertNotSame(body, reresolvedBody);
+    assertEquals(body.toString(), reresolvedBody.toString());
+
+    // a limit that is too small for the class shells evicts whole classes
+    JavaView tinyView = new JavaView(inputLocations, new MemoryBoundedCacheProvider(1));
+    tinyView.getClasses().count();
+    assertEquals(0, tinyView.getCachedClassesCount());
+  }
+
+  @Test
+  public void concurrentCachePartiallyConsumedClassesTest() {
+    JavaView view = new JavaView(inputLocations, new ConcurrentCacheProvider());
+
+    // a caller that stops early must not leave the view flagged as fully resolved
+    assertTrue(view.getClasses().findFirst().isPresent());
+    assertEquals(6, view.getClasses().count());
+    assertEquals(6, view.getCachedClassesCount());
+  }
 }
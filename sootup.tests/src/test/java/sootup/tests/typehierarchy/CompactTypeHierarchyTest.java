@@ -0,0 +1,45 @@
+package sootup.tests.typehierarchy;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static sootup.tests.typehierarchy.TypeHierarchyAssertions.assertSameAsViewTypeHierarchy;
+
+import java.nio.file.Paths;
+import java.util.*;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import sootup.core.inputlocation.AnalysisInputLocation;
+import sootup.core.model.SourceType;
+import sootup.core.typehierarchy.CompactTypeHierarchy;
+import sootup.core.typehierarchy.TypeHierarchy;
+import sootup.core.typehierarchy.ViewTypeHierarchy;
+import sootup.java.bytecode.frontend.inputlocation.PathBasedAnalysisInputLocation;
+import sootup.java.core.views.JavaView;
+import sootup.java.core.views.MutableJavaView;
+
+/** Compares the {@link CompactTypeHierarchy} with the graph based {@link ViewTypeHierarchy}. */
+@Tag("Java8")
+public class CompactTypeHierarchyTest {
+
+  @Test
+  public void testSameAsViewTypeHierarchy() {
+    List<AnalysisInputLocation> inputLocations =
+        Arrays.asList(
+            PathBasedAnalysisInputLocation.create(
+                Paths.get("../shared-test-resources/java-miniapps/MiniApp.jar"),
+                SourceType.Application),
+            PathBasedAnalysisInputLocation.create(
+                Paths.get("../shared-test-resources/soot-1580/jpush-android_v3.0.5.jar"),
+                SourceType.Library));
+    JavaView view = new JavaView(inputLocations);
+    view.setCompactTypeHierarchy(true);
+    TypeHierarchy compact = view.getTypeHierarchy();
+    assertTrue(compact instanceof CompactTypeHierarchy);
+    assertSameAsViewTypeHierarchy(view, compact);
+
+    // the graph based hierarchy stays the default, and a mutable view always uses it
+    assertTrue(new JavaView(inputLocations).getTypeHierarchy() instanceof ViewTypeHierarchy);
+    MutableJavaView mutableView = new MutableJavaView(inputLocations);
+    mutableView.setCompactTypeHierarchy(true);
+    assertTrue(mutableView.getTypeHierarchy() instanceof ViewTypeHierarchy);
+  }
+}
@@ -0,0 +1,92 @@
+package sootup.tests.typehierarchy;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static sootup.tests.typehierarchy.TypeHierarchyAssertions.assertSameAsViewTypeHierarchy;
+import static sootup.tests.typehierarchy.TypeHierarchyAssertions.assertSameTypes;
+
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import sootup.core.inputlocation.AnalysisInputLocation;
+import sootup.core.model.SootClass;
+import sootup.core.model.SourceType;
+import sootup.core.typehierarchy.OnDemandTypeHierarchy;
+import sootup.core.typehierarchy.TypeHierarchy;
+import sootup.core.typehierarchy.ViewTypeHierarchy;
+import sootup.core.types.ClassType;
+import sootup.java.bytecode.frontend.inputlocation.PathBasedAnalysisInputLocation;
+import sootup.java.core.views.JavaView;
+
+/** Compares the {@link OnDemandTypeHierarchy} with the graph based {@link ViewTypeHierarchy}. */
+@Tag("Java8")
+public class OnDemandTypeHierarchyTest {
+
+  private static final String MINI_APP = "../shared-test-resources/java-miniapps/MiniApp.jar";
+  private static final String JPUSH = "../shared-test-resources/soot-1580/jpush-android_v3.0.5.jar";
+
+  private static JavaView createView(SourceType jpushSourceType) {
+    List<AnalysisInputLocation> inputLocations =
+        Arrays.asList(
+            PathBasedAnalysisInputLocation.create(Paths.get(MINI_APP), SourceType.Application),
+            PathBasedAnalysisInputLocation.create(Paths.get(JPUSH), jpushSourceType));
+    JavaView view = new JavaView(inputLocations);
+    view.setOnDemandTypeHierarchy(true);
+    return view;
+  }
+
+  @Test
+  public void testSameAsViewTypeHierarchy() {
+    JavaView view = createView(SourceType.Application);
+    TypeHierarchy onDemand = view.getTypeHierarchy();
+    assertTrue(onDemand instanceof OnDemandTypeHierarchy);
+    assertSameAsViewTypeHierarchy(view, onDemand);
+  }
+
+  @Test
+  public void testLibrarySubtypesAreComplete() {
+    JavaView view = createView(SourceType.Library);
+    assertSameAsViewTypeHierarchy(view, view.getTypeHierarchy());
+
+    // the library is indexed as well, so the subtypes do not depend on the previous queries
+    ViewTypeHierarchy graph = new ViewTypeHierarchy(view);
+    List<ClassType> libraryTypes =
+        view.getClasses()
+            .filter(SootClass::isLibraryClass)
+            .map(SootClass::getType)
+            .filter(type -> graph.directSubtypesOf(type).findAny().isPresent())
+            .collect(Collectors.toList());
+    assertFalse(libraryTypes.isEmpty());
+    for (ClassType libraryType : libraryTypes) {
+      TypeHierarchy onDemand = createView(SourceType.Library).getTypeHierarchy();
+      assertSameTypes(libraryType, graph, onDemand, th -> th.subtypesOf(libraryType));
+    }
+  }
+
+  @Test
+  public void testLibraryIsResolvedOnDemand() {
+    JavaView view = createView(SourceType.Library);
+    TypeHierarchy onDemand = view.getTypeHierarchy();
+    ClassType employee = view.getIdentifierFactory().getClassType("ds.Employee");
+    ClassType abstractDataStructure =
+        view.getIdentifierFactory().getClassType("ds.AbstractDataStrcture");
+
+    // supertype queries only resolve the superclass chain
+    assertTrue(onDemand.superClassesOf(employee).anyMatch(abstractDataStructure::equals));
+    int resolvedForSupertypes = view.getCachedClassesCount();
+    assertTrue(resolvedForSupertypes <= 3, "resolved " + resolvedForSupertypes + " classes");
+
+    // subtype queries index the class sources of all locations without resolving them via the view
+    assertTrue(onDemand.subclassesOf(abstractDataStructure).anyMatch(employee::equals));
+    assertEquals(resolvedForSupertypes, view.getCachedClassesCount());
+  }
+
+  @Test
+  public void testKindCanNotChangeAfterCreation() {
+    JavaView view = createView(SourceType.Library);
+    view.getTypeHierarchy();
+    assertThrows(IllegalStateException.class, () -> view.setOnDemandTypeHierarchy(false));
+    assertTrue(view.getTypeHierarchy() instanceof OnDemandTypeHierarchy);
+  }
+}
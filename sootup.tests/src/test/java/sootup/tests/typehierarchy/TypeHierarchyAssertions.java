@@ -0,0 +1,81 @@
+package sootup.tests.typehierarchy;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import sootup.core.model.SootClass;
+import sootup.core.typehierarchy.TypeHierarchy;
+import sootup.core.typehierarchy.ViewTypeHierarchy;
+import sootup.core.types.ClassType;
+import sootup.core.views.View;
+
+/** Compares a {@link TypeHierarchy} of a view with the graph based {@link ViewTypeHierarchy}. */
+final class TypeHierarchyAssertions {
+
+  private TypeHierarchyAssertions() {}
+
+  /**
+   * Asserts that the given hierarchy answers all queries about the classes of the view and the
+   * types they reference as supertypes like a {@link ViewTypeHierarchy} of the same view.
+   */
+  static void assertSameAsViewTypeHierarchy(View view, TypeHierarchy actual) {
+    ViewTypeHierarchy graph = new ViewTypeHierarchy(view);
+    Set<ClassType> types = classAndSupertypesOf(view);
+    assertFalse(actual.contains(view.getIdentifierFactory().getClassType("does.not.Exist")));
+
+    for (ClassType type : types) {
+      assertTrue(actual.contains(type));
+      assertEquals(graph.isInterface(type), actual.isInterface(type), type.toString());
+      assertSameTypes(type, graph, actual, th -> th.subtypesOf(type));
+      assertSameTypes(type, graph, actual, th -> th.directSubtypesOf(type));
+      assertSameTypes(type, graph, actual, th -> th.implementedInterfacesOf(type));
+      assertSameTypes(type, graph, actual, th -> th.superClassesOf(type));
+      assertEquals(graph.superClassOf(type), actual.superClassOf(type), type.toString());
+      if (graph.isInterface(type)) {
+        assertSameTypes(type, graph, actual, th -> th.directlyExtendedInterfacesOf(type));
+        assertThrows(IllegalArgumentException.class, () -> actual.subclassesOf(type));
+      } else {
+        assertSameTypes(type, graph, actual, th -> th.directlyImplementedInterfacesOf(type));
+        assertThrows(IllegalArgumentException.class, () -> actual.implementersOf(type));
+      }
+
+      for (ClassType otherType : types) {
+        assertEquals(
+            graph.isSubtype(type, otherType),
+            actual.isSubtype(type, otherType),
+            otherType + " <: " + type);
+        assertEquals(
+            new HashSet<>(graph.getLowestCommonAncestors(type, otherType)),
+            new HashSet<>(actual.getLowestCommonAncestors(type, otherType)),
+            "lca(" + type + ", " + otherType + ")");
+      }
+    }
+  }
+
+  /** Returns the classes of the view and all types they reference as supertypes. */
+  static Set<ClassType> classAndSupertypesOf(View view) {
+    Set<ClassType> types = new LinkedHashSet<>();
+    for (SootClass sootClass : view.getClasses().collect(Collectors.toList())) {
+      types.add(sootClass.getType());
+      types.addAll(sootClass.getInterfaces());
+      if (!sootClass.isInterface()) {
+        sootClass.getSuperclass().ifPresent(types::add);
+      }
+    }
+    return types;
+  }
+
+  static void assertSameTypes(
+      ClassType type,
+      TypeHierarchy expected,
+      TypeHierarchy actual,
+      Function<TypeHierarchy, Stream<ClassType>> query) {
+    assertEquals(
+        query.apply(expected).collect(Collectors.toSet()),
+        query.apply(actual).collect(Collectors.toSet()),
+        type.toString());
+  }
+}
@@ -25,12 +25,15 @@ import sootup.core.util.ImmutableUtils;
 import sootup.java.bytecode.frontend.inputlocation.JavaClassPathAnalysisInputLocation;
 import sootup.java.core.JavaIdentifierFactory;
 import sootup.java.core.OverridingJavaClassSource;
+import sootup.java.core.types.JavaClassType;
 import sootup.java.core.views.JavaView;
 
 /** @author Kaustubh Kelkar update on 22.04.2020 */
 @Tag("Java8")
 public class ViewTypeHierarchyTest {
 
+  private static final String MINI_APP_JAR = "../shared-test-resources/java-miniapps/MiniApp.jar";
+
   private JavaView view;
   private ViewTypeHierarchy typeHierarchy;
   private JavaClassPathAnalysisInputLocation analysisInputLocation;
@@ -38,7 +41,7 @@ public class ViewTypeHierarchyTest {
   @BeforeEach
   public void setup() {
 
-    String jarFile = "../shared-test-resources/java-miniapps/MiniApp.jar";
+    String jarFile = MINI_APP_JAR;
     assertTrue(new File(jarFile).exists(), "File " + jarFile + " not found.");
     String currentClassPath =
         System.getProperty("java.class.path")
@@ -202,6 +205,80 @@ public class ViewTypeHierarchyTest {
         "Newly added type must be detected as a subtype");
   }
 
+  @Test
+  public void lowestCommonAncestorsConcurrently() {
+    // the types of MiniApp.jar only: all pairs of the rt.jar types are too many
+    List<ClassType> types = new ArrayList<>();
+    new JavaView(new JavaClassPathAnalysisInputLocation(MINI_APP_JAR))
+        .getClasses()
+        .forEach(
+            sootClass -> {
+              types.add(sootClass.getType());
+              types.addAll(sootClass.getInterfaces());
+            });
+    ViewTypeHierarchy sequentialHierarchy = new ViewTypeHierarchy(view);
+    Map<Pair<ClassType, ClassType>, Set<ClassType>> expected = new HashMap<>();
+    for (ClassType a : types) {
+      for (ClassType b : types) {
+        expected.put(
+            Pair.of(a, b), new HashSet<>(sequentialHierarchy.getLowestCommonAncestors(a, b)));
+      }
+    }
+
+    // the shared hierarchy is queried from several threads, in both argument orders
+    expected
+        .keySet()
+        .parallelStream()
+        .forEach(
+            pair -> {
+              assertEquals(
+                  expected.get(pair),
+                  new HashSet<>(
+                      typeHierarchy.getLowestCommonAncestors(pair.getLeft(), pair.getRight())));
+              assertEquals(
+                  expected.get(pair),
+                  new HashSet<>(
+                      typeHierarchy.getLowestCommonAncestors(pair.getRight(), pair.getLeft())));
+            });
+  }
+
+  @Test
+  public void lowestCommonAncestorsAfterAddType() {
+    JavaIdentifierFactory factory = view.getIdentifierFactory();
+    JavaClassType newType = factory.getClassType("adummytype.Type");
+    ClassType department = factory.getClassType("ds.Department");
+    ClassType objectType = factory.getClassType("java.lang.Object");
+    assertEquals(
+        Collections.singleton(objectType),
+        typeHierarchy.getLowestCommonAncestors(newType, department));
+
+    OverridingJavaClassSource classSource =
+        new OverridingJavaClassSource(
+            analysisInputLocation,
+            null,
+            newType,
+            factory.getClassType("ds.Employee"),
+            Collections.emptySet(),
+            null,
+            Collections.emptySet(),
+            Collections.emptySet(),
+            null,
+            EnumSet.of(ClassModifier.FINAL),
+            Collections.emptyList(),
+            Collections.emptyList(),
+            Collections.emptyList());
+    typeHierarchy.addType(new SootClass(classSource, SourceType.Application));
+
+    // cached results of the previous hierarchy must not survive the modification
+    assertEquals(
+        typeHierarchy.getLowestCommonAncestors(factory.getClassType("ds.Employee"), department),
+        typeHierarchy.getLowestCommonAncestors(newType, department));
+    assertTrue(
+        typeHierarchy
+            .getLowestCommonAncestors(newType, department)
+            .contains(factory.getClassType("ds.AbstractDataStrcture")));
+  }
+
   @Test
   public void arraySubtyping() {
     IdentifierFactory factory = view.getIdentifierFactory();